@@ -0,0 +1,25 @@
+package mine.ambulance_service.config;
+
+import mine.ambulance_service.websocket.AmbulanceWebSocketHandler;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.socket.config.annotation.EnableWebSocket;
+import org.springframework.web.socket.config.annotation.WebSocketConfigurer;
+import org.springframework.web.socket.config.annotation.WebSocketHandlerRegistry;
+
+@Configuration
+@EnableWebSocket
+public class PositionStreamConfig implements WebSocketConfigurer {
+
+    private final AmbulanceWebSocketHandler ambulanceWebSocketHandler;
+
+    public PositionStreamConfig(AmbulanceWebSocketHandler ambulanceWebSocketHandler) {
+        this.ambulanceWebSocketHandler = ambulanceWebSocketHandler;
+    }
+
+    @Override
+    public void registerWebSocketHandlers(WebSocketHandlerRegistry registry) {
+        // Plain WebSocket (no SockJS, no STOMP) position stream for lightweight clients
+        registry.addHandler(ambulanceWebSocketHandler, AmbulanceWebSocketHandler.PATH)
+                .setAllowedOrigins("*"); // Configure CORS as needed
+    }
+}
@@ -1,21 +1,86 @@
 package mine.ambulance_service.config;
 
+import mine.ambulance_service.websocket.EncodingChannelInterceptor;
+import mine.ambulance_service.websocket.NodeScope;
+import mine.ambulance_service.websocket.NodeScopeChannelInterceptor;
+import mine.ambulance_service.websocket.OutboundBackpressureInterceptor;
+import mine.ambulance_service.websocket.SessionOutboxRegistry;
+import mine.ambulance_service.websocket.ViewportChannelInterceptor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.messaging.simp.config.ChannelRegistration;
 import org.springframework.messaging.simp.config.MessageBrokerRegistry;
+import org.springframework.messaging.simp.config.StompBrokerRelayRegistration;
+import org.springframework.util.StringUtils;
 import org.springframework.web.socket.config.annotation.EnableWebSocketMessageBroker;
 import org.springframework.web.socket.config.annotation.StompEndpointRegistry;
 import org.springframework.web.socket.config.annotation.WebSocketMessageBrokerConfigurer;
+import org.springframework.web.socket.config.annotation.WebSocketTransportRegistration;
 
 @Configuration
 @EnableWebSocketMessageBroker
 public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
 
+    private final ViewportChannelInterceptor viewportChannelInterceptor;
+    private final EncodingChannelInterceptor encodingChannelInterceptor;
+    private final NodeScopeChannelInterceptor nodeScopeChannelInterceptor;
+    private final NodeScope nodeScope;
+    private final OutboundBackpressureInterceptor outboundBackpressureInterceptor;
+    private final SessionOutboxRegistry sessionOutboxRegistry;
+
+    @Value("${ambulance.websocket.relay.host:localhost}")
+    private String relayHost;
+
+    @Value("${ambulance.websocket.relay.port:61613}")
+    private int relayPort;
+
+    @Value("${ambulance.websocket.relay.login:guest}")
+    private String relayLogin;
+
+    @Value("${ambulance.websocket.relay.passcode:guest}")
+    private String relayPasscode;
+
+    @Value("${ambulance.websocket.relay.virtual-host:}")
+    private String relayVirtualHost;
+
+    public WebSocketConfig(ViewportChannelInterceptor viewportChannelInterceptor,
+                           EncodingChannelInterceptor encodingChannelInterceptor,
+                           NodeScopeChannelInterceptor nodeScopeChannelInterceptor,
+                           NodeScope nodeScope,
+                           OutboundBackpressureInterceptor outboundBackpressureInterceptor,
+                           SessionOutboxRegistry sessionOutboxRegistry) {
+        this.viewportChannelInterceptor = viewportChannelInterceptor;
+        this.encodingChannelInterceptor = encodingChannelInterceptor;
+        this.nodeScopeChannelInterceptor = nodeScopeChannelInterceptor;
+        this.nodeScope = nodeScope;
+        this.outboundBackpressureInterceptor = outboundBackpressureInterceptor;
+        this.sessionOutboxRegistry = sessionOutboxRegistry;
+    }
+
     @Override
     public void configureMessageBroker(MessageBrokerRegistry config) {
-        // Enable a simple memory-based message broker to send messages to clients
-        // The prefix "/topic" is used for messages that are broadcasted to all connected clients
-        config.enableSimpleBroker("/topic");
-        
+        if (nodeScope.isRelay()) {
+            // Relay "/topic" and "/queue" to an external STOMP broker (e.g. RabbitMQ or ActiveMQ) shared by
+            // every instance, so a message published on any instance reaches every connected client
+            StompBrokerRelayRegistration relay = config.enableStompBrokerRelay("/topic", "/queue")
+                    .setRelayHost(relayHost)
+                    .setRelayPort(relayPort)
+                    .setClientLogin(relayLogin)
+                    .setClientPasscode(relayPasscode)
+                    .setSystemLogin(relayLogin)
+                    .setSystemPasscode(relayPasscode)
+                    .setUserDestinationBroadcast("/topic/unresolved-user-destination")
+                    .setUserRegistryBroadcast("/topic/simp-user-registry");
+            if (StringUtils.hasText(relayVirtualHost)) {
+                relay.setVirtualHost(relayVirtualHost);
+            }
+        } else {
+            // Enable a simple memory-based message broker to send messages to clients
+            // The prefix "/topic" is used for messages that are broadcasted to all connected clients
+            // "/queue" carries per-session messages such as the initial fleet snapshot
+            config.enableSimpleBroker("/topic", "/queue");
+        }
+
         // Set prefix for messages bound for methods annotated with @MessageMapping
         config.setApplicationDestinationPrefixes("/app");
     }
@@ -28,4 +93,24 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
                 .setAllowedOrigins("*") // Configure CORS as needed
                 .withSockJS();
     }
+
+    @Override
+    public void configureClientInboundChannel(ChannelRegistration registration) {
+        // Records the viewport header of SUBSCRIBE frames to /user/queue/fleet-viewport, then moves
+        // subscriptions with "encoding:binary" to the binary sibling destination, then moves fleet
+        // subscriptions to this instance's topic when relaying
+        registration.interceptors(viewportChannelInterceptor, encodingChannelInterceptor, nodeScopeChannelInterceptor);
+    }
+
+    @Override
+    public void configureClientOutboundChannel(ChannelRegistration registration) {
+        // Holds frames for sessions that cannot keep up, keeping only the latest position per ambulance
+        registration.interceptors(outboundBackpressureInterceptor);
+    }
+
+    @Override
+    public void configureWebSocketTransport(WebSocketTransportRegistration registration) {
+        // Gives every session an outbox and times each write to it
+        registration.addDecoratorFactory(sessionOutboxRegistry::decorate);
+    }
 }
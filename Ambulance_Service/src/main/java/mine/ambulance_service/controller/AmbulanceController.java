@@ -1,9 +1,17 @@
 package mine.ambulance_service.controller;
 
+import mine.ambulance_service.dto.LocationFixDTO;
+import mine.ambulance_service.dto.NearbyAmbulanceDTO;
+import mine.ambulance_service.dto.NearestQueryDTO;
+import mine.ambulance_service.live.LiveAmbulanceStore;
+import mine.ambulance_service.live.LiveAmbulanceStore.Reservation;
 import mine.ambulance_service.model.Ambulance;
+import mine.ambulance_service.service.AmbulanceLocationNotifierService;
+import mine.ambulance_service.service.AmbulanceLocationNotifierService.AmbulanceLocationUpdate;
 import mine.ambulance_service.service.AmbulanceService;
+import mine.ambulance_service.service.LocationIngestService;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
-import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
@@ -14,13 +22,16 @@ import java.util.Map;
 @RequestMapping("/ambulances")
 public class AmbulanceController {
 
-    private final SimpMessagingTemplate messagingTemplate;
+    private final AmbulanceLocationNotifierService locationNotifier;
     private final AmbulanceService ambulanceService;
+    private final LocationIngestService locationIngestService;
 
-    // Constructor injection for both AmbulanceService and SimpMessagingTemplate
-    public AmbulanceController(AmbulanceService ambulanceService, SimpMessagingTemplate messagingTemplate) {
+    // Constructor injection for both AmbulanceService and AmbulanceLocationNotifierService
+    public AmbulanceController(AmbulanceService ambulanceService, AmbulanceLocationNotifierService locationNotifier,
+                               LocationIngestService locationIngestService) {
         this.ambulanceService = ambulanceService;
-        this.messagingTemplate = messagingTemplate;
+        this.locationNotifier = locationNotifier;
+        this.locationIngestService = locationIngestService;
     }
 
     @GetMapping
@@ -28,6 +39,55 @@ public class AmbulanceController {
         return ambulanceService.getAllAmbulances();
     }
 
+    /**
+     * Batch lookup, e.g. {@code GET /ambulances?ids=1,2,3&available=true}, served from the in-memory
+     * {@link LiveAmbulanceStore} without touching the database.
+     */
+    @GetMapping(params = "ids")
+    public List<Ambulance> getAmbulancesByIds(@RequestParam List<Long> ids,
+                                              @RequestParam(defaultValue = "false") boolean available) {
+        return ambulanceService.getAmbulancesByIds(ids, available);
+    }
+
+    /**
+     * Same lookup with the ids in the body, e.g. {@code POST /ambulances/lookup?available=true} with
+     * {@code [1,2,3]}, for id sets too large for a URL.
+     */
+    @PostMapping("/lookup")
+    public List<Ambulance> lookupAmbulancesByIds(@RequestBody List<Long> ids,
+                                                 @RequestParam(defaultValue = "false") boolean available) {
+        return ambulanceService.getAmbulancesByIds(ids, available);
+    }
+
+    /**
+     * k-nearest available ambulances from the in-memory spatial index. {@code ids} optionally limits
+     * the search to a set of units, e.g. the fleets of the hospitals offering a speciality.
+     */
+    @GetMapping("/nearest")
+    public ResponseEntity<List<NearbyAmbulanceDTO>> getNearestAvailableAmbulances(
+            @RequestParam double lat,
+            @RequestParam double lng,
+            @RequestParam(defaultValue = "5") int k,
+            @RequestParam(required = false) List<Long> ids) {
+        if (k <= 0) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(ambulanceService.findNearestAvailable(lat, lng, k, ids));
+    }
+
+    /**
+     * Same search with the query in the body, for id sets too large for a URL, e.g.
+     * {@code {"lat":31.62,"lng":-7.98,"k":5,"ids":[1,2,3]}}.
+     */
+    @PostMapping("/nearest")
+    public ResponseEntity<List<NearbyAmbulanceDTO>> queryNearestAvailableAmbulances(@RequestBody NearestQueryDTO query) {
+        if (query.getLat() == null || query.getLng() == null || query.getK() <= 0) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(ambulanceService.findNearestAvailable(query.getLat(), query.getLng(), query.getK(),
+                query.getIds()));
+    }
+
     @GetMapping("/{id}")
     public ResponseEntity<Ambulance> getAmbulanceById(@PathVariable Long id) {
         return ambulanceService.getAmbulanceById(id)
@@ -80,22 +140,25 @@ public class AmbulanceController {
         return ambulanceService.updateAmbulanceLocation(id, latitude, longitude)
                 .map(ambulance -> {
                     // Notify WebSocket subscribers
-                    Map<String, Object> update = new HashMap<>();
-                    update.put("id", ambulance.getId());
-                    update.put("driverName", ambulance.getDriverName());
-                    update.put("latitude", ambulance.getLatitude());
-                    update.put("longitude", ambulance.getLongitude());
-                    update.put("available", ambulance.isAvailable());
-                    
-                    messagingTemplate.convertAndSend(
-                            "/topic/ambulance/" + id + "/location",
-                            update
-                    );
+                    locationNotifier.publish("/topic/ambulance/" + id + "/location", toLocationUpdate(ambulance));
                     return ResponseEntity.ok().<Void>build();
                 })
                 .orElse(ResponseEntity.notFound().build());
     }
 
+    /**
+     * Bulk GPS ingest: {@code [{"id":1,"lat":31.62,"lng":-7.98,"ts":1700000000000}, ...]}. Fixes are
+     * coalesced per ambulance and persisted on the next flush; the response does not wait for it.
+     */
+    @PostMapping("/locations")
+    public ResponseEntity<Map<String, Integer>> ingestLocations(@RequestBody List<LocationFixDTO> fixes) {
+        int accepted = locationIngestService.ingest(fixes);
+        Map<String, Integer> response = new HashMap<>();
+        response.put("accepted", accepted);
+        response.put("rejected", fixes.size() - accepted);
+        return ResponseEntity.accepted().body(response);
+    }
+
     @PutMapping("/{id}/availability")
     public ResponseEntity<Void> updateAmbulanceAvailability(
             @PathVariable Long id,
@@ -108,25 +171,38 @@ public class AmbulanceController {
         return ambulanceService.updateAmbulanceAvailability(id, available)
                 .map(ambulance -> {
                     // Notify WebSocket subscribers about availability change
-                    Map<String, Object> update = new HashMap<>();
-                    update.put("id", ambulance.getId());
-                    update.put("driverName", ambulance.getDriverName());
-                    update.put("latitude", ambulance.getLatitude());
-                    update.put("longitude", ambulance.getLongitude());
-                    update.put("available", ambulance.isAvailable());
-                    
-                    messagingTemplate.convertAndSend(
-                            "/topic/ambulance/" + id + "/location",
-                            update
-                    );
+                    locationNotifier.publish("/topic/ambulance/" + id + "/location", toLocationUpdate(ambulance));
                     return ResponseEntity.ok().<Void>build();
                 })
                 .orElse(ResponseEntity.notFound().build());
     }
 
+    /**
+     * Reserves an ambulance only if it is still available: 200 when this call took it, 409 when it
+     * is already taken. Dispatch reserves through here; {@code PUT /{id}/availability} releases.
+     */
+    @PostMapping("/{id}/reserve")
+    public ResponseEntity<Void> reserveAmbulance(@PathVariable Long id) {
+        Reservation reservation = ambulanceService.reserveAmbulance(id);
+        return switch (reservation) {
+            case RESERVED -> {
+                ambulanceService.getAmbulanceById(id).ifPresent(ambulance ->
+                        locationNotifier.publish("/topic/ambulance/" + id + "/location", toLocationUpdate(ambulance)));
+                yield ResponseEntity.ok().build();
+            }
+            case CONFLICT -> ResponseEntity.status(HttpStatus.CONFLICT).build();
+            case NOT_FOUND -> ResponseEntity.notFound().build();
+        };
+    }
+
     @DeleteMapping("/{id}")
     public ResponseEntity<Void> deleteAmbulance(@PathVariable Long id) {
         boolean deleted = ambulanceService.deleteAmbulance(id);
         return deleted ? ResponseEntity.noContent().build() : ResponseEntity.notFound().build();
     }
+
+    private static AmbulanceLocationUpdate toLocationUpdate(Ambulance ambulance) {
+        return new AmbulanceLocationUpdate(ambulance.getId(), ambulance.getLatitude(), ambulance.getLongitude(),
+                ambulance.isAvailable());
+    }
 }
@@ -1,26 +1,43 @@
 package mine.ambulance_service.controller;
 
 import mine.ambulance_service.dto.AmbulanceLocationDTO;
+import mine.ambulance_service.geo.Viewport;
 import mine.ambulance_service.model.Ambulance;
 import mine.ambulance_service.service.AmbulanceService;
+import mine.ambulance_service.service.FleetBroadcastService;
+import mine.ambulance_service.websocket.ViewportRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.messaging.handler.annotation.MessageMapping;
 import org.springframework.messaging.handler.annotation.SendTo;
 import org.springframework.messaging.handler.annotation.DestinationVariable;
+import org.springframework.messaging.handler.annotation.Header;
+import org.springframework.messaging.handler.annotation.Payload;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.stereotype.Controller;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 @Controller
 public class AmbulanceWebSocketController {
 
+    private static final Logger log = LoggerFactory.getLogger(AmbulanceWebSocketController.class);
+
     @Autowired
     private SimpMessagingTemplate messagingTemplate;
 
     @Autowired
     private AmbulanceService ambulanceService;
 
+    @Autowired
+    private ViewportRegistry viewportRegistry;
+
+    @Autowired
+    private FleetBroadcastService fleetBroadcastService;
+
     /**
      * Handles requests for ambulance locations.
      * Fetches all ambulance locations from the database and sends them to the frontend.
@@ -47,6 +64,27 @@ public class AmbulanceWebSocketController {
         return ambulance.map(a -> new AmbulanceLocationDTO(a.getId(), a.getLatitude(), a.getLongitude())).orElse(null);
     }
 
+    /**
+     * Moves the viewport of the sending session, e.g. {@code {"viewport":"bbox:31.60,-8.02,31.65,-7.97"}},
+     * and answers with a snapshot of what is now in view on {@code /user/queue/fleet-viewport}.
+     * @param request the new viewport, in the same format as the SUBSCRIBE {@code viewport} header
+     */
+    @MessageMapping("/viewport")
+    public void updateViewport(@Payload Map<String, String> request,
+                               @Header(SimpMessageHeaderAccessor.SESSION_ID_HEADER) String sessionId) {
+        try {
+            Viewport viewport = Viewport.parse(request.get(ViewportRegistry.VIEWPORT_HEADER));
+            if (viewportRegistry.update(sessionId, viewport)) {
+                fleetBroadcastService.sendViewportSnapshot(sessionId);
+            } else {
+                log.warn("Session {} sent a viewport without subscribing to {}", sessionId,
+                        ViewportRegistry.VIEWPORT_DESTINATION);
+            }
+        } catch (IllegalArgumentException e) {
+            log.warn("Ignoring invalid viewport from session {}: {}", sessionId, e.getMessage());
+        }
+    }
+
     /**
      * Broadcasts updated ambulance location to all connected clients
      * @param locationDTO the updated location data
@@ -0,0 +1,48 @@
+package mine.ambulance_service.dto;
+
+import mine.ambulance_service.service.AmbulanceLocationNotifierService.AmbulanceLocationUpdate;
+
+import java.util.List;
+
+/**
+ * One batched fleet frame. A snapshot carries every ambulance; a delta carries only the ambulances
+ * that changed since frame {@code seq - 1}, plus the IDs of ambulances that were removed.
+ */
+public class FleetFrameDTO {
+    private long seq;
+    private boolean snapshot;
+    private long timestamp;
+    private List<AmbulanceLocationUpdate> ambulances;
+    private List<Long> removed;
+
+    public FleetFrameDTO() {}
+
+    public FleetFrameDTO(long seq, boolean snapshot, long timestamp,
+                         List<AmbulanceLocationUpdate> ambulances, List<Long> removed) {
+        this.seq = seq;
+        this.snapshot = snapshot;
+        this.timestamp = timestamp;
+        this.ambulances = ambulances;
+        this.removed = removed;
+    }
+
+    public long getSeq() {
+        return seq;
+    }
+
+    public boolean isSnapshot() {
+        return snapshot;
+    }
+
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    public List<AmbulanceLocationUpdate> getAmbulances() {
+        return ambulances;
+    }
+
+    public List<Long> getRemoved() {
+        return removed;
+    }
+}
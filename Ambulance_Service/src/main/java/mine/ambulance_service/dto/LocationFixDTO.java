@@ -0,0 +1,52 @@
+package mine.ambulance_service.dto;
+
+/**
+ * One GPS fix as reported by an ambulance; {@code ts} is the device time in epoch milliseconds.
+ */
+public class LocationFixDTO {
+    private Long id;
+    private Double lat;
+    private Double lng;
+    private Long ts;
+
+    public LocationFixDTO() {}
+
+    public LocationFixDTO(Long id, Double lat, Double lng, Long ts) {
+        this.id = id;
+        this.lat = lat;
+        this.lng = lng;
+        this.ts = ts;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public Double getLat() {
+        return lat;
+    }
+
+    public void setLat(Double lat) {
+        this.lat = lat;
+    }
+
+    public Double getLng() {
+        return lng;
+    }
+
+    public void setLng(Double lng) {
+        this.lng = lng;
+    }
+
+    public Long getTs() {
+        return ts;
+    }
+
+    public void setTs(Long ts) {
+        this.ts = ts;
+    }
+}
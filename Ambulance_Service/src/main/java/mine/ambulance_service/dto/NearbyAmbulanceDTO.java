@@ -0,0 +1,59 @@
+package mine.ambulance_service.dto;
+
+public class NearbyAmbulanceDTO {
+    private Long id;
+    private boolean available;
+    private double latitude;
+    private double longitude;
+    private double distanceMeters;
+
+    public NearbyAmbulanceDTO() {}
+
+    public NearbyAmbulanceDTO(Long id, boolean available, double latitude, double longitude, double distanceMeters) {
+        this.id = id;
+        this.available = available;
+        this.latitude = latitude;
+        this.longitude = longitude;
+        this.distanceMeters = distanceMeters;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public boolean isAvailable() {
+        return available;
+    }
+
+    public double getLatitude() {
+        return latitude;
+    }
+
+    public double getLongitude() {
+        return longitude;
+    }
+
+    public double getDistanceMeters() {
+        return distanceMeters;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public void setAvailable(boolean available) {
+        this.available = available;
+    }
+
+    public void setLatitude(double latitude) {
+        this.latitude = latitude;
+    }
+
+    public void setLongitude(double longitude) {
+        this.longitude = longitude;
+    }
+
+    public void setDistanceMeters(double distanceMeters) {
+        this.distanceMeters = distanceMeters;
+    }
+}
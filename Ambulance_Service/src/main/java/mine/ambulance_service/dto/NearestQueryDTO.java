@@ -0,0 +1,55 @@
+package mine.ambulance_service.dto;
+
+import java.util.List;
+
+/**
+ * Body of {@code POST /ambulances/nearest}. {@code ids} optionally limits the search to a set of
+ * units; it travels in the body because a whole fleet does not fit in a request line.
+ */
+public class NearestQueryDTO {
+    private Double lat;
+    private Double lng;
+    private int k = 5;
+    private List<Long> ids;
+
+    public NearestQueryDTO() {}
+
+    public NearestQueryDTO(Double lat, Double lng, int k, List<Long> ids) {
+        this.lat = lat;
+        this.lng = lng;
+        this.k = k;
+        this.ids = ids;
+    }
+
+    public Double getLat() {
+        return lat;
+    }
+
+    public void setLat(Double lat) {
+        this.lat = lat;
+    }
+
+    public Double getLng() {
+        return lng;
+    }
+
+    public void setLng(Double lng) {
+        this.lng = lng;
+    }
+
+    public int getK() {
+        return k;
+    }
+
+    public void setK(int k) {
+        this.k = k;
+    }
+
+    public List<Long> getIds() {
+        return ids;
+    }
+
+    public void setIds(List<Long> ids) {
+        this.ids = ids;
+    }
+}
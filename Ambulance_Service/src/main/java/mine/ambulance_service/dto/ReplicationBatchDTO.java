@@ -0,0 +1,46 @@
+package mine.ambulance_service.dto;
+
+import mine.ambulance_service.service.AmbulanceLocationNotifierService.AmbulanceLocationUpdate;
+
+import java.util.List;
+
+/**
+ * Live-state changes one instance made since its previous batch, sent to the other instances.
+ */
+public class ReplicationBatchDTO {
+    private String origin;
+    private List<AmbulanceLocationUpdate> ambulances;
+    private List<Long> removed;
+
+    public ReplicationBatchDTO() {}
+
+    public ReplicationBatchDTO(String origin, List<AmbulanceLocationUpdate> ambulances, List<Long> removed) {
+        this.origin = origin;
+        this.ambulances = ambulances;
+        this.removed = removed;
+    }
+
+    public String getOrigin() {
+        return origin;
+    }
+
+    public void setOrigin(String origin) {
+        this.origin = origin;
+    }
+
+    public List<AmbulanceLocationUpdate> getAmbulances() {
+        return ambulances;
+    }
+
+    public void setAmbulances(List<AmbulanceLocationUpdate> ambulances) {
+        this.ambulances = ambulances;
+    }
+
+    public List<Long> getRemoved() {
+        return removed;
+    }
+
+    public void setRemoved(List<Long> removed) {
+        this.removed = removed;
+    }
+}
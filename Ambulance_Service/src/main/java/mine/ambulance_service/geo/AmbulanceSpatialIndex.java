@@ -0,0 +1,267 @@
+package mine.ambulance_service.geo;
+
+import mine.ambulance_service.dto.NearbyAmbulanceDTO;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory uniform grid over ambulance positions, used to answer k-nearest-available queries
+ * without loading the fleet from the database.
+ * <p>
+ * Positions are bucketed into square lat/lng cells. A query visits cells in growing rings around
+ * the target and stops as soon as no unvisited cell can contain anything closer than the current
+ * k-th candidate. Distances use the equirectangular approximation, which is well within a metre
+ * at city scale.
+ */
+@Component
+public class AmbulanceSpatialIndex {
+
+    private static final double METERS_PER_DEGREE = 111_320.0;
+
+    private final double cellSizeDegrees;
+    private final Map<Long, Entry> entries = new HashMap<>();
+    private final Map<Long, Set<Long>> cells = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private int minCellX = Integer.MAX_VALUE;
+    private int maxCellX = Integer.MIN_VALUE;
+    private int minCellY = Integer.MAX_VALUE;
+    private int maxCellY = Integer.MIN_VALUE;
+
+    public AmbulanceSpatialIndex(@Value("${ambulance.spatial-index.cell-size-degrees:0.01}") double cellSizeDegrees) {
+        if (cellSizeDegrees <= 0) {
+            throw new IllegalArgumentException("Cell size must be positive.");
+        }
+        this.cellSizeDegrees = cellSizeDegrees;
+    }
+
+    /**
+     * Inserts or moves an ambulance. Called whenever its position or availability changes.
+     */
+    public void upsert(Long id, double latitude, double longitude, boolean available) {
+        int cellX = cellOf(longitude);
+        int cellY = cellOf(latitude);
+        long cellKey = cellKey(cellX, cellY);
+
+        lock.writeLock().lock();
+        try {
+            Entry previous = entries.put(id, new Entry(id, latitude, longitude, available, cellKey));
+            if (previous != null && previous.cellKey != cellKey) {
+                removeFromCell(previous.cellKey, id);
+            }
+            if (previous == null || previous.cellKey != cellKey) {
+                cells.computeIfAbsent(cellKey, key -> new HashSet<>()).add(id);
+            }
+            minCellX = Math.min(minCellX, cellX);
+            maxCellX = Math.max(maxCellX, cellX);
+            minCellY = Math.min(minCellY, cellY);
+            maxCellY = Math.max(maxCellY, cellY);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Moves an already indexed ambulance, keeping its availability. Unknown IDs are ignored.
+     *
+     * @return whether the ambulance was indexed
+     */
+    public boolean move(Long id, double latitude, double longitude) {
+        lock.writeLock().lock();
+        try {
+            Entry existing = entries.get(id);
+            if (existing == null) {
+                return false;
+            }
+            upsert(id, latitude, longitude, existing.available);
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Updates only the availability flag, keeping the indexed position.
+     */
+    public void updateAvailability(Long id, boolean available) {
+        lock.writeLock().lock();
+        try {
+            Entry existing = entries.get(id);
+            if (existing != null) {
+                entries.put(id, new Entry(id, existing.latitude, existing.longitude, available, existing.cellKey));
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(Long id) {
+        lock.writeLock().lock();
+        try {
+            Entry previous = entries.remove(id);
+            if (previous != null) {
+                removeFromCell(previous.cellKey, id);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            entries.clear();
+            cells.clear();
+            minCellX = Integer.MAX_VALUE;
+            maxCellX = Integer.MIN_VALUE;
+            minCellY = Integer.MAX_VALUE;
+            maxCellY = Integer.MIN_VALUE;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return entries.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns up to {@code k} available ambulances closest to the given point, nearest first.
+     *
+     * @param allowedIds optional restriction of the candidate set (e.g. the fleets of the hospitals
+     *                   offering the requested speciality); {@code null} means the whole fleet
+     */
+    public List<NearbyAmbulanceDTO> findNearestAvailable(double latitude, double longitude, int k,
+                                                         Collection<Long> allowedIds) {
+        if (k <= 0) {
+            return List.of();
+        }
+        double metersPerDegreeLng = METERS_PER_DEGREE * Math.cos(Math.toRadians(latitude));
+        Set<Long> allowed = allowedIds == null ? null : new HashSet<>(allowedIds);
+
+        // Max-heap on distance holding the best k candidates seen so far
+        PriorityQueue<NearbyAmbulanceDTO> best = new PriorityQueue<>(
+                Comparator.comparingDouble(NearbyAmbulanceDTO::getDistanceMeters).reversed());
+
+        lock.readLock().lock();
+        try {
+            if (allowed != null && allowed.size() * 4 < entries.size()) {
+                // A small explicit candidate set is cheaper to scan directly than to walk the grid
+                for (Long id : allowed) {
+                    offer(best, k, entries.get(id), latitude, longitude, metersPerDegreeLng);
+                }
+            } else {
+                searchRings(best, k, latitude, longitude, metersPerDegreeLng, allowed);
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        List<NearbyAmbulanceDTO> result = new ArrayList<>(best);
+        result.sort(Comparator.comparingDouble(NearbyAmbulanceDTO::getDistanceMeters));
+        return result;
+    }
+
+    private void searchRings(PriorityQueue<NearbyAmbulanceDTO> best, int k,
+                             double latitude, double longitude, double metersPerDegreeLng,
+                             Set<Long> allowed) {
+        if (entries.isEmpty()) {
+            return;
+        }
+        int centerX = cellOf(longitude);
+        int centerY = cellOf(latitude);
+        int maxRing = Math.max(
+                Math.max(Math.abs(centerX - minCellX), Math.abs(maxCellX - centerX)),
+                Math.max(Math.abs(centerY - minCellY), Math.abs(maxCellY - centerY)));
+        double cellMeters = cellSizeDegrees * Math.min(METERS_PER_DEGREE, metersPerDegreeLng);
+
+        for (int ring = 0; ring <= maxRing; ring++) {
+            if (best.size() == k && ringCannotBeCloser(ring, best.peek().getDistanceMeters(), cellMeters)) {
+                return;
+            }
+            for (int dx = -ring; dx <= ring; dx++) {
+                boolean edgeColumn = dx == -ring || dx == ring;
+                for (int dy = -ring; dy <= ring; dy += edgeColumn ? 1 : 2 * ring) {
+                    Set<Long> ids = cells.get(cellKey(centerX + dx, centerY + dy));
+                    if (ids != null) {
+                        for (Long id : ids) {
+                            if (allowed == null || allowed.contains(id)) {
+                                offer(best, k, entries.get(id), latitude, longitude, metersPerDegreeLng);
+                            }
+                        }
+                    }
+                    if (ring == 0) {
+                        break;
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Anything in ring {@code ring} is at least {@code ring - 1} full cells away from the query
+     * point, so once the k-th candidate is that close no further ring can improve on it.
+     */
+    static boolean ringCannotBeCloser(int ring, double kthDistanceMeters, double cellMeters) {
+        return kthDistanceMeters <= (ring - 1) * cellMeters;
+    }
+
+    private static void offer(PriorityQueue<NearbyAmbulanceDTO> best, int k, Entry entry,
+                              double latitude, double longitude, double metersPerDegreeLng) {
+        if (entry == null || !entry.available) {
+            return;
+        }
+        double dy = (entry.latitude - latitude) * METERS_PER_DEGREE;
+        double dx = (entry.longitude - longitude) * metersPerDegreeLng;
+        double distance = Math.sqrt(dx * dx + dy * dy);
+        if (best.size() < k) {
+            best.add(new NearbyAmbulanceDTO(entry.id, true, entry.latitude, entry.longitude, distance));
+        } else if (distance < best.peek().getDistanceMeters()) {
+            best.poll();
+            best.add(new NearbyAmbulanceDTO(entry.id, true, entry.latitude, entry.longitude, distance));
+        }
+    }
+
+    private void removeFromCell(long cellKey, Long id) {
+        Set<Long> ids = cells.get(cellKey);
+        if (ids != null) {
+            ids.remove(id);
+            if (ids.isEmpty()) {
+                cells.remove(cellKey);
+            }
+        }
+    }
+
+    private int cellOf(double degrees) {
+        return (int) Math.floor(degrees / cellSizeDegrees);
+    }
+
+    private static long cellKey(int cellX, int cellY) {
+        return ((long) cellY << 32) | (cellX & 0xffffffffL);
+    }
+
+    private static final class Entry {
+        private final Long id;
+        private final double latitude;
+        private final double longitude;
+        private final boolean available;
+        private final long cellKey;
+
+        private Entry(Long id, double latitude, double longitude, boolean available, long cellKey) {
+            this.id = id;
+            this.latitude = latitude;
+            this.longitude = longitude;
+            this.available = available;
+            this.cellKey = cellKey;
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package mine.ambulance_service.geo;
+
+import java.util.*;
+
+/**
+ * Area of the map a live-map client is looking at: either a lat/lng bounding box or a set of
+ * geohash cells.
+ * <p>
+ * As a STOMP header it is written {@code bbox:minLat,minLng,maxLat,maxLng} or
+ * {@code geohash:evd7f,evd7g}.
+ */
+public final class Viewport {
+
+    private final double minLat;
+    private final double minLng;
+    private final double maxLat;
+    private final double maxLng;
+    private final Set<String> cells;
+    private final int maxPrecision;
+
+    private Viewport(double minLat, double minLng, double maxLat, double maxLng, Set<String> cells) {
+        this.minLat = minLat;
+        this.minLng = minLng;
+        this.maxLat = maxLat;
+        this.maxLng = maxLng;
+        this.cells = cells;
+        this.maxPrecision = cells == null ? 0 : cells.stream().mapToInt(String::length).max().orElse(0);
+    }
+
+    public static Viewport boundingBox(double minLat, double minLng, double maxLat, double maxLng) {
+        if (minLat > maxLat || minLng > maxLng) {
+            throw new IllegalArgumentException("Bounding box minimum must not exceed its maximum.");
+        }
+        return new Viewport(minLat, minLng, maxLat, maxLng, null);
+    }
+
+    public static Viewport geohashCells(Collection<String> cells) {
+        Set<String> normalized = new HashSet<>();
+        for (String cell : cells) {
+            String hash = cell.trim().toLowerCase(Locale.ROOT);
+            if (!GeoHash.isValid(hash)) {
+                throw new IllegalArgumentException("Invalid geohash cell: " + cell);
+            }
+            normalized.add(hash);
+        }
+        if (normalized.isEmpty()) {
+            throw new IllegalArgumentException("A geohash viewport needs at least one cell.");
+        }
+        return new Viewport(0, 0, 0, 0, normalized);
+    }
+
+    public static Viewport parse(String header) {
+        if (header == null) {
+            throw new IllegalArgumentException("Missing viewport.");
+        }
+        int separator = header.indexOf(':');
+        if (separator < 0) {
+            throw new IllegalArgumentException("Viewport must be 'bbox:...' or 'geohash:...'.");
+        }
+        String kind = header.substring(0, separator).trim();
+        String[] values = header.substring(separator + 1).split(",");
+        if ("bbox".equalsIgnoreCase(kind)) {
+            if (values.length != 4) {
+                throw new IllegalArgumentException("Bounding box needs minLat,minLng,maxLat,maxLng.");
+            }
+            return boundingBox(Double.parseDouble(values[0].trim()), Double.parseDouble(values[1].trim()),
+                    Double.parseDouble(values[2].trim()), Double.parseDouble(values[3].trim()));
+        }
+        if ("geohash".equalsIgnoreCase(kind)) {
+            return geohashCells(Arrays.asList(values));
+        }
+        throw new IllegalArgumentException("Unknown viewport kind: " + kind);
+    }
+
+    public boolean contains(double latitude, double longitude) {
+        if (cells == null) {
+            return latitude >= minLat && latitude <= maxLat && longitude >= minLng && longitude <= maxLng;
+        }
+        String hash = GeoHash.encode(latitude, longitude, maxPrecision);
+        for (int length = 1; length <= maxPrecision; length++) {
+            if (cells.contains(hash.substring(0, length))) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
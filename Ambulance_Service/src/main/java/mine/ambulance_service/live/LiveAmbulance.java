@@ -0,0 +1,87 @@
+package mine.ambulance_service.live;
+
+import mine.ambulance_service.model.Ambulance;
+
+/**
+ * Immutable snapshot of one ambulance as held by {@link LiveAmbulanceStore}. {@code updatedAt} is
+ * the device timestamp of the latest position fix in epoch milliseconds, 0 until one is received.
+ * {@code availabilityVersion} counts availability changes applied to this unit in this process.
+ */
+public final class LiveAmbulance {
+    private final Long id;
+    private final String driverName;
+    private final boolean available;
+    private final double latitude;
+    private final double longitude;
+    private final long updatedAt;
+    private final long availabilityVersion;
+
+    public LiveAmbulance(Long id, String driverName, boolean available, double latitude, double longitude, long updatedAt) {
+        this(id, driverName, available, latitude, longitude, updatedAt, 0);
+    }
+
+    private LiveAmbulance(Long id, String driverName, boolean available, double latitude, double longitude,
+                          long updatedAt, long availabilityVersion) {
+        this.id = id;
+        this.driverName = driverName;
+        this.available = available;
+        this.latitude = latitude;
+        this.longitude = longitude;
+        this.updatedAt = updatedAt;
+        this.availabilityVersion = availabilityVersion;
+    }
+
+    static LiveAmbulance of(Ambulance ambulance, long updatedAt) {
+        return new LiveAmbulance(ambulance.getId(), ambulance.getDriverName(), ambulance.isAvailable(),
+                ambulance.getLatitude(), ambulance.getLongitude(), updatedAt);
+    }
+
+    LiveAmbulance withPosition(double latitude, double longitude, long updatedAt) {
+        return new LiveAmbulance(id, driverName, available, latitude, longitude, updatedAt, availabilityVersion);
+    }
+
+    LiveAmbulance withAvailability(boolean available) {
+        return new LiveAmbulance(id, driverName, available, latitude, longitude, updatedAt, availabilityVersion + 1);
+    }
+
+    /**
+     * Detached entity copy for callers that still speak {@link Ambulance}.
+     */
+    public Ambulance toAmbulance() {
+        Ambulance ambulance = new Ambulance();
+        ambulance.setId(id);
+        ambulance.setDriverName(driverName);
+        ambulance.setAvailable(available);
+        ambulance.setLatitude(latitude);
+        ambulance.setLongitude(longitude);
+        return ambulance;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getDriverName() {
+        return driverName;
+    }
+
+    public boolean isAvailable() {
+        return available;
+    }
+
+    public double getLatitude() {
+        return latitude;
+    }
+
+    public double getLongitude() {
+        return longitude;
+    }
+
+    public long getUpdatedAt() {
+        return updatedAt;
+    }
+
+    long getAvailabilityVersion() {
+        return availabilityVersion;
+    }
+}
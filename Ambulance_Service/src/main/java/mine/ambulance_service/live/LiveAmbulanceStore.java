@@ -0,0 +1,385 @@
+package mine.ambulance_service.live;
+
+import jakarta.annotation.PreDestroy;
+import mine.ambulance_service.geo.AmbulanceSpatialIndex;
+import mine.ambulance_service.model.Ambulance;
+import mine.ambulance_service.repository.AmbulanceRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * In-memory source of truth for live ambulance state. All reads are served from here.
+ * <p>
+ * Positions are write-behind: they update memory and the spatial index immediately and are
+ * snapshotted to MySQL in one JDBC batch per interval. Availability is write-through because
+ * dispatch decisions depend on it. On startup the store is rebuilt from the database.
+ * <p>
+ * When several instances run behind the gateway, {@link LiveStateReplicator} ships local changes
+ * to the other instances and applies theirs with {@link #applyRemote} and {@link #removeRemote}.
+ */
+@Component
+public class LiveAmbulanceStore {
+
+    private static final Logger log = LoggerFactory.getLogger(LiveAmbulanceStore.class);
+
+    private static final String UPDATE_LOCATION_SQL = "UPDATE ambulances SET latitude = ?, longitude = ? WHERE id = ?";
+    private static final String UPDATE_AVAILABILITY_SQL = "UPDATE ambulances SET available = ? WHERE id = ?";
+    private static final String SELECT_AVAILABILITY_SQL = "SELECT available FROM ambulances WHERE id = ?";
+    // Compare-and-set in the database, so reservations are atomic across every instance
+    private static final String RESERVE_SQL = "UPDATE ambulances SET available = false WHERE id = ? AND available = true";
+
+    private final AmbulanceRepository ambulanceRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final AmbulanceSpatialIndex spatialIndex;
+
+    private final Map<Long, LiveAmbulance> ambulances = new ConcurrentHashMap<>();
+    // Ambulances whose in-memory position is newer than the database row
+    private final Set<Long> dirty = ConcurrentHashMap.newKeySet();
+    // Local changes not yet replicated; only tracked once a replicator is running
+    private final Set<Long> changed = ConcurrentHashMap.newKeySet();
+    private final Set<Long> removed = ConcurrentHashMap.newKeySet();
+    private volatile boolean trackChanges;
+    private final List<Consumer<LiveAmbulance>> listeners = new CopyOnWriteArrayList<>();
+
+    public LiveAmbulanceStore(AmbulanceRepository ambulanceRepository,
+                              JdbcTemplate jdbcTemplate,
+                              AmbulanceSpatialIndex spatialIndex) {
+        this.ambulanceRepository = ambulanceRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.spatialIndex = spatialIndex;
+    }
+
+    /**
+     * Loads every persisted ambulance once the seed data is in place.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        ambulances.clear();
+        dirty.clear();
+        changed.clear();
+        removed.clear();
+        spatialIndex.clear();
+        ambulanceRepository.findAll().forEach(this::load);
+        log.info("Live ambulance store loaded {} ambulances", ambulances.size());
+    }
+
+    public Optional<LiveAmbulance> get(Long id) {
+        return Optional.ofNullable(ambulances.get(id));
+    }
+
+    public Collection<LiveAmbulance> getAll() {
+        return Collections.unmodifiableCollection(ambulances.values());
+    }
+
+    public List<LiveAmbulance> getByIds(Collection<Long> ids, boolean availableOnly) {
+        List<LiveAmbulance> result = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            LiveAmbulance ambulance = ambulances.get(id);
+            if (ambulance != null && (!availableOnly || ambulance.isAvailable())) {
+                result.add(ambulance);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Adds or replaces an ambulance after it has been saved, e.g. on create or full update.
+     */
+    public LiveAmbulance put(Ambulance saved) {
+        LiveAmbulance live = load(saved);
+        markChanged(live.getId());
+        notifyListeners(live);
+        return live;
+    }
+
+    public void remove(Long id) {
+        evict(id);
+        if (trackChanges) {
+            changed.remove(id);
+            removed.add(id);
+        }
+    }
+
+    /**
+     * Fix timestamps come from the devices' clocks, so the server clock is never used here: a unit
+     * seen for the first time starts at 0 and takes its device's next fix whatever that clock says,
+     * and a replaced unit keeps the time of its latest fix.
+     */
+    private LiveAmbulance load(Ambulance saved) {
+        LiveAmbulance previous = ambulances.get(saved.getId());
+        LiveAmbulance live = LiveAmbulance.of(saved, previous != null ? previous.getUpdatedAt() : 0L);
+        ambulances.put(live.getId(), live);
+        spatialIndex.upsert(live.getId(), live.getLatitude(), live.getLongitude(), live.isAvailable());
+        return live;
+    }
+
+    /**
+     * Records a position fix. Fixes older than the current one are ignored so out-of-order delivery
+     * cannot move a unit backwards.
+     *
+     * @param timestamp device time of the fix in epoch milliseconds
+     * @return the new state, or empty if the ambulance is unknown or the fix was older than its
+     * current one and therefore ignored
+     */
+    public Optional<LiveAmbulance> updatePosition(Long id, double latitude, double longitude, long timestamp) {
+        return applyPosition(id, latitude, longitude, timestamp);
+    }
+
+    /**
+     * Records a position that carries no device time, e.g. one set through the REST API. It always
+     * applies and keeps the time of the latest device fix, so device fixes stay ordered among
+     * themselves and are never compared with the server clock.
+     *
+     * @return the current state, or empty if the ambulance is unknown
+     */
+    public Optional<LiveAmbulance> updatePosition(Long id, double latitude, double longitude) {
+        return applyPosition(id, latitude, longitude, null);
+    }
+
+    private Optional<LiveAmbulance> applyPosition(Long id, double latitude, double longitude, Long timestamp) {
+        boolean[] applied = {false};
+        LiveAmbulance current = ambulances.computeIfPresent(id, (key, existing) -> {
+            if (timestamp != null && timestamp < existing.getUpdatedAt()) {
+                return existing;
+            }
+            applied[0] = true;
+            return existing.withPosition(latitude, longitude, timestamp != null ? timestamp : existing.getUpdatedAt());
+        });
+        if (applied[0]) {
+            dirty.add(id);
+            markChanged(id);
+            spatialIndex.move(id, latitude, longitude);
+            notifyListeners(current);
+        }
+        return applied[0] ? Optional.of(current) : Optional.empty();
+    }
+
+    /**
+     * Persists the new availability first, then publishes it in memory.
+     *
+     * @return the updated state, or empty if the ambulance does not exist
+     */
+    public Optional<LiveAmbulance> updateAvailability(Long id, boolean available) {
+        if (jdbcTemplate.update(UPDATE_AVAILABILITY_SQL, available, id) == 0) {
+            return Optional.empty();
+        }
+        return Optional.ofNullable(publishAvailability(id, available));
+    }
+
+    /**
+     * Marks an available ambulance as unavailable in one conditional UPDATE. Of several concurrent
+     * reservations of the same unit, on this or any other instance, exactly one succeeds.
+     */
+    public Reservation reserve(Long id) {
+        if (jdbcTemplate.update(RESERVE_SQL, id) == 0) {
+            // Ask the database rather than memory: the unit may have been created on another
+            // instance and not be replicated here yet
+            return jdbcTemplate.queryForList(SELECT_AVAILABILITY_SQL, Boolean.class, id).isEmpty()
+                    ? Reservation.NOT_FOUND
+                    : Reservation.CONFLICT;
+        }
+        publishAvailability(id, false);
+        return Reservation.RESERVED;
+    }
+
+    private LiveAmbulance publishAvailability(Long id, boolean available) {
+        // Index inside compute, so two concurrent changes reach map and index in the same order
+        LiveAmbulance updated = ambulances.computeIfPresent(id, (key, existing) -> {
+            spatialIndex.updateAvailability(id, available);
+            return existing.withAvailability(available);
+        });
+        markChanged(id);
+        if (updated != null) {
+            notifyListeners(updated);
+        }
+        return updated;
+    }
+
+    /**
+     * Applies state replicated from another instance. The other instance persists it, so nothing
+     * is marked for snapshot or re-replicated. An ambulance created elsewhere is loaded from MySQL.
+     * <p>
+     * The position is guarded by its fix timestamp. That timestamp says nothing about when
+     * availability changed, so a replicated availability that differs from ours is only taken as
+     * a sign that the row changed: the committed value is re-read from MySQL, where every
+     * instance writes availability through.
+     *
+     * @return whether the local state changed
+     */
+    public boolean applyRemote(Long id, double latitude, double longitude, boolean available, long timestamp) {
+        if (!ambulances.containsKey(id)) {
+            Optional<Ambulance> persisted = ambulanceRepository.findById(Math.toIntExact(id));
+            if (persisted.isEmpty()) {
+                return false;
+            }
+            load(persisted.get());
+        }
+        boolean[] moved = {false};
+        LiveAmbulance current = ambulances.computeIfPresent(id, (key, existing) -> {
+            if (timestamp < existing.getUpdatedAt()) {
+                return existing;
+            }
+            moved[0] = true;
+            return existing.withPosition(latitude, longitude, timestamp);
+        });
+        if (current == null) {
+            return false;
+        }
+        if (moved[0]) {
+            spatialIndex.move(id, latitude, longitude);
+        }
+        boolean availabilityChanged = current.isAvailable() != available && refreshAvailability(id);
+        if (moved[0] || availabilityChanged) {
+            get(id).ifPresent(this::notifyListeners);
+        }
+        return moved[0] || availabilityChanged;
+    }
+
+    /**
+     * Replaces the in-memory availability with the committed one.
+     *
+     * @return whether it changed
+     */
+    private boolean refreshAvailability(Long id) {
+        LiveAmbulance before = ambulances.get(id);
+        if (before == null) {
+            return false;
+        }
+        List<Boolean> persisted = jdbcTemplate.queryForList(SELECT_AVAILABILITY_SQL, Boolean.class, id);
+        if (persisted.isEmpty()) {
+            return false;
+        }
+        boolean committed = persisted.get(0);
+        boolean[] changed = {false};
+        // A local reservation or release publishes only after its own UPDATE; if one landed while
+        // we were reading, our value may predate it, so keep what it published
+        ambulances.computeIfPresent(id, (key, existing) -> {
+            if (existing.getAvailabilityVersion() != before.getAvailabilityVersion()
+                    || existing.isAvailable() == committed) {
+                return existing;
+            }
+            changed[0] = true;
+            spatialIndex.updateAvailability(id, committed);
+            return existing.withAvailability(committed);
+        });
+        return changed[0];
+    }
+
+    public void removeRemote(Long id) {
+        evict(id);
+    }
+
+    private void evict(Long id) {
+        ambulances.remove(id);
+        dirty.remove(id);
+        spatialIndex.remove(id);
+    }
+
+    /**
+     * Starts recording local changes for {@link #drainChanges()}.
+     */
+    public void enableChangeTracking() {
+        trackChanges = true;
+    }
+
+    /**
+     * Current state of every ambulance changed locally since the previous call, and the IDs
+     * removed meanwhile.
+     */
+    public Changes drainChanges() {
+        List<LiveAmbulance> updated = new ArrayList<>(changed.size());
+        for (Long id : changed) {
+            changed.remove(id);
+            LiveAmbulance ambulance = ambulances.get(id);
+            if (ambulance != null) {
+                updated.add(ambulance);
+            }
+        }
+        List<Long> gone = new ArrayList<>(removed.size());
+        for (Long id : removed) {
+            removed.remove(id);
+            gone.add(id);
+        }
+        return new Changes(updated, gone);
+    }
+
+    /**
+     * Registers a callback for every accepted change, local or replicated. Callbacks run on the
+     * writing thread and must not block.
+     */
+    public void addListener(Consumer<LiveAmbulance> listener) {
+        listeners.add(listener);
+    }
+
+    private void notifyListeners(LiveAmbulance ambulance) {
+        for (Consumer<LiveAmbulance> listener : listeners) {
+            try {
+                listener.accept(ambulance);
+            } catch (RuntimeException e) {
+                log.warn("Live ambulance listener failed for ambulance {}: {}", ambulance.getId(), e.getMessage());
+            }
+        }
+    }
+
+    private void markChanged(Long id) {
+        if (trackChanges) {
+            changed.add(id);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${ambulance.live.snapshot-interval-ms:1000}")
+    public void snapshot() {
+        if (dirty.isEmpty()) {
+            return;
+        }
+        List<Object[]> rows = new ArrayList<>(dirty.size());
+        for (Long id : dirty) {
+            // Remove before reading so a fix that lands meanwhile re-marks the ambulance for the next snapshot
+            dirty.remove(id);
+            LiveAmbulance ambulance = ambulances.get(id);
+            if (ambulance != null) {
+                rows.add(new Object[]{ambulance.getLatitude(), ambulance.getLongitude(), id});
+            }
+        }
+        try {
+            jdbcTemplate.batchUpdate(UPDATE_LOCATION_SQL, rows);
+            log.debug("Snapshotted {} ambulance locations", rows.size());
+        } catch (Exception e) {
+            log.error("Failed to snapshot {} ambulance locations: {}", rows.size(), e.getMessage());
+            rows.forEach(row -> dirty.add((Long) row[2]));
+        }
+    }
+
+    public int pendingCount() {
+        return dirty.size();
+    }
+
+    @PreDestroy
+    public void snapshotOnShutdown() {
+        snapshot();
+    }
+
+    public enum Reservation {
+        RESERVED,
+        // Already reserved or otherwise unavailable
+        CONFLICT,
+        NOT_FOUND
+    }
+
+    public record Changes(List<LiveAmbulance> updated, List<Long> removed) {
+
+        public boolean isEmpty() {
+            return updated.isEmpty() && removed.isEmpty();
+        }
+    }
+}
@@ -0,0 +1,161 @@
+package mine.ambulance_service.live;
+
+import jakarta.annotation.PreDestroy;
+import mine.ambulance_service.dto.ReplicationBatchDTO;
+import mine.ambulance_service.service.AmbulanceLocationNotifierService.AmbulanceLocationUpdate;
+import mine.ambulance_service.websocket.NodeScope;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.messaging.converter.MappingJackson2MessageConverter;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.simp.stomp.*;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Keeps the {@link LiveAmbulanceStore} of every instance in step when they share an external
+ * broker ({@code ambulance.websocket.broker=relay}).
+ * <p>
+ * Local changes are published on {@value #REPLICATION_TOPIC} in one batch per interval, carrying
+ * the current state of each changed ambulance, so a lost batch is repaired by the next change.
+ * Positions from the other instances are applied with the same timestamp guard as local fixes;
+ * availability is re-read from MySQL when it differs (see {@link LiveAmbulanceStore#applyRemote}).
+ * Each instance then builds its own fleet frames for its own sessions.
+ */
+@Component
+@ConditionalOnProperty(name = "ambulance.websocket.broker", havingValue = NodeScope.BROKER_RELAY)
+public class LiveStateReplicator {
+
+    private static final Logger log = LoggerFactory.getLogger(LiveStateReplicator.class);
+
+    public static final String REPLICATION_TOPIC = "/topic/ambulance-replication";
+
+    private final LiveAmbulanceStore liveStore;
+    private final SimpMessagingTemplate messagingTemplate;
+    private final NodeScope nodeScope;
+    private final ReactorNettyTcpStompClient stompClient;
+    private final StompHeaders connectHeaders = new StompHeaders();
+
+    private final AtomicBoolean connecting = new AtomicBoolean();
+    private volatile StompSession session;
+
+    public LiveStateReplicator(LiveAmbulanceStore liveStore,
+                               SimpMessagingTemplate messagingTemplate,
+                               NodeScope nodeScope,
+                               @Value("${ambulance.websocket.relay.host:localhost}") String relayHost,
+                               @Value("${ambulance.websocket.relay.port:61613}") int relayPort,
+                               @Value("${ambulance.websocket.relay.login:guest}") String relayLogin,
+                               @Value("${ambulance.websocket.relay.passcode:guest}") String relayPasscode,
+                               @Value("${ambulance.websocket.relay.virtual-host:}") String relayVirtualHost) {
+        this.liveStore = liveStore;
+        this.messagingTemplate = messagingTemplate;
+        this.nodeScope = nodeScope;
+        this.stompClient = new ReactorNettyTcpStompClient(relayHost, relayPort);
+        this.stompClient.setMessageConverter(new MappingJackson2MessageConverter());
+        connectHeaders.setLogin(relayLogin);
+        connectHeaders.setPasscode(relayPasscode);
+        connectHeaders.setHost(StringUtils.hasText(relayVirtualHost) ? relayVirtualHost : relayHost);
+        liveStore.enableChangeTracking();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void connect() {
+        if (!connecting.compareAndSet(false, true)) {
+            return;
+        }
+        stompClient.connectAsync(connectHeaders, new StompSessionHandlerAdapter() {
+            @Override
+            public void afterConnected(StompSession connected, StompHeaders headers) {
+                connected.subscribe(REPLICATION_TOPIC, new StompFrameHandler() {
+                    @Override
+                    public Type getPayloadType(StompHeaders frameHeaders) {
+                        return ReplicationBatchDTO.class;
+                    }
+
+                    @Override
+                    public void handleFrame(StompHeaders frameHeaders, Object payload) {
+                        apply((ReplicationBatchDTO) payload);
+                    }
+                });
+                session = connected;
+                connecting.set(false);
+                log.info("Node {} replicating live state on {}", nodeScope.getNodeId(), REPLICATION_TOPIC);
+            }
+
+            @Override
+            public void handleTransportError(StompSession failed, Throwable exception) {
+                log.warn("Replication connection lost: {}", exception.getMessage());
+                session = null;
+                connecting.set(false);
+            }
+        }).exceptionally(e -> {
+            log.warn("Could not connect to the broker for replication: {}", e.getMessage());
+            connecting.set(false);
+            return null;
+        });
+    }
+
+    /**
+     * Publishes what changed locally since the previous batch, and reconnects the replication
+     * subscription if it was lost.
+     */
+    @Scheduled(fixedDelayString = "${ambulance.replication.interval-ms:250}")
+    public void replicate() {
+        StompSession current = session;
+        if (current == null || !current.isConnected()) {
+            session = null;
+            connect();
+            return;
+        }
+        LiveAmbulanceStore.Changes changes = liveStore.drainChanges();
+        if (changes.isEmpty()) {
+            return;
+        }
+        List<AmbulanceLocationUpdate> ambulances = new ArrayList<>(changes.updated().size());
+        for (LiveAmbulance ambulance : changes.updated()) {
+            ambulances.add(new AmbulanceLocationUpdate(ambulance.getId(), ambulance.getLatitude(),
+                    ambulance.getLongitude(), ambulance.isAvailable(), ambulance.getUpdatedAt()));
+        }
+        messagingTemplate.convertAndSend(REPLICATION_TOPIC,
+                new ReplicationBatchDTO(nodeScope.getNodeId(), ambulances, changes.removed()));
+        log.debug("Replicated {} changed and {} removed ambulances", ambulances.size(), changes.removed().size());
+    }
+
+    void apply(ReplicationBatchDTO batch) {
+        if (nodeScope.getNodeId().equals(batch.getOrigin())) {
+            return;
+        }
+        int applied = 0;
+        if (batch.getAmbulances() != null) {
+            for (AmbulanceLocationUpdate update : batch.getAmbulances()) {
+                if (liveStore.applyRemote(update.getId(), update.getLatitude(), update.getLongitude(),
+                        update.isAvailable(), update.getTimestamp())) {
+                    applied++;
+                }
+            }
+        }
+        if (batch.getRemoved() != null) {
+            batch.getRemoved().forEach(liveStore::removeRemote);
+        }
+        log.debug("Applied {} ambulances replicated from node {}", applied, batch.getOrigin());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        StompSession current = session;
+        if (current != null && current.isConnected()) {
+            current.disconnect();
+        }
+        stompClient.shutdown();
+    }
+}
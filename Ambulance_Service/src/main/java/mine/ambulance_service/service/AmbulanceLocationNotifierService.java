@@ -1,12 +1,14 @@
 package mine.ambulance_service.service;
 
-import mine.ambulance_service.model.Ambulance;
-import mine.ambulance_service.repository.AmbulanceRepository;
+import mine.ambulance_service.live.LiveAmbulance;
+import mine.ambulance_service.live.LiveAmbulanceStore;
+import mine.ambulance_service.websocket.BinaryPositionCodec;
+import mine.ambulance_service.websocket.EncodingRegistry;
+import mine.ambulance_service.websocket.FrameEncoding;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
-import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
 import java.util.Optional;
@@ -16,13 +18,16 @@ public class AmbulanceLocationNotifierService {
 
     private static final Logger log = LoggerFactory.getLogger(AmbulanceLocationNotifierService.class);
 
-    private final AmbulanceRepository ambulanceRepository;
+    private final LiveAmbulanceStore liveStore;
     private final SimpMessagingTemplate messagingTemplate;
+    private final EncodingRegistry encodingRegistry;
 
     @Autowired
-    public AmbulanceLocationNotifierService(AmbulanceRepository ambulanceRepository, SimpMessagingTemplate messagingTemplate) {
-        this.ambulanceRepository = ambulanceRepository;
+    public AmbulanceLocationNotifierService(LiveAmbulanceStore liveStore, SimpMessagingTemplate messagingTemplate,
+                                            EncodingRegistry encodingRegistry) {
+        this.liveStore = liveStore;
         this.messagingTemplate = messagingTemplate;
+        this.encodingRegistry = encodingRegistry;
     }
 
     /**
@@ -31,60 +36,58 @@ public class AmbulanceLocationNotifierService {
      * @param ambulanceId the ID of the ambulance
      */
     public void notifyAmbulanceLocation(Long ambulanceId) {
-        Optional<Ambulance> ambulanceOptional = ambulanceRepository.findById(Math.toIntExact(ambulanceId));
+        Optional<LiveAmbulance> ambulanceOptional = liveStore.get(ambulanceId);
 
         if (ambulanceOptional.isPresent()) {
-            Ambulance ambulance = ambulanceOptional.get();
-            AmbulanceLocationUpdate locationUpdate = new AmbulanceLocationUpdate(
-                    ambulance.getId(),
-                    ambulance.getLatitude(),
-                    ambulance.getLongitude(),
-                    ambulance.isAvailable()
-            );
-
-            // Send location update to WebSocket clients
-            messagingTemplate.convertAndSend("/topic/ambulance-location/" + ambulanceId, locationUpdate);
-            log.info("Sent location update for ambulance ID={}: {}, {}", ambulanceId, ambulance.getLatitude(), ambulance.getLongitude());
+            notifyAmbulanceLocation(ambulanceOptional.get());
         } else {
             log.warn("Ambulance with ID={} not found. Cannot send location update.", ambulanceId);
         }
     }
 
+    /**
+     * Notify clients about an ambulance state already at hand.
+     *
+     * @param ambulance the current live state of the ambulance
+     */
+    public void notifyAmbulanceLocation(LiveAmbulance ambulance) {
+        AmbulanceLocationUpdate locationUpdate = AmbulanceLocationUpdate.of(ambulance);
+
+        // Send location update to WebSocket clients
+        publish("/topic/ambulance-location/" + ambulance.getId(), locationUpdate);
+        log.info("Sent location update for ambulance ID={}: {}, {}", ambulance.getId(), ambulance.getLatitude(), ambulance.getLongitude());
+    }
+
+    /**
+     * Publishes a position update as JSON and, if anyone subscribed with {@code encoding:binary},
+     * as a single binary record on the binary sibling destination.
+     *
+     * @param destination the JSON destination, e.g. {@code /topic/ambulance-location/7}
+     * @param update the update to publish
+     */
+    public void publish(String destination, AmbulanceLocationUpdate update) {
+        messagingTemplate.convertAndSend(destination, update);
+        String binaryDestination = FrameEncoding.BINARY.destination(destination);
+        if (encodingRegistry.hasSubscribers(binaryDestination)) {
+            messagingTemplate.convertAndSend(binaryDestination, BinaryPositionCodec.encode(update));
+        }
+    }
+
     /**
      * Get ambulance location by ID and notify WebSocket clients.
      *
      * @param id the ID of the ambulance
      * @return the optional ambulance object
      */
-    public Optional<Ambulance> getAmbulanceLocation(Long id) {
-        return ambulanceRepository.findById(Math.toIntExact(id))
+    public Optional<LiveAmbulance> getAmbulanceLocation(Long id) {
+        return liveStore.get(id)
                 .map(ambulance -> {
                     // Notify the WebSocket clients with the current location
-                    notifyAmbulanceLocation(id);
+                    notifyAmbulanceLocation(ambulance);
                     return ambulance;
                 });
     }
 
-    /**
-     * Periodically broadcast locations of all ambulances.
-     */
-    @Scheduled(fixedRate = 5000) // Broadcast every 5 seconds
-    public void broadcastAllAmbulanceLocations() {
-        Iterable<Ambulance> ambulances = ambulanceRepository.findAll();
-
-        ambulances.forEach(ambulance -> {
-            AmbulanceLocationUpdate locationUpdate = new AmbulanceLocationUpdate(
-                    ambulance.getId(),
-                    ambulance.getLatitude(),
-                    ambulance.getLongitude(),
-                    ambulance.isAvailable()
-            );
-
-            messagingTemplate.convertAndSend("/topic/ambulance-locations", locationUpdate);
-            log.info("Broadcasted location for ambulance ID={}: {}, {}", ambulance.getId(), ambulance.getLatitude(), ambulance.getLongitude());
-        });
-    }
-
     /**
      * Data transfer object for ambulance location updates.
      */
@@ -93,12 +96,31 @@ public class AmbulanceLocationNotifierService {
         private Double latitude;
         private Double longitude;
         private boolean available;
+        private long timestamp;
+
+        public AmbulanceLocationUpdate() {
+        }
 
         public AmbulanceLocationUpdate(Long id, Double latitude, Double longitude, boolean available) {
+            this(id, latitude, longitude, available, System.currentTimeMillis());
+        }
+
+        public AmbulanceLocationUpdate(Long id, Double latitude, Double longitude, boolean available, long timestamp) {
             this.id = id;
             this.latitude = latitude;
             this.longitude = longitude;
             this.available = available;
+            this.timestamp = timestamp;
+        }
+
+        /**
+         * Update for clients: stamped with the time of the latest fix, or with the current time for
+         * an ambulance that has not reported one yet, like the updates of the REST endpoints.
+         */
+        public static AmbulanceLocationUpdate of(LiveAmbulance ambulance) {
+            long updatedAt = ambulance.getUpdatedAt();
+            return new AmbulanceLocationUpdate(ambulance.getId(), ambulance.getLatitude(), ambulance.getLongitude(),
+                    ambulance.isAvailable(), updatedAt > 0 ? updatedAt : System.currentTimeMillis());
         }
 
         public Long getId() {
@@ -116,5 +138,12 @@ public class AmbulanceLocationNotifierService {
         public boolean isAvailable() {
             return available;
         }
+
+        /**
+         * Time of the position fix, in epoch milliseconds.
+         */
+        public long getTimestamp() {
+            return timestamp;
+        }
     }
 }
@@ -1,33 +1,64 @@
 package mine.ambulance_service.service;
 
+import mine.ambulance_service.dto.NearbyAmbulanceDTO;
+import mine.ambulance_service.geo.AmbulanceSpatialIndex;
+import mine.ambulance_service.live.LiveAmbulance;
+import mine.ambulance_service.live.LiveAmbulanceStore;
 import mine.ambulance_service.model.Ambulance;
 import mine.ambulance_service.repository.AmbulanceRepository;
 import org.springframework.stereotype.Service;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
+/**
+ * Ambulance CRUD. Reads are served by the {@link LiveAmbulanceStore}; writes go to the database
+ * (positions via the store's periodic snapshot) and are reflected in the store.
+ */
 @Service
 public class AmbulanceService {
 
     private final AmbulanceRepository ambulanceRepository;
     private final AmbulanceLocationNotifierService notifierService;
+    private final AmbulanceSpatialIndex spatialIndex;
+    private final LiveAmbulanceStore liveStore;
 
-    public AmbulanceService(AmbulanceRepository ambulanceRepository, AmbulanceLocationNotifierService notifierService) {
+    public AmbulanceService(AmbulanceRepository ambulanceRepository,
+                            AmbulanceLocationNotifierService notifierService,
+                            AmbulanceSpatialIndex spatialIndex,
+                            LiveAmbulanceStore liveStore) {
         this.ambulanceRepository = ambulanceRepository;
         this.notifierService = notifierService;
+        this.spatialIndex = spatialIndex;
+        this.liveStore = liveStore;
     }
 
     public List<Ambulance> getAllAmbulances() {
-        return ambulanceRepository.findAll();
+        return liveStore.getAll().stream()
+                .map(LiveAmbulance::toAmbulance)
+                .toList();
     }
 
     public Optional<Ambulance> getAmbulanceById(Long id) {
-        return ambulanceRepository.findById(Math.toIntExact(id));
+        return liveStore.get(id).map(LiveAmbulance::toAmbulance);
+    }
+
+    public List<Ambulance> getAmbulancesByIds(Collection<Long> ids, boolean availableOnly) {
+        return liveStore.getByIds(ids, availableOnly).stream()
+                .map(LiveAmbulance::toAmbulance)
+                .toList();
+    }
+
+    public List<NearbyAmbulanceDTO> findNearestAvailable(double latitude, double longitude, int k,
+                                                         Collection<Long> allowedIds) {
+        return spatialIndex.findNearestAvailable(latitude, longitude, k, allowedIds);
     }
 
     public Ambulance createAmbulance(Ambulance ambulance) {
-        return ambulanceRepository.save(ambulance);
+        Ambulance saved = ambulanceRepository.save(ambulance);
+        liveStore.put(saved);
+        return saved;
     }
 
     public Optional<Ambulance> updateAmbulance(Long id, Ambulance updatedAmbulance) {
@@ -38,25 +69,25 @@ public class AmbulanceService {
                     existingAmbulance.setLongitude(updatedAmbulance.getLongitude());
                     existingAmbulance.setDriverName(updatedAmbulance.getDriverName());
                     existingAmbulance.setId(updatedAmbulance.getId());
-                    return ambulanceRepository.save(existingAmbulance);
+                    Ambulance saved = ambulanceRepository.save(existingAmbulance);
+                    liveStore.put(saved);
+                    return saved;
                 });
     }
     public Optional<Ambulance> updateAmbulanceLocation(Long id, Double latitude, Double longitude) {
-        return ambulanceRepository.findById(Math.toIntExact(id))
-                .map(existingAmbulance -> {
-                    existingAmbulance.setLatitude(latitude);
-                    existingAmbulance.setLongitude(longitude);
+        return liveStore.updatePosition(id, latitude, longitude)
+                .map(ambulance -> {
                     // Notify WebSocket clients of location update
-                    notifierService.notifyAmbulanceLocation(id);
-                    return ambulanceRepository.save(existingAmbulance);
+                    notifierService.notifyAmbulanceLocation(ambulance);
+                    return ambulance.toAmbulance();
                 });
     }
     public Optional<Ambulance> getAmbulanceLocation(Long id) {
-        return ambulanceRepository.findById(Math.toIntExact(id))
+        return liveStore.get(id)
                 .map(ambulance -> {
                     // Notify the WebSocket clients with the current location
-                    notifierService.notifyAmbulanceLocation(id);
-                    return ambulance;
+                    notifierService.notifyAmbulanceLocation(ambulance);
+                    return ambulance.toAmbulance();
                 });
     }
 
@@ -64,17 +95,21 @@ public class AmbulanceService {
         return ambulanceRepository.findById(Math.toIntExact(id))
                 .map(ambulance -> {
                     ambulanceRepository.delete(ambulance);
+                    liveStore.remove(ambulance.getId());
                     return true;
                 }).orElse(false);
     }
 
     public Optional<Ambulance> updateAmbulanceAvailability(Long id, boolean available) {
-        return ambulanceRepository.findById(Math.toIntExact(id))
-                .map(existingAmbulance -> {
-                    existingAmbulance.setAvailable(available);
-                    ambulanceRepository.save(existingAmbulance);
-                    return existingAmbulance;
-                });
+        return liveStore.updateAvailability(id, available)
+                .map(LiveAmbulance::toAmbulance);
     }
 
+    /**
+     * Takes an available ambulance for a dispatch; release it with
+     * {@link #updateAmbulanceAvailability(Long, boolean)}.
+     */
+    public LiveAmbulanceStore.Reservation reserveAmbulance(Long id) {
+        return liveStore.reserve(id);
+    }
 }
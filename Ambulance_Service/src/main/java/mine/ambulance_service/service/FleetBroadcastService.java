@@ -0,0 +1,233 @@
+package mine.ambulance_service.service;
+
+import mine.ambulance_service.dto.FleetFrameDTO;
+import mine.ambulance_service.geo.Viewport;
+import mine.ambulance_service.live.LiveAmbulance;
+import mine.ambulance_service.live.LiveAmbulanceStore;
+import mine.ambulance_service.service.AmbulanceLocationNotifierService.AmbulanceLocationUpdate;
+import mine.ambulance_service.websocket.BinaryPositionCodec;
+import mine.ambulance_service.websocket.EncodingRegistry;
+import mine.ambulance_service.websocket.FrameEncoding;
+import mine.ambulance_service.websocket.NodeScope;
+import mine.ambulance_service.websocket.ViewportRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.socket.messaging.SessionSubscribeEvent;
+
+import java.util.*;
+
+/**
+ * Broadcasts the fleet as one batched frame per tick on {@value #FLEET_TOPIC}.
+ * <p>
+ * Each frame carries only the ambulances whose availability changed or that moved at least
+ * {@code minMoveMeters} since they were last sent. A client subscribing to the topic first gets a
+ * full snapshot on {@code /user}{@value #SNAPSHOT_QUEUE}, stamped with the sequence number of the
+ * last delta it reflects, so it should subscribe to the queue before the topic.
+ * <p>
+ * Clients zoomed into part of the map subscribe to {@link ViewportRegistry#VIEWPORT_DESTINATION}
+ * instead. They get a snapshot and then the same deltas cut down to their viewport; an ambulance
+ * that leaves the viewport is reported as removed.
+ * <p>
+ * Any of these subscriptions may ask for {@link FrameEncoding#BINARY} frames, which are encoded by
+ * {@link BinaryPositionCodec}.
+ * <p>
+ * Behind an external broker relay the topic frames go to this instance's own topic (see
+ * {@link NodeScope}); the store is kept in step with the other instances by
+ * {@link mine.ambulance_service.live.LiveStateReplicator}.
+ */
+@Service
+public class FleetBroadcastService {
+
+    private static final Logger log = LoggerFactory.getLogger(FleetBroadcastService.class);
+
+    public static final String FLEET_TOPIC = "/topic/fleet";
+    public static final String SNAPSHOT_QUEUE = "/queue/fleet";
+
+    private static final double METERS_PER_DEGREE = 111_320.0;
+
+    private final LiveAmbulanceStore liveStore;
+    private final SimpMessagingTemplate messagingTemplate;
+    private final ViewportRegistry viewportRegistry;
+    private final EncodingRegistry encodingRegistry;
+    private final NodeScope nodeScope;
+    private final double minMoveMeters;
+
+    // State as of the last frame; guarded by this
+    private final Map<Long, LiveAmbulance> lastSent = new HashMap<>();
+    private long seq;
+
+    public FleetBroadcastService(LiveAmbulanceStore liveStore,
+                                 SimpMessagingTemplate messagingTemplate,
+                                 ViewportRegistry viewportRegistry,
+                                 EncodingRegistry encodingRegistry,
+                                 NodeScope nodeScope,
+                                 @Value("${ambulance.broadcast.min-move-meters:5}") double minMoveMeters) {
+        this.liveStore = liveStore;
+        this.messagingTemplate = messagingTemplate;
+        this.viewportRegistry = viewportRegistry;
+        this.encodingRegistry = encodingRegistry;
+        this.nodeScope = nodeScope;
+        this.minMoveMeters = minMoveMeters;
+    }
+
+    @Scheduled(fixedRateString = "${ambulance.broadcast.tick-ms:1000}")
+    public void broadcastChanges() {
+        Delta delta = collectChanges();
+        if (delta == null) {
+            return;
+        }
+        FleetFrameDTO frame = toFrame(delta, null);
+        messagingTemplate.convertAndSend(nodeScope.scope(FLEET_TOPIC), frame);
+        String binaryTopic = FrameEncoding.BINARY.destination(FLEET_TOPIC);
+        if (encodingRegistry.hasSubscribers(binaryTopic)) {
+            messagingTemplate.convertAndSend(nodeScope.scope(binaryTopic), BinaryPositionCodec.encode(frame));
+        }
+        log.debug("Fleet frame #{}: {} changed, {} removed",
+                frame.getSeq(), frame.getAmbulances().size(), frame.getRemoved().size());
+
+        viewportRegistry.forEach((sessionId, registration) -> {
+            FleetFrameDTO scoped = toFrame(delta, registration.viewport());
+            if (!scoped.getAmbulances().isEmpty() || !scoped.getRemoved().isEmpty()) {
+                sendToSession(sessionId, ViewportRegistry.VIEWPORT_QUEUE, scoped, registration.encoding());
+            }
+        });
+    }
+
+    @EventListener
+    public void onSubscribe(SessionSubscribeEvent event) {
+        SimpMessageHeaderAccessor subscribe = SimpMessageHeaderAccessor.wrap(event.getMessage());
+        String sessionId = subscribe.getSessionId();
+        String destination = subscribe.getDestination();
+        if (sessionId == null || destination == null) {
+            return;
+        }
+        FrameEncoding encoding = FrameEncoding.fromHeader(subscribe.getFirstNativeHeader(FrameEncoding.HEADER));
+        if (destination.endsWith(FrameEncoding.BINARY_SUFFIX)) {
+            destination = destination.substring(0, destination.length() - FrameEncoding.BINARY_SUFFIX.length());
+            encoding = FrameEncoding.BINARY;
+        }
+        if (FLEET_TOPIC.equals(destination)) {
+            sendToSession(sessionId, SNAPSHOT_QUEUE, snapshot(), encoding);
+        } else if (ViewportRegistry.VIEWPORT_DESTINATION.equals(destination)) {
+            sendViewportSnapshot(sessionId);
+        }
+    }
+
+    /**
+     * Sends the part of the fleet inside the session's current viewport, e.g. after it changed.
+     */
+    public void sendViewportSnapshot(String sessionId) {
+        viewportRegistry.get(sessionId)
+                .ifPresent(viewport -> sendToSession(sessionId, ViewportRegistry.VIEWPORT_QUEUE, snapshot(viewport),
+                        viewportRegistry.encoding(sessionId)));
+    }
+
+    private void sendToSession(String sessionId, String destination, FleetFrameDTO frame, FrameEncoding encoding) {
+        SimpMessageHeaderAccessor headers = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        headers.setSessionId(sessionId);
+        headers.setLeaveMutable(true);
+        Object payload = encoding == FrameEncoding.BINARY ? BinaryPositionCodec.encode(frame) : frame;
+        messagingTemplate.convertAndSendToUser(sessionId, encoding.destination(destination), payload,
+                headers.getMessageHeaders());
+    }
+
+    /**
+     * Builds the delta since the previous frame and advances the sequence, or returns {@code null}
+     * if nothing changed.
+     */
+    FleetFrameDTO nextDelta() {
+        Delta delta = collectChanges();
+        return delta == null ? null : toFrame(delta, null);
+    }
+
+    private synchronized Delta collectChanges() {
+        List<Change> changes = new ArrayList<>();
+        Set<Long> seen = new HashSet<>();
+        for (LiveAmbulance current : liveStore.getAll()) {
+            seen.add(current.getId());
+            LiveAmbulance previous = lastSent.get(current.getId());
+            if (previous == null || hasChanged(previous, current)) {
+                lastSent.put(current.getId(), current);
+                changes.add(new Change(current.getId(), previous, current));
+            }
+        }
+        for (Iterator<Map.Entry<Long, LiveAmbulance>> entries = lastSent.entrySet().iterator(); entries.hasNext(); ) {
+            Map.Entry<Long, LiveAmbulance> entry = entries.next();
+            if (!seen.contains(entry.getKey())) {
+                entries.remove();
+                changes.add(new Change(entry.getKey(), entry.getValue(), null));
+            }
+        }
+        if (changes.isEmpty()) {
+            return null;
+        }
+        return new Delta(++seq, System.currentTimeMillis(), changes);
+    }
+
+    /**
+     * Renders a delta, optionally cut down to a viewport. An ambulance that was last shown inside
+     * the viewport and is now outside (or gone) is listed as removed.
+     */
+    private static FleetFrameDTO toFrame(Delta delta, Viewport viewport) {
+        List<AmbulanceLocationUpdate> ambulances = new ArrayList<>();
+        List<Long> removed = new ArrayList<>();
+        for (Change change : delta.changes()) {
+            boolean nowVisible = change.current() != null && isInside(viewport, change.current());
+            if (nowVisible) {
+                ambulances.add(toUpdate(change.current()));
+            } else if (change.previous() != null && isInside(viewport, change.previous())) {
+                removed.add(change.id());
+            }
+        }
+        return new FleetFrameDTO(delta.seq(), false, delta.timestamp(), ambulances, removed);
+    }
+
+    /**
+     * The fleet as of the last delta frame, so that applying later deltas to it is exact.
+     */
+    FleetFrameDTO snapshot() {
+        return snapshot(null);
+    }
+
+    synchronized FleetFrameDTO snapshot(Viewport viewport) {
+        List<AmbulanceLocationUpdate> visible = new ArrayList<>();
+        for (LiveAmbulance ambulance : lastSent.values()) {
+            if (isInside(viewport, ambulance)) {
+                visible.add(toUpdate(ambulance));
+            }
+        }
+        return new FleetFrameDTO(seq, true, System.currentTimeMillis(), visible, List.of());
+    }
+
+    private static boolean isInside(Viewport viewport, LiveAmbulance ambulance) {
+        return viewport == null || viewport.contains(ambulance.getLatitude(), ambulance.getLongitude());
+    }
+
+    private boolean hasChanged(LiveAmbulance previous, LiveAmbulance current) {
+        if (previous.isAvailable() != current.isAvailable()) {
+            return true;
+        }
+        double dy = (current.getLatitude() - previous.getLatitude()) * METERS_PER_DEGREE;
+        double dx = (current.getLongitude() - previous.getLongitude())
+                * METERS_PER_DEGREE * Math.cos(Math.toRadians(current.getLatitude()));
+        double squaredMeters = dx * dx + dy * dy;
+        return squaredMeters > 0 && squaredMeters >= minMoveMeters * minMoveMeters;
+    }
+
+    private static AmbulanceLocationUpdate toUpdate(LiveAmbulance ambulance) {
+        return AmbulanceLocationUpdate.of(ambulance);
+    }
+
+    private record Change(Long id, LiveAmbulance previous, LiveAmbulance current) {
+    }
+
+    private record Delta(long seq, long timestamp, List<Change> changes) {
+    }
+}
@@ -0,0 +1,49 @@
+package mine.ambulance_service.service;
+
+import mine.ambulance_service.dto.LocationFixDTO;
+import mine.ambulance_service.live.LiveAmbulance;
+import mine.ambulance_service.live.LiveAmbulanceStore;
+import org.springframework.stereotype.Service;
+
+import java.util.Collection;
+import java.util.Optional;
+
+/**
+ * Accepts GPS fixes in bulk. Fixes go straight into the {@link LiveAmbulanceStore}, which keeps
+ * the latest one per ambulance and persists it on its next snapshot, so callers are acknowledged
+ * without waiting on the database.
+ */
+@Service
+public class LocationIngestService {
+
+    private final LiveAmbulanceStore liveStore;
+
+    public LocationIngestService(LiveAmbulanceStore liveStore) {
+        this.liveStore = liveStore;
+    }
+
+    /**
+     * @return the number of fixes applied; malformed fixes, unknown ambulances and fixes older than
+     * the ambulance's current one are skipped
+     */
+    public int ingest(Collection<LocationFixDTO> fixes) {
+        int accepted = 0;
+        for (LocationFixDTO fix : fixes) {
+            if (!isValid(fix)) {
+                continue;
+            }
+            Optional<LiveAmbulance> current = fix.getTs() != null
+                    ? liveStore.updatePosition(fix.getId(), fix.getLat(), fix.getLng(), fix.getTs())
+                    : liveStore.updatePosition(fix.getId(), fix.getLat(), fix.getLng());
+            if (current.isPresent()) {
+                accepted++;
+            }
+        }
+        return accepted;
+    }
+
+    private static boolean isValid(LocationFixDTO fix) {
+        return fix != null && fix.getId() != null && fix.getLat() != null && fix.getLng() != null
+                && Math.abs(fix.getLat()) <= 90 && Math.abs(fix.getLng()) <= 180;
+    }
+}
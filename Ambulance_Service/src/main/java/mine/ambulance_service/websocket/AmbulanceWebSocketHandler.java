@@ -1,18 +1,217 @@
 package mine.ambulance_service.websocket;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import mine.ambulance_service.geo.Viewport;
+import mine.ambulance_service.live.LiveAmbulance;
+import mine.ambulance_service.live.LiveAmbulanceStore;
+import mine.ambulance_service.service.AmbulanceLocationNotifierService.AmbulanceLocationUpdate;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
-import org.springframework.web.reactive.socket.WebSocketHandler;
-import org.springframework.web.reactive.socket.WebSocketSession;
-import reactor.core.publisher.Mono;
+import org.springframework.web.socket.*;
+import org.springframework.web.socket.handler.AbstractWebSocketHandler;
+import org.springframework.web.socket.handler.ConcurrentWebSocketSessionDecorator;
+import org.springframework.web.socket.handler.ConcurrentWebSocketSessionDecorator.OverflowStrategy;
+import org.springframework.web.socket.handler.SessionLimitExceededException;
+import org.springframework.web.util.UriComponentsBuilder;
+import org.springframework.web.util.UriUtils;
+import reactor.core.Disposable;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
 
+import java.io.IOException;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+
+/**
+ * Raw WebSocket position stream on {@value #PATH}: a lighter alternative to SockJS/STOMP for
+ * clients that only want positions.
+ * <p>
+ * Filters come from the handshake query and can be replaced later by sending a JSON text message
+ * with the same keys:
+ * <ul>
+ *     <li>{@code ids=1,2,3}: only these ambulances</li>
+ *     <li>{@code viewport=bbox:minLat,minLng,maxLat,maxLng} or {@code viewport=geohash:...}</li>
+ *     <li>{@code encoding=binary}: 21-byte {@link BinaryPositionCodec} records instead of JSON</li>
+ * </ul>
+ * A client first gets the current state of every matching ambulance, then each change. Updates
+ * for a client that falls behind are conflated per ambulance, see
+ * {@link PositionStream#latestPerAmbulance}.
+ * <p>
+ * Every session is written through a {@link ConcurrentWebSocketSessionDecorator}: one thread
+ * writes at a time and the others queue their frame and return. A client whose write takes longer
+ * than {@code ambulance.websocket.stream.send-time-limit-ms}, or whose queued frames exceed
+ * {@code ambulance.websocket.stream.buffer-size-limit} bytes, is disconnected and gets a fresh
+ * snapshot when it reconnects.
+ */
 @Component
-public class AmbulanceWebSocketHandler implements WebSocketHandler {
+public class AmbulanceWebSocketHandler extends AbstractWebSocketHandler {
+
+    private static final Logger log = LoggerFactory.getLogger(AmbulanceWebSocketHandler.class);
+
+    public static final String PATH = "/stream/positions";
+
+    private final PositionStream positionStream;
+    private final LiveAmbulanceStore liveStore;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final Scheduler sendScheduler = Schedulers.boundedElastic();
+    private final Map<String, Subscription> subscriptions = new ConcurrentHashMap<>();
+    private final int sendTimeLimitMillis;
+    private final int bufferSizeLimit;
+
+    public AmbulanceWebSocketHandler(PositionStream positionStream, LiveAmbulanceStore liveStore,
+                                     MeterRegistry meterRegistry,
+                                     @Value("${ambulance.websocket.stream.send-time-limit-ms:5000}") int sendTimeLimitMillis,
+                                     @Value("${ambulance.websocket.stream.buffer-size-limit:262144}") int bufferSizeLimit) {
+        this.positionStream = positionStream;
+        this.liveStore = liveStore;
+        this.sendTimeLimitMillis = sendTimeLimitMillis;
+        this.bufferSizeLimit = bufferSizeLimit;
+        Gauge.builder("ambulance.positions.sessions", subscriptions, Map::size)
+                .description("Open raw WebSocket position streams")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public void afterConnectionEstablished(WebSocketSession rawSession) {
+        WebSocketSession session = new ConcurrentWebSocketSessionDecorator(rawSession, sendTimeLimitMillis,
+                bufferSizeLimit, OverflowStrategy.TERMINATE);
+        Map<String, String> query = parseQuery(session.getUri());
+        Filter filter;
+        try {
+            filter = Filter.of(query);
+        } catch (IllegalArgumentException e) {
+            close(session, CloseStatus.BAD_DATA.withReason(e.getMessage()));
+            return;
+        }
+        FrameEncoding encoding = FrameEncoding.fromHeader(query.get("encoding"));
+        AtomicReference<Filter> current = new AtomicReference<>(filter);
+
+        Disposable stream = positionStream.latestPerAmbulance(update -> current.get().test(update))
+                .publishOn(sendScheduler, 1)
+                .subscribe(update -> send(session, update, encoding),
+                        error -> log.warn("Position stream for session {} failed: {}", session.getId(), error.getMessage()));
+        subscriptions.put(session.getId(), new Subscription(session, current, encoding, stream));
+        sendSnapshot(session, filter, encoding);
+    }
+
+    @Override
+    protected void handleTextMessage(WebSocketSession session, TextMessage message) throws IOException {
+        Subscription subscription = subscriptions.get(session.getId());
+        if (subscription == null) {
+            return;
+        }
+        Map<String, String> request = new HashMap<>();
+        objectMapper.readTree(message.getPayload()).fields().forEachRemaining(field -> {
+            JsonNode value = field.getValue();
+            // "ids" may be sent as [1,2,3] as well as "1,2,3"
+            StringJoiner joined = new StringJoiner(",");
+            if (value.isArray()) {
+                value.forEach(element -> joined.add(element.asText()));
+            } else {
+                joined.add(value.asText());
+            }
+            request.put(field.getKey(), joined.toString());
+        });
+        try {
+            Filter filter = Filter.of(request);
+            subscription.filter().set(filter);
+            sendSnapshot(subscription.session(), filter, subscription.encoding());
+        } catch (IllegalArgumentException e) {
+            log.warn("Ignoring invalid filter from session {}: {}", session.getId(), e.getMessage());
+        }
+    }
+
+    @Override
+    public void afterConnectionClosed(WebSocketSession session, CloseStatus status) {
+        Subscription subscription = subscriptions.remove(session.getId());
+        if (subscription != null) {
+            subscription.stream().dispose();
+        }
+    }
 
     @Override
-    public Mono<Void> handle(WebSocketSession session) {
-        return session.send(
-            session.receive()
-                .map(msg -> session.textMessage("Echo: " + msg.getPayloadAsText()))
-        );
+    public void handleTransportError(WebSocketSession session, Throwable exception) {
+        log.debug("Transport error on position stream {}: {}", session.getId(), exception.getMessage());
+    }
+
+    public int sessionCount() {
+        return subscriptions.size();
+    }
+
+    private void sendSnapshot(WebSocketSession session, Filter filter, FrameEncoding encoding) {
+        for (LiveAmbulance ambulance : liveStore.getAll()) {
+            AmbulanceLocationUpdate update = AmbulanceLocationUpdate.of(ambulance);
+            if (filter.test(update)) {
+                send(session, update, encoding);
+            }
+        }
+    }
+
+    private void send(WebSocketSession session, AmbulanceLocationUpdate update, FrameEncoding encoding) {
+        if (!session.isOpen()) {
+            return;
+        }
+        try {
+            WebSocketMessage<?> message = encoding == FrameEncoding.BINARY
+                    ? new BinaryMessage(ByteBuffer.wrap(BinaryPositionCodec.encode(update)))
+                    : new TextMessage(objectMapper.writeValueAsString(update));
+            // The decorator serializes the snapshot and the stream; it throws once it has closed the session
+            session.sendMessage(message);
+        } catch (IOException | IllegalStateException | SessionLimitExceededException e) {
+            log.debug("Dropping update for position stream {}: {}", session.getId(), e.getMessage());
+        }
+    }
+
+    private static void close(WebSocketSession session, CloseStatus status) {
+        try {
+            session.close(status);
+        } catch (IOException e) {
+            log.debug("Closing position stream {} failed: {}", session.getId(), e.getMessage());
+        }
+    }
+
+    private static Map<String, String> parseQuery(URI uri) {
+        if (uri == null) {
+            return Map.of();
+        }
+        Map<String, String> query = new HashMap<>();
+        UriComponentsBuilder.fromUri(uri).build().getQueryParams().toSingleValueMap()
+                .forEach((name, value) -> query.put(name, value == null ? null : UriUtils.decode(value, StandardCharsets.UTF_8)));
+        return query;
+    }
+
+    private record Subscription(WebSocketSession session, AtomicReference<Filter> filter, FrameEncoding encoding, Disposable stream) {
+    }
+
+    /**
+     * Which updates a session gets; both parts are optional and combine with AND.
+     */
+    record Filter(Set<Long> ids, Viewport viewport) {
+
+        static Filter of(Map<String, String> values) {
+            String ids = values.get("ids");
+            String viewport = values.get("viewport");
+            return new Filter(
+                    ids == null || ids.isBlank() ? null : Arrays.stream(ids.split(","))
+                            .map(String::trim)
+                            .map(Long::valueOf)
+                            .collect(Collectors.toUnmodifiableSet()),
+                    viewport == null || viewport.isBlank() ? null : Viewport.parse(viewport));
+        }
+
+        boolean test(AmbulanceLocationUpdate update) {
+            return (ids == null || ids.contains(update.getId()))
+                    && (viewport == null || viewport.contains(update.getLatitude(), update.getLongitude()));
+        }
     }
 }
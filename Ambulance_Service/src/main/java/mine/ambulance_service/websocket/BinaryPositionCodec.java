@@ -0,0 +1,137 @@
+package mine.ambulance_service.websocket;
+
+import mine.ambulance_service.dto.FleetFrameDTO;
+import mine.ambulance_service.service.AmbulanceLocationNotifierService.AmbulanceLocationUpdate;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Compact binary form of position updates for subscriptions using {@link FrameEncoding#BINARY}.
+ * All values are big-endian.
+ * <p>
+ * A position record is {@value #RECORD_BYTES} bytes:
+ * <pre>
+ * uint32 id | int32 latitude * 1e7 | int32 longitude * 1e7 | int8 flags | int64 timestamp (epoch ms)
+ * </pre>
+ * where flag bit 0 is {@code available}. E7 fixed point keeps about 1 cm of precision.
+ * <p>
+ * A fleet frame is a {@value #FRAME_HEADER_BYTES}-byte header followed by its records and the
+ * removed IDs:
+ * <pre>
+ * int8 version | int8 flags | int64 seq | int64 timestamp | int32 records | int32 removed
+ * records * 21 bytes | removed * uint32 id
+ * </pre>
+ * where frame flag bit 0 is {@code snapshot}.
+ */
+public final class BinaryPositionCodec {
+
+    public static final byte VERSION = 1;
+    public static final int RECORD_BYTES = 21;
+    public static final int FRAME_HEADER_BYTES = 26;
+
+    private static final double E7 = 1e7;
+    private static final byte AVAILABLE = 1;
+    private static final byte SNAPSHOT = 1;
+
+    private BinaryPositionCodec() {
+    }
+
+    public static byte[] encode(AmbulanceLocationUpdate update) {
+        ByteBuffer buffer = ByteBuffer.allocate(RECORD_BYTES);
+        writeRecord(buffer, update);
+        return buffer.array();
+    }
+
+    public static byte[] encode(FleetFrameDTO frame) {
+        List<AmbulanceLocationUpdate> ambulances = frame.getAmbulances();
+        List<Long> removed = frame.getRemoved();
+        ByteBuffer buffer = ByteBuffer.allocate(frameSize(ambulances.size(), removed.size()));
+        buffer.put(VERSION)
+                .put(frame.isSnapshot() ? SNAPSHOT : 0)
+                .putLong(frame.getSeq())
+                .putLong(frame.getTimestamp())
+                .putInt(ambulances.size())
+                .putInt(removed.size());
+        for (AmbulanceLocationUpdate update : ambulances) {
+            writeRecord(buffer, update);
+        }
+        for (Long id : removed) {
+            buffer.putInt(toWireId(id));
+        }
+        return buffer.array();
+    }
+
+    public static int frameSize(int records, int removed) {
+        return FRAME_HEADER_BYTES + records * RECORD_BYTES + removed * Integer.BYTES;
+    }
+
+    public static AmbulanceLocationUpdate decodeRecord(byte[] bytes) {
+        if (bytes.length != RECORD_BYTES) {
+            throw new IllegalArgumentException("A position record is " + RECORD_BYTES + " bytes, got " + bytes.length);
+        }
+        return readRecord(ByteBuffer.wrap(bytes));
+    }
+
+    public static FleetFrameDTO decodeFrame(byte[] bytes) {
+        try {
+            ByteBuffer buffer = ByteBuffer.wrap(bytes);
+            byte version = buffer.get();
+            if (version != VERSION) {
+                throw new IllegalArgumentException("Unsupported frame version: " + version);
+            }
+            boolean snapshot = (buffer.get() & SNAPSHOT) != 0;
+            long seq = buffer.getLong();
+            long timestamp = buffer.getLong();
+            int records = buffer.getInt();
+            int removedCount = buffer.getInt();
+            if (records < 0 || removedCount < 0 || bytes.length != frameSize(records, removedCount)) {
+                throw new IllegalArgumentException("Frame length does not match its header.");
+            }
+            List<AmbulanceLocationUpdate> ambulances = new ArrayList<>(records);
+            for (int i = 0; i < records; i++) {
+                ambulances.add(readRecord(buffer));
+            }
+            List<Long> removed = new ArrayList<>(removedCount);
+            for (int i = 0; i < removedCount; i++) {
+                removed.add(Integer.toUnsignedLong(buffer.getInt()));
+            }
+            return new FleetFrameDTO(seq, snapshot, timestamp, ambulances, removed);
+        } catch (BufferUnderflowException e) {
+            throw new IllegalArgumentException("Truncated fleet frame.", e);
+        }
+    }
+
+    private static void writeRecord(ByteBuffer buffer, AmbulanceLocationUpdate update) {
+        buffer.putInt(toWireId(update.getId()))
+                .putInt(toE7(update.getLatitude()))
+                .putInt(toE7(update.getLongitude()))
+                .put(update.isAvailable() ? AVAILABLE : 0)
+                .putLong(update.getTimestamp());
+    }
+
+    private static AmbulanceLocationUpdate readRecord(ByteBuffer buffer) {
+        long id = Integer.toUnsignedLong(buffer.getInt());
+        double latitude = buffer.getInt() / E7;
+        double longitude = buffer.getInt() / E7;
+        boolean available = (buffer.get() & AVAILABLE) != 0;
+        long timestamp = buffer.getLong();
+        return new AmbulanceLocationUpdate(id, latitude, longitude, available, timestamp);
+    }
+
+    private static int toWireId(Long id) {
+        if (id == null || id < 0 || id > 0xFFFF_FFFFL) {
+            throw new IllegalArgumentException("Ambulance ID does not fit in 32 bits: " + id);
+        }
+        return (int) id.longValue();
+    }
+
+    private static int toE7(Double degrees) {
+        if (degrees == null || Math.abs(degrees) > 180) {
+            throw new IllegalArgumentException("Invalid coordinate: " + degrees);
+        }
+        return (int) Math.round(degrees * E7);
+    }
+}
@@ -0,0 +1,58 @@
+package mine.ambulance_service.websocket;
+
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.messaging.support.MessageHeaderAccessor;
+import org.springframework.stereotype.Component;
+
+/**
+ * Negotiates the {@link FrameEncoding} of inbound SUBSCRIBE frames. A binary subscription is
+ * moved to the binary sibling of its destination; asking for binary on a destination that has no
+ * binary frames is rejected with an ERROR frame.
+ */
+@Component
+public class EncodingChannelInterceptor implements ChannelInterceptor {
+
+    private final EncodingRegistry encodingRegistry;
+
+    public EncodingChannelInterceptor(EncodingRegistry encodingRegistry) {
+        this.encodingRegistry = encodingRegistry;
+    }
+
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        StompHeaderAccessor accessor = MessageHeaderAccessor.getAccessor(message, StompHeaderAccessor.class);
+        if (accessor == null || accessor.getCommand() == null || accessor.getSessionId() == null) {
+            return message;
+        }
+        StompCommand command = accessor.getCommand();
+        if (command == StompCommand.SUBSCRIBE) {
+            FrameEncoding encoding = FrameEncoding.fromHeader(accessor.getFirstNativeHeader(FrameEncoding.HEADER));
+            if (encoding == FrameEncoding.BINARY) {
+                return subscribeBinary(message, accessor);
+            }
+        } else if (command == StompCommand.UNSUBSCRIBE) {
+            encodingRegistry.unsubscribe(accessor.getSessionId(), accessor.getSubscriptionId());
+        } else if (command == StompCommand.DISCONNECT) {
+            encodingRegistry.remove(accessor.getSessionId());
+        }
+        return message;
+    }
+
+    private Message<?> subscribeBinary(Message<?> message, StompHeaderAccessor accessor) {
+        String destination = accessor.getDestination();
+        if (!FrameEncoding.supportsBinary(destination)) {
+            throw new IllegalArgumentException("No binary frames are published on " + destination);
+        }
+        String binaryDestination = FrameEncoding.BINARY.destination(destination);
+        encodingRegistry.register(accessor.getSessionId(), accessor.getSubscriptionId(), binaryDestination);
+
+        StompHeaderAccessor rewritten = StompHeaderAccessor.wrap(message);
+        rewritten.setDestination(binaryDestination);
+        return MessageBuilder.createMessage(message.getPayload(), rewritten.getMessageHeaders());
+    }
+}
@@ -0,0 +1,52 @@
+package mine.ambulance_service.websocket;
+
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Binary subscriptions per destination, so publishers only encode binary frames someone will
+ * receive.
+ */
+@Component
+public class EncodingRegistry {
+
+    // sessionId -> subscriptionId -> binary destination
+    private final Map<String, Map<String, String>> sessions = new ConcurrentHashMap<>();
+    private final Map<String, Integer> subscribers = new ConcurrentHashMap<>();
+
+    public void register(String sessionId, String subscriptionId, String binaryDestination) {
+        String previous = sessions.computeIfAbsent(sessionId, id -> new ConcurrentHashMap<>())
+                .put(subscriptionId, binaryDestination);
+        if (previous != null) {
+            release(previous);
+        }
+        subscribers.merge(binaryDestination, 1, Integer::sum);
+    }
+
+    public void unsubscribe(String sessionId, String subscriptionId) {
+        Map<String, String> subscriptions = sessions.get(sessionId);
+        if (subscriptions != null) {
+            String destination = subscriptions.remove(subscriptionId);
+            if (destination != null) {
+                release(destination);
+            }
+        }
+    }
+
+    public void remove(String sessionId) {
+        Map<String, String> subscriptions = sessions.remove(sessionId);
+        if (subscriptions != null) {
+            subscriptions.values().forEach(this::release);
+        }
+    }
+
+    public boolean hasSubscribers(String binaryDestination) {
+        return subscribers.containsKey(binaryDestination);
+    }
+
+    private void release(String destination) {
+        subscribers.computeIfPresent(destination, (key, count) -> count > 1 ? count - 1 : null);
+    }
+}
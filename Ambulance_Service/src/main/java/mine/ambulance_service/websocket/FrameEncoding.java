@@ -0,0 +1,53 @@
+package mine.ambulance_service.websocket;
+
+import java.util.Locale;
+
+/**
+ * Wire encoding of position frames, chosen per STOMP subscription with the {@value #HEADER}
+ * header, e.g. {@code encoding:binary}. JSON is the default.
+ * <p>
+ * Binary subscriptions are served on a sibling destination ending in {@value #BINARY_SUFFIX}, so
+ * each frame is encoded once per encoding rather than once per session. Binary frames need a
+ * transport that carries binary WebSocket messages, i.e. the raw {@code /ws/websocket} endpoint
+ * rather than a SockJS fallback.
+ */
+public enum FrameEncoding {
+    JSON,
+    BINARY;
+
+    public static final String HEADER = "encoding";
+    public static final String BINARY_SUFFIX = ".bin";
+
+    public static FrameEncoding fromHeader(String value) {
+        if (value == null || value.isBlank()) {
+            return JSON;
+        }
+        return switch (value.trim().toLowerCase(Locale.ROOT)) {
+            case "json", "application/json" -> JSON;
+            case "binary", "application/octet-stream" -> BINARY;
+            default -> throw new IllegalArgumentException("Unsupported encoding: " + value);
+        };
+    }
+
+    /**
+     * Destination frames in this encoding are published to, given the JSON destination.
+     */
+    public String destination(String destination) {
+        return this == BINARY ? destination + BINARY_SUFFIX : destination;
+    }
+
+    /**
+     * Whether binary frames are published for a destination: the fleet frames and the per-ambulance
+     * position topics.
+     */
+    public static boolean supportsBinary(String destination) {
+        if (destination == null) {
+            return false;
+        }
+        return destination.equals("/topic/fleet")
+                || destination.equals("/user/queue/fleet")
+                || destination.equals(ViewportRegistry.VIEWPORT_DESTINATION)
+                || destination.matches("/topic/ambulance-location/\\d+")
+                || destination.matches("/topic/ambulance/\\d+/location");
+    }
+}
@@ -0,0 +1,58 @@
+package mine.ambulance_service.websocket;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Identity of this instance in the WebSocket fan-out.
+ * <p>
+ * With {@code ambulance.websocket.broker=simple} every instance has its own in-process broker and
+ * destinations are used as is. With {@code relay} all instances share an external STOMP broker,
+ * so topics reach every client. Fleet frames are the exception: each instance numbers them from
+ * its own store, so they go to a per-instance topic that only its own sessions subscribe to.
+ */
+@Component
+public class NodeScope {
+
+    public static final String BROKER_SIMPLE = "simple";
+    public static final String BROKER_RELAY = "relay";
+
+    private static final Set<String> NODE_LOCAL_DESTINATIONS = Set.of(
+            "/topic/fleet",
+            "/topic/fleet" + FrameEncoding.BINARY_SUFFIX);
+
+    private final boolean relay;
+    private final String nodeId;
+
+    public NodeScope(@Value("${ambulance.websocket.broker:simple}") String broker,
+                     @Value("${ambulance.websocket.node-id:}") String nodeId) {
+        if (!BROKER_SIMPLE.equals(broker) && !BROKER_RELAY.equals(broker)) {
+            throw new IllegalArgumentException("ambulance.websocket.broker must be 'simple' or 'relay', got " + broker);
+        }
+        this.relay = BROKER_RELAY.equals(broker);
+        this.nodeId = StringUtils.hasText(nodeId) ? nodeId : UUID.randomUUID().toString().substring(0, 8);
+    }
+
+    public boolean isRelay() {
+        return relay;
+    }
+
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    public boolean isNodeLocal(String destination) {
+        return relay && NODE_LOCAL_DESTINATIONS.contains(destination);
+    }
+
+    /**
+     * Destination this instance publishes to and its sessions subscribe to, given the one clients ask for.
+     */
+    public String scope(String destination) {
+        return isNodeLocal(destination) ? destination + ".node-" + nodeId : destination;
+    }
+}
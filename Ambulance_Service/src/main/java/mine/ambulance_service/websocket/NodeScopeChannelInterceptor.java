@@ -0,0 +1,37 @@
+package mine.ambulance_service.websocket;
+
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.messaging.support.MessageHeaderAccessor;
+import org.springframework.stereotype.Component;
+
+/**
+ * Moves SUBSCRIBE frames for node-local destinations to this instance's topic, see
+ * {@link NodeScope}. Runs after {@link EncodingChannelInterceptor} so binary subscriptions are
+ * scoped too.
+ */
+@Component
+public class NodeScopeChannelInterceptor implements ChannelInterceptor {
+
+    private final NodeScope nodeScope;
+
+    public NodeScopeChannelInterceptor(NodeScope nodeScope) {
+        this.nodeScope = nodeScope;
+    }
+
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        StompHeaderAccessor accessor = MessageHeaderAccessor.getAccessor(message, StompHeaderAccessor.class);
+        if (accessor == null || accessor.getCommand() != StompCommand.SUBSCRIBE
+                || !nodeScope.isNodeLocal(accessor.getDestination())) {
+            return message;
+        }
+        StompHeaderAccessor rewritten = StompHeaderAccessor.wrap(message);
+        rewritten.setDestination(nodeScope.scope(accessor.getDestination()));
+        return MessageBuilder.createMessage(message.getPayload(), rewritten.getMessageHeaders());
+    }
+}
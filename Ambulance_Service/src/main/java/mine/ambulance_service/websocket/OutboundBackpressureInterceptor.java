@@ -0,0 +1,40 @@
+package mine.ambulance_service.websocket;
+
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.stereotype.Component;
+
+/**
+ * Routes MESSAGE frames for congested sessions into their {@link SessionOutbox} instead of the
+ * socket. Held frames are released by {@link SessionOutboxFlusher}.
+ */
+@Component
+public class OutboundBackpressureInterceptor implements ChannelInterceptor {
+
+    /**
+     * Marks a frame released from an outbox, which must not be held again.
+     */
+    static final String RELEASED_HEADER = "outboxReleased";
+
+    private final SessionOutboxRegistry outboxRegistry;
+
+    public OutboundBackpressureInterceptor(SessionOutboxRegistry outboxRegistry) {
+        this.outboxRegistry = outboxRegistry;
+    }
+
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        if (SimpMessageHeaderAccessor.getMessageType(message.getHeaders()) != SimpMessageType.MESSAGE
+                || message.getHeaders().containsKey(RELEASED_HEADER)) {
+            return message;
+        }
+        SessionOutbox outbox = outboxRegistry.get(SimpMessageHeaderAccessor.getSessionId(message.getHeaders()));
+        if (outbox == null || outbox.admit(message, System.currentTimeMillis())) {
+            return message;
+        }
+        return null;
+    }
+}
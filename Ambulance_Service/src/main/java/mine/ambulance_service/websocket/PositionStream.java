@@ -0,0 +1,59 @@
+package mine.ambulance_service.websocket;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import mine.ambulance_service.live.LiveAmbulance;
+import mine.ambulance_service.live.LiveAmbulanceStore;
+import mine.ambulance_service.service.AmbulanceLocationNotifierService.AmbulanceLocationUpdate;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+
+import java.util.function.Predicate;
+
+/**
+ * Hot multicast of every accepted change in the {@link LiveAmbulanceStore}, local or replicated.
+ * <p>
+ * The sink is best-effort: a subscriber without demand misses the update rather than slowing
+ * down the writers. {@link #latestPerAmbulance(Predicate)} is the view for slow consumers.
+ */
+@Component
+public class PositionStream {
+
+    private final Sinks.Many<AmbulanceLocationUpdate> sink = Sinks.many().multicast().directBestEffort();
+    private final Counter published;
+
+    public PositionStream(LiveAmbulanceStore liveStore, MeterRegistry meterRegistry) {
+        this.published = Counter.builder("ambulance.positions.published")
+                .description("Changes emitted to raw WebSocket position streams")
+                .register(meterRegistry);
+        liveStore.addListener(this::publish);
+    }
+
+    public void publish(LiveAmbulance ambulance) {
+        AmbulanceLocationUpdate update = AmbulanceLocationUpdate.of(ambulance);
+        // Writers run on many threads; retry the rare concurrent emission instead of dropping it
+        sink.emitNext(update, (signal, result) -> result == Sinks.EmitResult.FAIL_NON_SERIALIZED);
+        published.increment();
+    }
+
+    public Flux<AmbulanceLocationUpdate> updates() {
+        return sink.asFlux();
+    }
+
+    /**
+     * Matching updates with {@code onBackpressureLatest} applied per ambulance: while the
+     * subscriber is busy, each ambulance keeps only its newest update, so a slow consumer gets
+     * fewer, fresher updates and never an unbounded backlog.
+     */
+    public Flux<AmbulanceLocationUpdate> latestPerAmbulance(Predicate<AmbulanceLocationUpdate> filter) {
+        return sink.asFlux()
+                .filter(filter)
+                .groupBy(AmbulanceLocationUpdate::getId)
+                .flatMap(perAmbulance -> perAmbulance.onBackpressureLatest(), Integer.MAX_VALUE, 1);
+    }
+
+    public int subscriberCount() {
+        return sink.currentSubscriberCount();
+    }
+}
@@ -0,0 +1,152 @@
+package mine.ambulance_service.websocket;
+
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.util.*;
+import java.util.regex.Pattern;
+
+/**
+ * Bounded outbound buffer of one STOMP session.
+ * <p>
+ * Messages pass straight through while the client keeps up. Once a write to the session has been
+ * blocked for longer than the congestion threshold, messages are held here instead: position
+ * updates of one ambulance replace each other (latest value wins), everything else queues in
+ * order up to {@code capacity}, after which the oldest message is dropped.
+ * <p>
+ * A downgraded session keeps only the latest message per subscription and destination. For the
+ * fleet stream this means skipped deltas, which the client sees as a gap in {@code seq} and
+ * answers by resubscribing for a fresh snapshot.
+ */
+public class SessionOutbox {
+
+    private static final Pattern LATEST_WINS = Pattern.compile(
+            "/topic/ambulance-location/\\d+(\\.bin)?|/topic/ambulance/\\d+/location(\\.bin)?|/topic/ambulance-locations");
+
+    private final WebSocketSession session;
+    private final int capacity;
+    private final long congestionMillis;
+
+    // Guarded by this
+    private final LinkedHashMap<String, Message<?>> queue = new LinkedHashMap<>();
+    private long sequence;
+    private boolean downgraded;
+    private long dropped;
+
+    private volatile long sendStartedAt;
+
+    public SessionOutbox(WebSocketSession session, int capacity, long congestionMillis) {
+        this.session = session;
+        this.capacity = capacity;
+        this.congestionMillis = congestionMillis;
+    }
+
+    public String getSessionId() {
+        return session.getId();
+    }
+
+    WebSocketSession getSession() {
+        return session;
+    }
+
+    /**
+     * @return whether the message may be sent right away; otherwise it has been held
+     */
+    public synchronized boolean admit(Message<?> message, long now) {
+        if (queue.isEmpty() && !downgraded && !isCongested(now)) {
+            return true;
+        }
+        String key = key(message);
+        if (queue.remove(key) != null) {
+            dropped++;
+        }
+        queue.put(key, message);
+        if (queue.size() > capacity) {
+            Iterator<String> eldest = queue.keySet().iterator();
+            eldest.next();
+            eldest.remove();
+            dropped++;
+        }
+        return false;
+    }
+
+    public synchronized List<Message<?>> drain() {
+        List<Message<?>> messages = new ArrayList<>(queue.values());
+        queue.clear();
+        return messages;
+    }
+
+    /**
+     * Switches to latest-only buffering and compacts what is already held.
+     *
+     * @return whether the session was not downgraded before
+     */
+    public synchronized boolean downgrade() {
+        if (downgraded) {
+            return false;
+        }
+        downgraded = true;
+        List<Message<?>> held = new ArrayList<>(queue.values());
+        queue.clear();
+        for (Message<?> message : held) {
+            if (queue.put(key(message), message) != null) {
+                dropped++;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns a downgraded session to normal once it has caught up.
+     *
+     * @return whether the session was restored
+     */
+    public synchronized boolean restoreIfCaughtUp(long now) {
+        if (downgraded && queue.isEmpty() && !isCongested(now)) {
+            downgraded = false;
+            return true;
+        }
+        return false;
+    }
+
+    public boolean isCongested(long now) {
+        return lagMillis(now) > congestionMillis;
+    }
+
+    /**
+     * How long the write in progress has been blocked, or 0 if the session is idle.
+     */
+    public long lagMillis(long now) {
+        long started = sendStartedAt;
+        return started == 0 ? 0 : now - started;
+    }
+
+    void sendStarted() {
+        sendStartedAt = System.currentTimeMillis();
+    }
+
+    void sendFinished() {
+        sendStartedAt = 0;
+    }
+
+    public synchronized int size() {
+        return queue.size();
+    }
+
+    public synchronized long droppedCount() {
+        return dropped;
+    }
+
+    public synchronized boolean isDowngraded() {
+        return downgraded;
+    }
+
+    private String key(Message<?> message) {
+        String destination = SimpMessageHeaderAccessor.getDestination(message.getHeaders());
+        if (downgraded || (destination != null && LATEST_WINS.matcher(destination).matches())) {
+            return SimpMessageHeaderAccessor.getSubscriptionId(message.getHeaders()) + "|" + destination;
+        }
+        return "#" + sequence++;
+    }
+}
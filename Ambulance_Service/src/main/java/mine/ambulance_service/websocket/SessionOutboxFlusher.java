@@ -0,0 +1,96 @@
+package mine.ambulance_service.websocket;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.CloseStatus;
+
+import java.io.IOException;
+
+/**
+ * Releases held frames to sessions that have caught up and applies the slow-consumer policy to
+ * sessions whose writes have been blocked for longer than {@code max-lag-ms}: {@code downgrade}
+ * switches them to latest-only updates, {@code drop} closes them.
+ */
+@Component
+public class SessionOutboxFlusher {
+
+    private static final Logger log = LoggerFactory.getLogger(SessionOutboxFlusher.class);
+
+    public static final String POLICY_DOWNGRADE = "downgrade";
+    public static final String POLICY_DROP = "drop";
+
+    private final SessionOutboxRegistry outboxRegistry;
+    private final MessageChannel clientOutboundChannel;
+    private final long maxLagMillis;
+    private final boolean dropSlowConsumers;
+    private final Counter downgraded;
+    private final Counter closed;
+
+    public SessionOutboxFlusher(SessionOutboxRegistry outboxRegistry,
+                                @Qualifier("clientOutboundChannel") MessageChannel clientOutboundChannel,
+                                MeterRegistry meterRegistry,
+                                @Value("${ambulance.websocket.outbox.max-lag-ms:5000}") long maxLagMillis,
+                                @Value("${ambulance.websocket.outbox.slow-consumer-policy:downgrade}") String policy) {
+        if (!POLICY_DOWNGRADE.equals(policy) && !POLICY_DROP.equals(policy)) {
+            throw new IllegalArgumentException("Slow-consumer policy must be 'downgrade' or 'drop', got " + policy);
+        }
+        this.outboxRegistry = outboxRegistry;
+        this.clientOutboundChannel = clientOutboundChannel;
+        this.maxLagMillis = maxLagMillis;
+        this.dropSlowConsumers = POLICY_DROP.equals(policy);
+        this.downgraded = Counter.builder("ambulance.websocket.slow-consumers")
+                .tag("action", POLICY_DOWNGRADE)
+                .register(meterRegistry);
+        this.closed = Counter.builder("ambulance.websocket.slow-consumers")
+                .tag("action", POLICY_DROP)
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${ambulance.websocket.outbox.flush-ms:100}")
+    public void flush() {
+        long now = System.currentTimeMillis();
+        outboxRegistry.forEach(outbox -> {
+            long lag = outbox.lagMillis(now);
+            if (lag > maxLagMillis) {
+                handleSlowConsumer(outbox, lag);
+                return;
+            }
+            if (outbox.isCongested(now)) {
+                return;
+            }
+            for (Message<?> message : outbox.drain()) {
+                clientOutboundChannel.send(MessageBuilder.fromMessage(message)
+                        .setHeader(OutboundBackpressureInterceptor.RELEASED_HEADER, Boolean.TRUE)
+                        .build());
+            }
+            if (outbox.restoreIfCaughtUp(now)) {
+                log.info("Session {} caught up, back to full updates", outbox.getSessionId());
+            }
+        });
+    }
+
+    private void handleSlowConsumer(SessionOutbox outbox, long lag) {
+        if (dropSlowConsumers) {
+            log.warn("Closing session {}: writes blocked for {} ms", outbox.getSessionId(), lag);
+            outboxRegistry.close(outbox.getSessionId());
+            closed.increment();
+            try {
+                outbox.getSession().close(CloseStatus.SESSION_NOT_RELIABLE);
+            } catch (IOException e) {
+                log.debug("Closing slow session {} failed: {}", outbox.getSessionId(), e.getMessage());
+            }
+        } else if (outbox.downgrade()) {
+            log.warn("Session {} lagging {} ms, downgraded to latest-only updates", outbox.getSessionId(), lag);
+            downgraded.increment();
+        }
+    }
+}
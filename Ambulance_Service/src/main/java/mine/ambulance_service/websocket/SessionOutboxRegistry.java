@@ -0,0 +1,113 @@
+package mine.ambulance_service.websocket;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.WebSocketHandlerDecorator;
+import org.springframework.web.socket.handler.WebSocketSessionDecorator;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * {@link SessionOutbox} of every open WebSocket session, with per-session metrics
+ * {@code ambulance.websocket.outbox.queued} and {@code ambulance.websocket.outbox.dropped}.
+ * <p>
+ * Installed as a WebSocket handler decorator so that it sees every session as it opens and can
+ * time each write to it.
+ */
+@Component
+public class SessionOutboxRegistry {
+
+    private final MeterRegistry meterRegistry;
+    private final int capacity;
+    private final long congestionMillis;
+
+    private final Map<String, Registration> outboxes = new ConcurrentHashMap<>();
+
+    public SessionOutboxRegistry(MeterRegistry meterRegistry,
+                                 @Value("${ambulance.websocket.outbox.capacity:256}") int capacity,
+                                 @Value("${ambulance.websocket.outbox.congestion-ms:200}") long congestionMillis) {
+        this.meterRegistry = meterRegistry;
+        this.capacity = capacity;
+        this.congestionMillis = congestionMillis;
+    }
+
+    public WebSocketHandler decorate(WebSocketHandler handler) {
+        return new WebSocketHandlerDecorator(handler) {
+            @Override
+            public void afterConnectionEstablished(WebSocketSession session) throws Exception {
+                super.afterConnectionEstablished(open(session));
+            }
+
+            @Override
+            public void afterConnectionClosed(WebSocketSession session, CloseStatus closeStatus) throws Exception {
+                close(session.getId());
+                super.afterConnectionClosed(session, closeStatus);
+            }
+        };
+    }
+
+    /**
+     * Creates the outbox of a new session.
+     *
+     * @return the session to hand on, which reports its writes to the outbox
+     */
+    public WebSocketSession open(WebSocketSession session) {
+        SessionOutbox outbox = new SessionOutbox(session, capacity, congestionMillis);
+        List<Meter> meters = List.of(
+                Gauge.builder("ambulance.websocket.outbox.queued", outbox, SessionOutbox::size)
+                        .description("Frames held for a slow session")
+                        .tag("session", session.getId())
+                        .register(meterRegistry),
+                FunctionCounter.builder("ambulance.websocket.outbox.dropped", outbox, SessionOutbox::droppedCount)
+                        .description("Updates superseded or dropped before reaching the session")
+                        .tag("session", session.getId())
+                        .register(meterRegistry));
+        outboxes.put(session.getId(), new Registration(outbox, meters));
+        return new WebSocketSessionDecorator(session) {
+            @Override
+            public void sendMessage(WebSocketMessage<?> message) throws IOException {
+                outbox.sendStarted();
+                try {
+                    super.sendMessage(message);
+                } finally {
+                    outbox.sendFinished();
+                }
+            }
+        };
+    }
+
+    public void close(String sessionId) {
+        Registration registration = outboxes.remove(sessionId);
+        if (registration != null) {
+            registration.meters().forEach(meterRegistry::remove);
+        }
+    }
+
+    public SessionOutbox get(String sessionId) {
+        Registration registration = outboxes.get(sessionId);
+        return registration == null ? null : registration.outbox();
+    }
+
+    public void forEach(Consumer<SessionOutbox> action) {
+        outboxes.values().forEach(registration -> action.accept(registration.outbox()));
+    }
+
+    public int size() {
+        return outboxes.size();
+    }
+
+    private record Registration(SessionOutbox outbox, List<Meter> meters) {
+    }
+}
@@ -0,0 +1,46 @@
+package mine.ambulance_service.websocket;
+
+import mine.ambulance_service.geo.Viewport;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.messaging.support.MessageHeaderAccessor;
+import org.springframework.stereotype.Component;
+
+/**
+ * Tracks viewport-scoped subscriptions from inbound STOMP frames. A SUBSCRIBE to
+ * {@link ViewportRegistry#VIEWPORT_DESTINATION} must carry a {@code viewport} header; a malformed
+ * one is rejected with an ERROR frame. Must run before {@link EncodingChannelInterceptor}, which
+ * moves binary subscriptions to another destination.
+ */
+@Component
+public class ViewportChannelInterceptor implements ChannelInterceptor {
+
+    private final ViewportRegistry viewportRegistry;
+
+    public ViewportChannelInterceptor(ViewportRegistry viewportRegistry) {
+        this.viewportRegistry = viewportRegistry;
+    }
+
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        StompHeaderAccessor accessor = MessageHeaderAccessor.getAccessor(message, StompHeaderAccessor.class);
+        if (accessor == null || accessor.getCommand() == null || accessor.getSessionId() == null) {
+            return message;
+        }
+        StompCommand command = accessor.getCommand();
+        if (command == StompCommand.SUBSCRIBE
+                && ViewportRegistry.VIEWPORT_DESTINATION.equals(accessor.getDestination())) {
+            Viewport viewport = Viewport.parse(accessor.getFirstNativeHeader(ViewportRegistry.VIEWPORT_HEADER));
+            FrameEncoding encoding = FrameEncoding.fromHeader(accessor.getFirstNativeHeader(FrameEncoding.HEADER));
+            viewportRegistry.register(accessor.getSessionId(), accessor.getSubscriptionId(), viewport, encoding);
+        } else if (command == StompCommand.UNSUBSCRIBE) {
+            viewportRegistry.unsubscribe(accessor.getSessionId(), accessor.getSubscriptionId());
+        } else if (command == StompCommand.DISCONNECT) {
+            viewportRegistry.remove(accessor.getSessionId());
+        }
+        return message;
+    }
+}
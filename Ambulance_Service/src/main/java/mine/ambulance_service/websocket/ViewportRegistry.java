@@ -0,0 +1,74 @@
+package mine.ambulance_service.websocket;
+
+import mine.ambulance_service.geo.Viewport;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiConsumer;
+
+/**
+ * Viewport and frame encoding of every STOMP session subscribed to {@value #VIEWPORT_DESTINATION},
+ * keyed by session ID.
+ */
+@Component
+public class ViewportRegistry {
+
+    /**
+     * Destination, relative to {@code /user}, that viewport-scoped fleet frames are sent to.
+     */
+    public static final String VIEWPORT_QUEUE = "/queue/fleet-viewport";
+    public static final String VIEWPORT_DESTINATION = "/user" + VIEWPORT_QUEUE;
+    public static final String VIEWPORT_HEADER = "viewport";
+
+    private final Map<String, Registration> sessions = new ConcurrentHashMap<>();
+
+    public void register(String sessionId, String subscriptionId, Viewport viewport) {
+        register(sessionId, subscriptionId, viewport, FrameEncoding.JSON);
+    }
+
+    public void register(String sessionId, String subscriptionId, Viewport viewport, FrameEncoding encoding) {
+        sessions.put(sessionId, new Registration(subscriptionId, viewport, encoding));
+    }
+
+    /**
+     * Replaces the viewport of an already subscribed session, e.g. after the user pans the map.
+     *
+     * @return whether the session has a viewport subscription
+     */
+    public boolean update(String sessionId, Viewport viewport) {
+        return sessions.computeIfPresent(sessionId,
+                (id, registration) -> new Registration(registration.subscriptionId(), viewport, registration.encoding())) != null;
+    }
+
+    public void unsubscribe(String sessionId, String subscriptionId) {
+        sessions.computeIfPresent(sessionId,
+                (id, registration) -> registration.subscriptionId().equals(subscriptionId) ? null : registration);
+    }
+
+    public void remove(String sessionId) {
+        sessions.remove(sessionId);
+    }
+
+    public Optional<Viewport> get(String sessionId) {
+        Registration registration = sessions.get(sessionId);
+        return registration == null ? Optional.empty() : Optional.of(registration.viewport());
+    }
+
+    public FrameEncoding encoding(String sessionId) {
+        Registration registration = sessions.get(sessionId);
+        return registration == null ? FrameEncoding.JSON : registration.encoding();
+    }
+
+    public void forEach(BiConsumer<String, Registration> action) {
+        sessions.forEach(action);
+    }
+
+    public int size() {
+        return sessions.size();
+    }
+
+    public record Registration(String subscriptionId, Viewport viewport, FrameEncoding encoding) {
+    }
+}
@@ -0,0 +1,154 @@
+package mine.ambulance_service.geo;
+
+import mine.ambulance_service.dto.NearbyAmbulanceDTO;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AmbulanceSpatialIndexTest {
+
+    // 0.01 degree cells: about 1.1 km north-south and 0.95 km east-west at this latitude
+    private static final double CELL_SIZE = 0.01;
+
+    private AmbulanceSpatialIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new AmbulanceSpatialIndex(CELL_SIZE);
+    }
+
+    @Test
+    void ordersByDistanceAcrossCellBoundaries() {
+        // The query point sits near the eastern edge of its cell
+        index.upsert(1L, 31.6049, -7.9890, true);  // east neighbour, ~580 m
+        index.upsert(2L, 31.6049, -7.9990, true);  // same cell, ~370 m
+        index.upsert(3L, 31.6102, -7.9951, true);  // north neighbour, ~590 m
+        index.upsert(4L, 31.5990, -7.9951, true);  // south neighbour, ~660 m
+
+        List<NearbyAmbulanceDTO> nearest = index.findNearestAvailable(31.6049, -7.9951, 4, null);
+
+        assertEquals(List.of(2L, 1L, 3L, 4L), ids(nearest));
+        assertEquals(370, nearest.get(0).getDistanceMeters(), 5);
+    }
+
+    @Test
+    void matchesABruteForceSearch() {
+        Random random = new Random(7);
+        Map<Long, double[]> positions = new HashMap<>();
+        for (long id = 1; id <= 500; id++) {
+            double[] position = {31.55 + random.nextDouble() * 0.1, -8.05 + random.nextDouble() * 0.1};
+            positions.put(id, position);
+            index.upsert(id, position[0], position[1], true);
+        }
+
+        for (int query = 0; query < 50; query++) {
+            double latitude = 31.55 + random.nextDouble() * 0.1;
+            double longitude = -8.05 + random.nextDouble() * 0.1;
+            List<Long> expected = positions.entrySet().stream()
+                    .sorted(Comparator.comparingDouble(entry -> squaredDistance(entry.getValue(), latitude, longitude)))
+                    .limit(5)
+                    .map(Map.Entry::getKey)
+                    .toList();
+
+            assertEquals(expected, ids(index.findNearestAvailable(latitude, longitude, 5, null)));
+        }
+    }
+
+    @Test
+    void keepsSearchingWhileTheNextRingCanBeCloser() {
+        // Found in the query's own cell, but ~1.4 km away
+        index.upsert(1L, 31.6099, -7.9901, true);
+        // Just across the western cell edge, ~40 m away
+        index.upsert(2L, 31.6001, -8.0003, true);
+
+        assertEquals(List.of(2L), ids(index.findNearestAvailable(31.6001, -7.9999, 1, null)));
+    }
+
+    @Test
+    void stopsOnceTheNextRingCannotBeCloser() {
+        double cellMeters = 950;
+        // Ring 1 touches the query's own cell, so it can always be closer
+        assertFalse(AmbulanceSpatialIndex.ringCannotBeCloser(1, 10, cellMeters));
+        // Ring 2 is at least one full cell away
+        assertTrue(AmbulanceSpatialIndex.ringCannotBeCloser(2, 900, cellMeters));
+        assertFalse(AmbulanceSpatialIndex.ringCannotBeCloser(2, 1_000, cellMeters));
+        assertTrue(AmbulanceSpatialIndex.ringCannotBeCloser(3, 1_000, cellMeters));
+
+        // A far-away unit widens the grid by thousands of rings; the answer comes from the first few
+        index.upsert(1L, 31.6001, -7.9999, true);
+        index.upsert(2L, 80.0, 120.0, true);
+        assertEquals(List.of(1L), ids(index.findNearestAvailable(31.6, -8.0, 1, null)));
+    }
+
+    @Test
+    void restrictsCandidatesToTheAllowList() {
+        for (long id = 1; id <= 20; id++) {
+            index.upsert(id, 31.60 + id * 0.001, -7.99, true);
+        }
+
+        // Small allow-list: scanned directly; unknown IDs are ignored
+        assertEquals(List.of(7L, 12L), ids(index.findNearestAvailable(31.60, -7.99, 5, List.of(12L, 7L, 99L))));
+
+        // Large allow-list: walked on the grid and filtered
+        List<Long> allowed = new ArrayList<>();
+        for (long id = 6; id <= 20; id++) {
+            allowed.add(id);
+        }
+        assertEquals(List.of(6L, 7L, 8L), ids(index.findNearestAvailable(31.60, -7.99, 3, allowed)));
+
+        assertTrue(index.findNearestAvailable(31.60, -7.99, 3, List.of()).isEmpty());
+    }
+
+    @Test
+    void skipsUnavailableUnits() {
+        index.upsert(1L, 31.6001, -7.99, false);
+        index.upsert(2L, 31.6002, -7.99, true);
+        index.upsert(3L, 31.6003, -7.99, true);
+
+        assertEquals(List.of(2L, 3L), ids(index.findNearestAvailable(31.60, -7.99, 3, null)));
+
+        index.updateAvailability(2L, false);
+        assertEquals(List.of(3L), ids(index.findNearestAvailable(31.60, -7.99, 3, null)));
+        assertEquals(List.of(3L), ids(index.findNearestAvailable(31.60, -7.99, 3, List.of(2L, 3L))));
+
+        index.updateAvailability(1L, true);
+        assertEquals(List.of(1L, 3L), ids(index.findNearestAvailable(31.60, -7.99, 3, null)));
+    }
+
+    @Test
+    void movesAndRemovesAcrossCells() {
+        index.upsert(1L, 31.6005, -7.9905, true);
+        index.upsert(2L, 31.6505, -7.9405, true);
+
+        // Five cells north-east, next to unit 2
+        assertTrue(index.move(1L, 31.6495, -7.9395));
+        assertFalse(index.move(99L, 31.60, -7.99));
+
+        NearbyAmbulanceDTO moved = index.findNearestAvailable(31.6495, -7.9395, 1, null).get(0);
+        assertEquals(1L, moved.getId());
+        assertEquals(31.6495, moved.getLatitude(), 1e-9);
+        // Nothing is left in the old cell: the closest unit to it is now over 5 km away
+        assertTrue(index.findNearestAvailable(31.6005, -7.9905, 1, null).get(0).getDistanceMeters() > 5_000);
+
+        index.remove(1L);
+        assertEquals(1, index.size());
+        assertEquals(List.of(2L), ids(index.findNearestAvailable(31.6495, -7.9395, 2, null)));
+
+        index.remove(2L);
+        assertEquals(0, index.size());
+        assertTrue(index.findNearestAvailable(31.6495, -7.9395, 2, null).isEmpty());
+    }
+
+    private static List<Long> ids(List<NearbyAmbulanceDTO> ambulances) {
+        return ambulances.stream().map(NearbyAmbulanceDTO::getId).toList();
+    }
+
+    private static double squaredDistance(double[] position, double latitude, double longitude) {
+        double dy = position[0] - latitude;
+        double dx = (position[1] - longitude) * Math.cos(Math.toRadians(latitude));
+        return dx * dx + dy * dy;
+    }
+}
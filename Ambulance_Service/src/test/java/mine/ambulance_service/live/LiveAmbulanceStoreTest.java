@@ -0,0 +1,107 @@
+package mine.ambulance_service.live;
+
+import mine.ambulance_service.geo.AmbulanceSpatialIndex;
+import mine.ambulance_service.model.Ambulance;
+import mine.ambulance_service.repository.AmbulanceRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class LiveAmbulanceStoreTest {
+
+    private JdbcTemplate jdbcTemplate;
+    private AmbulanceSpatialIndex spatialIndex;
+    private LiveAmbulanceStore liveStore;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate = mock(JdbcTemplate.class);
+        AmbulanceRepository ambulanceRepository = mock(AmbulanceRepository.class);
+        when(ambulanceRepository.findAll()).thenReturn(List.of(ambulance(1L, 31.60, -7.98)));
+
+        spatialIndex = new AmbulanceSpatialIndex(0.01);
+        liveStore = new LiveAmbulanceStore(ambulanceRepository, jdbcTemplate, spatialIndex);
+        liveStore.rebuild();
+    }
+
+    @Test
+    void remoteReservationAppliesWhenTheLocalFixIsNewer() {
+        liveStore.updatePosition(1L, 31.61, -7.98, 5_000L);
+        persistedAvailability(false);
+
+        // Reserved on the other instance, which last saw an older fix
+        assertTrue(liveStore.applyRemote(1L, 31.60, -7.98, false, 1_000L));
+
+        LiveAmbulance current = liveStore.get(1L).orElseThrow();
+        assertFalse(current.isAvailable());
+        assertEquals(31.61, current.getLatitude(), 1e-9);
+        assertTrue(spatialIndex.findNearestAvailable(31.61, -7.98, 1, null).isEmpty());
+    }
+
+    @Test
+    void staleRemoteReleaseDoesNotUndoALocalReservation() {
+        when(jdbcTemplate.update(anyString(), eq(1L))).thenReturn(1);
+        assertEquals(LiveAmbulanceStore.Reservation.RESERVED, liveStore.reserve(1L));
+        persistedAvailability(false);
+
+        // The other instance has a newer fix but had not seen the reservation yet
+        assertTrue(liveStore.applyRemote(1L, 31.62, -7.98, true, 9_000L));
+
+        LiveAmbulance current = liveStore.get(1L).orElseThrow();
+        assertFalse(current.isAvailable());
+        assertEquals(31.62, current.getLatitude(), 1e-9);
+    }
+
+    @Test
+    void releaseDuringTheReReadIsNotOverwritten() {
+        liveStore.updatePosition(1L, 31.60, -7.98, 5_000L);
+        when(jdbcTemplate.update(anyString(), eq(true), eq(1L))).thenReturn(1);
+        // The unit was reserved elsewhere, then released here while we were reading that reservation
+        when(jdbcTemplate.queryForList(anyString(), eq(Boolean.class), eq(1L))).thenAnswer(invocation -> {
+            liveStore.updateAvailability(1L, true);
+            return List.of(false);
+        });
+
+        assertFalse(liveStore.applyRemote(1L, 31.60, -7.98, false, 1_000L));
+
+        assertTrue(liveStore.get(1L).orElseThrow().isAvailable());
+        assertEquals(1, spatialIndex.findNearestAvailable(31.60, -7.98, 1, null).size());
+    }
+
+    @Test
+    void matchingAvailabilityIsNotReRead() {
+        liveStore.applyRemote(1L, 31.62, -7.98, true, 1_000L);
+
+        verify(jdbcTemplate, never()).queryForList(anyString(), eq(Boolean.class), any());
+    }
+
+    @Test
+    void failedReservationIsAConflictIfTheRowExists() {
+        when(jdbcTemplate.update(anyString(), anyLong())).thenReturn(0);
+        // Unit 2 was created on another instance and is not replicated here yet
+        when(jdbcTemplate.queryForList(anyString(), eq(Boolean.class), eq(2L))).thenReturn(List.of(false));
+
+        assertEquals(LiveAmbulanceStore.Reservation.CONFLICT, liveStore.reserve(2L));
+        assertEquals(LiveAmbulanceStore.Reservation.NOT_FOUND, liveStore.reserve(3L));
+    }
+
+    private void persistedAvailability(boolean available) {
+        when(jdbcTemplate.queryForList(anyString(), eq(Boolean.class), eq(1L))).thenReturn(List.of(available));
+    }
+
+    private static Ambulance ambulance(Long id, double latitude, double longitude) {
+        Ambulance ambulance = new Ambulance();
+        ambulance.setId(id);
+        ambulance.setDriverName("Driver " + id);
+        ambulance.setAvailable(true);
+        ambulance.setLatitude(latitude);
+        ambulance.setLongitude(longitude);
+        return ambulance;
+    }
+}
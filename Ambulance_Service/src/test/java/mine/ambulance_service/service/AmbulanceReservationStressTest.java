@@ -0,0 +1,129 @@
+package mine.ambulance_service.service;
+
+import mine.ambulance_service.model.Ambulance;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+/**
+ * Many dispatchers race to reserve the same few ambulances through {@code POST /ambulances/{id}/reserve}.
+ * Every round each unit must be won exactly once, with every other attempt answered 409.
+ * <p>
+ * A few rounds run by default; the longer race is opt-in: {@code mvn test -Dstress=true
+ * -Dtest=AmbulanceReservationStressTest}.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+class AmbulanceReservationStressTest {
+
+    private static final int UNITS = 3;
+    private static final int THREADS = 64;
+    private static final int ROUNDS = 3;
+    private static final int STRESS_ROUNDS = 20;
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private AmbulanceService ambulanceService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final List<Long> unitIds = new ArrayList<>();
+
+    @BeforeEach
+    void createUnits() {
+        for (int i = 0; i < UNITS; i++) {
+            Ambulance ambulance = new Ambulance();
+            ambulance.setDriverName("Reservation stress " + i);
+            ambulance.setAvailable(true);
+            ambulance.setLatitude(31.63);
+            ambulance.setLongitude(-7.99);
+            unitIds.add(ambulanceService.createAmbulance(ambulance).getId());
+        }
+    }
+
+    @AfterEach
+    void deleteUnits() {
+        unitIds.forEach(ambulanceService::deleteAmbulance);
+    }
+
+    @Test
+    void exactlyOneDispatcherWinsEachUnit() throws Exception {
+        race(ROUNDS);
+    }
+
+    @Test
+    @EnabledIfSystemProperty(named = "stress", matches = "true")
+    void exactlyOneDispatcherWinsEachUnitOverManyRounds() throws Exception {
+        race(STRESS_ROUNDS);
+    }
+
+    private void race(int rounds) throws Exception {
+        HttpClient client = HttpClient.newHttpClient();
+        ExecutorService dispatchers = Executors.newFixedThreadPool(THREADS);
+        try {
+            for (int round = 0; round < rounds; round++) {
+                unitIds.forEach(id -> ambulanceService.updateAmbulanceAvailability(id, true));
+                AtomicInteger[] wins = new AtomicInteger[UNITS];
+                for (int unit = 0; unit < UNITS; unit++) {
+                    wins[unit] = new AtomicInteger();
+                }
+                AtomicInteger conflictsThisRound = new AtomicInteger();
+                CountDownLatch start = new CountDownLatch(1);
+                List<Future<?>> attempts = new ArrayList<>();
+                for (int thread = 0; thread < THREADS; thread++) {
+                    int unit = thread % UNITS;
+                    HttpRequest reserve = HttpRequest.newBuilder(
+                                    URI.create("http://localhost:" + port + "/ambulances/" + unitIds.get(unit) + "/reserve"))
+                            .POST(HttpRequest.BodyPublishers.noBody())
+                            .build();
+                    attempts.add(dispatchers.submit(() -> {
+                        start.await();
+                        int status = client.send(reserve, HttpResponse.BodyHandlers.discarding()).statusCode();
+                        if (status == 200) {
+                            wins[unit].incrementAndGet();
+                        } else if (status == 409) {
+                            conflictsThisRound.incrementAndGet();
+                        } else {
+                            throw new IllegalStateException("Unexpected status " + status);
+                        }
+                        return null;
+                    }));
+                }
+                start.countDown();
+                for (Future<?> attempt : attempts) {
+                    attempt.get(30, TimeUnit.SECONDS);
+                }
+
+                for (int unit = 0; unit < UNITS; unit++) {
+                    assertEquals(1, wins[unit].get(), "round " + round + ", unit " + unitIds.get(unit));
+                    Long id = unitIds.get(unit);
+                    assertFalse(ambulanceService.getAmbulanceById(id).orElseThrow().isAvailable());
+                    assertEquals(Boolean.FALSE, jdbcTemplate.queryForObject(
+                            "SELECT available FROM ambulances WHERE id = ?", Boolean.class, id));
+                }
+                assertEquals(THREADS - UNITS, conflictsThisRound.get());
+            }
+        } finally {
+            dispatchers.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package mine.ambulance_service.service;
+
+import mine.ambulance_service.dto.FleetFrameDTO;
+import mine.ambulance_service.geo.AmbulanceSpatialIndex;
+import mine.ambulance_service.geo.Viewport;
+import mine.ambulance_service.live.LiveAmbulanceStore;
+import mine.ambulance_service.model.Ambulance;
+import mine.ambulance_service.repository.AmbulanceRepository;
+import mine.ambulance_service.websocket.EncodingRegistry;
+import mine.ambulance_service.websocket.NodeScope;
+import mine.ambulance_service.websocket.ViewportRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class FleetBroadcastServiceTest {
+
+    private LiveAmbulanceStore liveStore;
+    private JdbcTemplate jdbcTemplate;
+    private SimpMessagingTemplate messagingTemplate;
+    private ViewportRegistry viewportRegistry;
+    private FleetBroadcastService broadcastService;
+
+    @BeforeEach
+    void setUp() {
+        AmbulanceRepository ambulanceRepository = mock(AmbulanceRepository.class);
+        when(ambulanceRepository.findAll()).thenReturn(List.of(
+                ambulance(1L, 31.6255, -7.9810),
+                ambulance(2L, 31.6302, -7.9864),
+                ambulance(3L, 31.6361, -7.9918)));
+        jdbcTemplate = mock(JdbcTemplate.class);
+        liveStore = new LiveAmbulanceStore(ambulanceRepository, jdbcTemplate, new AmbulanceSpatialIndex(0.01));
+        liveStore.rebuild();
+
+        messagingTemplate = mock(SimpMessagingTemplate.class);
+        viewportRegistry = new ViewportRegistry();
+        broadcastService = new FleetBroadcastService(liveStore, messagingTemplate, viewportRegistry,
+                new EncodingRegistry(), new NodeScope(NodeScope.BROKER_SIMPLE, "test"), 5);
+    }
+
+    @Test
+    void sendsOnlyWhatChangedSinceTheLastFrame() {
+        FleetFrameDTO first = broadcastService.nextDelta();
+        assertEquals(1, first.getSeq());
+        assertEquals(3, first.getAmbulances().size());
+
+        // Nothing moved: no frame at all
+        assertNull(broadcastService.nextDelta());
+
+        // ~1 m jitter stays below the threshold, ~110 m is sent
+        liveStore.updatePosition(1L, 31.62551, -7.9810, System.currentTimeMillis());
+        liveStore.updatePosition(2L, 31.6312, -7.9864, System.currentTimeMillis());
+        when(jdbcTemplate.update(anyString(), eq(false), eq(3L))).thenReturn(1);
+        liveStore.updateAvailability(3L, false);
+
+        FleetFrameDTO delta = broadcastService.nextDelta();
+        assertEquals(2, delta.getSeq());
+        assertFalse(delta.isSnapshot());
+        assertEquals(List.of(2L, 3L), delta.getAmbulances().stream()
+                .map(AmbulanceLocationNotifierService.AmbulanceLocationUpdate::getId)
+                .sorted()
+                .toList());
+
+        liveStore.remove(3L);
+        FleetFrameDTO removal = broadcastService.nextDelta();
+        assertEquals(List.of(3L), removal.getRemoved());
+        assertTrue(removal.getAmbulances().isEmpty());
+    }
+
+    @Test
+    void snapshotReflectsTheLastFrame() {
+        broadcastService.broadcastChanges();
+        verify(messagingTemplate).convertAndSend(eq(FleetBroadcastService.FLEET_TOPIC), any(FleetFrameDTO.class));
+
+        FleetFrameDTO snapshot = broadcastService.snapshot();
+        assertTrue(snapshot.isSnapshot());
+        assertEquals(1, snapshot.getSeq());
+        assertEquals(3, snapshot.getAmbulances().size());
+    }
+
+    @Test
+    void viewportSessionsOnlyGetWhatIsInView() {
+        // Covers ambulances 1 and 2 but not 3
+        Viewport viewport = Viewport.parse("bbox:31.62,-7.99,31.632,-7.98");
+        viewportRegistry.register("session-1", "sub-0", viewport);
+
+        FleetFrameDTO snapshot = broadcastService.snapshot(viewport);
+        assertTrue(snapshot.getAmbulances().isEmpty(), "nothing has been broadcast yet");
+
+        broadcastService.broadcastChanges();
+        assertEquals(2, broadcastService.snapshot(viewport).getAmbulances().size());
+        verify(messagingTemplate).convertAndSendToUser(eq("session-1"), eq(ViewportRegistry.VIEWPORT_QUEUE),
+                argThat((FleetFrameDTO frame) -> frame.getAmbulances().size() == 2), anyMap());
+
+        // Ambulance 1 drives out of view, ambulance 3 moves but stays out of view
+        liveStore.updatePosition(1L, 31.6500, -7.9810, System.currentTimeMillis());
+        liveStore.updatePosition(3L, 31.6400, -7.9918, System.currentTimeMillis());
+        broadcastService.broadcastChanges();
+        verify(messagingTemplate).convertAndSendToUser(eq("session-1"), eq(ViewportRegistry.VIEWPORT_QUEUE),
+                argThat((FleetFrameDTO frame) -> frame.getAmbulances().isEmpty() && frame.getRemoved().equals(List.of(1L))),
+                anyMap());
+    }
+
+    private static Ambulance ambulance(Long id, double latitude, double longitude) {
+        Ambulance ambulance = new Ambulance();
+        ambulance.setId(id);
+        ambulance.setDriverName("Driver " + id);
+        ambulance.setAvailable(true);
+        ambulance.setLatitude(latitude);
+        ambulance.setLongitude(longitude);
+        return ambulance;
+    }
+}
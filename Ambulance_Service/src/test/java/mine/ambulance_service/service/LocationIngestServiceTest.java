@@ -0,0 +1,114 @@
+package mine.ambulance_service.service;
+
+import mine.ambulance_service.dto.LocationFixDTO;
+import mine.ambulance_service.geo.AmbulanceSpatialIndex;
+import mine.ambulance_service.live.LiveAmbulanceStore;
+import mine.ambulance_service.model.Ambulance;
+import mine.ambulance_service.repository.AmbulanceRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+class LocationIngestServiceTest {
+
+    private JdbcTemplate jdbcTemplate;
+    private AmbulanceSpatialIndex spatialIndex;
+    private LiveAmbulanceStore liveStore;
+    private LocationIngestService ingestService;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate = mock(JdbcTemplate.class);
+        AmbulanceRepository ambulanceRepository = mock(AmbulanceRepository.class);
+        when(ambulanceRepository.findAll()).thenReturn(List.of(
+                ambulance(1L, 31.60, -7.98),
+                ambulance(2L, 31.70, -7.90)));
+
+        spatialIndex = new AmbulanceSpatialIndex(0.01);
+        liveStore = new LiveAmbulanceStore(ambulanceRepository, jdbcTemplate, spatialIndex);
+        liveStore.rebuild();
+        ingestService = new LocationIngestService(liveStore);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void coalescesToLatestFixAndSnapshotsInOneBatch() {
+        int accepted = ingestService.ingest(List.of(
+                new LocationFixDTO(1L, 31.61, -7.98, 1_000L),
+                new LocationFixDTO(1L, 31.63, -7.98, 3_000L),
+                // Arrives late: older than the fix above and must not win
+                new LocationFixDTO(1L, 31.62, -7.98, 2_000L),
+                new LocationFixDTO(2L, 31.71, -7.90, 1_000L),
+                new LocationFixDTO(99L, 31.70, -7.90, 1_000L),
+                new LocationFixDTO(null, 31.70, -7.90, 1_000L)));
+
+        // The late fix, the unknown ambulance and the fix without an ID are not counted
+        assertEquals(3, accepted);
+        assertEquals(2, liveStore.pendingCount());
+        // Reads see the latest fix before anything is written
+        assertEquals(31.63, liveStore.get(1L).orElseThrow().getLatitude(), 1e-9);
+        assertEquals(31.63, spatialIndex.findNearestAvailable(31.63, -7.98, 1, null).get(0).getLatitude(), 1e-9);
+        verifyNoInteractions(jdbcTemplate);
+
+        liveStore.snapshot();
+
+        ArgumentCaptor<List<Object[]>> rows = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate, times(1)).batchUpdate(anyString(), rows.capture());
+        assertEquals(2, rows.getValue().size());
+        Object[] first = rows.getValue().stream().filter(row -> row[2].equals(1L)).findFirst().orElseThrow();
+        assertArrayEquals(new Object[]{31.63, -7.98, 1L}, first);
+        assertEquals(0, liveStore.pendingCount());
+    }
+
+    @Test
+    void deviceClockIsOnlyComparedWithItself() {
+        // Device clock far behind the server's: still applies after a rebuild
+        ingestService.ingest(List.of(new LocationFixDTO(1L, 31.61, -7.98, 5_000L)));
+        assertEquals(31.61, liveStore.get(1L).orElseThrow().getLatitude(), 1e-9);
+
+        // A position without device time applies but does not move the device's clock forward
+        ingestService.ingest(List.of(new LocationFixDTO(1L, 31.62, -7.98, null)));
+        assertEquals(31.62, liveStore.get(1L).orElseThrow().getLatitude(), 1e-9);
+        assertEquals(5_000L, liveStore.get(1L).orElseThrow().getUpdatedAt());
+
+        assertEquals(0, ingestService.ingest(List.of(new LocationFixDTO(1L, 31.60, -7.98, 4_000L))));
+        assertEquals(31.62, liveStore.get(1L).orElseThrow().getLatitude(), 1e-9);
+        ingestService.ingest(List.of(new LocationFixDTO(1L, 31.63, -7.98, 6_000L)));
+        assertEquals(31.63, liveStore.get(1L).orElseThrow().getLatitude(), 1e-9);
+    }
+
+    @Test
+    void emptySnapshotSkipsTheDatabase() {
+        liveStore.snapshot();
+        verify(jdbcTemplate, never()).batchUpdate(anyString(), anyList());
+    }
+
+    @Test
+    void failedSnapshotIsRetried() {
+        when(jdbcTemplate.batchUpdate(anyString(), anyList())).thenThrow(new RuntimeException("db down"));
+        ingestService.ingest(List.of(new LocationFixDTO(1L, 31.61, -7.98, 1_000L)));
+
+        liveStore.snapshot();
+
+        assertEquals(1, liveStore.pendingCount());
+    }
+
+    private static Ambulance ambulance(Long id, double latitude, double longitude) {
+        Ambulance ambulance = new Ambulance();
+        ambulance.setId(id);
+        ambulance.setDriverName("Driver " + id);
+        ambulance.setAvailable(true);
+        ambulance.setLatitude(latitude);
+        ambulance.setLongitude(longitude);
+        return ambulance;
+    }
+}
@@ -0,0 +1,66 @@
+package mine.ambulance_service.websocket;
+
+import mine.ambulance_service.dto.FleetFrameDTO;
+import mine.ambulance_service.service.AmbulanceLocationNotifierService.AmbulanceLocationUpdate;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BinaryPositionCodecTest {
+
+    @Test
+    void recordIsTwentyOneBytesAndRoundTrips() {
+        AmbulanceLocationUpdate update =
+                new AmbulanceLocationUpdate(42L, 31.6294723, -7.9810845, true, 1_700_000_000_123L);
+
+        byte[] bytes = BinaryPositionCodec.encode(update);
+        assertEquals(21, bytes.length);
+
+        AmbulanceLocationUpdate decoded = BinaryPositionCodec.decodeRecord(bytes);
+        assertEquals(42L, decoded.getId());
+        assertEquals(31.6294723, decoded.getLatitude(), 1e-7);
+        assertEquals(-7.9810845, decoded.getLongitude(), 1e-7);
+        assertTrue(decoded.isAvailable());
+        assertEquals(1_700_000_000_123L, decoded.getTimestamp());
+    }
+
+    @Test
+    void frameRoundTrips() {
+        FleetFrameDTO frame = new FleetFrameDTO(7, true, 1_700_000_000_000L, List.of(
+                new AmbulanceLocationUpdate(1L, 31.62, -7.98, true, 1L),
+                new AmbulanceLocationUpdate(2L, -33.8688, 151.2093, false, 2L)),
+                List.of(3L, 4_000_000_000L));
+
+        byte[] bytes = BinaryPositionCodec.encode(frame);
+        assertEquals(26 + 2 * 21 + 2 * 4, bytes.length);
+
+        FleetFrameDTO decoded = BinaryPositionCodec.decodeFrame(bytes);
+        assertEquals(7, decoded.getSeq());
+        assertTrue(decoded.isSnapshot());
+        assertEquals(1_700_000_000_000L, decoded.getTimestamp());
+        assertEquals(151.2093, decoded.getAmbulances().get(1).getLongitude(), 1e-7);
+        assertFalse(decoded.getAmbulances().get(1).isAvailable());
+        assertEquals(List.of(3L, 4_000_000_000L), decoded.getRemoved());
+    }
+
+    @Test
+    void rejectsWhatDoesNotFit() {
+        assertThrows(IllegalArgumentException.class, () -> BinaryPositionCodec.encode(
+                new AmbulanceLocationUpdate(1L << 32, 31.62, -7.98, true, 0L)));
+        byte[] truncated = new byte[BinaryPositionCodec.FRAME_HEADER_BYTES - 1];
+        truncated[0] = BinaryPositionCodec.VERSION;
+        assertThrows(IllegalArgumentException.class, () -> BinaryPositionCodec.decodeFrame(truncated));
+    }
+
+    @Test
+    void encodingIsNegotiatedFromTheHeader() {
+        assertEquals(FrameEncoding.JSON, FrameEncoding.fromHeader(null));
+        assertEquals(FrameEncoding.BINARY, FrameEncoding.fromHeader("Binary"));
+        assertThrows(IllegalArgumentException.class, () -> FrameEncoding.fromHeader("protobuf"));
+        assertEquals("/topic/fleet.bin", FrameEncoding.BINARY.destination("/topic/fleet"));
+        assertTrue(FrameEncoding.supportsBinary("/topic/ambulance/12/location"));
+        assertFalse(FrameEncoding.supportsBinary("/topic/ambulance-locations"));
+    }
+}
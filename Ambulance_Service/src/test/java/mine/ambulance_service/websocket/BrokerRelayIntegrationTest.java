@@ -0,0 +1,153 @@
+package mine.ambulance_service.websocket;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import mine.ambulance_service.dto.ReplicationBatchDTO;
+import mine.ambulance_service.live.LiveAmbulance;
+import mine.ambulance_service.live.LiveAmbulanceStore;
+import mine.ambulance_service.live.LiveStateReplicator;
+import mine.ambulance_service.service.AmbulanceLocationNotifierService.AmbulanceLocationUpdate;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.messaging.converter.MappingJackson2MessageConverter;
+import org.springframework.messaging.simp.stomp.*;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.web.socket.client.standard.StandardWebSocketClient;
+import org.springframework.web.socket.messaging.WebSocketStompClient;
+import org.springframework.web.socket.sockjs.client.SockJsClient;
+import org.springframework.web.socket.sockjs.client.WebSocketTransport;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs the service in {@code relay} mode against {@link EmbeddedStompBroker}. Messages published
+ * straight to the broker play the part of a second instance.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+class BrokerRelayIntegrationTest {
+
+    private static final EmbeddedStompBroker broker = startBroker();
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private LiveAmbulanceStore liveStore;
+
+    @Autowired
+    private NodeScope nodeScope;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @DynamicPropertySource
+    static void relayToEmbeddedBroker(DynamicPropertyRegistry registry) {
+        registry.add("ambulance.websocket.broker", () -> NodeScope.BROKER_RELAY);
+        registry.add("ambulance.websocket.relay.port", broker::getPort);
+        registry.add("ambulance.replication.interval-ms", () -> "50");
+    }
+
+    @AfterAll
+    static void stopBroker() throws IOException {
+        broker.close();
+    }
+
+    @Test
+    void clientsReceiveWhatAnotherInstancePublishes() throws Exception {
+        StompSession session = connect();
+        CompletableFuture<Map<?, ?>> received = new CompletableFuture<>();
+        session.subscribe("/topic/ambulance-location/1", new StompFrameHandler() {
+            @Override
+            public Type getPayloadType(StompHeaders headers) {
+                return Map.class;
+            }
+
+            @Override
+            public void handleFrame(StompHeaders headers, Object payload) {
+                received.complete((Map<?, ?>) payload);
+            }
+        });
+        assertTrue(broker.awaitSubscribers("/topic/ambulance-location/1", 1, 5, TimeUnit.SECONDS));
+
+        broker.publish("/topic/ambulance-location/1", "application/json",
+                objectMapper.writeValueAsString(new AmbulanceLocationUpdate(1L, 31.64, -7.99, true, 1L)));
+
+        assertEquals(31.64, ((Number) received.get(5, TimeUnit.SECONDS).get("latitude")).doubleValue(), 1e-9);
+        session.disconnect();
+    }
+
+    @Test
+    void fleetSubscriptionsStayOnThisInstance() throws Exception {
+        StompSession session = connect();
+        session.subscribe("/topic/fleet", new StompFrameHandler() {
+            @Override
+            public Type getPayloadType(StompHeaders headers) {
+                return Map.class;
+            }
+
+            @Override
+            public void handleFrame(StompHeaders headers, Object payload) {
+            }
+        });
+
+        String scoped = nodeScope.scope("/topic/fleet");
+        assertNotEquals("/topic/fleet", scoped);
+        assertTrue(broker.awaitSubscribers(scoped, 1, 5, TimeUnit.SECONDS));
+        assertEquals(0, broker.subscriberCount("/topic/fleet"));
+        session.disconnect();
+    }
+
+    @Test
+    void stateReplicatedFromAnotherInstanceIsApplied() throws Exception {
+        assertTrue(broker.awaitSubscribers(LiveStateReplicator.REPLICATION_TOPIC, 1, 10, TimeUnit.SECONDS));
+        LiveAmbulance ambulance = liveStore.getAll().iterator().next();
+        long timestamp = ambulance.getUpdatedAt() + 1;
+        // The other instance writes availability through before replicating it
+        jdbcTemplate.update("UPDATE ambulances SET available = false WHERE id = ?", ambulance.getId());
+
+        broker.publish(LiveStateReplicator.REPLICATION_TOPIC, "application/json",
+                objectMapper.writeValueAsString(new ReplicationBatchDTO("other-node", List.of(
+                        new AmbulanceLocationUpdate(ambulance.getId(), 31.66, -8.01, false, timestamp)), List.of())));
+
+        long deadline = System.currentTimeMillis() + 5_000;
+        while ((liveStore.get(ambulance.getId()).orElseThrow().getUpdatedAt() != timestamp
+                || liveStore.get(ambulance.getId()).orElseThrow().isAvailable())
+                && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+        LiveAmbulance replicated = liveStore.get(ambulance.getId()).orElseThrow();
+        assertEquals(31.66, replicated.getLatitude(), 1e-9);
+        assertFalse(replicated.isAvailable());
+        assertEquals(0, liveStore.pendingCount(), "the origin persists replicated fixes");
+        liveStore.updateAvailability(ambulance.getId(), true);
+    }
+
+    private StompSession connect() throws Exception {
+        WebSocketStompClient stompClient = new WebSocketStompClient(
+                new SockJsClient(List.of(new WebSocketTransport(new StandardWebSocketClient()))));
+        stompClient.setMessageConverter(new MappingJackson2MessageConverter());
+        return stompClient.connectAsync("ws://localhost:" + port + "/ws", new StompSessionHandlerAdapter() {
+        }).get(5, TimeUnit.SECONDS);
+    }
+
+    private static EmbeddedStompBroker startBroker() {
+        try {
+            return EmbeddedStompBroker.start();
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
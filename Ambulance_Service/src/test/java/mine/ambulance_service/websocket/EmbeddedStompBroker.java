@@ -0,0 +1,216 @@
+package mine.ambulance_service.websocket;
+
+import java.io.*;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Minimal in-JVM STOMP 1.2 broker standing in for RabbitMQ/ActiveMQ in relay-mode tests.
+ * Supports CONNECT, SUBSCRIBE, UNSUBSCRIBE, SEND and DISCONNECT with exact destination matching;
+ * heart-beats are declined. Not for production use.
+ */
+public class EmbeddedStompBroker implements Closeable {
+
+    private final ServerSocket serverSocket;
+    private final List<Connection> connections = new CopyOnWriteArrayList<>();
+    private final AtomicLong messageIds = new AtomicLong();
+
+    private EmbeddedStompBroker(ServerSocket serverSocket) {
+        this.serverSocket = serverSocket;
+    }
+
+    public static EmbeddedStompBroker start() throws IOException {
+        EmbeddedStompBroker broker = new EmbeddedStompBroker(new ServerSocket(0));
+        Thread acceptor = new Thread(broker::acceptLoop, "embedded-stomp-broker");
+        acceptor.setDaemon(true);
+        acceptor.start();
+        return broker;
+    }
+
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    /**
+     * Publishes as another instance would, bypassing this application.
+     */
+    public void publish(String destination, String contentType, String body) {
+        Map<String, String> headers = new LinkedHashMap<>();
+        headers.put("destination", destination);
+        headers.put("content-type", contentType);
+        route(headers, body.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public int subscriberCount(String destination) {
+        int count = 0;
+        for (Connection connection : connections) {
+            count += (int) connection.subscriptions.values().stream().filter(destination::equals).count();
+        }
+        return count;
+    }
+
+    public boolean awaitSubscribers(String destination, int count, long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        while (subscriberCount(destination) < count) {
+            if (System.nanoTime() > deadline) {
+                return false;
+            }
+            Thread.sleep(20);
+        }
+        return true;
+    }
+
+    @Override
+    public void close() throws IOException {
+        serverSocket.close();
+        for (Connection connection : connections) {
+            connection.close();
+        }
+    }
+
+    private void acceptLoop() {
+        while (!serverSocket.isClosed()) {
+            try {
+                Connection connection = new Connection(serverSocket.accept());
+                connections.add(connection);
+                Thread reader = new Thread(connection::readLoop, "embedded-stomp-connection");
+                reader.setDaemon(true);
+                reader.start();
+            } catch (IOException e) {
+                return;
+            }
+        }
+    }
+
+    private void route(Map<String, String> sendHeaders, byte[] body) {
+        String destination = sendHeaders.get("destination");
+        for (Connection connection : connections) {
+            connection.subscriptions.forEach((subscriptionId, subscribed) -> {
+                if (subscribed.equals(destination)) {
+                    Map<String, String> headers = new LinkedHashMap<>();
+                    headers.put("destination", destination);
+                    headers.put("subscription", subscriptionId);
+                    headers.put("message-id", Long.toString(messageIds.incrementAndGet()));
+                    if (sendHeaders.containsKey("content-type")) {
+                        headers.put("content-type", sendHeaders.get("content-type"));
+                    }
+                    headers.put("content-length", Integer.toString(body.length));
+                    connection.write("MESSAGE", headers, body);
+                }
+            });
+        }
+    }
+
+    private class Connection {
+        private final Socket socket;
+        private final Map<String, String> subscriptions = new ConcurrentHashMap<>();
+
+        Connection(Socket socket) {
+            this.socket = socket;
+        }
+
+        void readLoop() {
+            try (InputStream in = new BufferedInputStream(socket.getInputStream())) {
+                while (true) {
+                    String command = readLine(in);
+                    if (command == null) {
+                        return;
+                    }
+                    if (command.isEmpty()) {
+                        continue; // heart-beat
+                    }
+                    Map<String, String> headers = new LinkedHashMap<>();
+                    for (String line = readLine(in); line != null && !line.isEmpty(); line = readLine(in)) {
+                        int colon = line.indexOf(':');
+                        headers.putIfAbsent(line.substring(0, colon), line.substring(colon + 1));
+                    }
+                    handle(command, headers, readBody(in, headers.get("content-length")));
+                }
+            } catch (IOException e) {
+                // connection closed
+            } finally {
+                connections.remove(this);
+                close();
+            }
+        }
+
+        private void handle(String command, Map<String, String> headers, byte[] body) {
+            switch (command) {
+                case "CONNECT", "STOMP" -> write("CONNECTED", Map.of("version", "1.2", "heart-beat", "0,0"), new byte[0]);
+                case "SUBSCRIBE" -> subscriptions.put(headers.get("id"), headers.get("destination"));
+                case "UNSUBSCRIBE" -> subscriptions.remove(headers.get("id"));
+                case "SEND" -> route(headers, body);
+                case "DISCONNECT" -> {
+                    if (headers.containsKey("receipt")) {
+                        write("RECEIPT", Map.of("receipt-id", headers.get("receipt")), new byte[0]);
+                    }
+                    close();
+                }
+                default -> write("ERROR", Map.of("message", "Unsupported command " + command), new byte[0]);
+            }
+        }
+
+        synchronized void write(String command, Map<String, String> headers, byte[] body) {
+            try {
+                OutputStream out = socket.getOutputStream();
+                StringBuilder frame = new StringBuilder(command).append('\n');
+                headers.forEach((name, value) -> frame.append(name).append(':').append(value).append('\n'));
+                frame.append('\n');
+                out.write(frame.toString().getBytes(StandardCharsets.UTF_8));
+                out.write(body);
+                out.write(0);
+                out.flush();
+            } catch (SocketException e) {
+                close();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        void close() {
+            try {
+                socket.close();
+            } catch (IOException ignored) {
+                // already closed
+            }
+        }
+
+        private String readLine(InputStream in) throws IOException {
+            ByteArrayOutputStream line = new ByteArrayOutputStream();
+            for (int b = in.read(); b != '\n'; b = in.read()) {
+                if (b == -1) {
+                    return null;
+                }
+                if (b != '\r') {
+                    line.write(b);
+                }
+            }
+            return line.toString(StandardCharsets.UTF_8);
+        }
+
+        private byte[] readBody(InputStream in, String contentLength) throws IOException {
+            byte[] body;
+            if (contentLength != null) {
+                body = in.readNBytes(Integer.parseInt(contentLength));
+                in.read(); // NUL
+            } else {
+                ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+                for (int b = in.read(); b != 0; b = in.read()) {
+                    if (b == -1) {
+                        throw new EOFException();
+                    }
+                    buffer.write(b);
+                }
+                body = buffer.toByteArray();
+            }
+            return body;
+        }
+    }
+}
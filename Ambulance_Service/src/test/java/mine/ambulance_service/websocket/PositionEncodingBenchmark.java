@@ -0,0 +1,98 @@
+package mine.ambulance_service.websocket;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import mine.ambulance_service.dto.FleetFrameDTO;
+import mine.ambulance_service.service.AmbulanceLocationNotifierService.AmbulanceLocationUpdate;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Encoding cost of a fleet frame as JSON (what the broker's Jackson converter sends), as the old
+ * per-ambulance {@code HashMap} payloads, and with {@link BinaryPositionCodec}. Frame sizes are
+ * printed once per trial.
+ * <p>
+ * Not part of the test run; start {@link #main} from the test classpath.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PositionEncodingBenchmark {
+
+    @Param({"1", "100", "2000"})
+    public int ambulances;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private FleetFrameDTO frame;
+    private List<Map<String, Object>> legacyPayloads;
+
+    @Setup(Level.Trial)
+    public void setUp() throws JsonProcessingException {
+        Random random = new Random(42);
+        List<AmbulanceLocationUpdate> updates = new ArrayList<>();
+        legacyPayloads = new ArrayList<>();
+        for (long id = 1; id <= ambulances; id++) {
+            AmbulanceLocationUpdate update = new AmbulanceLocationUpdate(id, 31.55 + random.nextDouble() * 0.15,
+                    -8.10 + random.nextDouble() * 0.20, random.nextBoolean(), System.currentTimeMillis());
+            updates.add(update);
+
+            Map<String, Object> legacy = new HashMap<>();
+            legacy.put("id", update.getId());
+            legacy.put("driverName", "Driver " + id);
+            legacy.put("latitude", update.getLatitude());
+            legacy.put("longitude", update.getLongitude());
+            legacy.put("available", update.isAvailable());
+            legacyPayloads.add(legacy);
+        }
+        frame = new FleetFrameDTO(1, false, System.currentTimeMillis(), updates, List.of());
+
+        long legacyBytes = 0;
+        for (Map<String, Object> legacy : legacyPayloads) {
+            legacyBytes += objectMapper.writeValueAsBytes(legacy).length;
+        }
+        System.out.printf("%n%d ambulances: JSON frame %,d B, HashMap payloads %,d B, binary frame %,d B%n",
+                ambulances, objectMapper.writeValueAsBytes(frame).length, legacyBytes,
+                BinaryPositionCodec.encode(frame).length);
+    }
+
+    @Benchmark
+    public byte[] jsonFrame() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(frame);
+    }
+
+    @Benchmark
+    public void legacyHashMapPayloads(Blackhole blackhole) throws JsonProcessingException {
+        for (Map<String, Object> legacy : legacyPayloads) {
+            blackhole.consume(objectMapper.writeValueAsBytes(legacy));
+        }
+    }
+
+    @Benchmark
+    public byte[] binaryFrame() {
+        return BinaryPositionCodec.encode(frame);
+    }
+
+    @Benchmark
+    public FleetFrameDTO binaryRoundTrip() {
+        return BinaryPositionCodec.decodeFrame(BinaryPositionCodec.encode(frame));
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(PositionEncodingBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,167 @@
+package mine.ambulance_service.websocket;
+
+import mine.ambulance_service.live.LiveAmbulance;
+import mine.ambulance_service.live.LiveAmbulanceStore;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.WebSocket;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Holds 10,000 idle and 1,000 active raw position streams while the fleet moves, then checks that
+ * every connection is still open, every active one kept receiving updates, and the heap grew by
+ * at most {@value #MAX_HEAP_BYTES_PER_CONNECTION} bytes per connection. Both ends of every
+ * connection live in this JVM, so the bound covers the client side too.
+ * <p>
+ * Opt-in, as it needs a raised file-descriptor limit: {@code mvn test -Dsoak=true
+ * -Dtest=PositionStreamSoakTest} after {@code ulimit -n 65536}.
+ */
+@EnabledIfSystemProperty(named = "soak", matches = "true")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = "server.tomcat.max-connections=20000")
+class PositionStreamSoakTest {
+
+    private static final int IDLE = 10_000;
+    private static final int ACTIVE = 1_000;
+    private static final long DURATION_MS = 60_000;
+    private static final int FIXES_PER_SECOND = 2_000;
+    private static final long MAX_HEAP_BYTES_PER_CONNECTION = 64 * 1024;
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private LiveAmbulanceStore liveStore;
+
+    @Autowired
+    private AmbulanceWebSocketHandler handler;
+
+    @Test
+    void holdsIdleAndActiveConnections() throws Exception {
+        HttpClient client = HttpClient.newHttpClient();
+        String base = "ws://localhost:" + port + AmbulanceWebSocketHandler.PATH;
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        memory.gc();
+        long heapBefore = memory.getHeapMemoryUsage().getUsed();
+
+        // Idle clients filter on an ambulance that never exists, so they only hold a connection
+        List<Counting> idle = connect(client, base + "?ids=-1", IDLE);
+        List<Counting> active = connect(client, base, ACTIVE);
+        assertEquals(IDLE + ACTIVE, handler.sessionCount());
+
+        List<LiveAmbulance> fleet = new ArrayList<>(liveStore.getAll());
+        Random random = new Random(42);
+        long deadline = System.currentTimeMillis() + DURATION_MS;
+        long fixes = 0;
+        while (System.currentTimeMillis() < deadline) {
+            long second = System.currentTimeMillis();
+            for (int i = 0; i < FIXES_PER_SECOND; i++) {
+                LiveAmbulance ambulance = fleet.get(random.nextInt(fleet.size()));
+                liveStore.updatePosition(ambulance.getId(), ambulance.getLatitude() + random.nextGaussian() * 0.001,
+                        ambulance.getLongitude() + random.nextGaussian() * 0.001, System.currentTimeMillis());
+                fixes++;
+            }
+            Thread.sleep(Math.max(0, 1_000 - (System.currentTimeMillis() - second)));
+        }
+        Thread.sleep(2_000);
+
+        memory.gc();
+        long heapPerConnection = (memory.getHeapMemoryUsage().getUsed() - heapBefore) / (IDLE + ACTIVE);
+        long received = active.stream().mapToLong(counting -> counting.messages.get()).sum();
+        long starved = active.stream().filter(counting -> counting.messages.get() == 0).count();
+        long closed = idle.stream().filter(counting -> counting.closed.get() > 0).count()
+                + active.stream().filter(counting -> counting.closed.get() > 0).count();
+        String report = String.format("%d fixes, %,d messages to %d active clients (%d starved), %d closed, "
+                + "heap %+d bytes per connection", fixes, received, ACTIVE, starved, closed, heapPerConnection);
+
+        assertEquals(0, closed, "no connection should be dropped: " + report);
+        assertEquals(0, starved, "every active client should receive updates: " + report);
+        assertTrue(idle.stream().allMatch(counting -> counting.messages.get() == 0), report);
+        assertTrue(heapPerConnection <= MAX_HEAP_BYTES_PER_CONNECTION, report);
+        assertEquals(IDLE + ACTIVE, handler.sessionCount());
+
+        for (Counting counting : idle) {
+            counting.socket.abort();
+        }
+        for (Counting counting : active) {
+            counting.socket.abort();
+        }
+    }
+
+    private static List<Counting> connect(HttpClient client, String uri, int count) throws Exception {
+        List<CompletableFuture<Counting>> pending = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Counting counting = new Counting();
+            pending.add(client.newWebSocketBuilder()
+                    .buildAsync(URI.create(uri), counting)
+                    .thenApply(socket -> {
+                        counting.socket = socket;
+                        return counting;
+                    }));
+            if (i % 500 == 499) {
+                // Keep the accept backlog from overflowing
+                CompletableFuture.allOf(pending.toArray(CompletableFuture[]::new)).get(30, TimeUnit.SECONDS);
+            }
+        }
+        CompletableFuture.allOf(pending.toArray(CompletableFuture[]::new)).get(60, TimeUnit.SECONDS);
+        List<Counting> connected = new ArrayList<>(count);
+        for (CompletableFuture<Counting> future : pending) {
+            connected.add(future.get());
+        }
+        return connected;
+    }
+
+    private static class Counting implements WebSocket.Listener {
+        private final AtomicLong messages = new AtomicLong();
+        private final AtomicInteger closed = new AtomicInteger();
+        private volatile WebSocket socket;
+
+        @Override
+        public CompletionStage<?> onText(WebSocket webSocket, CharSequence data, boolean last) {
+            if (last) {
+                messages.incrementAndGet();
+            }
+            webSocket.request(1);
+            return null;
+        }
+
+        @Override
+        public CompletionStage<?> onBinary(WebSocket webSocket, ByteBuffer data, boolean last) {
+            if (last) {
+                messages.incrementAndGet();
+            }
+            webSocket.request(1);
+            return null;
+        }
+
+        @Override
+        public CompletionStage<?> onClose(WebSocket webSocket, int statusCode, String reason) {
+            closed.incrementAndGet();
+            return null;
+        }
+
+        @Override
+        public void onError(WebSocket webSocket, Throwable error) {
+            closed.incrementAndGet();
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package mine.ambulance_service.websocket;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import mine.ambulance_service.geo.AmbulanceSpatialIndex;
+import mine.ambulance_service.live.LiveAmbulanceStore;
+import mine.ambulance_service.model.Ambulance;
+import mine.ambulance_service.repository.AmbulanceRepository;
+import mine.ambulance_service.service.AmbulanceLocationNotifierService.AmbulanceLocationUpdate;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.reactivestreams.Subscription;
+import org.springframework.jdbc.core.JdbcTemplate;
+import reactor.core.publisher.BaseSubscriber;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class PositionStreamTest {
+
+    private LiveAmbulanceStore liveStore;
+    private PositionStream positionStream;
+
+    @BeforeEach
+    void setUp() {
+        AmbulanceRepository ambulanceRepository = mock(AmbulanceRepository.class);
+        when(ambulanceRepository.findAll()).thenReturn(List.of(
+                ambulance(1L, 31.62, -7.98),
+                ambulance(2L, 31.63, -7.99),
+                ambulance(3L, 31.64, -8.00)));
+        liveStore = new LiveAmbulanceStore(ambulanceRepository, mock(JdbcTemplate.class), new AmbulanceSpatialIndex(0.01));
+        liveStore.rebuild();
+        positionStream = new PositionStream(liveStore, new SimpleMeterRegistry());
+    }
+
+    @Test
+    void slowSubscriberGetsTheLatestUpdatePerAmbulance() {
+        List<AmbulanceLocationUpdate> received = new CopyOnWriteArrayList<>();
+        BaseSubscriber<AmbulanceLocationUpdate> slow = new BaseSubscriber<>() {
+            @Override
+            protected void hookOnSubscribe(Subscription subscription) {
+                // Busy: no demand yet
+            }
+
+            @Override
+            protected void hookOnNext(AmbulanceLocationUpdate update) {
+                received.add(update);
+            }
+        };
+        positionStream.latestPerAmbulance(update -> update.getId() != 3L).subscribe(slow);
+
+        long now = System.currentTimeMillis();
+        for (int i = 1; i <= 10; i++) {
+            liveStore.updatePosition(1L, 31.62 + i * 0.001, -7.98, now + 1_000L * i);
+            liveStore.updatePosition(2L, 31.63 + i * 0.001, -7.99, now + 1_000L * i);
+            liveStore.updatePosition(3L, 31.64 + i * 0.001, -8.00, now + 1_000L * i);
+        }
+        slow.request(100);
+
+        assertTrue(received.size() <= 4, "at most one stale and the latest update per ambulance, got " + received.size());
+        assertTrue(received.stream().noneMatch(update -> update.getId() == 3L));
+        assertEquals(now + 10_000L, lastFor(received, 1L).getTimestamp());
+        assertEquals(31.64, lastFor(received, 2L).getLatitude(), 1e-9);
+        slow.dispose();
+    }
+
+    @Test
+    void everySubscriberSeesEveryChangeWhileKeepingUp() {
+        List<AmbulanceLocationUpdate> first = new CopyOnWriteArrayList<>();
+        List<AmbulanceLocationUpdate> second = new CopyOnWriteArrayList<>();
+        positionStream.updates().subscribe(first::add);
+        positionStream.latestPerAmbulance(update -> true).subscribe(second::add);
+
+        long now = System.currentTimeMillis();
+        liveStore.updatePosition(1L, 31.625, -7.98, now + 1_000L);
+        liveStore.updatePosition(1L, 31.626, -7.98, now + 2_000L);
+
+        assertEquals(2, first.size());
+        assertEquals(2, second.size());
+        assertEquals(2, positionStream.subscriberCount());
+    }
+
+    private static AmbulanceLocationUpdate lastFor(List<AmbulanceLocationUpdate> updates, Long id) {
+        return updates.stream().filter(update -> update.getId().equals(id)).reduce((a, b) -> b).orElseThrow();
+    }
+
+    private static Ambulance ambulance(Long id, double latitude, double longitude) {
+        Ambulance ambulance = new Ambulance();
+        ambulance.setId(id);
+        ambulance.setDriverName("Driver " + id);
+        ambulance.setAvailable(true);
+        ambulance.setLatitude(latitude);
+        ambulance.setLongitude(longitude);
+        return ambulance;
+    }
+}
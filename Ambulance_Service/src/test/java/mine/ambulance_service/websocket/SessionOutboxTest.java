@@ -0,0 +1,125 @@
+package mine.ambulance_service.websocket;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.*;
+
+class SessionOutboxTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private SessionOutboxRegistry outboxRegistry;
+    private WebSocketSession session;
+    private WebSocketSession tracked;
+    private OutboundBackpressureInterceptor interceptor;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        outboxRegistry = new SessionOutboxRegistry(meterRegistry, 4, 200);
+        session = mock(WebSocketSession.class);
+        when(session.getId()).thenReturn("s1");
+        tracked = outboxRegistry.open(session);
+        interceptor = new OutboundBackpressureInterceptor(outboxRegistry);
+    }
+
+    @Test
+    void passesThroughWhileTheClientKeepsUp() throws Exception {
+        Message<?> message = message("/topic/ambulance-location/1");
+        assertSame(message, interceptor.preSend(message, null));
+
+        tracked.sendMessage(new TextMessage("MESSAGE"));
+        verify(session).sendMessage(any());
+        assertEquals(0, outboxRegistry.get("s1").lagMillis(System.currentTimeMillis()));
+    }
+
+    @Test
+    void latestPositionWinsWhileCongested() {
+        SessionOutbox outbox = outboxRegistry.get("s1");
+        outbox.sendStarted();
+        long later = System.currentTimeMillis() + 1_000;
+
+        assertFalse(outbox.admit(message("/topic/ambulance-location/1"), later));
+        assertFalse(outbox.admit(message("/topic/ambulance-location/2"), later));
+        Message<?> latest = message("/topic/ambulance-location/1");
+        assertFalse(outbox.admit(latest, later));
+        assertFalse(outbox.admit(message("/topic/fleet"), later));
+        assertFalse(outbox.admit(message("/topic/fleet"), later));
+        assertEquals(4, outbox.size());
+        assertEquals(1, outbox.droppedCount());
+
+        // Over capacity: the oldest frame goes
+        assertFalse(outbox.admit(message("/topic/fleet"), later));
+        assertEquals(4, outbox.size());
+        assertEquals(2, outbox.droppedCount());
+        assertSame(latest, outbox.drain().get(0));
+
+        assertEquals(2.0, meterRegistry.get("ambulance.websocket.outbox.dropped").tag("session", "s1")
+                .functionCounter().count());
+    }
+
+    @Test
+    void laggingSessionIsDowngradedThenRestored() throws Exception {
+        MessageChannel channel = mock(MessageChannel.class);
+        SessionOutboxFlusher flusher = new SessionOutboxFlusher(outboxRegistry, channel, meterRegistry, 0,
+                SessionOutboxFlusher.POLICY_DOWNGRADE);
+        SessionOutbox outbox = outboxRegistry.get("s1");
+        outbox.sendStarted();
+        long later = System.currentTimeMillis() + 1_000;
+        outbox.admit(message("/topic/fleet"), later);
+        outbox.admit(message("/topic/fleet"), later);
+        Thread.sleep(5);
+
+        flusher.flush();
+        assertTrue(outbox.isDowngraded());
+        assertEquals(1, outbox.size(), "only the newest fleet frame is kept");
+        verifyNoInteractions(channel);
+
+        outbox.sendFinished();
+        flusher.flush();
+        verify(channel).send(argThatIsReleased());
+        assertFalse(outbox.isDowngraded());
+        assertEquals(1.0, meterRegistry.get("ambulance.websocket.slow-consumers").tag("action", "downgrade")
+                .counter().count());
+    }
+
+    @Test
+    void dropPolicyClosesTheSession() throws Exception {
+        SessionOutboxFlusher flusher = new SessionOutboxFlusher(outboxRegistry, mock(MessageChannel.class),
+                meterRegistry, 0, SessionOutboxFlusher.POLICY_DROP);
+        outboxRegistry.get("s1").sendStarted();
+        Thread.sleep(5);
+
+        flusher.flush();
+
+        verify(session).close(CloseStatus.SESSION_NOT_RELIABLE);
+        assertNull(outboxRegistry.get("s1"));
+        assertTrue(meterRegistry.find("ambulance.websocket.outbox.queued").gauges().isEmpty());
+    }
+
+    private static Message<?> argThatIsReleased() {
+        return argThat(message -> message.getHeaders().containsKey(OutboundBackpressureInterceptor.RELEASED_HEADER));
+    }
+
+    private static Message<?> message(String destination) {
+        SimpMessageHeaderAccessor headers = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        headers.setSessionId("s1");
+        headers.setSubscriptionId("sub-0");
+        headers.setDestination(destination);
+        return MessageBuilder.createMessage(new byte[0], headers.getMessageHeaders());
+    }
+}
@@ -0,0 +1,51 @@
+package mine.ambulance_service.websocket;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One broadcast tick of a 2,000-unit fleet to 1,000 sessions, on the whole-fleet topic and scoped
+ * to each session's viewport, with every outbound frame STOMP-encoded as in
+ * {@link ViewportFanoutTest}. Every unit moves before each tick, so each tick carries the whole
+ * fleet.
+ * <p>
+ * Not part of the test run; start {@link #main} from the test classpath.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ViewportFanoutBenchmark {
+
+    @Param({"false", "true"})
+    public boolean viewportScoped;
+
+    private ViewportFanoutTest.Fanout fanout;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        fanout = new ViewportFanoutTest.Fanout(viewportScoped);
+    }
+
+    @Setup(Level.Invocation)
+    public void moveFleet() {
+        fanout.moveFleet();
+    }
+
+    @Benchmark
+    public void broadcast() {
+        fanout.broadcast();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(ViewportFanoutBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,166 @@
+package mine.ambulance_service.websocket;
+
+import mine.ambulance_service.geo.AmbulanceSpatialIndex;
+import mine.ambulance_service.geo.Viewport;
+import mine.ambulance_service.live.LiveAmbulance;
+import mine.ambulance_service.live.LiveAmbulanceStore;
+import mine.ambulance_service.model.Ambulance;
+import mine.ambulance_service.repository.AmbulanceRepository;
+import mine.ambulance_service.service.FleetBroadcastService;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.converter.MappingJackson2MessageConverter;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompEncoder;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.util.MimeTypeUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Compares whole-fleet topic fan-out with viewport-scoped fan-out for 1,000 simulated STOMP
+ * sessions, each looking at a ~2 km district of a 2,000-unit fleet. Every outbound message is
+ * encoded into a real STOMP frame so the bytes counted are what would go on the wire. The CPU cost
+ * of both is measured by {@link ViewportFanoutBenchmark}.
+ */
+class ViewportFanoutTest {
+
+    private static final int AMBULANCES = 2_000;
+    private static final int SESSIONS = 1_000;
+    private static final int TICKS = 3;
+
+    private static final double MIN_LAT = 31.55, MAX_LAT = 31.70;
+    private static final double MIN_LNG = -8.10, MAX_LNG = -7.90;
+    private static final double VIEWPORT_DEGREES = 0.02;
+
+    @Test
+    void viewportScopingCutsBytes() {
+        Fanout wholeFleet = new Fanout(false);
+        Fanout scoped = new Fanout(true);
+        for (int tick = 0; tick < TICKS; tick++) {
+            wholeFleet.moveFleet();
+            wholeFleet.broadcast();
+            scoped.moveFleet();
+            scoped.broadcast();
+        }
+
+        assertEquals(TICKS * SESSIONS, wholeFleet.channel.frames, "one frame per session per tick");
+        assertTrue(scoped.channel.frames <= TICKS * SESSIONS);
+        assertTrue(scoped.channel.bytes * 10 < wholeFleet.channel.bytes,
+                "viewport fan-out should send a fraction of the bytes: " + scoped.channel.bytes
+                        + " against " + wholeFleet.channel.bytes);
+    }
+
+    /**
+     * A 2,000-unit fleet broadcast to 1,000 sessions, either on the whole-fleet topic or through
+     * one viewport per session.
+     */
+    static class Fanout {
+        private final Random random = new Random(42);
+        private final List<Ambulance> fleet = new ArrayList<>();
+        private final LiveAmbulanceStore liveStore;
+        private final FleetBroadcastService broadcastService;
+        private final StompWireChannel channel;
+
+        Fanout(boolean viewportScoped) {
+            for (long id = 1; id <= AMBULANCES; id++) {
+                fleet.add(ambulance(id, between(random, MIN_LAT, MAX_LAT), between(random, MIN_LNG, MAX_LNG)));
+            }
+            AmbulanceRepository ambulanceRepository = mock(AmbulanceRepository.class);
+            when(ambulanceRepository.findAll()).thenReturn(fleet);
+            liveStore = new LiveAmbulanceStore(ambulanceRepository, mock(JdbcTemplate.class),
+                    new AmbulanceSpatialIndex(0.01));
+            liveStore.rebuild();
+
+            ViewportRegistry viewportRegistry = new ViewportRegistry();
+            if (viewportScoped) {
+                for (int i = 0; i < SESSIONS; i++) {
+                    double lat = between(random, MIN_LAT, MAX_LAT - VIEWPORT_DEGREES);
+                    double lng = between(random, MIN_LNG, MAX_LNG - VIEWPORT_DEGREES);
+                    viewportRegistry.register("session-" + i, "sub-0",
+                            Viewport.boundingBox(lat, lng, lat + VIEWPORT_DEGREES, lng + VIEWPORT_DEGREES));
+                }
+            }
+
+            channel = new StompWireChannel(viewportScoped ? 0 : SESSIONS);
+            SimpMessagingTemplate messagingTemplate = new SimpMessagingTemplate(channel);
+            messagingTemplate.setMessageConverter(new MappingJackson2MessageConverter());
+            broadcastService = new FleetBroadcastService(liveStore, messagingTemplate,
+                    viewportRegistry, new EncodingRegistry(), new NodeScope(NodeScope.BROKER_SIMPLE, "test"), 5);
+        }
+
+        /**
+         * Every unit moves ~50 m, so the next frame carries the whole fleet.
+         */
+        void moveFleet() {
+            for (Ambulance ambulance : fleet) {
+                LiveAmbulance current = liveStore.get(ambulance.getId()).orElseThrow();
+                liveStore.updatePosition(ambulance.getId(), current.getLatitude() + between(random, -0.0005, 0.0005),
+                        current.getLongitude() + between(random, -0.0005, 0.0005));
+            }
+        }
+
+        void broadcast() {
+            broadcastService.broadcastChanges();
+        }
+    }
+
+    private static double between(Random random, double min, double max) {
+        return min + random.nextDouble() * (max - min);
+    }
+
+    private static Ambulance ambulance(Long id, double latitude, double longitude) {
+        Ambulance ambulance = new Ambulance();
+        ambulance.setId(id);
+        ambulance.setDriverName("Driver " + id);
+        ambulance.setAvailable(true);
+        ambulance.setLatitude(latitude);
+        ambulance.setLongitude(longitude);
+        return ambulance;
+    }
+
+    /**
+     * Stands in for the broker and the sessions: topic messages are encoded once per subscriber,
+     * user-destination messages once.
+     */
+    private static class StompWireChannel implements MessageChannel {
+        private final StompEncoder encoder = new StompEncoder();
+        private final int topicSubscribers;
+        private long frames;
+        private long bytes;
+
+        StompWireChannel(int topicSubscribers) {
+            this.topicSubscribers = topicSubscribers;
+        }
+
+        @Override
+        public boolean send(Message<?> message, long timeout) {
+            String destination = SimpMessageHeaderAccessor.getDestination(message.getHeaders());
+            int recipients = destination != null && destination.startsWith("/topic/") ? topicSubscribers : 1;
+            for (int i = 0; i < recipients; i++) {
+                StompHeaderAccessor stomp = StompHeaderAccessor.create(StompCommand.MESSAGE);
+                stomp.setDestination(destination);
+                stomp.setSubscriptionId("sub-0");
+                stomp.setMessageId(Long.toString(frames));
+                stomp.setContentType(MimeTypeUtils.APPLICATION_JSON);
+                byte[] frame = encoder.encode(MessageBuilder.createMessage((byte[]) message.getPayload(),
+                        stomp.getMessageHeaders()));
+                frames++;
+                bytes += frame.length;
+            }
+            return true;
+        }
+    }
+}
@@ -0,0 +1,17 @@
+-- One-off migration for dispatch databases created before route geometry moved to case_geometry.
+-- Run it by hand, once, before deploying that version; databases created afterwards have no
+-- cases.route_geometry column and need nothing.
+--
+-- New cases no longer write cases.route_geometry, so the column must accept NULL. Nothing is
+-- copied or dropped here: CaseService moves a case's geometry into case_geometry the first time
+-- it is read, and the old column stays as the source until it is retired by a separate script.
+--
+-- To reverse: UPDATE cases SET route_geometry = '' WHERE route_geometry IS NULL;
+--             ALTER TABLE cases MODIFY route_geometry LONGTEXT NOT NULL;
+
+ALTER TABLE cases MODIFY route_geometry LONGTEXT NULL;
+
+-- Cases whose geometry has not been moved yet:
+-- SELECT COUNT(*) FROM cases c
+--  WHERE c.route_geometry IS NOT NULL AND c.route_geometry <> ''
+--    AND NOT EXISTS (SELECT 1 FROM case_geometry g WHERE g.case_id = c.id);
@@ -1,26 +1,105 @@
 package mine.dispatchcoordinationservice.controller;
 
+import mine.dispatchcoordinationservice.dto.CaseEvent;
+import mine.dispatchcoordinationservice.dto.CaseSummary;
 import mine.dispatchcoordinationservice.model.Case;
+import mine.dispatchcoordinationservice.service.CaseEventPublisher;
 import mine.dispatchcoordinationservice.service.CaseService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.util.DigestUtils;
 import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Locale;
 
 @RestController
 @RequestMapping("/cases")
 public class CaseController {
 
+    static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
     private final CaseService caseService;
+    private final CaseEventPublisher caseEvents;
+    private final Duration heartbeat;
+    private final CacheControl geometryCacheControl;
 
-    public CaseController(CaseService caseService) {
+    public CaseController(CaseService caseService,
+                          CaseEventPublisher caseEvents,
+                          @Value("${dispatch.events.heartbeat-ms:15000}") long heartbeatMs,
+                          @Value("${dispatch.cases.geometry-max-age-seconds:3600}") long geometryMaxAgeSeconds) {
         this.caseService = caseService;
+        this.caseEvents = caseEvents;
+        this.heartbeat = Duration.ofMillis(heartbeatMs);
+        this.geometryCacheControl = CacheControl.maxAge(Duration.ofSeconds(geometryMaxAgeSeconds));
     }
 
+    /**
+     * Newest cases first, without route geometry, one page at a time. The id to pass as
+     * {@code cursor} for the next page comes back in the {@value #NEXT_CURSOR_HEADER} header, which
+     * is absent on the last page. {@code from} is inclusive and {@code to} exclusive.
+     */
     @GetMapping
-    public List<Case> getAllCases() {
-        return caseService.getAllCases();
+    public ResponseEntity<List<CaseSummary>> getCases(
+            @RequestParam(required = false) String status,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(required = false) Integer ambulanceId,
+            @RequestParam(required = false) Long hospitalId,
+            @RequestParam(required = false) Long cursor,
+            @RequestParam(required = false) Integer limit) {
+        CaseService.CasePage page = caseService.findCases(status, from, to, ambulanceId, hospitalId, cursor, limit);
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (page.nextCursor() != null) {
+            response.header(NEXT_CURSOR_HEADER, page.nextCursor().toString());
+        }
+        return response.body(page.cases());
+    }
+
+    /**
+     * The encoded route polyline of a case. Cacheable, and answered with 304 when the client's
+     * {@code If-None-Match} still matches.
+     */
+    @GetMapping(path = "/{id}/geometry", produces = MediaType.TEXT_PLAIN_VALUE)
+    public ResponseEntity<String> getCaseGeometry(@PathVariable Long id) {
+        return caseService.getRouteGeometry(id)
+                .map(geometry -> ResponseEntity.ok()
+                        .cacheControl(geometryCacheControl)
+                        .eTag(DigestUtils.md5DigestAsHex(geometry.getBytes(StandardCharsets.UTF_8)))
+                        .body(geometry))
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    /**
+     * Server-sent events for every case, or for one case with {@code caseId}: {@code created} when a
+     * case is dispatched, {@code status} on each lifecycle change (ENROUTE_TO_PATIENT, AT_PATIENT,
+     * ENROUTE_TO_HOSPITAL, CLOSED) and {@code progress} on every simulation tick. A stream for one
+     * case starts with its current state. Comment lines are sent while idle to keep proxies from
+     * closing the connection.
+     */
+    @GetMapping(path = "/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Flux<ServerSentEvent<CaseEvent>> streamEvents(@RequestParam(required = false) Integer caseId) {
+        Flux<CaseEvent> current = caseId == null
+                ? Flux.empty()
+                : Mono.defer(() -> Mono.justOrEmpty(caseService.currentState(caseId))).flux();
+        Flux<ServerSentEvent<CaseEvent>> events = current
+                .concatWith(caseEvents.events(caseId == null ? null : caseId.longValue()))
+                .map(event -> ServerSentEvent.builder(event)
+                        .event(event.getType().name().toLowerCase(Locale.ROOT))
+                        .build());
+        Flux<ServerSentEvent<CaseEvent>> heartbeats = Flux.interval(heartbeat)
+                .map(tick -> ServerSentEvent.<CaseEvent>builder().comment("heartbeat").build());
+        return Flux.merge(events, heartbeats);
     }
 
     @GetMapping("/{id}")
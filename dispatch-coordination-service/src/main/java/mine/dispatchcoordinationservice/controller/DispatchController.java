@@ -2,24 +2,70 @@ package mine.dispatchcoordinationservice.controller;
 
 import mine.dispatchcoordinationservice.dto.DispatchResult;
 import mine.dispatchcoordinationservice.dto.EmergencyRequest;
+import mine.dispatchcoordinationservice.service.BatchDispatchService;
 import mine.dispatchcoordinationservice.service.DispatchService;
+import mine.dispatchcoordinationservice.service.SimulationEngine;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Mono;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/dispatch")
 public class DispatchController {
 
     private final DispatchService dispatchService;
+    private final BatchDispatchService batchDispatchService;
+    private final SimulationEngine simulationEngine;
 
-    public DispatchController(DispatchService dispatchService) {
+    public DispatchController(DispatchService dispatchService, BatchDispatchService batchDispatchService,
+                              SimulationEngine simulationEngine) {
         this.dispatchService = dispatchService;
+        this.batchDispatchService = batchDispatchService;
+        this.simulationEngine = simulationEngine;
     }
 
     @PostMapping("/emergency")
-    public ResponseEntity<DispatchResult> handleEmergency(@RequestBody EmergencyRequest request) {
-        DispatchResult result = dispatchService.handleEmergency(request);
+    public Mono<ResponseEntity<DispatchResult>> handleEmergency(@RequestBody EmergencyRequest request) {
         // Always return 200 for valid requests, even if no ambulance is found
+        return dispatchService.handleEmergencyAsync(request)
+                .map(ResponseEntity::ok);
+    }
+
+    /**
+     * Thread-per-request variant of {@link #handleEmergency(EmergencyRequest)}, kept for load comparisons.
+     */
+    @PostMapping("/emergency/blocking")
+    public ResponseEntity<DispatchResult> handleEmergencyBlocking(@RequestBody EmergencyRequest request) {
+        DispatchResult result = dispatchService.handleEmergency(request);
         return ResponseEntity.ok(result);
     }
+
+    /**
+     * Joins the current batch window; the ambulance is chosen jointly with every other emergency
+     * received in that window.
+     */
+    @PostMapping("/emergency/batched")
+    public Mono<ResponseEntity<DispatchResult>> handleEmergencyBatched(@RequestBody EmergencyRequest request) {
+        return batchDispatchService.submit(request)
+                .map(ResponseEntity::ok);
+    }
+
+    /**
+     * Dispatches several simultaneous emergencies together, e.g. a mass-casualty event. Results are
+     * returned in request order.
+     */
+    @PostMapping("/emergencies")
+    public Mono<ResponseEntity<List<DispatchResult>>> handleEmergencies(@RequestBody List<EmergencyRequest> requests) {
+        return batchDispatchService.submitAll(requests)
+                .map(ResponseEntity::ok);
+    }
+
+    @GetMapping("/simulations/active")
+    public Map<String, Integer> getActiveSimulations() {
+        return Collections.singletonMap("active", simulationEngine.activeSimulations());
+    }
 }
@@ -0,0 +1,112 @@
+package mine.dispatchcoordinationservice.dto;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * One push notification about a case: a lifecycle change ({@code CREATED}, {@code STATUS}) or a
+ * tracking update while its ambulance drives ({@code PROGRESS}).
+ * <p>
+ * {@code progress} runs from 0 to 1 over the whole ambulance -> patient -> hospital route.
+ * {@code etaSeconds} is the time left until the hospital and {@code etaToPatientSeconds} the time
+ * left until the patient, {@code null} once the patient has been reached.
+ */
+@Data
+@NoArgsConstructor
+public class CaseEvent {
+
+    public enum Type {
+        CREATED, STATUS, PROGRESS
+    }
+
+    private Type type;
+    private Long caseId;
+    private Integer ambulanceId;
+    private String status;
+    private double progress;
+    private Double etaSeconds;
+    private Double etaToPatientSeconds;
+    private Double latitude;
+    private Double longitude;
+    private long timestamp;
+
+    public Type getType() {
+        return type;
+    }
+
+    public void setType(Type type) {
+        this.type = type;
+    }
+
+    public Long getCaseId() {
+        return caseId;
+    }
+
+    public void setCaseId(Long caseId) {
+        this.caseId = caseId;
+    }
+
+    public Integer getAmbulanceId() {
+        return ambulanceId;
+    }
+
+    public void setAmbulanceId(Integer ambulanceId) {
+        this.ambulanceId = ambulanceId;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public void setStatus(String status) {
+        this.status = status;
+    }
+
+    public double getProgress() {
+        return progress;
+    }
+
+    public void setProgress(double progress) {
+        this.progress = progress;
+    }
+
+    public Double getEtaSeconds() {
+        return etaSeconds;
+    }
+
+    public void setEtaSeconds(Double etaSeconds) {
+        this.etaSeconds = etaSeconds;
+    }
+
+    public Double getEtaToPatientSeconds() {
+        return etaToPatientSeconds;
+    }
+
+    public void setEtaToPatientSeconds(Double etaToPatientSeconds) {
+        this.etaToPatientSeconds = etaToPatientSeconds;
+    }
+
+    public Double getLatitude() {
+        return latitude;
+    }
+
+    public void setLatitude(Double latitude) {
+        this.latitude = latitude;
+    }
+
+    public Double getLongitude() {
+        return longitude;
+    }
+
+    public void setLongitude(Double longitude) {
+        this.longitude = longitude;
+    }
+
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    public void setTimestamp(long timestamp) {
+        this.timestamp = timestamp;
+    }
+}
@@ -0,0 +1,86 @@
+package mine.dispatchcoordinationservice.dto;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * A case as listed by {@code GET /cases}: every column except the route geometry, which is served
+ * separately by {@code GET /cases/{id}/geometry}.
+ */
+@Data
+@NoArgsConstructor
+public class CaseSummary {
+    private Long id;
+    private Double latitude;
+    private Double longitude;
+    private String specialization;
+    private String status;
+    private Integer assignedAmbulanceId;
+    private Long assignedHospitalId;
+    private Double estimatedDuration;
+    private Double estimatedDistance;
+    private Double realDuration;
+    private LocalDateTime createdAt;
+
+    public CaseSummary(Long id, Double latitude, Double longitude, String specialization, String status,
+                       Integer assignedAmbulanceId, Long assignedHospitalId, Double estimatedDuration,
+                       Double estimatedDistance, Double realDuration, LocalDateTime createdAt) {
+        this.id = id;
+        this.latitude = latitude;
+        this.longitude = longitude;
+        this.specialization = specialization;
+        this.status = status;
+        this.assignedAmbulanceId = assignedAmbulanceId;
+        this.assignedHospitalId = assignedHospitalId;
+        this.estimatedDuration = estimatedDuration;
+        this.estimatedDistance = estimatedDistance;
+        this.realDuration = realDuration;
+        this.createdAt = createdAt;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public Double getLatitude() {
+        return latitude;
+    }
+
+    public Double getLongitude() {
+        return longitude;
+    }
+
+    public String getSpecialization() {
+        return specialization;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public Integer getAssignedAmbulanceId() {
+        return assignedAmbulanceId;
+    }
+
+    public Long getAssignedHospitalId() {
+        return assignedHospitalId;
+    }
+
+    public Double getEstimatedDuration() {
+        return estimatedDuration;
+    }
+
+    public Double getEstimatedDistance() {
+        return estimatedDistance;
+    }
+
+    public Double getRealDuration() {
+        return realDuration;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+}
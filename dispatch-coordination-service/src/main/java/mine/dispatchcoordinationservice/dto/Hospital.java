@@ -13,6 +13,7 @@ public class Hospital {
     private Double latitude;
     private Double longitude;
     private List<Ambulance> ambulances;
+    private List<Integer> ambulanceIds;
 
     public Long getId() {
         return id;
@@ -62,6 +63,14 @@ public class Hospital {
         this.ambulances = ambulances;
     }
 
+    public List<Integer> getAmbulanceIds() {
+        return ambulanceIds;
+    }
+
+    public void setAmbulanceIds(List<Integer> ambulanceIds) {
+        this.ambulanceIds = ambulanceIds;
+    }
+
 
 
 }
\ No newline at end of file
@@ -0,0 +1,38 @@
+package mine.dispatchcoordinationservice.dto;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+public class MatrixResponse {
+    private List<Double> durations;
+    private List<Double> distances;
+    private String status;
+
+    public List<Double> getDurations() {
+        return durations;
+    }
+
+    public void setDurations(List<Double> durations) {
+        this.durations = durations;
+    }
+
+    public List<Double> getDistances() {
+        return distances;
+    }
+
+    public void setDistances(List<Double> distances) {
+        this.distances = distances;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public void setStatus(String status) {
+        this.status = status;
+    }
+}
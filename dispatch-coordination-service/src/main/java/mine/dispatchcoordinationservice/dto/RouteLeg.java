@@ -0,0 +1,32 @@
+package mine.dispatchcoordinationservice.dto;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+public class RouteLeg {
+    private double distance;
+    private double duration;
+
+    public RouteLeg(double distance, double duration) {
+        this.distance = distance;
+        this.duration = duration;
+    }
+
+    public double getDistance() {
+        return distance;
+    }
+
+    public void setDistance(double distance) {
+        this.distance = distance;
+    }
+
+    public double getDuration() {
+        return duration;
+    }
+
+    public void setDuration(double duration) {
+        this.duration = duration;
+    }
+}
@@ -3,6 +3,8 @@ package mine.dispatchcoordinationservice.dto;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import java.util.List;
+
 @Data
 @NoArgsConstructor // This adds the default no-args constructor required for Jackson
 public class RouteResponse {
@@ -10,6 +12,7 @@ public class RouteResponse {
     private double distance;
     private double duration;
     private String status;
+    private List<RouteLeg> legs;
 
     public String getGeometry() {
         return geometry;
@@ -43,6 +46,14 @@ public class RouteResponse {
         this.status = status;
     }
 
+    public List<RouteLeg> getLegs() {
+        return legs;
+    }
+
+    public void setLegs(List<RouteLeg> legs) {
+        this.legs = legs;
+    }
+
     // Optional: Add a parameterized constructor for specific cases
     public RouteResponse(String failure, Object o) {
         this.status = failure;
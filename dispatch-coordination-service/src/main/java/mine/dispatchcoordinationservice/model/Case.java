@@ -1,5 +1,6 @@
 package mine.dispatchcoordinationservice.model;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import jakarta.persistence.*;
 import lombok.Data;
 
@@ -7,7 +8,13 @@ import java.time.LocalDateTime;
 
 @Entity
 @Data
-@Table(name = "cases")
+@Table(name = "cases", indexes = {
+        // Keyset listing walks the primary key backwards; each filter gets an index ending in id
+        @Index(name = "idx_cases_status_id", columnList = "status, id"),
+        @Index(name = "idx_cases_ambulance_id", columnList = "ambulance_id, id"),
+        @Index(name = "idx_cases_hospital_id", columnList = "hospital_id, id"),
+        @Index(name = "idx_cases_created_at", columnList = "created_at")
+})
 public class Case {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -38,7 +45,9 @@ public class Case {
     @Column(name = "estimated_distance", nullable = false)
     private Double estimatedDistance;
 
-    @Column(name = "route_geometry", nullable = false, columnDefinition = "LONGTEXT")
+    // Stored compressed in case_geometry; only set when a case is created or replaced
+    @Transient
+    @JsonInclude(JsonInclude.Include.NON_NULL)
     private String routeGeometry;
 
     @Column(name = "real_duration")
@@ -0,0 +1,33 @@
+package mine.dispatchcoordinationservice.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Route of a {@link Case}, kept out of the {@code cases} table so that listing cases and reading or
+ * updating their status never loads it. {@code points} is in
+ * {@link mine.dispatchcoordinationservice.util.GeometryCodec} form.
+ */
+@Entity
+@Data
+@NoArgsConstructor
+@Table(name = "case_geometry")
+public class CaseGeometry {
+    @Id
+    @Column(name = "case_id")
+    private Long caseId;
+
+    @Lob
+    @Column(name = "points", nullable = false, columnDefinition = "MEDIUMBLOB")
+    private byte[] points;
+
+    @Column(name = "point_count", nullable = false)
+    private Integer pointCount;
+
+    public CaseGeometry(Long caseId, byte[] points, Integer pointCount) {
+        this.caseId = caseId;
+        this.points = points;
+        this.pointCount = pointCount;
+    }
+}
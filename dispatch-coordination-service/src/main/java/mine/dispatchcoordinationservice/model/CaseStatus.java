@@ -0,0 +1,15 @@
+package mine.dispatchcoordinationservice.model;
+
+/**
+ * Values of {@link Case#getStatus()} along a dispatch, in order.
+ */
+public final class CaseStatus {
+
+    public static final String ENROUTE_TO_PATIENT = "ENROUTE_TO_PATIENT";
+    public static final String AT_PATIENT = "AT_PATIENT";
+    public static final String ENROUTE_TO_HOSPITAL = "ENROUTE_TO_HOSPITAL";
+    public static final String CLOSED = "CLOSED";
+
+    private CaseStatus() {
+    }
+}
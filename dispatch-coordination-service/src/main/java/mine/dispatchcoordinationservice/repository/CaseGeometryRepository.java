@@ -0,0 +1,9 @@
+package mine.dispatchcoordinationservice.repository;
+
+import mine.dispatchcoordinationservice.model.CaseGeometry;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface CaseGeometryRepository extends JpaRepository<CaseGeometry, Long> {
+}
@@ -1,9 +1,53 @@
 package mine.dispatchcoordinationservice.repository;
 
+import mine.dispatchcoordinationservice.dto.CaseSummary;
 import mine.dispatchcoordinationservice.model.Case;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
 
 @Repository
 public interface CaseRepository extends JpaRepository<Case, Integer> {
+
+    /**
+     * Sets the status without loading the case (and its route geometry). A closed case is never
+     * reopened.
+     *
+     * @return the number of cases updated, 0 or 1
+     */
+    @Transactional
+    @Modifying(clearAutomatically = true)
+    @Query("update Case c set c.status = :status where c.id = :id and c.status <> 'CLOSED'")
+    int updateStatus(@Param("id") Long id, @Param("status") String status);
+
+    /**
+     * Newest cases first, starting below {@code beforeId}, without their route geometry. Every
+     * filter is optional; pass {@code null} to skip it. Only the first page of {@code limit} is read.
+     */
+    @Query("""
+            select new mine.dispatchcoordinationservice.dto.CaseSummary(
+                c.id, c.latitude, c.longitude, c.specialization, c.status, c.assignedAmbulanceId,
+                c.assignedHospitalId, c.estimatedDuration, c.estimatedDistance, c.realDuration, c.createdAt)
+            from Case c
+            where (:beforeId is null or c.id < :beforeId)
+              and (:status is null or c.status = :status)
+              and (:from is null or c.createdAt >= :from)
+              and (:to is null or c.createdAt < :to)
+              and (:ambulanceId is null or c.assignedAmbulanceId = :ambulanceId)
+              and (:hospitalId is null or c.assignedHospitalId = :hospitalId)
+            order by c.id desc""")
+    List<CaseSummary> findSummaries(@Param("beforeId") Long beforeId,
+                                    @Param("status") String status,
+                                    @Param("from") LocalDateTime from,
+                                    @Param("to") LocalDateTime to,
+                                    @Param("ambulanceId") Integer ambulanceId,
+                                    @Param("hospitalId") Long hospitalId,
+                                    Pageable limit);
 }
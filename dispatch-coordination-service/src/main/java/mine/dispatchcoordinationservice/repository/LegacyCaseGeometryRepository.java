@@ -0,0 +1,39 @@
+package mine.dispatchcoordinationservice.repository;
+
+import org.springframework.jdbc.BadSqlGrammarException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Reads route geometry from the {@code cases.route_geometry} column, which databases created before
+ * {@code case_geometry} existed still have. The column is kept (see {@code db/case-geometry.sql});
+ * on databases that never had it every lookup is empty.
+ */
+@Repository
+public class LegacyCaseGeometryRepository {
+
+    private final JdbcTemplate jdbcTemplate;
+    private volatile boolean columnPresent = true;
+
+    public LegacyCaseGeometryRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public Optional<String> findPolyline(Long caseId) {
+        if (!columnPresent) {
+            return Optional.empty();
+        }
+        try {
+            List<String> rows = jdbcTemplate.queryForList(
+                    "select route_geometry from cases where id = ?", String.class, caseId);
+            return rows.stream().filter(polyline -> polyline != null && !polyline.isEmpty()).findFirst();
+        } catch (BadSqlGrammarException e) {
+            // Created after geometry moved to its own table: there is nothing to fall back on
+            columnPresent = false;
+            return Optional.empty();
+        }
+    }
+}
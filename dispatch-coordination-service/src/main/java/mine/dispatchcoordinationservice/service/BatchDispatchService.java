@@ -0,0 +1,281 @@
+package mine.dispatchcoordinationservice.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import mine.dispatchcoordinationservice.dto.Ambulance;
+import mine.dispatchcoordinationservice.dto.DispatchResult;
+import mine.dispatchcoordinationservice.dto.EmergencyRequest;
+import mine.dispatchcoordinationservice.dto.Hospital;
+import mine.dispatchcoordinationservice.util.GeoDistance;
+import mine.dispatchcoordinationservice.util.HungarianSolver;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.stereotype.Service;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * Dispatches simultaneous emergencies together. Requests are collected for up to
+ * {@code dispatch.batch.window-ms}, then the whole batch is assigned at once by solving a
+ * minimum-total-ETA assignment of incidents to available ambulances, every assigned ambulance is
+ * reserved, and only then are routes fetched and cases recorded.
+ * <p>
+ * Batches run one after another, so two batches never read the same ambulance as available. An
+ * ambulance taken meanwhile by a single dispatch fails its reservation; the emergency then joins the
+ * next batch, up to {@value #MAX_ATTEMPTS} times.
+ */
+@Service
+public class BatchDispatchService {
+
+    private static final Logger log = LoggerFactory.getLogger(BatchDispatchService.class);
+
+    private static final String AMBULANCE_SERVICE_URL = "http://ambulance-service";
+    private static final int MAX_ATTEMPTS = 3;
+
+    private final DispatchService dispatchService;
+    private final WebClient webClient;
+    private final double speedMetersPerSecond;
+    private final long windowMs;
+    private final int maxSize;
+    private volatile Sinks.Many<Pending> queue;
+    private volatile Disposable worker;
+    private volatile boolean stopped;
+    private final Timer solveTimer;
+    private final DistributionSummary batchSize;
+    private final Counter unassigned;
+
+    public BatchDispatchService(DispatchService dispatchService,
+                                WebClient.Builder webClientBuilder,
+                                MeterRegistry meterRegistry,
+                                @Value("${dispatch.batch.window-ms:500}") long windowMs,
+                                @Value("${dispatch.batch.max-size:1000}") int maxSize,
+                                @Value("${dispatch.batch.speed-mps:11.1}") double speedMetersPerSecond) {
+        this.dispatchService = dispatchService;
+        this.webClient = webClientBuilder.build();
+        this.speedMetersPerSecond = speedMetersPerSecond;
+        this.windowMs = windowMs;
+        this.maxSize = maxSize;
+        this.solveTimer = Timer.builder("dispatch.batch.solve")
+                .description("Time to solve one batch's incident-to-ambulance assignment")
+                .register(meterRegistry);
+        this.batchSize = DistributionSummary.builder("dispatch.batch.size")
+                .description("Emergencies dispatched together in one batch")
+                .register(meterRegistry);
+        this.unassigned = Counter.builder("dispatch.batch.unassigned")
+                .description("Batched emergencies left without an ambulance")
+                .register(meterRegistry);
+        start();
+    }
+
+    /**
+     * Subscribes a fresh queue to the batching pipeline. Fair backpressure keeps a window that closes
+     * while a batch is still running from overflowing; should the pipeline terminate anyway, it is
+     * logged and started again so later submissions are not left waiting on a dead queue.
+     */
+    private void start() {
+        Sinks.Many<Pending> fresh = Sinks.many().unicast().onBackpressureBuffer();
+        queue = fresh;
+        worker = fresh.asFlux()
+                .bufferTimeout(maxSize, Duration.ofMillis(windowMs), true)
+                .concatMap(batch -> dispatchBatch(batch)
+                        .onErrorResume(e -> {
+                            log.error("Batch of {} emergencies failed", batch.size(), e);
+                            batch.forEach(pending -> pending.result()
+                                    .tryEmitValue(dispatchService.createFailureResult("Batch dispatch failed.")));
+                            return Mono.empty();
+                        }))
+                .subscribe(null, e -> {
+                    log.error("Batch dispatch pipeline terminated; restarting it", e);
+                    if (!stopped) {
+                        start();
+                    }
+                });
+    }
+
+    /**
+     * Queues one emergency for the current batch window.
+     */
+    public Mono<DispatchResult> submit(EmergencyRequest request) {
+        return Mono.defer(() -> {
+            Pending pending = new Pending(request, Sinks.one(), 1);
+            enqueue(pending);
+            return pending.result().asMono();
+        });
+    }
+
+    private void enqueue(Pending pending) {
+        // Request threads enqueue concurrently; retry instead of dropping
+        queue.emitNext(pending, (signal, result) -> result == Sinks.EmitResult.FAIL_NON_SERIALIZED);
+    }
+
+    /**
+     * Queues several emergencies together, returning their results in request order.
+     */
+    public Mono<List<DispatchResult>> submitAll(List<EmergencyRequest> requests) {
+        return Flux.fromIterable(requests)
+                .flatMapSequential(this::submit)
+                .collectList();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        stopped = true;
+        worker.dispose();
+    }
+
+    private Mono<Void> dispatchBatch(List<Pending> batch) {
+        batchSize.record(batch.size());
+        return fetchHospitalsBySpeciality(batch)
+                .flatMap(hospitalsBySpeciality -> {
+                    Set<Integer> fleet = new HashSet<>();
+                    hospitalsBySpeciality.values().forEach(hospitals -> hospitals.forEach(hospital -> {
+                        if (hospital.getAmbulanceIds() != null) {
+                            fleet.addAll(hospital.getAmbulanceIds());
+                        }
+                    }));
+                    return fetchAvailableAsync(fleet)
+                            .flatMap(ambulances -> assign(batch, hospitalsBySpeciality, ambulances));
+                })
+                .flatMapMany(assignments -> reserveAll(batch, assignments))
+                .flatMap(reserved -> dispatchService.routeReserved(reserved.pending().request(), reserved.pair())
+                        .onErrorResume(e -> Mono.just(dispatchService.createFailureResult(e.getMessage())))
+                        .doOnNext(result -> reserved.pending().result().tryEmitValue(result)))
+                .then();
+    }
+
+    private Mono<Map<String, List<Hospital>>> fetchHospitalsBySpeciality(List<Pending> batch) {
+        Set<String> specialities = batch.stream()
+                .map(pending -> pending.request().getSpecialization())
+                .collect(Collectors.toCollection(HashSet::new));
+        return Flux.fromIterable(specialities)
+                .flatMap(speciality -> dispatchService.fetchHospitalsBySpecialityAsync(speciality)
+                        .map(hospitals -> new SpecialityHospitals(speciality, hospitals)))
+                .collect(HashMap::new, (map, entry) -> map.put(entry.speciality(), entry.hospitals()));
+    }
+
+    private Mono<List<Ambulance>> fetchAvailableAsync(Set<Integer> ambulanceIds) {
+        if (ambulanceIds.isEmpty()) {
+            return Mono.just(Collections.emptyList());
+        }
+        // The ids of every hospital's fleet overflow the request line, so they go in the body
+        return webClient.post()
+                .uri(AMBULANCE_SERVICE_URL + "/ambulances/lookup?available=true")
+                .bodyValue(ambulanceIds)
+                .retrieve()
+                .onStatus(HttpStatusCode::isError,
+                        response -> Mono.error(new RuntimeException("Error fetching available ambulances")))
+                .bodyToFlux(Ambulance.class)
+                .filter(ambulance -> ambulance.isAvailable()
+                        && ambulance.getLatitude() != null && ambulance.getLongitude() != null)
+                .collectList();
+    }
+
+    /**
+     * Builds the incident-by-ambulance ETA matrix and solves it off the event loop. An ambulance is
+     * only eligible for an incident if one of its hospitals has the incident's specialization.
+     *
+     * @return the assigned pair for each batch position, {@code null} where none was assigned
+     */
+    private Mono<AmbulanceHospitalPair[]> assign(List<Pending> batch, Map<String, List<Hospital>> hospitalsBySpeciality,
+                                                 List<Ambulance> ambulances) {
+        return Mono.fromCallable(() -> {
+            Map<String, Map<Integer, Hospital>> hospitalByAmbulance = new HashMap<>();
+            hospitalsBySpeciality.forEach((speciality, hospitals) -> {
+                Map<Integer, Hospital> byAmbulance = new HashMap<>();
+                for (Hospital hospital : hospitals) {
+                    if (hospital.getAmbulanceIds() != null) {
+                        hospital.getAmbulanceIds().forEach(id -> byAmbulance.putIfAbsent(id, hospital));
+                    }
+                }
+                hospitalByAmbulance.put(speciality, byAmbulance);
+            });
+
+            int count = ambulances.size();
+            double[] latitudes = new double[count];
+            double[] longitudes = new double[count];
+            for (int j = 0; j < count; j++) {
+                latitudes[j] = ambulances.get(j).getLatitude();
+                longitudes[j] = ambulances.get(j).getLongitude();
+            }
+            double[][] eta = new double[batch.size()][count];
+            for (int i = 0; i < batch.size(); i++) {
+                EmergencyRequest request = batch.get(i).request();
+                Map<Integer, Hospital> eligible = hospitalByAmbulance.getOrDefault(request.getSpecialization(), Map.of());
+                GeoDistance.distances(request.getLatitude(), request.getLongitude(), latitudes, longitudes, count, eta[i]);
+                for (int j = 0; j < count; j++) {
+                    eta[i][j] = eligible.containsKey(ambulances.get(j).getId())
+                            ? eta[i][j] / speedMetersPerSecond
+                            : Double.POSITIVE_INFINITY;
+                }
+            }
+
+            int[] columns = solveTimer.record(() -> HungarianSolver.solve(eta));
+            AmbulanceHospitalPair[] assignments = new AmbulanceHospitalPair[batch.size()];
+            for (int i = 0; i < batch.size(); i++) {
+                if (columns[i] >= 0) {
+                    Ambulance ambulance = ambulances.get(columns[i]);
+                    Hospital hospital = hospitalByAmbulance.get(batch.get(i).request().getSpecialization())
+                            .get(ambulance.getId());
+                    assignments[i] = new AmbulanceHospitalPair(ambulance, hospital);
+                }
+            }
+            log.info("Batch of {} emergencies over {} available ambulances solved", batch.size(), ambulances.size());
+            return assignments;
+        }).subscribeOn(Schedulers.boundedElastic());
+    }
+
+    /**
+     * Reserves every assigned ambulance at once and fails the batch's other requests. A request whose
+     * ambulance was taken by a concurrent dispatch is queued for the next batch.
+     */
+    private Flux<Reserved> reserveAll(List<Pending> batch, AmbulanceHospitalPair[] assignments) {
+        List<Reserved> assigned = new ArrayList<>();
+        for (int i = 0; i < batch.size(); i++) {
+            Pending pending = batch.get(i);
+            if (assignments[i] != null) {
+                assigned.add(new Reserved(pending, assignments[i]));
+            } else {
+                unassigned.increment();
+                pending.result().tryEmitValue(dispatchService.createFailureResult(
+                        "No available ambulance left in this batch for the required specialization."));
+            }
+        }
+        return Flux.fromIterable(assigned)
+                .flatMap(reserved -> dispatchService.reserveAmbulanceAsync(reserved.pair().getAmbulance().getId())
+                        .flatMap(ok -> {
+                            if (ok) {
+                                return Mono.just(reserved);
+                            }
+                            Pending pending = reserved.pending();
+                            if (pending.attempt() < MAX_ATTEMPTS) {
+                                enqueue(new Pending(pending.request(), pending.result(), pending.attempt() + 1));
+                            } else {
+                                pending.result().tryEmitValue(dispatchService.createFailureResult(
+                                        "Every assigned ambulance was taken by a concurrent dispatch."));
+                            }
+                            return Mono.empty();
+                        }));
+    }
+
+    private record Pending(EmergencyRequest request, Sinks.One<DispatchResult> result, int attempt) {
+    }
+
+    private record Reserved(Pending pending, AmbulanceHospitalPair pair) {
+    }
+
+    private record SpecialityHospitals(String speciality, List<Hospital> hospitals) {
+    }
+}
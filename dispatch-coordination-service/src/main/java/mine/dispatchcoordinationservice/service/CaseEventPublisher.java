@@ -0,0 +1,61 @@
+package mine.dispatchcoordinationservice.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import mine.dispatchcoordinationservice.dto.CaseEvent;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.BufferOverflowStrategy;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+
+/**
+ * Multicasts case lifecycle and tracking events to every open event stream.
+ * <p>
+ * Publishing never blocks: with no subscriber an event is simply dropped, and each subscriber
+ * buffers at most {@code bufferSize} events, discarding its oldest ones if it falls further behind.
+ */
+@Component
+public class CaseEventPublisher {
+
+    private final Sinks.Many<CaseEvent> sink = Sinks.many().multicast().directBestEffort();
+    private final int bufferSize;
+    private final Counter published;
+    private final Counter dropped;
+
+    public CaseEventPublisher(MeterRegistry meterRegistry,
+                              @Value("${dispatch.events.buffer-size:1024}") int bufferSize) {
+        this.bufferSize = bufferSize;
+        this.published = Counter.builder("dispatch.case.events.published")
+                .description("Case events emitted to event streams")
+                .register(meterRegistry);
+        this.dropped = Counter.builder("dispatch.case.events.dropped")
+                .description("Case events discarded because a stream subscriber fell behind")
+                .register(meterRegistry);
+        Gauge.builder("dispatch.case.events.subscribers", sink, Sinks.Many::currentSubscriberCount)
+                .description("Open case event streams")
+                .register(meterRegistry);
+    }
+
+    public void publish(CaseEvent event) {
+        // The tick thread and completion callbacks publish concurrently; retry instead of dropping
+        sink.emitNext(event, (signal, result) -> result == Sinks.EmitResult.FAIL_NON_SERIALIZED);
+        published.increment();
+    }
+
+    /**
+     * Events for one case, or for every case when {@code caseId} is {@code null}.
+     */
+    public Flux<CaseEvent> events(Long caseId) {
+        Flux<CaseEvent> events = sink.asFlux();
+        if (caseId != null) {
+            events = events.filter(event -> caseId.equals(event.getCaseId()));
+        }
+        return events.onBackpressureBuffer(bufferSize, event -> dropped.increment(), BufferOverflowStrategy.DROP_OLDEST);
+    }
+
+    public int subscriberCount() {
+        return sink.currentSubscriberCount();
+    }
+}
@@ -1,9 +1,21 @@
 package mine.dispatchcoordinationservice.service;
 
+import mine.dispatchcoordinationservice.dto.CaseEvent;
+import mine.dispatchcoordinationservice.dto.CaseSummary;
 import mine.dispatchcoordinationservice.model.Case;
+import mine.dispatchcoordinationservice.model.CaseGeometry;
+import mine.dispatchcoordinationservice.model.CaseStatus;
+import mine.dispatchcoordinationservice.repository.CaseGeometryRepository;
 import mine.dispatchcoordinationservice.repository.CaseRepository;
+import mine.dispatchcoordinationservice.repository.LegacyCaseGeometryRepository;
+import mine.dispatchcoordinationservice.util.GeometryCodec;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
@@ -11,40 +23,176 @@ import java.util.Optional;
 public class CaseService {
 
     private final CaseRepository caseRepository;
+    private final CaseGeometryRepository caseGeometryRepository;
+    private final LegacyCaseGeometryRepository legacyGeometryRepository;
+    private final SimulationEngine simulationEngine;
+    private final CaseEventPublisher caseEvents;
+    private final int defaultPageSize;
+    private final int maxPageSize;
 
-    public CaseService(CaseRepository caseRepository) {
+    public CaseService(CaseRepository caseRepository,
+                       CaseGeometryRepository caseGeometryRepository,
+                       LegacyCaseGeometryRepository legacyGeometryRepository,
+                       SimulationEngine simulationEngine,
+                       CaseEventPublisher caseEvents,
+                       @Value("${dispatch.cases.page-size:50}") int defaultPageSize,
+                       @Value("${dispatch.cases.max-page-size:500}") int maxPageSize) {
         this.caseRepository = caseRepository;
+        this.caseGeometryRepository = caseGeometryRepository;
+        this.legacyGeometryRepository = legacyGeometryRepository;
+        this.simulationEngine = simulationEngine;
+        this.caseEvents = caseEvents;
+        this.defaultPageSize = defaultPageSize;
+        this.maxPageSize = maxPageSize;
     }
 
+    @Transactional
     public Case createCase(Case newCase) {
-        return caseRepository.save(newCase);
+        Case saved = caseRepository.save(newCase);
+        saveGeometry(saved.getId(), newCase.getRouteGeometry());
+        return saved;
     }
 
     public Optional<Case> getCaseById(Integer id) {
         return caseRepository.findById(id);
     }
 
-    public List<Case> getAllCases() {
-        return caseRepository.findAll();
+    /**
+     * One page of cases, newest first, without route geometry.
+     *
+     * @param cursor {@link CasePage#nextCursor()} of the previous page, or {@code null} for the first page
+     * @param limit  page size, or {@code null} for the default; capped at {@code dispatch.cases.max-page-size}
+     */
+    public CasePage findCases(String status, LocalDateTime from, LocalDateTime to, Integer ambulanceId,
+                              Long hospitalId, Long cursor, Integer limit) {
+        int pageSize = Math.min(Math.max(1, limit == null ? defaultPageSize : limit), maxPageSize);
+        // One extra row tells whether another page follows without a count query
+        List<CaseSummary> rows = caseRepository.findSummaries(cursor, status, from, to, ambulanceId, hospitalId,
+                PageRequest.ofSize(pageSize + 1));
+        if (rows.size() <= pageSize) {
+            return new CasePage(rows, null);
+        }
+        List<CaseSummary> page = rows.subList(0, pageSize);
+        return new CasePage(page, page.get(pageSize - 1).getId());
     }
 
+    /**
+     * The encoded polyline of a case's route, decoded from its compact stored form. A case stored
+     * before geometry had its own table is read from the old column and moved over on first read.
+     */
+    public Optional<String> getRouteGeometry(Long id) {
+        Optional<CaseGeometry> stored = caseGeometryRepository.findById(id);
+        if (stored.isPresent()) {
+            return stored.map(geometry -> GeometryCodec.toPolyline(geometry.getPoints()));
+        }
+        return legacyGeometryRepository.findPolyline(id).map(polyline -> {
+            try {
+                saveGeometry(id, polyline);
+            } catch (DataIntegrityViolationException e) {
+                // Moved by a concurrent read
+            }
+            return polyline;
+        });
+    }
+
+    @Transactional
     public Case updateCase(Case updatedCase) {
-        return caseRepository.save(updatedCase);
+        Case saved = caseRepository.save(updatedCase);
+        // A replacement without geometry keeps the stored route
+        saveGeometry(saved.getId(), updatedCase.getRouteGeometry());
+        if (CaseStatus.CLOSED.equalsIgnoreCase(saved.getStatus())) {
+            simulationEngine.cancel(saved.getId());
+        }
+        caseEvents.publish(event(CaseEvent.Type.STATUS, saved.getId(), saved.getAssignedAmbulanceId(), saved.getStatus()));
+        return saved;
+    }
+
+    /**
+     * Moves a case to {@code status} and notifies event streams. Closed cases stay closed.
+     *
+     * @return whether the case existed and was still open
+     */
+    public boolean updateStatus(Long caseId, Integer ambulanceId, String status) {
+        if (caseRepository.updateStatus(caseId, status) == 0) {
+            return false;
+        }
+        if (CaseStatus.CLOSED.equals(status)) {
+            simulationEngine.cancel(caseId);
+        }
+        caseEvents.publish(event(CaseEvent.Type.STATUS, caseId, ambulanceId, status));
+        return true;
+    }
+
+    /**
+     * Announces a newly dispatched case to event streams, once its simulation has started so the
+     * event carries the route ETA.
+     */
+    public void publishCreated(Case createdCase) {
+        caseEvents.publish(event(CaseEvent.Type.CREATED, createdCase.getId(),
+                createdCase.getAssignedAmbulanceId(), createdCase.getStatus()));
+    }
+
+    /**
+     * The current state of a case as an event, used to start a client's event stream.
+     */
+    public Optional<CaseEvent> currentState(Integer id) {
+        return caseRepository.findById(id)
+                .map(aCase -> event(CaseEvent.Type.STATUS, aCase.getId(), aCase.getAssignedAmbulanceId(), aCase.getStatus()));
     }
 
     public Case findCaseById(Long caseId) {
         return caseRepository.findById(Math.toIntExact(caseId)).orElse(null);
     }
 
+    @Transactional
     public void deleteCases() {
+        caseGeometryRepository.deleteAllInBatch();
         caseRepository.deleteAll();
+        simulationEngine.cancelAll();
     }
 
+    @Transactional
     public boolean deleteCase(Integer id) {
         return caseRepository.findById(id)
                 .map(aCase -> {
+                    caseGeometryRepository.deleteById(aCase.getId());
                     caseRepository.delete(aCase);
+                    simulationEngine.cancel(aCase.getId());
                     return true;
                 }).orElse(false);
     }
+
+    private void saveGeometry(Long caseId, String polyline) {
+        if (polyline == null || polyline.isEmpty()) {
+            return;
+        }
+        byte[] points = GeometryCodec.fromPolyline(polyline);
+        caseGeometryRepository.save(new CaseGeometry(caseId, points, GeometryCodec.pointCount(points)));
+    }
+
+    /**
+     * A lifecycle event with the progress of the case's running simulation, or with the progress
+     * implied by its status when none is running.
+     */
+    private CaseEvent event(CaseEvent.Type type, Long caseId, Integer ambulanceId, String status) {
+        CaseEvent event = simulationEngine.progress(caseId).orElseGet(() -> {
+            CaseEvent idle = new CaseEvent();
+            idle.setCaseId(caseId);
+            boolean closed = CaseStatus.CLOSED.equalsIgnoreCase(status);
+            idle.setProgress(closed ? 1.0 : 0.0);
+            idle.setEtaSeconds(closed ? 0.0 : null);
+            return idle;
+        });
+        event.setType(type);
+        event.setAmbulanceId(ambulanceId);
+        event.setStatus(status);
+        event.setTimestamp(System.currentTimeMillis());
+        return event;
+    }
+
+    /**
+     * @param nextCursor id to pass as the cursor for the next page, {@code null} on the last page
+     */
+    public record CasePage(List<CaseSummary> cases, Long nextCursor) {
+    }
 }
@@ -2,19 +2,29 @@ package mine.dispatchcoordinationservice.service;
 
 import mine.dispatchcoordinationservice.dto.*;
 import mine.dispatchcoordinationservice.model.Case;
+import mine.dispatchcoordinationservice.model.CaseStatus;
+import mine.dispatchcoordinationservice.util.GeoDistance;
 import mine.dispatchcoordinationservice.util.RouteUtils;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.HttpStatusCode;
 import org.springframework.stereotype.Service;
 import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.*;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.stream.IntStream;
 
 @Service
 public class DispatchService {
@@ -25,173 +35,494 @@ public class DispatchService {
     private static final String ROUTE_OPTIMIZATION_SERVICE_URL = "http://route-optimization-service";
     private static final String AMBULANCE_SERVICE_URL = "http://ambulance-service";
 
-    private static final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
-
     private final WebClient webClient;
     private final CaseService caseService;
+    private final SimulationEngine simulationEngine;
 
     private static final int TOTAL_SIMULATION_SECONDS = 60;
 
-    public DispatchService(WebClient.Builder webClientBuilder, CaseService caseService) {
+    private static final String HOSPITAL_LOOKUP_METRIC = "dispatch.hospital.ambulance.lookup";
+
+    private final MeterRegistry meterRegistry;
+    private final int hospitalLookupConcurrency;
+    private final Duration hospitalLookupTimeout;
+    private final int nearestCandidates;
+    private final int etaCandidates;
+    private final HospitalLookupCache hospitalLookupCache;
+    private final Counter reservationConflicts;
+
+    public DispatchService(WebClient.Builder webClientBuilder,
+                           CaseService caseService,
+                           SimulationEngine simulationEngine,
+                           MeterRegistry meterRegistry,
+                           @Value("${dispatch.hospital-lookup.concurrency:8}") int hospitalLookupConcurrency,
+                           @Value("${dispatch.hospital-lookup.timeout-ms:2000}") long hospitalLookupTimeoutMs,
+                           @Value("${dispatch.nearest.candidates:5}") int nearestCandidates,
+                           @Value("${dispatch.eta.candidates:5}") int etaCandidates,
+                           @Value("${dispatch.hospital-cache.ttl-ms:30000}") long hospitalCacheTtlMs) {
         this.webClient = webClientBuilder.build();
         this.caseService = caseService;
+        this.simulationEngine = simulationEngine;
+        this.meterRegistry = meterRegistry;
+        this.hospitalLookupConcurrency = hospitalLookupConcurrency;
+        this.hospitalLookupTimeout = Duration.ofMillis(hospitalLookupTimeoutMs);
+        this.nearestCandidates = nearestCandidates;
+        this.etaCandidates = etaCandidates;
+        this.hospitalLookupCache = new HospitalLookupCache(webClient, HOSPITAL_MANAGEMENT_SERVICE_URL,
+                hospitalCacheTtlMs, System::currentTimeMillis, meterRegistry);
+        this.reservationConflicts = Counter.builder("dispatch.reservation.conflicts")
+                .description("Reservations lost to a concurrent dispatch of the same ambulance")
+                .register(meterRegistry);
     }
 
+    /**
+     * Blocking dispatch pipeline. Every downstream call waits for the previous one on the caller's
+     * thread; kept for comparison with {@link #handleEmergencyAsync(EmergencyRequest)}.
+     */
     public DispatchResult handleEmergency(EmergencyRequest request) {
         List<Hospital> hospitals = fetchHospitalsBySpeciality(request.getSpecialization());
         if (hospitals.isEmpty()) {
             return createFailureResult("No hospital with the required specialization found.");
         }
 
-        List<AmbulanceHospitalPair> ambulanceHospitalPairs = getAvailableAmbulances(hospitals);
+        List<AmbulanceHospitalPair> ambulanceHospitalPairs = findCandidates(hospitals, request);
         if (ambulanceHospitalPairs.isEmpty()) {
             return createFailureResult("No available ambulances found for the required specialization.");
         }
 
-        AmbulanceHospitalPair selectedPair = findNearestAmbulance(ambulanceHospitalPairs, request);
-        if (selectedPair == null) {
+        List<AmbulanceHospitalPair> ranked = rankByDriveTimeAsync(ambulanceHospitalPairs, request).block();
+        if (ranked == null || ranked.isEmpty()) {
             return createFailureResult("No suitable ambulance found.");
         }
 
-        RouteResponse routeToPatient = fetchRoute(
+        AmbulanceHospitalPair selectedPair = null;
+        for (AmbulanceHospitalPair candidate : ranked) {
+            if (Boolean.TRUE.equals(reserveAmbulanceAsync(candidate.getAmbulance().getId()).block())) {
+                selectedPair = candidate;
+                break;
+            }
+        }
+        if (selectedPair == null) {
+            return createFailureResult("Every candidate ambulance was taken by a concurrent dispatch.");
+        }
+
+        Integer ambulanceId = selectedPair.getAmbulance().getId();
+        try {
+            RouteResponse route = resolveRouteAsync(request, selectedPair).block();
+            String mergedGeometry = route.getGeometry();
+
+            Case newCase = saveDispatchCase(request, selectedPair, mergedGeometry, route.getDistance(), route.getDuration());
+
+            DispatchResult dispatchResult = createDispatchResult(selectedPair, mergedGeometry, newCase);
+
+            simulateMergedRoute(
+                    ambulanceId,
+                    mergedGeometry,
+                    TOTAL_SIMULATION_SECONDS,
+                    newCase.getId(),
+                    request,
+                    route.getLegs()
+            );
+            caseService.publishCreated(newCase);
+
+            return dispatchResult;
+        } catch (DispatchFailure e) {
+            setAmbulanceAvailability(ambulanceId, true);
+            return createFailureResult(e.getMessage());
+        } catch (RuntimeException e) {
+            // The unit is reserved but no case points at it; hand it back before giving up
+            setAmbulanceAvailability(ambulanceId, true);
+            throw e;
+        }
+    }
+
+    /**
+     * Non-blocking dispatch pipeline. No request thread is held while downstream services answer:
+     * candidates come from a single nearest-available query, both route legs are requested at the
+     * same time, and only the JPA save is shifted onto the bounded elastic scheduler.
+     * <p>
+     * Candidates are reserved best-first with a compare-and-set, so a unit taken by a concurrent
+     * dispatch in the meantime is skipped in favour of the next-best one.
+     */
+    public Mono<DispatchResult> handleEmergencyAsync(EmergencyRequest request) {
+        return fetchHospitalsBySpecialityAsync(request.getSpecialization())
+                .filter(hospitals -> !hospitals.isEmpty())
+                .switchIfEmpty(failure("No hospital with the required specialization found."))
+                .flatMap(hospitals -> findCandidatesAsync(hospitals, request))
+                .filter(pairs -> !pairs.isEmpty())
+                .switchIfEmpty(failure("No available ambulances found for the required specialization."))
+                .flatMap(pairs -> rankByDriveTimeAsync(pairs, request))
+                .filter(ranked -> !ranked.isEmpty())
+                .switchIfEmpty(failure("No suitable ambulance found."))
+                .flatMap(this::reserveFirstAsync)
+                .switchIfEmpty(failure("Every candidate ambulance was taken by a concurrent dispatch."))
+                .flatMap(selectedPair -> routeReserved(request, selectedPair))
+                .onErrorResume(DispatchFailure.class, e -> Mono.just(createFailureResult(e.getMessage())));
+    }
+
+    /**
+     * Tries to reserve each candidate in order and stops at the first that succeeds.
+     */
+    private Mono<AmbulanceHospitalPair> reserveFirstAsync(List<AmbulanceHospitalPair> ranked) {
+        return Flux.fromIterable(ranked)
+                .concatMap(pair -> reserveAmbulanceAsync(pair.getAmbulance().getId())
+                        .filter(Boolean::booleanValue)
+                        .map(reserved -> pair))
+                .next();
+    }
+
+    /**
+     * Routes an ambulance that has already been reserved for {@code request}, records the case and
+     * starts its simulation. The reservation is released if any of that fails: a missing route
+     * becomes a failure result, any other error is passed on once the unit is free again.
+     */
+    Mono<DispatchResult> routeReserved(EmergencyRequest request, AmbulanceHospitalPair reservedPair) {
+        return resolveRouteAsync(request, reservedPair)
+                .flatMap(route -> recordCase(request, reservedPair, route))
+                .onErrorResume(e -> updateAmbulanceAvailabilityAsync(reservedPair.getAmbulance().getId(), true)
+                        .then(e instanceof DispatchFailure
+                                ? Mono.just(createFailureResult(e.getMessage()))
+                                : Mono.<DispatchResult>error(e)));
+    }
+
+    private Mono<DispatchResult> recordCase(EmergencyRequest request, AmbulanceHospitalPair selectedPair,
+                                            RouteResponse route) {
+        String mergedGeometry = route.getGeometry();
+        return Mono.fromCallable(() ->
+                        saveDispatchCase(request, selectedPair, mergedGeometry, route.getDistance(), route.getDuration()))
+                .subscribeOn(Schedulers.boundedElastic())
+                .map(newCase -> {
+                    simulateMergedRoute(
+                            selectedPair.getAmbulance().getId(),
+                            mergedGeometry,
+                            TOTAL_SIMULATION_SECONDS,
+                            newCase.getId(),
+                            request,
+                            route.getLegs()
+                    );
+                    caseService.publishCreated(newCase);
+                    return createDispatchResult(selectedPair, mergedGeometry, newCase);
+                });
+    }
+
+    /**
+     * Resolves the ambulance -> patient -> hospital route in one round trip. If the multi-leg
+     * request fails, both legs are fetched separately and their polylines merged locally.
+     */
+    private Mono<RouteResponse> resolveRouteAsync(EmergencyRequest request, AmbulanceHospitalPair selectedPair) {
+        return fetchMultiLegRouteAsync(
                 selectedPair.getAmbulance().getLatitude(),
                 selectedPair.getAmbulance().getLongitude(),
                 request.getLatitude(),
-                request.getLongitude()
-        );
-        if (!"SUCCESS".equals(routeToPatient.getStatus()) || routeToPatient.getGeometry() == null) {
-            return createFailureResult("Route calculation (Ambulance->Patient) failed.");
-        }
+                request.getLongitude(),
+                selectedPair.getHospital().getLatitude(),
+                selectedPair.getHospital().getLongitude())
+                .filter(this::isRouteUsable)
+                .switchIfEmpty(Mono.defer(() -> {
+                    log.warn("Multi-leg route unavailable; fetching legs separately");
+                    return fetchMergedRouteAsync(request, selectedPair);
+                }));
+    }
 
-        double hospitalLat = selectedPair.getHospital().getLatitude();
-        double hospitalLng = selectedPair.getHospital().getLongitude();
-        RouteResponse routeToHospital = fetchRoute(
+    private Mono<RouteResponse> fetchMergedRouteAsync(EmergencyRequest request, AmbulanceHospitalPair selectedPair) {
+        Mono<RouteResponse> routeToPatient = fetchRouteAsync(
+                selectedPair.getAmbulance().getLatitude(),
+                selectedPair.getAmbulance().getLongitude(),
+                request.getLatitude(),
+                request.getLongitude())
+                .filter(this::isRouteUsable)
+                .switchIfEmpty(failure("Route calculation (Ambulance->Patient) failed."));
+
+        Mono<RouteResponse> routeToHospital = fetchRouteAsync(
                 request.getLatitude(),
                 request.getLongitude(),
-                hospitalLat,
-                hospitalLng
-        );
-        if (!"SUCCESS".equals(routeToHospital.getStatus()) || routeToHospital.getGeometry() == null) {
-            return createFailureResult("Route calculation (Patient->Hospital) failed.");
-        }
+                selectedPair.getHospital().getLatitude(),
+                selectedPair.getHospital().getLongitude())
+                .filter(this::isRouteUsable)
+                .switchIfEmpty(failure("Route calculation (Patient->Hospital) failed."));
+
+        return Mono.zip(routeToPatient, routeToHospital)
+                .map(routes -> {
+                    RouteResponse toPatient = routes.getT1();
+                    RouteResponse toHospital = routes.getT2();
+                    RouteResponse merged = new RouteResponse("SUCCESS", null);
+                    merged.setGeometry(RouteUtils.mergePolylines(toPatient.getGeometry(), toHospital.getGeometry()));
+                    merged.setDistance(toPatient.getDistance() + toHospital.getDistance());
+                    merged.setDuration(toPatient.getDuration() + toHospital.getDuration());
+                    merged.setLegs(List.of(
+                            new RouteLeg(toPatient.getDistance(), toPatient.getDuration()),
+                            new RouteLeg(toHospital.getDistance(), toHospital.getDuration())));
+                    log.info("Merged route geometry created.");
+                    return merged;
+                });
+    }
 
-        String mergedGeometry = RouteUtils.mergePolylines(routeToPatient.getGeometry(), routeToHospital.getGeometry());
-        log.info("Merged route geometry created.");
+    private List<Hospital> fetchHospitalsBySpeciality(String speciality) {
+        return fetchHospitalsBySpecialityAsync(speciality).block();
+    }
+
+    Mono<List<Hospital>> fetchHospitalsBySpecialityAsync(String speciality) {
+        return Mono.defer(() -> hospitalLookupCache.hospitalsBySpeciality(speciality))
+                .onErrorResume(e -> {
+                    log.error("Error fetching hospitals by specialization: {}", speciality, e);
+                    return Mono.just(Collections.emptyList());
+                });
+    }
 
-        boolean updated = updateAmbulanceAvailability(selectedPair.getAmbulance().getId(), false);
-        if (!updated) {
-            return createFailureResult("Failed to update ambulance availability.");
+    private List<AmbulanceHospitalPair> findCandidates(List<Hospital> hospitals, EmergencyRequest request) {
+        return findCandidatesAsync(hospitals, request).block();
+    }
+
+    /**
+     * Asks ambulance-service's spatial index for the nearest available units among the fleets of the
+     * given hospitals. Falls back to the per-hospital fan-out if the index cannot be queried.
+     */
+    private Mono<List<AmbulanceHospitalPair>> findCandidatesAsync(List<Hospital> hospitals, EmergencyRequest request) {
+        Map<Integer, Hospital> hospitalByAmbulanceId = new HashMap<>();
+        for (Hospital hospital : hospitals) {
+            if (hospital.getAmbulanceIds() != null) {
+                hospital.getAmbulanceIds().forEach(id -> hospitalByAmbulanceId.putIfAbsent(id, hospital));
+            }
+        }
+        if (hospitalByAmbulanceId.isEmpty()) {
+            return getAvailableAmbulancesAsync(hospitals);
         }
 
-        double totalDistance = routeToPatient.getDistance() + routeToHospital.getDistance();
-        double totalDuration = routeToPatient.getDuration() + routeToHospital.getDuration();
-        Case newCase = saveDispatchCase(request, selectedPair, mergedGeometry, totalDistance, totalDuration);
+        return fetchNearestAvailableAsync(request.getLatitude(), request.getLongitude(), hospitalByAmbulanceId.keySet())
+                .map(ambulances -> ambulances.stream()
+                        .filter(ambulance -> hospitalByAmbulanceId.containsKey(ambulance.getId()))
+                        .map(ambulance -> new AmbulanceHospitalPair(ambulance, hospitalByAmbulanceId.get(ambulance.getId())))
+                        .toList())
+                .onErrorResume(e -> {
+                    log.warn("Nearest-ambulance query failed ({}); falling back to per-hospital lookups", e.getMessage());
+                    return getAvailableAmbulancesAsync(hospitals);
+                });
+    }
 
-        DispatchResult dispatchResult = createDispatchResult(selectedPair, mergedGeometry, newCase);
+    private Mono<List<Ambulance>> fetchNearestAvailableAsync(double latitude, double longitude, Collection<Integer> ambulanceIds) {
+        // A whole fleet of ids overflows the request line, so the query goes in the body
+        Map<String, Object> query = Map.of(
+                "lat", latitude,
+                "lng", longitude,
+                "k", nearestCandidates,
+                "ids", ambulanceIds);
+        return webClient.post()
+                .uri(AMBULANCE_SERVICE_URL + "/ambulances/nearest")
+                .bodyValue(query)
+                .retrieve()
+                .onStatus(HttpStatusCode::isError,
+                        response -> Mono.error(new RuntimeException("Error querying nearest ambulances")))
+                .bodyToFlux(Ambulance.class)
+                .collectList();
+    }
 
-        simulateMergedRoute(
-                selectedPair.getAmbulance().getId(),
-                mergedGeometry,
-                TOTAL_SIMULATION_SECONDS,
-                newCase.getId()
-        );
+    /**
+     * Looks up every hospital's fleet with at most {@code hospitalLookupConcurrency} calls in flight.
+     * A hospital that errors or does not answer within {@code hospitalLookupTimeout} contributes no
+     * ambulances instead of holding up the whole dispatch.
+     */
+    private Mono<List<AmbulanceHospitalPair>> getAvailableAmbulancesAsync(List<Hospital> hospitals) {
+        return Flux.fromIterable(hospitals)
+                .flatMap(hospital -> timedAmbulanceLookup(hospital.getId())
+                        .flatMapMany(Flux::fromIterable)
+                        .filter(Ambulance::isAvailable)
+                        .map(ambulance -> new AmbulanceHospitalPair(ambulance, hospital)),
+                        hospitalLookupConcurrency)
+                .collectList();
+    }
 
-        return dispatchResult;
+    private Mono<List<Ambulance>> timedAmbulanceLookup(Long hospitalId) {
+        return Mono.defer(() -> {
+            long startNanos = System.nanoTime();
+            return fetchAmbulancesByHospitalAsync(hospitalId)
+                    .timeout(hospitalLookupTimeout)
+                    .doOnSuccess(ambulances -> recordLookup(startNanos, "success"))
+                    .onErrorResume(TimeoutException.class, e -> {
+                        recordLookup(startNanos, "timeout");
+                        log.warn("Dropping hospital ID={} from dispatch: ambulance lookup exceeded {} ms",
+                                hospitalId, hospitalLookupTimeout.toMillis());
+                        return Mono.just(Collections.emptyList());
+                    })
+                    .onErrorResume(e -> {
+                        recordLookup(startNanos, "error");
+                        log.error("Error fetching ambulances for hospital ID: {}", hospitalId, e);
+                        return Mono.just(Collections.emptyList());
+                    });
+        });
     }
 
-    private List<Hospital> fetchHospitalsBySpeciality(String speciality) {
-        try {
-            return webClient.get()
-                    .uri(HOSPITAL_MANAGEMENT_SERVICE_URL + "/hospitals?speciality=" + speciality)
-                    .retrieve()
-                    .onStatus(HttpStatusCode::isError,
-                            response -> Mono.error(new RuntimeException("Error fetching hospitals")))
-                    .bodyToFlux(Hospital.class)
-                    .collectList()
-                    .block();
-        } catch (Exception e) {
-            log.error("Error fetching hospitals by specialization: {}", speciality, e);
-            return Collections.emptyList();
-        }
+    private void recordLookup(long startNanos, String outcome) {
+        Timer.builder(HOSPITAL_LOOKUP_METRIC)
+                .description("Latency of per-hospital ambulance lookups during dispatch")
+                .tag("outcome", outcome)
+                .register(meterRegistry)
+                .record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
     }
 
-    private List<AmbulanceHospitalPair> getAvailableAmbulances(List<Hospital> hospitals) {
-        List<AmbulanceHospitalPair> pairs = new ArrayList<>();
-        for (Hospital hospital : hospitals) {
-            List<Ambulance> ambulances = fetchAmbulancesByHospital(hospital.getId());
-            ambulances.stream()
-                    .filter(Ambulance::isAvailable)
-                    .forEach(ambulance -> pairs.add(new AmbulanceHospitalPair(ambulance, hospital)));
-        }
-        return pairs;
+    private Mono<List<Ambulance>> fetchAmbulancesByHospitalAsync(Long hospitalId) {
+        return webClient.get()
+                .uri(HOSPITAL_MANAGEMENT_SERVICE_URL + "/hospitals/by-hospital/" + hospitalId + "?available=true")
+                .retrieve()
+                .onStatus(HttpStatusCode::isError,
+                        response -> Mono.error(new RuntimeException("Error fetching ambulances")))
+                .bodyToFlux(Ambulance.class)
+                .collectList();
     }
 
-    private List<Ambulance> fetchAmbulancesByHospital(Long hospitalId) {
-        try {
-            return webClient.get()
-                    .uri(HOSPITAL_MANAGEMENT_SERVICE_URL + "/hospitals/by-hospital/" + hospitalId)
-                    .retrieve()
-                    .onStatus(HttpStatusCode::isError,
-                            response -> Mono.error(new RuntimeException("Error fetching ambulances")))
-                    .bodyToFlux(Ambulance.class)
-                    .collectList()
-                    .block();
-        } catch (Exception e) {
-            log.error("Error fetching ambulances for hospital ID: {}", hospitalId, e);
-            return Collections.emptyList();
+    /**
+     * Shortlists the {@code etaCandidates} closest units by straight-line distance and orders them by
+     * drive time to the patient, units without a drive time last. Keeps the straight-line order if
+     * drive times are unavailable.
+     */
+    private Mono<List<AmbulanceHospitalPair>> rankByDriveTimeAsync(List<AmbulanceHospitalPair> pairs,
+                                                                    EmergencyRequest request) {
+        // One batch distance evaluation instead of a distance per comparison
+        double[] latitudes = new double[pairs.size()];
+        double[] longitudes = new double[pairs.size()];
+        for (int i = 0; i < pairs.size(); i++) {
+            latitudes[i] = pairs.get(i).getAmbulance().getLatitude();
+            longitudes[i] = pairs.get(i).getAmbulance().getLongitude();
         }
+        double[] distances = new double[pairs.size()];
+        GeoDistance.distances(request.getLatitude(), request.getLongitude(), latitudes, longitudes,
+                pairs.size(), distances);
+        List<AmbulanceHospitalPair> shortlist = IntStream.range(0, pairs.size())
+                .boxed()
+                .sorted(Comparator.comparingDouble(i -> distances[i]))
+                .limit(Math.max(1, etaCandidates))
+                .map(pairs::get)
+                .toList();
+        if (shortlist.size() <= 1) {
+            return Mono.just(shortlist);
+        }
+
+        return fetchDriveTimesAsync(shortlist, request)
+                .map(durations -> {
+                    Integer[] order = new Integer[shortlist.size()];
+                    for (int i = 0; i < order.length; i++) {
+                        order[i] = i;
+                    }
+                    // Stable, so equal or missing drive times keep the straight-line order
+                    Arrays.sort(order, Comparator.comparing(
+                            (Integer i) -> i < durations.size() ? durations.get(i) : null,
+                            Comparator.nullsLast(Comparator.<Double>naturalOrder())));
+                    return Arrays.stream(order).map(shortlist::get).toList();
+                })
+                .onErrorResume(e -> {
+                    log.warn("Drive-time ranking failed ({}); using straight-line order", e.getMessage());
+                    return Mono.just(shortlist);
+                });
     }
 
-    private AmbulanceHospitalPair findNearestAmbulance(List<AmbulanceHospitalPair> pairs,
-                                                       EmergencyRequest request) {
-        return pairs.stream()
-                .min(Comparator.comparingDouble(pair ->
-                        RouteUtils.calculateDistance(pair.getAmbulance().getLatitude(),
-                                pair.getAmbulance().getLongitude(),
-                                request.getLatitude(),
-                                request.getLongitude())))
-                .orElse(null);
+    private Mono<List<Double>> fetchDriveTimesAsync(List<AmbulanceHospitalPair> shortlist, EmergencyRequest request) {
+        List<Map<String, Double>> origins = shortlist.stream()
+                .map(pair -> Map.of(
+                        "latitude", pair.getAmbulance().getLatitude(),
+                        "longitude", pair.getAmbulance().getLongitude()))
+                .toList();
+        Map<String, Object> body = Map.of(
+                "origins", origins,
+                "destination", Map.of("latitude", request.getLatitude(), "longitude", request.getLongitude()));
+
+        return webClient.post()
+                .uri(ROUTE_OPTIMIZATION_SERVICE_URL + "/routes/matrix")
+                .bodyValue(body)
+                .retrieve()
+                .onStatus(HttpStatusCode::isError,
+                        response -> Mono.error(new RuntimeException("Error fetching drive-time matrix")))
+                .bodyToMono(MatrixResponse.class)
+                .filter(matrix -> "SUCCESS".equals(matrix.getStatus()) && matrix.getDurations() != null)
+                .map(MatrixResponse::getDurations)
+                .switchIfEmpty(Mono.error(new RuntimeException("No drive times returned")));
     }
 
-    private RouteResponse fetchRoute(double originLat, double originLng, double destLat, double destLng) {
-        try {
-            log.info("Fetching route from ({}, {}) to ({}, {})", originLat, originLng, destLat, destLng);
-            String url = ROUTE_OPTIMIZATION_SERVICE_URL + "/routes" +
-                    String.format("?originLat=%f&originLng=%f&destLat=%f&destLng=%f",
-                            originLat, originLng, destLat, destLng);
-            
-            return webClient.get()
-                    .uri(url)
-                    .retrieve()
-                    .onStatus(HttpStatusCode::isError,
-                            response -> response.bodyToMono(String.class)
-                                    .flatMap(error -> {
-                                        log.error("Route service error: {}", error);
-                                        return Mono.error(new RuntimeException("Error calculating route: " + error));
-                                    }))
-                    .bodyToMono(RouteResponse.class)
-                    .block();
-        } catch (Exception e) {
-            log.error("Error fetching route: {}", e.getMessage(), e);
-            return new RouteResponse("FAILURE", null);
-        }
+    private Mono<RouteResponse> fetchRouteAsync(double originLat, double originLng, double destLat, double destLng) {
+        log.info("Fetching route from ({}, {}) to ({}, {})", originLat, originLng, destLat, destLng);
+        String url = ROUTE_OPTIMIZATION_SERVICE_URL + "/routes" +
+                String.format(Locale.ROOT, "?originLat=%f&originLng=%f&destLat=%f&destLng=%f",
+                        originLat, originLng, destLat, destLng);
+
+        return webClient.get()
+                .uri(url)
+                .retrieve()
+                .onStatus(HttpStatusCode::isError,
+                        response -> response.bodyToMono(String.class)
+                                .flatMap(error -> {
+                                    log.error("Route service error: {}", error);
+                                    return Mono.error(new RuntimeException("Error calculating route: " + error));
+                                }))
+                .bodyToMono(RouteResponse.class)
+                .defaultIfEmpty(new RouteResponse("FAILURE", null))
+                .onErrorResume(e -> {
+                    log.error("Error fetching route: {}", e.getMessage(), e);
+                    return Mono.just(new RouteResponse("FAILURE", null));
+                });
     }
 
-    private boolean updateAmbulanceAvailability(Integer ambulanceId, boolean availability) {
-        try {
-            webClient.put()
-                    .uri(AMBULANCE_SERVICE_URL + "/ambulances/" + ambulanceId + "/availability")
-                    .bodyValue(Collections.singletonMap("available", availability))
-                    .retrieve()
-                    .onStatus(HttpStatusCode::isError,
-                            response -> Mono.error(new RuntimeException("Error updating ambulance availability")))
-                    .toBodilessEntity()
-                    .block();
-            return true;
-        } catch (Exception e) {
-            log.error("Error updating availability for ambulance ID={}, err={}", ambulanceId, e.getMessage());
-            return false;
-        }
+    private Mono<RouteResponse> fetchMultiLegRouteAsync(double ambulanceLat, double ambulanceLng,
+                                                        double patientLat, double patientLng,
+                                                        double hospitalLat, double hospitalLng) {
+        String url = ROUTE_OPTIMIZATION_SERVICE_URL + "/routes/waypoints" +
+                String.format(Locale.ROOT, "?points=%f,%f;%f,%f;%f,%f",
+                        ambulanceLat, ambulanceLng, patientLat, patientLng, hospitalLat, hospitalLng);
+
+        return webClient.get()
+                .uri(url)
+                .retrieve()
+                .onStatus(HttpStatusCode::isError,
+                        response -> Mono.error(new RuntimeException("Error calculating multi-leg route")))
+                .bodyToMono(RouteResponse.class)
+                .defaultIfEmpty(new RouteResponse("FAILURE", null))
+                .onErrorResume(e -> {
+                    log.error("Error fetching multi-leg route: {}", e.getMessage());
+                    return Mono.just(new RouteResponse("FAILURE", null));
+                });
+    }
+
+    private boolean isRouteUsable(RouteResponse route) {
+        return "SUCCESS".equals(route.getStatus()) && route.getGeometry() != null;
+    }
+
+    /**
+     * Compare-and-set reservation in ambulance-service.
+     *
+     * @return {@code true} if this call took the ambulance, {@code false} if it was already taken or
+     * the reservation could not be made
+     */
+    Mono<Boolean> reserveAmbulanceAsync(Integer ambulanceId) {
+        return webClient.post()
+                .uri(AMBULANCE_SERVICE_URL + "/ambulances/" + ambulanceId + "/reserve")
+                .exchangeToMono(response -> {
+                    if (response.statusCode().is2xxSuccessful()) {
+                        return response.releaseBody().thenReturn(true);
+                    }
+                    if (response.statusCode().value() == HttpStatus.CONFLICT.value()) {
+                        reservationConflicts.increment();
+                        log.info("Ambulance ID={} was taken by a concurrent dispatch; trying the next candidate", ambulanceId);
+                    } else {
+                        log.error("Reserving ambulance ID={} failed with status {}", ambulanceId, response.statusCode());
+                    }
+                    return response.releaseBody().thenReturn(false);
+                })
+                .onErrorResume(e -> {
+                    log.error("Error reserving ambulance ID={}, err={}", ambulanceId, e.getMessage());
+                    return Mono.just(false);
+                });
+    }
+
+    Mono<Boolean> updateAmbulanceAvailabilityAsync(Integer ambulanceId, boolean availability) {
+        return webClient.put()
+                .uri(AMBULANCE_SERVICE_URL + "/ambulances/" + ambulanceId + "/availability")
+                .bodyValue(Collections.singletonMap("available", availability))
+                .retrieve()
+                .onStatus(HttpStatusCode::isError,
+                        response -> Mono.error(new RuntimeException("Error updating ambulance availability")))
+                .toBodilessEntity()
+                .thenReturn(true)
+                .onErrorResume(e -> {
+                    log.error("Error updating availability for ambulance ID={}, err={}", ambulanceId, e.getMessage());
+                    return Mono.just(false);
+                });
     }
 
     private Case saveDispatchCase(EmergencyRequest request,
@@ -203,7 +534,7 @@ public class DispatchService {
         newCase.setLatitude(request.getLatitude());
         newCase.setLongitude(request.getLongitude());
         newCase.setSpecialization(request.getSpecialization());
-        newCase.setStatus("ENROUTE_TO_PATIENT");
+        newCase.setStatus(CaseStatus.ENROUTE_TO_PATIENT);
         newCase.setAssignedAmbulanceId(selectedPair.getAmbulance().getId());
         newCase.setAssignedHospitalId(selectedPair.getHospital().getId());
         newCase.setRouteGeometry(mergedGeometry);
@@ -224,105 +555,39 @@ public class DispatchService {
         return result;
     }
 
+    /**
+     * Drives the route on a compressed clock of {@code durationSeconds}, each leg keeping its share
+     * of the router's drive time when both legs are known.
+     */
     private void simulateMergedRoute(Integer ambulanceId,
                                      String mergedPolyline,
                                      int durationSeconds,
-                                     Long caseId) {
-        if (mergedPolyline == null || mergedPolyline.isEmpty()) {
-            log.warn("simulateMergedRoute: empty polyline, skipping.");
-            return;
-        }
-
-        List<double[]> routePoints = RouteUtils.decodePolyline(mergedPolyline);
-        if (routePoints.size() < 2) {
-            log.warn("simulateMergedRoute: not enough points to simulate.");
-            return;
-        }
-
-        final int totalPoints = routePoints.size();
-        final int totalTicks = durationSeconds;
-        final double segmentCount = totalPoints - 1;
-
-        final int[] currentTick = {0};
-
-        scheduler.scheduleAtFixedRate(() -> {
-            try {
-                Case c = caseService.findCaseById(caseId);
-                if (c == null || "CLOSED".equalsIgnoreCase(c.getStatus())) {
-                    log.info("simulateMergedRoute: case #{} is closed or not found. Stopping updates for ambulance ID={}.",
-                            caseId, ambulanceId);
-                    return;
-                }
-
-                int tick = currentTick[0];
-                if (tick > totalTicks) {
-                    log.info("simulateMergedRoute: route finished for ambulance ID={}. Setting available=true, closing case #{}.",
-                            ambulanceId, caseId);
-
-                    setAmbulanceAvailability(ambulanceId, true);
-                    updateCaseStatus(caseId, "CLOSED");
-                    return;
-                }
-
-                double fractionComplete = (double) tick / totalTicks;
-                double totalSegments = fractionComplete * segmentCount;
-
-                int segmentIndex = (int) Math.floor(totalSegments);
-                double segmentFraction = totalSegments - segmentIndex;
-
-                if (segmentIndex >= totalPoints - 1) {
-                    segmentIndex = totalPoints - 2;
-                    segmentFraction = 1.0;
-                }
-
-                double[] start = routePoints.get(segmentIndex);
-                double[] end   = routePoints.get(segmentIndex + 1);
-
-                double lat = RouteUtils.lerp(start[0], end[0], segmentFraction);
-                double lng = RouteUtils.lerp(start[1], end[1], segmentFraction);
-
-                updateAmbulanceLocation(ambulanceId, lat, lng);
-
-                log.info("Tick {} => Ambulance ID={} location updated to lat={}, lng={}",
-                        tick, ambulanceId, lat, lng);
-
-                currentTick[0] = tick + 1;
-
-            } catch (Exception e) {
-                log.error("simulateMergedRoute: error for ambulanceId={}, caseId={}, msg={}",
-                        ambulanceId, caseId, e.getMessage(), e);
-            }
-        }, 0, 1, TimeUnit.SECONDS);
-    }
-
-    private void updateAmbulanceLocation(Integer ambulanceId, double latitude, double longitude) {
-        try {
-            Map<String, Object> body = new HashMap<>();
-            body.put("latitude", latitude);
-            body.put("longitude", longitude);
-
-            webClient.put()
-                    .uri(AMBULANCE_SERVICE_URL + "/ambulances/" + ambulanceId + "/location")
-                    .bodyValue(body)
-                    .retrieve()
-                    .onStatus(HttpStatusCode::isError,
-                            response -> Mono.error(new RuntimeException("Error updating ambulance location")))
-                    .toBodilessEntity()
-                    .block();
-        } catch (Exception e) {
-            log.error("Failed to update location for ambulance ID={}, error={}", ambulanceId, e.getMessage());
-        }
+                                     Long caseId,
+                                     EmergencyRequest request,
+                                     List<RouteLeg> legs) {
+        int totalTicks = (int) Math.max(1, durationSeconds * 1000L / simulationEngine.getTickMillis());
+        double[] patient = {request.getLatitude(), request.getLongitude()};
+        double[] legSeconds = legs != null && legs.size() == 2
+                ? new double[]{legs.get(0).getDuration(), legs.get(1).getDuration()}
+                : null;
+        simulationEngine.start(caseId, ambulanceId, mergedPolyline, totalTicks, patient, legSeconds, () -> {
+            log.info("Ambulance ID={} reached the patient of case #{}.", ambulanceId, caseId);
+            updateCaseStatus(caseId, ambulanceId, CaseStatus.AT_PATIENT);
+            updateCaseStatus(caseId, ambulanceId, CaseStatus.ENROUTE_TO_HOSPITAL);
+        }, () -> {
+            log.info("Route finished for ambulance ID={}. Setting available=true, closing case #{}.",
+                    ambulanceId, caseId);
+            setAmbulanceAvailability(ambulanceId, true);
+            updateCaseStatus(caseId, ambulanceId, CaseStatus.CLOSED);
+        });
     }
 
-    private void updateCaseStatus(Long caseId, String newStatus) {
+    private void updateCaseStatus(Long caseId, Integer ambulanceId, String newStatus) {
         try {
-            Case existing = caseService.findCaseById(caseId);
-            if (existing == null) {
-                log.warn("updateCaseStatus: Case #{} not found; cannot update to status={}", caseId, newStatus);
+            if (!caseService.updateStatus(caseId, ambulanceId, newStatus)) {
+                log.warn("updateCaseStatus: Case #{} not found or closed; cannot update to status={}", caseId, newStatus);
                 return;
             }
-            existing.setStatus(newStatus);
-            caseService.updateCase(existing);
             log.info("Case #{} updated to status='{}'.", caseId, newStatus);
         } catch (Exception e) {
             log.error("Failed to update case #{} status to '{}': {}", caseId, newStatus, e.getMessage());
@@ -344,10 +609,23 @@ public class DispatchService {
         }
     }
 
-    private DispatchResult createFailureResult(String message) {
+    DispatchResult createFailureResult(String message) {
         DispatchResult result = new DispatchResult();
         result.setStatus("FAILURE");
         log.error("Dispatch failed: {}", message);
         return result;
     }
+
+    private static <T> Mono<T> failure(String message) {
+        return Mono.error(new DispatchFailure(message));
+    }
+
+    /**
+     * Short-circuits the reactive pipeline with a user-facing failure message.
+     */
+    private static class DispatchFailure extends RuntimeException {
+        DispatchFailure(String message) {
+            super(message, null, false, false);
+        }
+    }
 }
\ No newline at end of file
@@ -0,0 +1,103 @@
+package mine.dispatchcoordinationservice.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import mine.dispatchcoordinationservice.dto.Hospital;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
+
+/**
+ * Client-side cache of hospital-management-service's hospitals-by-speciality answers.
+ * <p>
+ * An entry younger than the TTL is served without a call. An older one is revalidated with
+ * {@code If-None-Match}, so an unchanged list costs an empty 304. Concurrent lookups of the same
+ * speciality share one request. If the service cannot be reached, the last known list is served.
+ */
+class HospitalLookupCache {
+
+    private static final Logger log = LoggerFactory.getLogger(HospitalLookupCache.class);
+
+    private static final String METRIC = "dispatch.hospital.cache";
+
+    private final WebClient webClient;
+    private final String baseUrl;
+    private final long ttlMillis;
+    private final LongSupplier clock;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final Map<String, Mono<List<Hospital>>> inFlight = new ConcurrentHashMap<>();
+
+    HospitalLookupCache(WebClient webClient, String baseUrl, long ttlMillis, LongSupplier clock,
+                        MeterRegistry meterRegistry) {
+        this.webClient = webClient;
+        this.baseUrl = baseUrl;
+        this.ttlMillis = ttlMillis;
+        this.clock = clock;
+        this.meterRegistry = meterRegistry;
+    }
+
+    Mono<List<Hospital>> hospitalsBySpeciality(String speciality) {
+        String key = speciality.trim().toLowerCase(Locale.ROOT);
+        Entry entry = entries.get(key);
+        if (entry != null && clock.getAsLong() - entry.fetchedAt < ttlMillis) {
+            record("hit");
+            return Mono.just(entry.hospitals);
+        }
+        return inFlight.computeIfAbsent(key, k -> fetch(k, speciality, entry)
+                .doFinally(signal -> inFlight.remove(k))
+                .cache());
+    }
+
+    private Mono<List<Hospital>> fetch(String key, String speciality, Entry cached) {
+        return webClient.get()
+                .uri(baseUrl + "/hospitals/speciality?speciality={speciality}", speciality)
+                .headers(headers -> {
+                    if (cached != null && cached.etag != null) {
+                        headers.setIfNoneMatch(cached.etag);
+                    }
+                })
+                .exchangeToMono(response -> {
+                    if (response.statusCode().isSameCodeAs(HttpStatus.NOT_MODIFIED) && cached != null) {
+                        record("revalidated");
+                        entries.put(key, new Entry(cached.hospitals, cached.etag, clock.getAsLong()));
+                        return response.releaseBody().thenReturn(cached.hospitals);
+                    }
+                    if (response.statusCode().isError()) {
+                        return response.releaseBody()
+                                .then(Mono.error(new RuntimeException("Error fetching hospitals: " + response.statusCode())));
+                    }
+                    record("miss");
+                    String etag = response.headers().asHttpHeaders().getETag();
+                    return response.bodyToFlux(Hospital.class)
+                            .collectList()
+                            .map(hospitals -> {
+                                List<Hospital> fetched = List.copyOf(hospitals);
+                                entries.put(key, new Entry(fetched, etag, clock.getAsLong()));
+                                return fetched;
+                            });
+                })
+                .onErrorResume(e -> {
+                    if (cached == null) {
+                        return Mono.error(e);
+                    }
+                    record("stale");
+                    log.warn("Serving cached hospitals for speciality {}: {}", speciality, e.getMessage());
+                    return Mono.just(cached.hospitals);
+                });
+    }
+
+    private void record(String result) {
+        meterRegistry.counter(METRIC, "result", result).increment();
+    }
+
+    private record Entry(List<Hospital> hospitals, String etag, long fetchedAt) {
+    }
+}
@@ -0,0 +1,333 @@
+package mine.dispatchcoordinationservice.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import mine.dispatchcoordinationservice.dto.CaseEvent;
+import mine.dispatchcoordinationservice.model.CaseStatus;
+import mine.dispatchcoordinationservice.util.PolylineCodec;
+import mine.dispatchcoordinationservice.util.RouteInterpolator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Drives every active route simulation from a single timer.
+ * <p>
+ * Each tick advances all simulations in memory and publishes the resulting positions as one batch;
+ * nothing on the tick thread touches the database or waits on HTTP. A simulation is removed when it
+ * reaches the end of its route (its completion callback then runs off the tick thread) or when its
+ * case is closed or deleted through {@link CaseService}.
+ * <p>
+ * Every tick also publishes a {@code PROGRESS} {@link CaseEvent} per simulation, carrying its
+ * position, progress and ETAs on the simulation clock, to the {@link CaseEventPublisher}.
+ * <p>
+ * Ambulances move by distance along a {@link RouteInterpolator}, so a long segment takes
+ * proportionally longer than a short one. When the router's leg durations are known, each leg keeps
+ * its share of the run's ticks, so the ambulance is as fast on each leg as the route predicts.
+ */
+@Component
+public class SimulationEngine {
+
+    private static final Logger log = LoggerFactory.getLogger(SimulationEngine.class);
+
+    private static final String AMBULANCE_SERVICE_URL = "http://ambulance-service";
+
+    private final WebClient webClient;
+    private final CaseEventPublisher caseEvents;
+    private final long tickMillis;
+    private final int publishConcurrency;
+    private final int publishBatchSize;
+    private final Map<Long, Simulation> simulations = new ConcurrentHashMap<>();
+    private final AtomicBoolean publishing = new AtomicBoolean();
+    private final ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "simulation-tick");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final Timer tickTimer;
+    private final Counter skippedBatches;
+
+    public SimulationEngine(WebClient.Builder webClientBuilder,
+                            CaseEventPublisher caseEvents,
+                            MeterRegistry meterRegistry,
+                            @Value("${dispatch.simulation.tick-ms:1000}") long tickMillis,
+                            @Value("${dispatch.simulation.publish-concurrency:4}") int publishConcurrency,
+                            @Value("${dispatch.simulation.publish-batch-size:1000}") int publishBatchSize) {
+        this.webClient = webClientBuilder.build();
+        this.caseEvents = caseEvents;
+        this.tickMillis = tickMillis;
+        this.publishConcurrency = publishConcurrency;
+        this.publishBatchSize = publishBatchSize;
+        this.tickTimer = Timer.builder("dispatch.simulation.tick")
+                .description("Time spent advancing all active simulations in one tick")
+                .register(meterRegistry);
+        this.skippedBatches = Counter.builder("dispatch.simulation.batches.skipped")
+                .description("Location batches dropped because the previous batch was still being published")
+                .register(meterRegistry);
+        Gauge.builder("dispatch.simulations.active", simulations, Map::size)
+                .description("Route simulations currently running")
+                .register(meterRegistry);
+        timer.scheduleAtFixedRate(this::tick, tickMillis, tickMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Starts moving {@code ambulanceId} along {@code polyline} over {@code totalTicks} ticks. A
+     * simulation already running for the case is replaced.
+     *
+     * @param onComplete run once the route has been driven to the end; not run if the simulation is cancelled
+     */
+    public void start(Long caseId, Integer ambulanceId, String polyline, int totalTicks, Runnable onComplete) {
+        start(caseId, ambulanceId, polyline, totalTicks, null, null, onComplete);
+    }
+
+    /**
+     * Like {@link #start(Long, Integer, String, int, Runnable)}, for a route that passes by the
+     * patient on its way to the hospital.
+     *
+     * @param patient          {@code [lat, lng]} of the patient; the route point closest to it splits
+     *                         the run into its two legs, or {@code null} for a single-leg route
+     * @param onPatientReached run once when the ambulance reaches the patient; may be {@code null}
+     */
+    public void start(Long caseId, Integer ambulanceId, String polyline, int totalTicks,
+                      double[] patient, Runnable onPatientReached, Runnable onComplete) {
+        start(caseId, ambulanceId, polyline, totalTicks, patient, null, onPatientReached, onComplete);
+    }
+
+    /**
+     * Like {@link #start(Long, Integer, String, int, double[], Runnable, Runnable)}, pacing each leg
+     * by its drive time.
+     *
+     * @param legSeconds router drive times of the legs to the patient and on to the hospital, or
+     *                   {@code null} to drive the whole route at one speed
+     */
+    public void start(Long caseId, Integer ambulanceId, String polyline, int totalTicks, double[] patient,
+                      double[] legSeconds, Runnable onPatientReached, Runnable onComplete) {
+        if (polyline == null || polyline.isEmpty()) {
+            log.warn("Simulation for case #{}: empty polyline, skipping.", caseId);
+            return;
+        }
+        if (PolylineCodec.pointCount(polyline) < 2) {
+            log.warn("Simulation for case #{}: not enough points to simulate.", caseId);
+            return;
+        }
+        int ticks = Math.max(1, totalTicks);
+        RouteInterpolator route = RouteInterpolator.fromPolyline(polyline);
+        double patientMeters = -1;
+        if (patient != null) {
+            patientMeters = route.distanceAt(route.nearestPoint(patient[0], patient[1]));
+            if (hasLegDurations(legSeconds)) {
+                route = route.withLegs(new double[]{patientMeters, route.length()}, legSeconds);
+            }
+        }
+        if (route.duration() <= 0) {
+            // A route of identical points: nothing to pace, only the end to reach
+            route = route.withDuration(ticks);
+        }
+        double secondsPerTick = route.duration() / ticks;
+        int patientTick = patientMeters < 0 ? -1 : (int) Math.round(route.timeAtDistance(patientMeters) / secondsPerTick);
+        simulations.put(caseId, new Simulation(ambulanceId, route, secondsPerTick, ticks, patientTick,
+                onPatientReached, onComplete));
+    }
+
+    private static boolean hasLegDurations(double[] legSeconds) {
+        return legSeconds != null && legSeconds.length == 2
+                && legSeconds[0] >= 0 && legSeconds[1] >= 0 && legSeconds[0] + legSeconds[1] > 0;
+    }
+
+    /**
+     * Where the simulation of {@code caseId} currently is, as a {@code PROGRESS} event, or empty if
+     * it is not running.
+     */
+    public Optional<CaseEvent> progress(Long caseId) {
+        Simulation simulation = caseId == null ? null : simulations.get(caseId);
+        if (simulation == null) {
+            return Optional.empty();
+        }
+        int tick = Math.min(simulation.tick, simulation.totalTicks);
+        return Optional.of(progressEvent(caseId, simulation, tick, simulation.positionAt(tick),
+                System.currentTimeMillis()));
+    }
+
+    public boolean cancel(Long caseId) {
+        boolean removed = caseId != null && simulations.remove(caseId) != null;
+        if (removed) {
+            log.info("Simulation for case #{} cancelled.", caseId);
+        }
+        return removed;
+    }
+
+    public void cancelAll() {
+        simulations.clear();
+    }
+
+    public int activeSimulations() {
+        return simulations.size();
+    }
+
+    public long getTickMillis() {
+        return tickMillis;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        timer.shutdownNow();
+    }
+
+    void tick() {
+        long startNanos = System.nanoTime();
+        try {
+            Map<Integer, double[]> batch = new HashMap<>(simulations.size() * 2);
+            List<CaseEvent> progress = new ArrayList<>(simulations.size());
+            List<Runnable> callbacks = new ArrayList<>();
+            long timestamp = System.currentTimeMillis();
+
+            for (Map.Entry<Long, Simulation> entry : simulations.entrySet()) {
+                Simulation simulation = entry.getValue();
+                if (simulation.tick > simulation.totalTicks) {
+                    // Only the engine removes finished runs; a concurrent cancel wins if it got there first
+                    if (simulations.remove(entry.getKey(), simulation) && simulation.onComplete != null) {
+                        callbacks.add(simulation.onComplete);
+                    }
+                    continue;
+                }
+                double[] position = simulation.positionAt(simulation.tick);
+                batch.put(simulation.ambulanceId, position);
+                progress.add(progressEvent(entry.getKey(), simulation, simulation.tick, position, timestamp));
+                if (simulation.tick == simulation.patientTick && simulation.onPatientReached != null) {
+                    callbacks.add(simulation.onPatientReached);
+                }
+                simulation.tick++;
+            }
+
+            publish(batch);
+            progress.forEach(caseEvents::publish);
+            for (Runnable callback : callbacks) {
+                Schedulers.boundedElastic().schedule(() -> {
+                    try {
+                        callback.run();
+                    } catch (Exception e) {
+                        log.error("Simulation callback failed: {}", e.getMessage(), e);
+                    }
+                });
+            }
+        } catch (Exception e) {
+            log.error("Simulation tick failed: {}", e.getMessage(), e);
+        } finally {
+            tickTimer.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * Sends one tick's positions to ambulance-service's bulk ingest endpoint, split into requests of at
+     * most {@code publishBatchSize} fixes, off the tick thread. Positions are snapshots, so if the
+     * previous batch is still in flight this one is dropped rather than queued behind it.
+     */
+    private void publish(Map<Integer, double[]> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        if (!publishing.compareAndSet(false, true)) {
+            skippedBatches.increment();
+            return;
+        }
+        long timestamp = System.currentTimeMillis();
+        Flux.fromIterable(batch.entrySet())
+                .map(entry -> locationFix(entry.getKey(), entry.getValue(), timestamp))
+                .buffer(publishBatchSize)
+                .flatMap(this::postLocations, publishConcurrency)
+                .doFinally(signal -> publishing.set(false))
+                .subscribeOn(Schedulers.boundedElastic())
+                .subscribe();
+    }
+
+    private CaseEvent progressEvent(Long caseId, Simulation simulation, int tick, double[] position, long timestamp) {
+        boolean patientReached = simulation.patientTick < 0 || tick >= simulation.patientTick;
+        CaseEvent event = new CaseEvent();
+        event.setType(CaseEvent.Type.PROGRESS);
+        event.setCaseId(caseId);
+        event.setAmbulanceId(simulation.ambulanceId);
+        event.setStatus(patientReached && simulation.patientTick >= 0
+                ? CaseStatus.ENROUTE_TO_HOSPITAL : CaseStatus.ENROUTE_TO_PATIENT);
+        event.setProgress((double) tick / simulation.totalTicks);
+        event.setEtaSeconds((simulation.totalTicks - tick) * tickMillis / 1000.0);
+        event.setEtaToPatientSeconds(patientReached ? null : (simulation.patientTick - tick) * tickMillis / 1000.0);
+        event.setLatitude(position[0]);
+        event.setLongitude(position[1]);
+        event.setTimestamp(timestamp);
+        return event;
+    }
+
+    private static Map<String, Object> locationFix(Integer ambulanceId, double[] position, long timestamp) {
+        Map<String, Object> fix = new HashMap<>();
+        fix.put("id", ambulanceId);
+        fix.put("lat", position[0]);
+        fix.put("lng", position[1]);
+        fix.put("ts", timestamp);
+        return fix;
+    }
+
+    private Mono<Void> postLocations(List<Map<String, Object>> fixes) {
+        return webClient.post()
+                .uri(AMBULANCE_SERVICE_URL + "/ambulances/locations")
+                .bodyValue(fixes)
+                .retrieve()
+                .onStatus(HttpStatusCode::isError,
+                        response -> Mono.error(new RuntimeException("Error publishing ambulance locations")))
+                .toBodilessEntity()
+                .then()
+                .onErrorResume(e -> {
+                    log.error("Failed to publish {} ambulance locations, error={}", fixes.size(), e.getMessage());
+                    return Mono.empty();
+                });
+    }
+
+    private static final class Simulation {
+        private final Integer ambulanceId;
+        private final RouteInterpolator route;
+        private final double secondsPerTick;
+        private final int totalTicks;
+        private final int patientTick;
+        private final Runnable onPatientReached;
+        private final Runnable onComplete;
+        // Only written on the tick thread; read elsewhere for progress snapshots
+        private volatile int tick;
+
+        private Simulation(Integer ambulanceId, RouteInterpolator route, double secondsPerTick, int totalTicks,
+                           int patientTick, Runnable onPatientReached, Runnable onComplete) {
+            this.ambulanceId = ambulanceId;
+            this.route = route;
+            this.secondsPerTick = secondsPerTick;
+            this.totalTicks = totalTicks;
+            this.patientTick = patientTick;
+            this.onPatientReached = onPatientReached;
+            this.onComplete = onComplete;
+        }
+
+        private double[] positionAt(int tick) {
+            // The last tick lands exactly on the end of the route
+            double seconds = tick >= totalTicks ? route.duration() : tick * secondsPerTick;
+            return route.positionAtTime(seconds, new double[2]);
+        }
+    }
+}
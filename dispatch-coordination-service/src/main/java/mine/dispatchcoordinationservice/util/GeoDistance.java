@@ -0,0 +1,89 @@
+package mine.dispatchcoordinationservice.util;
+
+/**
+ * City-scale distances for ranking and ETA estimates, where {@link RouteUtils#calculateDistance}
+ * (haversine: several trigonometric calls, an {@code atan2} and two square roots) is more than
+ * the job needs.
+ * <p>
+ * The equirectangular approximation projects both points onto a plane scaled by the cosine of
+ * their mean latitude. Its relative error against haversine grows with the square of the
+ * distance: below 3e-5 (about 1 m) up to 50 km and below 1e-4 (about 10 m) up to 100 km, for
+ * latitudes within 70 degrees. It does not handle pairs on either side of the antimeridian.
+ * <p>
+ * {@link #distances} scores one target against many candidates stored as separate latitude and
+ * longitude arrays. The cosine is computed once for the target and corrected to each pair's mean
+ * latitude to first order, so the inner loop is only multiplications, additions and a square root.
+ * When the JVM runs with {@code --add-modules jdk.incubator.vector}, that loop runs on the JDK
+ * Vector API; otherwise it is a scalar loop with the same results to rounding.
+ */
+public final class GeoDistance {
+
+    public static final double EARTH_RADIUS_METERS = 6371e3;
+
+    static final double RADIANS_PER_DEGREE = Math.PI / 180;
+
+    private static final boolean VECTORIZED = vectorModulePresent();
+
+    private GeoDistance() {
+    }
+
+    /**
+     * Approximate distance in metres between two points given in degrees.
+     */
+    public static double equirectangular(double lat1, double lng1, double lat2, double lng2) {
+        double x = (lng2 - lng1) * RADIANS_PER_DEGREE * Math.cos((lat1 + lat2) * 0.5 * RADIANS_PER_DEGREE);
+        double y = (lat2 - lat1) * RADIANS_PER_DEGREE;
+        return EARTH_RADIUS_METERS * Math.sqrt(x * x + y * y);
+    }
+
+    /**
+     * Approximate distances in metres from {@code (lat, lng)} to the first {@code count} candidates.
+     *
+     * @param lats candidate latitudes in degrees
+     * @param lngs candidate longitudes in degrees
+     * @param out  receives the distance to candidate {@code i} at index {@code i}; may be a row of a
+     *             larger matrix
+     */
+    public static void distances(double lat, double lng, double[] lats, double[] lngs, int count, double[] out) {
+        if (count > lats.length || count > lngs.length || count > out.length) {
+            throw new IllegalArgumentException("Every array must hold at least " + count + " values");
+        }
+        if (VECTORIZED) {
+            GeoDistanceVector.distances(lat, lng, lats, lngs, count, out);
+        } else {
+            distancesScalar(lat, lng, lats, lngs, 0, count, out);
+        }
+    }
+
+    /**
+     * Whether {@link #distances} runs on the Vector API in this JVM.
+     */
+    public static boolean isVectorized() {
+        return VECTORIZED;
+    }
+
+    /**
+     * Scalar kernel for candidates {@code from} (inclusive) to {@code to} (exclusive); also finishes
+     * the tail that does not fill a whole vector.
+     */
+    static void distancesScalar(double lat, double lng, double[] lats, double[] lngs, int from, int to,
+                                double[] out) {
+        double phi = lat * RADIANS_PER_DEGREE;
+        double cos = Math.cos(phi);
+        double halfSin = 0.5 * Math.sin(phi);
+        for (int i = from; i < to; i++) {
+            double dPhi = (lats[i] - lat) * RADIANS_PER_DEGREE;
+            // cos(phi + dPhi / 2) to first order
+            double x = (lngs[i] - lng) * RADIANS_PER_DEGREE * (cos - halfSin * dPhi);
+            out[i] = EARTH_RADIUS_METERS * Math.sqrt(x * x + dPhi * dPhi);
+        }
+    }
+
+    private static boolean vectorModulePresent() {
+        if (!Boolean.parseBoolean(System.getProperty("geo.distance.vectorized", "true"))) {
+            return false;
+        }
+        // Incubator modules are only resolved when named on the command line
+        return ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent();
+    }
+}
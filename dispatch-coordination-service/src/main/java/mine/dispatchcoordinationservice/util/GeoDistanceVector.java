@@ -0,0 +1,34 @@
+package mine.dispatchcoordinationservice.util;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.VectorSpecies;
+
+import static mine.dispatchcoordinationservice.util.GeoDistance.EARTH_RADIUS_METERS;
+import static mine.dispatchcoordinationservice.util.GeoDistance.RADIANS_PER_DEGREE;
+
+/**
+ * Vector API form of {@link GeoDistance#distancesScalar}. Only loaded once {@link GeoDistance} has
+ * found the incubator module, so the service still starts without it.
+ */
+final class GeoDistanceVector {
+
+    private static final VectorSpecies<Double> SPECIES = DoubleVector.SPECIES_PREFERRED;
+
+    private GeoDistanceVector() {
+    }
+
+    static void distances(double lat, double lng, double[] lats, double[] lngs, int count, double[] out) {
+        double phi = lat * RADIANS_PER_DEGREE;
+        double cos = Math.cos(phi);
+        double halfSin = 0.5 * Math.sin(phi);
+        int bound = SPECIES.loopBound(count);
+        int i = 0;
+        for (; i < bound; i += SPECIES.length()) {
+            DoubleVector dPhi = DoubleVector.fromArray(SPECIES, lats, i).sub(lat).mul(RADIANS_PER_DEGREE);
+            DoubleVector scale = dPhi.mul(-halfSin).add(cos);
+            DoubleVector x = DoubleVector.fromArray(SPECIES, lngs, i).sub(lng).mul(RADIANS_PER_DEGREE).mul(scale);
+            x.mul(x).add(dPhi.mul(dPhi)).sqrt().mul(EARTH_RADIUS_METERS).intoArray(out, i);
+        }
+        GeoDistance.distancesScalar(lat, lng, lats, lngs, i, count, out);
+    }
+}
@@ -0,0 +1,95 @@
+package mine.dispatchcoordinationservice.util;
+
+import java.io.ByteArrayOutputStream;
+
+/**
+ * Binary form of a route for storage: a version byte, the point count, then each point as the
+ * zig-zag varint delta of its latitude and longitude in 1e-5 degree units from the previous point.
+ * <p>
+ * This is the precision of an encoded polyline, so a polyline survives the round trip unchanged,
+ * but each byte carries 7 bits of delta instead of the polyline's 5.
+ */
+public final class GeometryCodec {
+
+    public static final byte VERSION = 1;
+
+    private GeometryCodec() {
+    }
+
+    public static byte[] fromPolyline(String polyline) {
+        int[] coords = PolylineCodec.decode(polyline);
+        int points = coords.length / 2;
+        ByteArrayOutputStream out = new ByteArrayOutputStream(2 + points * 4);
+        out.write(VERSION);
+        writeVarint(out, points);
+        long previousLat = 0;
+        long previousLng = 0;
+        for (int i = 0; i < coords.length; i += 2) {
+            writeVarint(out, zigZag(coords[i] - previousLat));
+            writeVarint(out, zigZag(coords[i + 1] - previousLng));
+            previousLat = coords[i];
+            previousLng = coords[i + 1];
+        }
+        return out.toByteArray();
+    }
+
+    public static String toPolyline(byte[] data) {
+        checkVersion(data);
+        int[] position = {1};
+        int count = (int) readVarint(data, position);
+        int[] coords = new int[2 * count];
+        long lat = 0;
+        long lng = 0;
+        for (int i = 0; i < coords.length; i += 2) {
+            lat += unZigZag(readVarint(data, position));
+            lng += unZigZag(readVarint(data, position));
+            coords[i] = (int) lat;
+            coords[i + 1] = (int) lng;
+        }
+        return PolylineCodec.encode(coords, count);
+    }
+
+    /**
+     * Number of points in {@code data}, read from its header only.
+     */
+    public static int pointCount(byte[] data) {
+        return (int) readVarint(data, new int[]{1});
+    }
+
+    private static void checkVersion(byte[] data) {
+        if (data.length == 0 || data[0] != VERSION) {
+            throw new IllegalArgumentException("Unsupported geometry encoding version");
+        }
+    }
+
+    private static long zigZag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long unZigZag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private static void writeVarint(ByteArrayOutputStream out, long value) {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+
+    private static long readVarint(byte[] data, int[] position) {
+        long value = 0;
+        int shift = 0;
+        byte b;
+        do {
+            if (position[0] >= data.length) {
+                throw new IllegalArgumentException("Truncated geometry");
+            }
+            b = data[position[0]++];
+            value |= (long) (b & 0x7F) << shift;
+            shift += 7;
+        } while (b < 0);
+        return value;
+    }
+}
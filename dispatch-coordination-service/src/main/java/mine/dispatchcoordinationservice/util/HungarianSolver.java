@@ -0,0 +1,140 @@
+package mine.dispatchcoordinationservice.util;
+
+import java.util.Arrays;
+
+/**
+ * Minimum-cost assignment of rows to columns (Hungarian algorithm with potentials, O(n^2 m) for
+ * n <= m). Used to assign a batch of incidents to ambulances over an ETA matrix.
+ */
+public final class HungarianSolver {
+
+    private HungarianSolver() {
+    }
+
+    /**
+     * Assigns every row to a distinct column so that the summed cost is minimal. Cells holding
+     * {@link Double#POSITIVE_INFINITY} are forbidden; the solver first maximises the number of rows
+     * assigned through allowed cells, then minimises their cost.
+     *
+     * @param cost rectangular matrix, {@code cost[row][column]}
+     * @return the column assigned to each row, or -1 where a row is left unassigned because there are
+     * fewer columns than rows or no allowed column remains for it
+     */
+    public static int[] solve(double[][] cost) {
+        int rows = cost.length;
+        if (rows == 0) {
+            return new int[0];
+        }
+        int columns = cost[0].length;
+        if (columns == 0) {
+            int[] none = new int[rows];
+            Arrays.fill(none, -1);
+            return none;
+        }
+        if (rows > columns) {
+            // The algorithm needs at least as many columns as rows; solve the transpose and invert it
+            int[] rowOfColumn = solve(transpose(cost));
+            int[] columnOfRow = new int[rows];
+            Arrays.fill(columnOfRow, -1);
+            for (int column = 0; column < columns; column++) {
+                if (rowOfColumn[column] >= 0) {
+                    columnOfRow[rowOfColumn[column]] = column;
+                }
+            }
+            return columnOfRow;
+        }
+
+        double forbidden = forbiddenCost(cost);
+        // 1-based as in the textbook formulation: column 0 is a virtual column holding the row being added
+        double[] u = new double[rows + 1];
+        double[] v = new double[columns + 1];
+        int[] rowOf = new int[columns + 1];
+        int[] way = new int[columns + 1];
+        double[] minv = new double[columns + 1];
+        boolean[] used = new boolean[columns + 1];
+
+        for (int i = 1; i <= rows; i++) {
+            rowOf[0] = i;
+            int j0 = 0;
+            Arrays.fill(minv, Double.POSITIVE_INFINITY);
+            Arrays.fill(used, false);
+            do {
+                used[j0] = true;
+                int i0 = rowOf[j0];
+                double[] row = cost[i0 - 1];
+                double ui0 = u[i0];
+                double delta = Double.POSITIVE_INFINITY;
+                int j1 = 0;
+                for (int j = 1; j <= columns; j++) {
+                    if (used[j]) {
+                        continue;
+                    }
+                    double c = row[j - 1];
+                    double reduced = (c == Double.POSITIVE_INFINITY ? forbidden : c) - ui0 - v[j];
+                    if (reduced < minv[j]) {
+                        minv[j] = reduced;
+                        way[j] = j0;
+                    }
+                    if (minv[j] < delta) {
+                        delta = minv[j];
+                        j1 = j;
+                    }
+                }
+                for (int j = 0; j <= columns; j++) {
+                    if (used[j]) {
+                        u[rowOf[j]] += delta;
+                        v[j] -= delta;
+                    } else {
+                        minv[j] -= delta;
+                    }
+                }
+                j0 = j1;
+            } while (rowOf[j0] != 0);
+            // Flip the augmenting path
+            do {
+                int j1 = way[j0];
+                rowOf[j0] = rowOf[j1];
+                j0 = j1;
+            } while (j0 != 0);
+        }
+
+        int[] columnOfRow = new int[rows];
+        Arrays.fill(columnOfRow, -1);
+        for (int j = 1; j <= columns; j++) {
+            int i = rowOf[j];
+            if (i != 0 && cost[i - 1][j - 1] != Double.POSITIVE_INFINITY) {
+                columnOfRow[i - 1] = j - 1;
+            }
+        }
+        return columnOfRow;
+    }
+
+    /**
+     * A finite stand-in for forbidden cells, larger than the cost of any assignment that avoids
+     * them, so one forbidden cell always outweighs every allowed one combined.
+     */
+    private static double forbiddenCost(double[][] cost) {
+        double max = 0;
+        for (double[] row : cost) {
+            for (double c : row) {
+                if (c != Double.POSITIVE_INFINITY) {
+                    if (c < 0 || Double.isNaN(c)) {
+                        throw new IllegalArgumentException("Costs must be non-negative, got " + c);
+                    }
+                    max = Math.max(max, c);
+                }
+            }
+        }
+        return (max + 1) * (cost.length + 1);
+    }
+
+    private static double[][] transpose(double[][] cost) {
+        double[][] transposed = new double[cost[0].length][cost.length];
+        for (int i = 0; i < cost.length; i++) {
+            for (int j = 0; j < cost[i].length; j++) {
+                transposed[j][i] = cost[i][j];
+            }
+        }
+        return transposed;
+    }
+}
@@ -0,0 +1,184 @@
+package mine.dispatchcoordinationservice.util;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Encoded polyline (precision 1e-5) codec over flat coordinate buffers: point {@code i} is
+ * {@code coords[2 * i]} latitude and {@code coords[2 * i + 1]} longitude, in 1e-5 degree units.
+ * <p>
+ * Nothing is allocated per point. Decoding writes into a caller-owned buffer that can be reused
+ * across routes, and encoding writes each character once into an exactly sized array.
+ */
+public final class PolylineCodec {
+
+    public static final double SCALE = 1e5;
+
+    private PolylineCodec() {
+    }
+
+    /**
+     * Number of points in {@code encoded}, counted from the characters that end a value.
+     */
+    public static int pointCount(CharSequence encoded) {
+        int values = 0;
+        for (int i = 0, len = encoded.length(); i < len; i++) {
+            if (encoded.charAt(i) - 63 < 0x20) {
+                values++;
+            }
+        }
+        return values / 2;
+    }
+
+    /**
+     * Decodes into a new buffer of exactly {@code 2 * pointCount(encoded)} values.
+     */
+    public static int[] decode(CharSequence encoded) {
+        int[] coords = new int[2 * pointCount(encoded)];
+        decode(encoded, coords);
+        return coords;
+    }
+
+    /**
+     * Decodes into {@code coords}, which must hold at least {@code 2 * pointCount(encoded)} values.
+     *
+     * @return the number of points decoded
+     */
+    public static int decode(CharSequence encoded, int[] coords) {
+        int index = 0;
+        int len = encoded.length();
+        int lat = 0;
+        int lng = 0;
+        int out = 0;
+        while (index < len) {
+            int result = 0;
+            int shift = 0;
+            int b;
+            do {
+                b = encoded.charAt(index++) - 63;
+                result |= (b & 0x1f) << shift;
+                shift += 5;
+            } while (b >= 0x20);
+            lat += (result & 1) != 0 ? ~(result >> 1) : (result >> 1);
+
+            result = 0;
+            shift = 0;
+            do {
+                b = encoded.charAt(index++) - 63;
+                result |= (b & 0x1f) << shift;
+                shift += 5;
+            } while (b >= 0x20);
+            lng += (result & 1) != 0 ? ~(result >> 1) : (result >> 1);
+
+            coords[out++] = lat;
+            coords[out++] = lng;
+        }
+        return out / 2;
+    }
+
+    /**
+     * Encodes the first {@code points} points of {@code coords}.
+     */
+    public static String encode(int[] coords, int points) {
+        int prevLat = 0;
+        int prevLng = 0;
+        int length = 0;
+        for (int i = 0; i < 2 * points; i += 2) {
+            length += encodedLength(coords[i] - prevLat) + encodedLength(coords[i + 1] - prevLng);
+            prevLat = coords[i];
+            prevLng = coords[i + 1];
+        }
+
+        byte[] out = new byte[length];
+        int position = 0;
+        prevLat = 0;
+        prevLng = 0;
+        for (int i = 0; i < 2 * points; i += 2) {
+            position = writeValue(out, position, coords[i] - prevLat);
+            position = writeValue(out, position, coords[i + 1] - prevLng);
+            prevLat = coords[i];
+            prevLng = coords[i + 1];
+        }
+        // Every character is ASCII, so this is a straight copy into a compact string
+        return new String(out, StandardCharsets.ISO_8859_1);
+    }
+
+    /**
+     * Concatenates two encoded polylines without decoding them. Only the first point of
+     * {@code second} is rebased onto the last point of {@code first}; a shared junction point is
+     * kept once. The rest of {@code second} is already relative and is copied as is.
+     */
+    public static String merge(String first, String second) {
+        if (first.isEmpty()) {
+            return second;
+        }
+        if (second.isEmpty()) {
+            return first;
+        }
+        // Last point of the first polyline: the running sum of its deltas
+        int lastLat = 0;
+        int lastLng = 0;
+        int[] cursor = {0};
+        while (cursor[0] < first.length()) {
+            lastLat += readValue(first, cursor);
+            lastLng += readValue(first, cursor);
+        }
+
+        cursor[0] = 0;
+        int firstLat = readValue(second, cursor);
+        int firstLng = readValue(second, cursor);
+        int restStart = cursor[0];
+
+        int dLat = firstLat - lastLat;
+        int dLng = firstLng - lastLng;
+        boolean junction = dLat == 0 && dLng == 0;
+        int length = first.length() + (junction ? 0 : encodedLength(dLat) + encodedLength(dLng))
+                + second.length() - restStart;
+
+        byte[] out = new byte[length];
+        int position = 0;
+        for (int i = 0; i < first.length(); i++) {
+            out[position++] = (byte) first.charAt(i);
+        }
+        if (!junction) {
+            position = writeValue(out, position, dLat);
+            position = writeValue(out, position, dLng);
+        }
+        for (int i = restStart; i < second.length(); i++) {
+            out[position++] = (byte) second.charAt(i);
+        }
+        return new String(out, StandardCharsets.ISO_8859_1);
+    }
+
+    private static int readValue(CharSequence encoded, int[] cursor) {
+        int index = cursor[0];
+        int result = 0;
+        int shift = 0;
+        int b;
+        do {
+            b = encoded.charAt(index++) - 63;
+            result |= (b & 0x1f) << shift;
+            shift += 5;
+        } while (b >= 0x20);
+        cursor[0] = index;
+        return (result & 1) != 0 ? ~(result >> 1) : (result >> 1);
+    }
+
+    private static int zigZag(int value) {
+        return value < 0 ? ~(value << 1) : value << 1;
+    }
+
+    private static int encodedLength(int value) {
+        int bits = 32 - Integer.numberOfLeadingZeros(zigZag(value));
+        return Math.max(1, (bits + 4) / 5);
+    }
+
+    private static int writeValue(byte[] out, int position, int value) {
+        int num = zigZag(value);
+        while (num >= 0x20) {
+            out[position++] = (byte) ((0x20 | (num & 0x1f)) + 63);
+            num >>>= 5;
+        }
+        out[position++] = (byte) (num + 63);
+        return position;
+    }
+}
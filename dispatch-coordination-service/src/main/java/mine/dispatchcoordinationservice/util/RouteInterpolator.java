@@ -0,0 +1,199 @@
+package mine.dispatchcoordinationservice.util;
+
+/**
+ * Position along a route by distance or by time, in O(log n) per lookup.
+ * <p>
+ * The cumulative length of the route up to each point is computed once, so a distance maps to its
+ * segment with a binary search and the position is interpolated within that segment. Time maps to
+ * distance through a piecewise-linear schedule: by default the route is driven at a constant
+ * 1 m/s, {@link #withDuration} spreads it evenly over a drive time, and {@link #withLegs} gives each
+ * leg (e.g. to the patient, then to the hospital) its own speed from the router's leg durations.
+ * <p>
+ * Instances are immutable; the {@code with...} methods share the route arrays.
+ */
+public final class RouteInterpolator {
+
+    private final double[] latitudes;
+    private final double[] longitudes;
+    // Metres from the start of the route to each point
+    private final double[] cumulative;
+    // Schedule knots: after knotSeconds[k] seconds the route has been driven for knotMeters[k] metres
+    private final double[] knotMeters;
+    private final double[] knotSeconds;
+
+    private RouteInterpolator(double[] latitudes, double[] longitudes, double[] cumulative,
+                              double[] knotMeters, double[] knotSeconds) {
+        this.latitudes = latitudes;
+        this.longitudes = longitudes;
+        this.cumulative = cumulative;
+        this.knotMeters = knotMeters;
+        this.knotSeconds = knotSeconds;
+    }
+
+    public static RouteInterpolator fromPolyline(String polyline) {
+        int[] coords = PolylineCodec.decode(polyline);
+        double[] latitudes = new double[coords.length / 2];
+        double[] longitudes = new double[coords.length / 2];
+        for (int i = 0; i < latitudes.length; i++) {
+            latitudes[i] = coords[2 * i] / PolylineCodec.SCALE;
+            longitudes[i] = coords[2 * i + 1] / PolylineCodec.SCALE;
+        }
+        return of(latitudes, longitudes);
+    }
+
+    /**
+     * @param latitudes  at least two points, in degrees
+     * @param longitudes same length as {@code latitudes}
+     */
+    public static RouteInterpolator of(double[] latitudes, double[] longitudes) {
+        if (latitudes.length < 2 || latitudes.length != longitudes.length) {
+            throw new IllegalArgumentException("A route needs at least two points");
+        }
+        double[] cumulative = new double[latitudes.length];
+        for (int i = 1; i < latitudes.length; i++) {
+            cumulative[i] = cumulative[i - 1] + RouteUtils.calculateDistance(
+                    latitudes[i - 1], longitudes[i - 1], latitudes[i], longitudes[i]);
+        }
+        double length = cumulative[cumulative.length - 1];
+        return new RouteInterpolator(latitudes, longitudes, cumulative,
+                new double[]{0, length}, new double[]{0, length});
+    }
+
+    /**
+     * The same route driven at constant speed in {@code seconds}.
+     */
+    public RouteInterpolator withDuration(double seconds) {
+        return withLegs(new double[]{length()}, new double[]{seconds});
+    }
+
+    /**
+     * The same route driven leg by leg, each at constant speed. The last leg always ends at the end
+     * of the route.
+     *
+     * @param legEndMeters distance from the start at which each leg ends, non-decreasing
+     * @param legSeconds   drive time of each leg, non-negative
+     */
+    public RouteInterpolator withLegs(double[] legEndMeters, double[] legSeconds) {
+        if (legEndMeters.length == 0 || legEndMeters.length != legSeconds.length) {
+            throw new IllegalArgumentException("Every leg needs an end and a drive time");
+        }
+        double[] meters = new double[legEndMeters.length + 1];
+        double[] seconds = new double[legSeconds.length + 1];
+        for (int k = 0; k < legEndMeters.length; k++) {
+            if (!(legSeconds[k] >= 0) || legEndMeters[k] < meters[k]) {
+                throw new IllegalArgumentException("Legs must be ordered and take a non-negative time");
+            }
+            meters[k + 1] = Math.min(legEndMeters[k], length());
+            seconds[k + 1] = seconds[k] + legSeconds[k];
+        }
+        meters[meters.length - 1] = length();
+        return new RouteInterpolator(latitudes, longitudes, cumulative, meters, seconds);
+    }
+
+    public int pointCount() {
+        return latitudes.length;
+    }
+
+    /**
+     * Length of the route in metres.
+     */
+    public double length() {
+        return cumulative[cumulative.length - 1];
+    }
+
+    /**
+     * Drive time of the whole route in seconds.
+     */
+    public double duration() {
+        return knotSeconds[knotSeconds.length - 1];
+    }
+
+    /**
+     * Metres from the start of the route to point {@code index}.
+     */
+    public double distanceAt(int index) {
+        return cumulative[index];
+    }
+
+    /**
+     * Index of the route point closest to the given position.
+     */
+    public int nearestPoint(double latitude, double longitude) {
+        int closest = 0;
+        double closestDistance = Double.MAX_VALUE;
+        for (int i = 0; i < latitudes.length; i++) {
+            double distance = GeoDistance.equirectangular(latitudes[i], longitudes[i], latitude, longitude);
+            if (distance < closestDistance) {
+                closest = i;
+                closestDistance = distance;
+            }
+        }
+        return closest;
+    }
+
+    /**
+     * The position {@code meters} along the route, clamped to its ends.
+     *
+     * @param out receives {@code [lat, lng]}; returned for convenience
+     */
+    public double[] positionAtDistance(double meters, double[] out) {
+        int segment = segmentAt(cumulative, meters);
+        double segmentLength = cumulative[segment + 1] - cumulative[segment];
+        double fraction = segmentLength > 0
+                ? Math.min(1, Math.max(0, (meters - cumulative[segment]) / segmentLength))
+                : 1;
+        out[0] = RouteUtils.lerp(latitudes[segment], latitudes[segment + 1], fraction);
+        out[1] = RouteUtils.lerp(longitudes[segment], longitudes[segment + 1], fraction);
+        return out;
+    }
+
+    /**
+     * The position after driving for {@code seconds}, clamped to the ends of the route.
+     */
+    public double[] positionAtTime(double seconds, double[] out) {
+        return positionAtDistance(distanceAtTime(seconds), out);
+    }
+
+    public double distanceAtTime(double seconds) {
+        return interpolate(knotSeconds, knotMeters, seconds);
+    }
+
+    /**
+     * Seconds of driving until {@code meters} along the route are reached.
+     */
+    public double timeAtDistance(double meters) {
+        return interpolate(knotMeters, knotSeconds, meters);
+    }
+
+    /**
+     * Linear interpolation of the piecewise-linear function through {@code (xs[k], ys[k])}, clamped to
+     * its first and last knot. At a vertical step (equal xs) the later knot wins.
+     */
+    private static double interpolate(double[] xs, double[] ys, double x) {
+        int k = segmentAt(xs, x);
+        double width = xs[k + 1] - xs[k];
+        if (width <= 0) {
+            return ys[k + 1];
+        }
+        double fraction = Math.min(1, Math.max(0, (x - xs[k]) / width));
+        return ys[k] + fraction * (ys[k + 1] - ys[k]);
+    }
+
+    /**
+     * The last {@code i} in {@code [0, length - 2]} with {@code sorted[i] <= value}, so that
+     * {@code value} falls in {@code [sorted[i], sorted[i + 1]]} when it is within range.
+     */
+    private static int segmentAt(double[] sorted, double value) {
+        int low = 0;
+        int high = sorted.length - 2;
+        while (low < high) {
+            int mid = (low + high + 1) >>> 1;
+            if (sorted[mid] <= value) {
+                low = mid;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return low;
+    }
+}
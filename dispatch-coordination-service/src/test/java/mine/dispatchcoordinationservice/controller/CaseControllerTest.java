@@ -0,0 +1,117 @@
+package mine.dispatchcoordinationservice.controller;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import mine.dispatchcoordinationservice.dto.CaseEvent;
+import mine.dispatchcoordinationservice.model.CaseStatus;
+import mine.dispatchcoordinationservice.service.CaseEventPublisher;
+import mine.dispatchcoordinationservice.service.CaseService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Subscribes to {@code GET /cases/events} on virtual time, so heartbeats arrive without waiting for
+ * them.
+ */
+class CaseControllerTest {
+
+    private static final long HEARTBEAT_MS = 15_000;
+
+    private CaseService caseService;
+    private CaseEventPublisher caseEvents;
+    private CaseController caseController;
+
+    @BeforeEach
+    void setUp() {
+        caseService = mock(CaseService.class);
+        caseEvents = new CaseEventPublisher(new SimpleMeterRegistry(), 16);
+        caseController = new CaseController(caseService, caseEvents, HEARTBEAT_MS, 3600);
+    }
+
+    @Test
+    void deliversEventsNamedByTheirType() {
+        StepVerifier.withVirtualTime(() -> caseController.streamEvents(null))
+                .expectSubscription()
+                .then(() -> caseEvents.publish(event(CaseEvent.Type.CREATED, 1L)))
+                .assertNext(sse -> {
+                    assertEquals("created", sse.event());
+                    assertEquals(1L, sse.data().getCaseId());
+                })
+                .then(() -> caseEvents.publish(event(CaseEvent.Type.PROGRESS, 2L)))
+                .assertNext(sse -> {
+                    assertEquals("progress", sse.event());
+                    assertEquals(2L, sse.data().getCaseId());
+                })
+                .thenCancel()
+                .verify();
+    }
+
+    @Test
+    void streamForOneCaseStartsWithItsCurrentState() {
+        when(caseService.currentState(7)).thenReturn(Optional.of(event(CaseEvent.Type.STATUS, 7L)));
+
+        StepVerifier.withVirtualTime(() -> caseController.streamEvents(7))
+                .assertNext(sse -> {
+                    assertEquals("status", sse.event());
+                    assertEquals(CaseStatus.ENROUTE_TO_PATIENT, sse.data().getStatus());
+                })
+                .then(() -> {
+                    caseEvents.publish(event(CaseEvent.Type.PROGRESS, 8L));
+                    caseEvents.publish(event(CaseEvent.Type.PROGRESS, 7L));
+                })
+                .assertNext(sse -> assertEquals(7L, sse.data().getCaseId()))
+                .thenCancel()
+                .verify();
+    }
+
+    @Test
+    void heartbeatsAreMergedIntoTheStream() {
+        StepVerifier.withVirtualTime(() -> caseController.streamEvents(null))
+                .expectSubscription()
+                .expectNoEvent(Duration.ofMillis(HEARTBEAT_MS - 1))
+                .thenAwait(Duration.ofMillis(1))
+                .assertNext(sse -> {
+                    assertEquals("heartbeat", sse.comment());
+                    assertNull(sse.data());
+                })
+                .then(() -> caseEvents.publish(event(CaseEvent.Type.PROGRESS, 1L)))
+                .assertNext(sse -> assertEquals("progress", sse.event()))
+                .thenAwait(Duration.ofMillis(HEARTBEAT_MS))
+                .assertNext(sse -> assertEquals("heartbeat", sse.comment()))
+                .thenCancel()
+                .verify();
+    }
+
+    @Test
+    void cancelledStreamsLeaveThePublisher() {
+        assertEquals(0, caseEvents.subscriberCount());
+
+        StepVerifier.withVirtualTime(() -> caseController.streamEvents(null))
+                .expectSubscription()
+                .then(() -> assertEquals(1, caseEvents.subscriberCount()))
+                .thenCancel()
+                .verify();
+        StepVerifier.withVirtualTime(() -> caseController.streamEvents(3))
+                .expectSubscription()
+                .then(() -> assertEquals(1, caseEvents.subscriberCount()))
+                .thenCancel()
+                .verify();
+
+        assertEquals(0, caseEvents.subscriberCount());
+    }
+
+    private static CaseEvent event(CaseEvent.Type type, Long caseId) {
+        CaseEvent event = new CaseEvent();
+        event.setType(type);
+        event.setCaseId(caseId);
+        event.setStatus(CaseStatus.ENROUTE_TO_PATIENT);
+        return event;
+    }
+}
@@ -0,0 +1,55 @@
+package mine.dispatchcoordinationservice.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import mine.dispatchcoordinationservice.dto.CaseEvent;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.test.StepVerifier;
+
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class CaseEventPublisherTest {
+
+    private static final int BUFFER_SIZE = 4;
+
+    private SimpleMeterRegistry meterRegistry;
+    private CaseEventPublisher caseEvents;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        caseEvents = new CaseEventPublisher(meterRegistry, BUFFER_SIZE);
+    }
+
+    @Test
+    void publishingWithoutSubscribersDoesNotFail() {
+        caseEvents.publish(event(1L));
+
+        assertEquals(1, meterRegistry.get("dispatch.case.events.published").counter().count());
+    }
+
+    @Test
+    void slowSubscriberKeepsItsNewestEvents() {
+        StepVerifier.create(caseEvents.events(null), 0)
+                .then(() -> LongStream.rangeClosed(1, 10).forEach(caseId -> caseEvents.publish(event(caseId))))
+                .thenRequest(BUFFER_SIZE)
+                .assertNext(event -> assertEquals(7L, event.getCaseId()))
+                .assertNext(event -> assertEquals(8L, event.getCaseId()))
+                .assertNext(event -> assertEquals(9L, event.getCaseId()))
+                .assertNext(event -> assertEquals(10L, event.getCaseId()))
+                .thenCancel()
+                .verify();
+
+        assertEquals(10 - BUFFER_SIZE, meterRegistry.get("dispatch.case.events.dropped").counter().count());
+        assertEquals(0, caseEvents.subscriberCount());
+    }
+
+    private static CaseEvent event(Long caseId) {
+        CaseEvent event = new CaseEvent();
+        event.setType(CaseEvent.Type.PROGRESS);
+        event.setCaseId(caseId);
+        return event;
+    }
+}
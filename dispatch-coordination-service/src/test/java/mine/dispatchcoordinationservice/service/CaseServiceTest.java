@@ -0,0 +1,83 @@
+package mine.dispatchcoordinationservice.service;
+
+import mine.dispatchcoordinationservice.dto.CaseSummary;
+import mine.dispatchcoordinationservice.model.CaseGeometry;
+import mine.dispatchcoordinationservice.repository.CaseGeometryRepository;
+import mine.dispatchcoordinationservice.repository.CaseRepository;
+import mine.dispatchcoordinationservice.repository.LegacyCaseGeometryRepository;
+import mine.dispatchcoordinationservice.util.GeometryCodec;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.domain.PageRequest;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class CaseServiceTest {
+
+    private final CaseRepository caseRepository = mock(CaseRepository.class);
+    private final CaseGeometryRepository caseGeometryRepository = mock(CaseGeometryRepository.class);
+    private final LegacyCaseGeometryRepository legacyGeometryRepository = mock(LegacyCaseGeometryRepository.class);
+    private final CaseService caseService = new CaseService(caseRepository, caseGeometryRepository, legacyGeometryRepository,
+            mock(SimulationEngine.class), mock(CaseEventPublisher.class), 3, 5);
+
+    @Test
+    void fullPageCarriesTheCursorOfItsLastCase() {
+        when(caseRepository.findSummaries(any(), any(), any(), any(), any(), any(), any()))
+                .thenReturn(summaries(10, 9, 8, 7));
+
+        CaseService.CasePage page = caseService.findCases("CLOSED", null, null, null, null, null, null);
+
+        assertEquals(List.of(10L, 9L, 8L), page.cases().stream().map(CaseSummary::getId).toList());
+        assertEquals(8L, page.nextCursor());
+        verify(caseRepository).findSummaries(null, "CLOSED", null, null, null, null, PageRequest.ofSize(4));
+    }
+
+    @Test
+    void lastPageHasNoCursorAndLimitIsCapped() {
+        when(caseRepository.findSummaries(any(), any(), any(), any(), any(), any(), any()))
+                .thenReturn(summaries(2, 1));
+
+        CaseService.CasePage page = caseService.findCases(null, null, null, 4, null, 3L, 1_000);
+
+        assertEquals(2, page.cases().size());
+        assertNull(page.nextCursor());
+        verify(caseRepository).findSummaries(eq(3L), any(), any(), any(), eq(4), any(), eq(PageRequest.ofSize(6)));
+    }
+
+    @Test
+    void legacyGeometryIsMovedToItsTableOnFirstRead() {
+        String polyline = "_p~iF~ps|U_ulLnnqC_mqNvxq`@";
+        when(caseGeometryRepository.findById(7L)).thenReturn(Optional.empty());
+        when(legacyGeometryRepository.findPolyline(7L)).thenReturn(Optional.of(polyline));
+
+        assertEquals(Optional.of(polyline), caseService.getRouteGeometry(7L));
+
+        ArgumentCaptor<CaseGeometry> saved = ArgumentCaptor.forClass(CaseGeometry.class);
+        verify(caseGeometryRepository).save(saved.capture());
+        assertEquals(7L, saved.getValue().getCaseId());
+        assertEquals(3, saved.getValue().getPointCount());
+        assertEquals(polyline, GeometryCodec.toPolyline(saved.getValue().getPoints()));
+    }
+
+    @Test
+    void storedGeometryDoesNotTouchTheLegacyColumn() {
+        byte[] points = GeometryCodec.fromPolyline("_p~iF~ps|U");
+        when(caseGeometryRepository.findById(8L)).thenReturn(Optional.of(new CaseGeometry(8L, points, 1)));
+
+        assertEquals(Optional.of("_p~iF~ps|U"), caseService.getRouteGeometry(8L));
+        verifyNoInteractions(legacyGeometryRepository);
+    }
+
+    private static List<CaseSummary> summaries(long... ids) {
+        return LongStream.of(ids)
+                .mapToObj(id -> new CaseSummary(id, 31.6, -7.9, "CARDIOLOGY", "CLOSED", 1, 1L, 60.0, 900.0, null, null))
+                .toList();
+    }
+}
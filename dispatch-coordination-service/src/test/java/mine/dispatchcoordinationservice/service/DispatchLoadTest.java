@@ -0,0 +1,218 @@
+package mine.dispatchcoordinationservice.service;
+
+import mine.dispatchcoordinationservice.dto.DispatchResult;
+import mine.dispatchcoordinationservice.dto.EmergencyRequest;
+import mine.dispatchcoordinationservice.model.Case;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.ExchangeFunction;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Queue;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Fires bursts of emergencies at both dispatch pipelines against stubbed downstream services.
+ * <p>
+ * The full burst, which compares the extra threads each mode needs and reports p99 latency, is
+ * opt-in: {@code mvn test -Dload=true -Dtest=DispatchLoadTest}.
+ */
+class DispatchLoadTest {
+
+    private static final Duration DOWNSTREAM_LATENCY = Duration.ofMillis(20);
+    private static final int REQUESTS = 400;
+    private static final int SERVLET_THREADS = 50;
+
+    private static final String HOSPITALS_JSON = """
+            [{"id":1,"name":"Marrakech General Hospital","latitude":31.6295,"longitude":-7.9811,"ambulanceIds":[1]},
+             {"id":2,"name":"Marrakech Neuro Hospital","latitude":31.6315,"longitude":-7.9892,"ambulanceIds":[2]}]""";
+    private static final String AMBULANCES_JSON = """
+            [{"id":1,"available":true,"latitude":31.6255,"longitude":-7.9810},
+             {"id":2,"available":false,"latitude":31.6302,"longitude":-7.9864}]""";
+    private static final String NEAREST_JSON = """
+            [{"id":1,"available":true,"latitude":31.6255,"longitude":-7.9810,"distanceMeters":1020.5},
+             {"id":2,"available":true,"latitude":31.6302,"longitude":-7.9864,"distanceMeters":1190.0}]""";
+    private static final String MATRIX_JSON = """
+            {"durations":[240.0,150.0],"distances":[1300.0,1250.0],"status":"SUCCESS"}""";
+    private static final String ROUTE_JSON = """
+            {"geometry":"_p~iF~ps|U_ulLnnqC_mqNvxq`@","distance":1200.0,"duration":180.0,"status":"SUCCESS",
+             "legs":[{"distance":500.0,"duration":75.0},{"distance":700.0,"duration":105.0}]}""";
+
+    private DispatchService dispatchService;
+    private SimulationEngine simulationEngine;
+
+    @BeforeEach
+    void setUp() {
+        CaseService caseService = mock(CaseService.class);
+        AtomicLong caseIds = new AtomicLong();
+        when(caseService.createCase(any(Case.class))).thenAnswer(invocation -> {
+            Case saved = invocation.getArgument(0);
+            saved.setId(caseIds.incrementAndGet());
+            return saved;
+        });
+
+        WebClient.Builder webClientBuilder = WebClient.builder().exchangeFunction(stubbedDownstream());
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        simulationEngine = new SimulationEngine(webClientBuilder, new CaseEventPublisher(meterRegistry, 1024), meterRegistry, 1000, 4, 1000);
+        dispatchService = new DispatchService(webClientBuilder, caseService, simulationEngine, meterRegistry, 8, 2000, 5, 5, 30_000);
+    }
+
+    @AfterEach
+    void tearDown() {
+        simulationEngine.shutdown();
+    }
+
+    @Test
+    void bothPipelinesDispatchEveryEmergencyOfABurst() throws Exception {
+        assertEquals(20, runBlocking(20).successes);
+        assertEquals(20, runReactive(20).successes);
+    }
+
+    @Test
+    @EnabledIfSystemProperty(named = "load", matches = "true")
+    void measuresLatencyAndThreadsForBlockingAndReactiveDispatch() throws Exception {
+        // Warm up both paths so the figures are not dominated by class loading and JIT
+        runBlocking(20);
+        runReactive(20);
+
+        LoadReport blocking = runBlocking(REQUESTS);
+        LoadReport reactive = runReactive(REQUESTS);
+
+        String report = "blocking: " + blocking + "; reactive: " + reactive;
+        assertEquals(REQUESTS, blocking.successes, report);
+        assertEquals(REQUESTS, reactive.successes, report);
+        // Blocking needs a thread per request in flight; reactive waits on downstream calls without one
+        assertTrue(reactive.extraThreads < blocking.extraThreads / 2, report);
+    }
+
+    private LoadReport runBlocking(int requests) throws Exception {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        int baseline = threads.getThreadCount();
+        threads.resetPeakThreadCount();
+
+        // Emulates a servlet container worker pool: each request owns a thread until dispatch returns
+        ExecutorService servletPool = Executors.newFixedThreadPool(SERVLET_THREADS);
+        long[] latencies = new long[requests];
+        Queue<DispatchResult> results = new ConcurrentLinkedQueue<>();
+        CountDownLatch done = new CountDownLatch(requests);
+        try {
+            for (int i = 0; i < requests; i++) {
+                int index = i;
+                long submitted = System.nanoTime();
+                servletPool.execute(() -> {
+                    try {
+                        results.add(dispatchService.handleEmergency(emergency()));
+                        latencies[index] = System.nanoTime() - submitted;
+                    } finally {
+                        done.countDown();
+                    }
+                });
+            }
+            assertTrue(done.await(2, TimeUnit.MINUTES), "Blocking dispatches did not finish in time");
+        } finally {
+            servletPool.shutdownNow();
+        }
+        return new LoadReport(latencies, results, threads.getPeakThreadCount() - baseline);
+    }
+
+    private LoadReport runReactive(int requests) throws Exception {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        int baseline = threads.getThreadCount();
+        threads.resetPeakThreadCount();
+
+        long[] latencies = new long[requests];
+        Queue<DispatchResult> results = new ConcurrentLinkedQueue<>();
+        CountDownLatch done = new CountDownLatch(requests);
+        for (int i = 0; i < requests; i++) {
+            int index = i;
+            long submitted = System.nanoTime();
+            dispatchService.handleEmergencyAsync(emergency())
+                    .doFinally(signal -> done.countDown())
+                    .subscribe(result -> {
+                        results.add(result);
+                        latencies[index] = System.nanoTime() - submitted;
+                    });
+        }
+        assertTrue(done.await(2, TimeUnit.MINUTES), "Reactive dispatches did not finish in time");
+        return new LoadReport(latencies, results, threads.getPeakThreadCount() - baseline);
+    }
+
+    private static EmergencyRequest emergency() {
+        EmergencyRequest request = new EmergencyRequest();
+        request.setLatitude(31.6340);
+        request.setLongitude(-7.9990);
+        request.setSpecialization("Cardiology");
+        return request;
+    }
+
+    private static ExchangeFunction stubbedDownstream() {
+        return request -> {
+            ClientResponse response = respond(request.method(), request.url().getPath());
+            return Mono.delay(DOWNSTREAM_LATENCY).thenReturn(response);
+        };
+    }
+
+    private static ClientResponse respond(HttpMethod method, String path) {
+        if (HttpMethod.PUT.equals(method) || path.equals("/ambulances/locations") || path.endsWith("/reserve")) {
+            return ClientResponse.create(HttpStatus.OK).build();
+        }
+        String body;
+        if (path.equals("/ambulances/nearest")) {
+            body = NEAREST_JSON;
+        } else if (path.startsWith("/hospitals/by-hospital/")) {
+            body = AMBULANCES_JSON;
+        } else if (path.startsWith("/hospitals")) {
+            body = HOSPITALS_JSON;
+        } else if (path.equals("/routes/matrix")) {
+            body = MATRIX_JSON;
+        } else if (path.startsWith("/routes")) {
+            body = ROUTE_JSON;
+        } else {
+            return ClientResponse.create(HttpStatus.NOT_FOUND).build();
+        }
+        return ClientResponse.create(HttpStatus.OK)
+                .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                .body(body)
+                .build();
+    }
+
+    private static class LoadReport {
+        private final long p99Millis;
+        private final long successes;
+        private final int extraThreads;
+
+        LoadReport(long[] latencies, Queue<DispatchResult> results, int extraThreads) {
+            long[] sorted = latencies.clone();
+            Arrays.sort(sorted);
+            int p99Index = (int) Math.ceil(sorted.length * 0.99) - 1;
+            this.p99Millis = TimeUnit.NANOSECONDS.toMillis(sorted[Math.max(p99Index, 0)]);
+            this.successes = results.stream().filter(r -> "SUCCESS".equals(r.getStatus())).count();
+            this.extraThreads = extraThreads;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("p99=%d ms, successes=%d, peak threads in use=+%d", p99Millis, successes, extraThreads);
+        }
+    }
+}
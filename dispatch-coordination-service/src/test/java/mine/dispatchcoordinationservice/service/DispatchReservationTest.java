@@ -0,0 +1,159 @@
+package mine.dispatchcoordinationservice.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import mine.dispatchcoordinationservice.dto.DispatchResult;
+import mine.dispatchcoordinationservice.dto.EmergencyRequest;
+import mine.dispatchcoordinationservice.model.Case;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.ExchangeFunction;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Dispatches against an ambulance-service stub whose reserve endpoint is a compare-and-set, while
+ * the candidate lookups keep reporting every unit as available.
+ */
+class DispatchReservationTest {
+
+    private static final String HOSPITALS_JSON = """
+            [{"id":1,"name":"Marrakech General Hospital","latitude":31.6295,"longitude":-7.9811,"ambulanceIds":[1,2]}]""";
+    private static final String NEAREST_JSON = """
+            [{"id":1,"available":true,"latitude":31.6255,"longitude":-7.9810,"distanceMeters":1020.5},
+             {"id":2,"available":true,"latitude":31.6302,"longitude":-7.9864,"distanceMeters":1190.0}]""";
+    // Ambulance 2 is the faster one by road
+    private static final String MATRIX_JSON = """
+            {"durations":[240.0,150.0],"distances":[1300.0,1250.0],"status":"SUCCESS"}""";
+    private static final String ROUTE_JSON = """
+            {"geometry":"_p~iF~ps|U_ulLnnqC_mqNvxq`@","distance":1200.0,"duration":180.0,"status":"SUCCESS",
+             "legs":[{"distance":500.0,"duration":75.0},{"distance":700.0,"duration":105.0}]}""";
+
+    private final Set<String> reserved = ConcurrentHashMap.newKeySet();
+    private CaseService caseService;
+    private DispatchService dispatchService;
+    private SimulationEngine simulationEngine;
+
+    @BeforeEach
+    void setUp() {
+        caseService = mock(CaseService.class);
+        AtomicLong caseIds = new AtomicLong();
+        when(caseService.createCase(any(Case.class))).thenAnswer(invocation -> {
+            Case saved = invocation.getArgument(0);
+            saved.setId(caseIds.incrementAndGet());
+            return saved;
+        });
+
+        WebClient.Builder webClientBuilder = WebClient.builder().exchangeFunction(stubbedDownstream());
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        simulationEngine = new SimulationEngine(webClientBuilder, new CaseEventPublisher(meterRegistry, 1024), meterRegistry, 60_000, 4, 1000);
+        dispatchService = new DispatchService(webClientBuilder, caseService, simulationEngine, meterRegistry, 8, 2000, 5, 5, 30_000);
+    }
+
+    @AfterEach
+    void tearDown() {
+        simulationEngine.shutdown();
+    }
+
+    @Test
+    void fallsBackToTheNextBestUnitWhenTheBestIsTaken() {
+        reserved.add("2");
+
+        DispatchResult result = dispatchService.handleEmergencyAsync(emergency()).block();
+
+        assertEquals("SUCCESS", result.getStatus());
+        assertEquals(1, result.getAssignedAmbulance().getId());
+    }
+
+    @Test
+    void concurrentDispatchesNeverShareAUnit() {
+        int requests = 50;
+
+        List<DispatchResult> results = Flux.range(0, requests)
+                .flatMap(i -> dispatchService.handleEmergencyAsync(emergency()), requests)
+                .collectList()
+                .block(Duration.ofSeconds(30));
+
+        List<Integer> assigned = results.stream()
+                .filter(result -> "SUCCESS".equals(result.getStatus()))
+                .map(result -> result.getAssignedAmbulance().getId())
+                .sorted()
+                .toList();
+        assertEquals(List.of(1, 2), assigned);
+        assertEquals(requests - 2, results.stream().filter(result -> "FAILURE".equals(result.getStatus())).count());
+    }
+
+    @Test
+    void failedCaseSaveReleasesTheReservedUnit() {
+        when(caseService.createCase(any(Case.class))).thenThrow(new IllegalStateException("database down"));
+
+        assertThrows(IllegalStateException.class, () -> dispatchService.handleEmergencyAsync(emergency()).block());
+        assertTrue(reserved.isEmpty());
+
+        assertThrows(IllegalStateException.class, () -> dispatchService.handleEmergency(emergency()));
+        assertTrue(reserved.isEmpty());
+    }
+
+    private static EmergencyRequest emergency() {
+        EmergencyRequest request = new EmergencyRequest();
+        request.setLatitude(31.6340);
+        request.setLongitude(-7.9990);
+        request.setSpecialization("Cardiology");
+        return request;
+    }
+
+    private ExchangeFunction stubbedDownstream() {
+        return request -> Mono.delay(Duration.ofMillis(5))
+                .thenReturn(respond(request.method(), request.url().getPath()));
+    }
+
+    private ClientResponse respond(HttpMethod method, String path) {
+        if (path.endsWith("/reserve")) {
+            String id = path.split("/")[2];
+            return ClientResponse.create(reserved.add(id) ? HttpStatus.OK : HttpStatus.CONFLICT).build();
+        }
+        if (path.endsWith("/availability")) {
+            // Only releases are sent during a dispatch
+            reserved.remove(path.split("/")[2]);
+            return ClientResponse.create(HttpStatus.OK).build();
+        }
+        if (HttpMethod.PUT.equals(method) || path.equals("/ambulances/locations")) {
+            return ClientResponse.create(HttpStatus.OK).build();
+        }
+        String body;
+        if (path.equals("/ambulances/nearest")) {
+            body = NEAREST_JSON;
+        } else if (path.startsWith("/hospitals")) {
+            body = HOSPITALS_JSON;
+        } else if (path.equals("/routes/matrix")) {
+            body = MATRIX_JSON;
+        } else if (path.startsWith("/routes")) {
+            body = ROUTE_JSON;
+        } else {
+            return ClientResponse.create(HttpStatus.NOT_FOUND).build();
+        }
+        return ClientResponse.create(HttpStatus.OK)
+                .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                .body(body)
+                .build();
+    }
+}
@@ -0,0 +1,76 @@
+package mine.dispatchcoordinationservice.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import mine.dispatchcoordinationservice.dto.Hospital;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HospitalLookupCacheTest {
+
+    private static final String ETAG = "\"0a1b2c\"";
+    private static final String HOSPITALS_JSON = """
+            [{"id":1,"name":"Marrakech General Hospital","latitude":31.6295,"longitude":-7.9811,"ambulanceIds":[1]}]""";
+
+    private final List<ClientRequest> requests = new CopyOnWriteArrayList<>();
+    private final AtomicReference<HttpStatus> nextStatus = new AtomicReference<>(HttpStatus.OK);
+    private final AtomicLong now = new AtomicLong(1_000);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final HospitalLookupCache cache = new HospitalLookupCache(
+            WebClient.builder().exchangeFunction(this::respond).build(),
+            "http://hospital-management-service", 30_000, now::get, meterRegistry);
+
+    @Test
+    void servesFreshEntriesWithoutCallingAndRevalidatesStaleOnes() {
+        List<Hospital> first = cache.hospitalsBySpeciality("Cardiology").block();
+        assertEquals(1, first.size());
+        assertEquals("/hospitals/speciality", requests.get(0).url().getPath());
+        assertEquals("speciality=Cardiology", requests.get(0).url().getQuery());
+
+        now.addAndGet(10_000);
+        assertSame(first, cache.hospitalsBySpeciality(" cardiology ").block());
+        assertEquals(1, requests.size(), "a fresh entry is served from memory");
+
+        now.addAndGet(30_000);
+        nextStatus.set(HttpStatus.NOT_MODIFIED);
+        assertSame(first, cache.hospitalsBySpeciality("Cardiology").block());
+        assertEquals(2, requests.size());
+        assertEquals(List.of(ETAG), requests.get(1).headers().getIfNoneMatch());
+        assertEquals(1.0, meterRegistry.counter("dispatch.hospital.cache", "result", "revalidated").count());
+    }
+
+    @Test
+    void servesTheLastKnownListWhenTheServiceFails() {
+        List<Hospital> first = cache.hospitalsBySpeciality("Cardiology").block();
+
+        now.addAndGet(60_000);
+        nextStatus.set(HttpStatus.SERVICE_UNAVAILABLE);
+        assertSame(first, cache.hospitalsBySpeciality("Cardiology").block());
+        assertThrows(RuntimeException.class, () -> cache.hospitalsBySpeciality("Neurology").block());
+    }
+
+    private Mono<ClientResponse> respond(ClientRequest request) {
+        requests.add(request);
+        HttpStatus status = nextStatus.get();
+        if (status != HttpStatus.OK) {
+            return Mono.just(ClientResponse.create(status).header(HttpHeaders.ETAG, ETAG).build());
+        }
+        return Mono.just(ClientResponse.create(HttpStatus.OK)
+                .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                .header(HttpHeaders.ETAG, ETAG)
+                .body(HOSPITALS_JSON)
+                .build());
+    }
+}
@@ -0,0 +1,68 @@
+package mine.dispatchcoordinationservice.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time taken by one {@link SimulationEngine} tick with thousands of simulations running: advancing
+ * each of them, building the location batch and publishing progress events. To keep up, a tick
+ * must stay well under {@code dispatch.simulation.tick-ms}. Locations go to a stub that answers at
+ * once; the engine's own timer is set far beyond the run so only the benchmark ticks.
+ * <p>
+ * Not part of the test run; start {@link #main} from the test classpath.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SimulationEngineBenchmark {
+
+    private static final String POLYLINE = "_p~iF~ps|U_ulLnnqC_mqNvxq`@";
+
+    @Param({"1000", "5000"})
+    public int simulations;
+
+    private SimulationEngine engine;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        WebClient.Builder webClientBuilder = WebClient.builder()
+                .exchangeFunction(request -> Mono.just(ClientResponse.create(HttpStatus.OK).build()));
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        CaseEventPublisher caseEvents = new CaseEventPublisher(meterRegistry, 1024);
+        // One subscriber for everything, as an open dashboard stream would be
+        caseEvents.events(null).subscribe();
+        engine = new SimulationEngine(webClientBuilder, caseEvents, meterRegistry, TimeUnit.HOURS.toMillis(1), 4, 1000);
+        for (int i = 0; i < simulations; i++) {
+            // More ticks than a run performs, so no simulation finishes while it is measured
+            engine.start((long) i, i, POLYLINE, 10_000_000, null);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        engine.shutdown();
+    }
+
+    @Benchmark
+    public void tick() {
+        engine.tick();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(SimulationEngineBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,149 @@
+package mine.dispatchcoordinationservice.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import mine.dispatchcoordinationservice.dto.CaseEvent;
+import mine.dispatchcoordinationservice.model.CaseStatus;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs thousands of simulations on one engine against a stubbed ambulance-service and checks that
+ * every tick advances them all and that finished or cancelled cases stop firing. The tests call
+ * {@link SimulationEngine#tick()} themselves; how long a tick takes is measured by
+ * {@link SimulationEngineBenchmark}.
+ */
+class SimulationEngineTest {
+
+    private static final String POLYLINE = "_p~iF~ps|U_ulLnnqC_mqNvxq`@";
+    // Long enough that the engine's own timer never fires while a test runs
+    private static final long TICK_MILLIS = 60_000;
+
+    private final CountDownLatch locationsPosted = new CountDownLatch(1);
+    private SimpleMeterRegistry meterRegistry;
+    private CaseEventPublisher caseEvents;
+    private SimulationEngine engine;
+
+    @BeforeEach
+    void setUp() {
+        WebClient.Builder webClientBuilder = WebClient.builder().exchangeFunction(request -> {
+            locationsPosted.countDown();
+            return Mono.just(ClientResponse.create(HttpStatus.OK).build());
+        });
+        meterRegistry = new SimpleMeterRegistry();
+        caseEvents = new CaseEventPublisher(meterRegistry, 1024);
+        engine = new SimulationEngine(webClientBuilder, caseEvents, meterRegistry, TICK_MILLIS, 4, 1000);
+    }
+
+    @AfterEach
+    void tearDown() {
+        engine.shutdown();
+    }
+
+    @Test
+    void fiveThousandCasesAdvanceOnEveryTick() throws Exception {
+        int cases = 5_000;
+        int totalTicks = 20;
+        AtomicInteger progressEvents = new AtomicInteger();
+        caseEvents.events(null).subscribe(event -> progressEvents.incrementAndGet());
+        CountDownLatch finished = new CountDownLatch(cases);
+        for (int i = 0; i < cases; i++) {
+            engine.start((long) i, i, POLYLINE, totalTicks, finished::countDown);
+        }
+        assertEquals(cases, engine.activeSimulations());
+
+        tick(totalTicks + 1);
+        assertEquals(cases * (totalTicks + 1), progressEvents.get(), "one event per case per tick, start and end included");
+        assertEquals(cases, engine.activeSimulations());
+
+        // The tick after the last position removes the runs and hands their callbacks off
+        tick(1);
+        assertEquals(0, engine.activeSimulations());
+        assertTrue(finished.await(10, TimeUnit.SECONDS), "remaining=" + finished.getCount());
+        assertTrue(locationsPosted.await(10, TimeUnit.SECONDS));
+        assertEquals(totalTicks + 2, meterRegistry.get("dispatch.simulation.tick").timer().count());
+    }
+
+    @Test
+    void cancelledCaseStopsWithoutCompleting() {
+        List<CaseEvent> events = new CopyOnWriteArrayList<>();
+        caseEvents.events(1L).subscribe(events::add);
+        AtomicInteger completions = new AtomicInteger();
+        engine.start(1L, 7, POLYLINE, 3, completions::incrementAndGet);
+        tick(2);
+
+        assertTrue(engine.cancel(1L));
+        tick(5);
+
+        assertEquals(0, engine.activeSimulations());
+        assertEquals(2, events.size(), "no progress after the cancel");
+        // Completion is only ever scheduled by the tick that removes a finished run
+        assertEquals(0, completions.get());
+        assertFalse(engine.cancel(1L));
+    }
+
+    @Test
+    void publishesProgressAndReachesThePatientBetweenTheLegs() throws Exception {
+        List<CaseEvent> events = new CopyOnWriteArrayList<>();
+        caseEvents.events(3L).subscribe(events::add);
+        CountDownLatch atPatient = new CountDownLatch(1);
+        CountDownLatch finished = new CountDownLatch(1);
+        // The patient is the middle point of the three-point route and both legs take as long
+        engine.start(3L, 9, POLYLINE, 10, new double[]{40.7, -120.95}, new double[]{300, 300},
+                atPatient::countDown, finished::countDown);
+
+        tick(12);
+        assertTrue(atPatient.await(10, TimeUnit.SECONDS));
+        assertTrue(finished.await(10, TimeUnit.SECONDS));
+        assertEquals(11, events.size(), "one event per tick, from the start to the end of the route");
+
+        CaseEvent first = events.get(0);
+        assertEquals(CaseStatus.ENROUTE_TO_PATIENT, first.getStatus());
+        assertEquals(0.0, first.getProgress(), 1e-9);
+        assertEquals(10 * TICK_MILLIS / 1000.0, first.getEtaSeconds(), 1e-9);
+        assertEquals(5 * TICK_MILLIS / 1000.0, first.getEtaToPatientSeconds(), 1e-9);
+
+        CaseEvent atMiddle = events.get(5);
+        assertEquals(CaseStatus.ENROUTE_TO_HOSPITAL, atMiddle.getStatus());
+        assertNull(atMiddle.getEtaToPatientSeconds());
+        assertEquals(40.7, atMiddle.getLatitude(), 1e-9);
+
+        CaseEvent last = events.get(10);
+        assertEquals(1.0, last.getProgress(), 1e-9);
+        assertEquals(0.0, last.getEtaSeconds(), 1e-9);
+        assertTrue(engine.progress(3L).isEmpty());
+    }
+
+    @Test
+    void withoutLegDurationsMovesAtOneSpeedOverTheWholeRoute() {
+        List<CaseEvent> events = new CopyOnWriteArrayList<>();
+        caseEvents.events(4L).subscribe(events::add);
+        engine.start(4L, 9, POLYLINE, 10, new double[]{40.7, -120.95}, null, null);
+
+        tick(12);
+        assertEquals(11, events.size());
+        // The first leg is about 253 km of the route's 789 km, so the patient is reached at tick 3, not
+        // halfway as when each segment took the same time
+        assertEquals(3 * TICK_MILLIS / 1000.0, events.get(0).getEtaToPatientSeconds(), 1e-9);
+        assertEquals(CaseStatus.ENROUTE_TO_HOSPITAL, events.get(3).getStatus());
+        assertEquals(40.7, events.get(3).getLatitude(), 0.3);
+    }
+
+    private void tick(int times) {
+        for (int i = 0; i < times; i++) {
+            engine.tick();
+        }
+    }
+}
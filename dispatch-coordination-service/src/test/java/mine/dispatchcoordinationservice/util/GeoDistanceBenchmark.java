@@ -0,0 +1,101 @@
+package mine.dispatchcoordinationservice.util;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+/**
+ * Scoring one incident against a city's worth of ambulances: {@link RouteUtils#calculateDistance}
+ * (haversine), {@link GeoDistance#equirectangular} per pair, and the {@link GeoDistance#distances}
+ * batch kernel in its scalar and Vector API forms. {@code sortByHaversine} is the shortlist
+ * ranking as it was, with a distance computed in every comparison.
+ * <p>
+ * Not part of the test run; start {@link #main} from the test classpath.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "--add-modules=jdk.incubator.vector")
+public class GeoDistanceBenchmark {
+
+    private static final double TARGET_LAT = 31.63;
+    private static final double TARGET_LNG = -7.99;
+
+    @Param({"2000"})
+    public int candidates;
+
+    private double[] lats;
+    private double[] lngs;
+    private double[] out;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(42);
+        lats = new double[candidates];
+        lngs = new double[candidates];
+        out = new double[candidates];
+        for (int i = 0; i < candidates; i++) {
+            lats[i] = TARGET_LAT + (random.nextDouble() - 0.5) * 0.4;
+            lngs[i] = TARGET_LNG + (random.nextDouble() - 0.5) * 0.4;
+        }
+    }
+
+    @Benchmark
+    public double[] haversine() {
+        for (int i = 0; i < candidates; i++) {
+            out[i] = RouteUtils.calculateDistance(lats[i], lngs[i], TARGET_LAT, TARGET_LNG);
+        }
+        return out;
+    }
+
+    @Benchmark
+    public double[] equirectangular() {
+        for (int i = 0; i < candidates; i++) {
+            out[i] = GeoDistance.equirectangular(lats[i], lngs[i], TARGET_LAT, TARGET_LNG);
+        }
+        return out;
+    }
+
+    @Benchmark
+    public double[] batchScalar() {
+        GeoDistance.distancesScalar(TARGET_LAT, TARGET_LNG, lats, lngs, 0, candidates, out);
+        return out;
+    }
+
+    @Benchmark
+    public double[] batchVector() {
+        GeoDistanceVector.distances(TARGET_LAT, TARGET_LNG, lats, lngs, candidates, out);
+        return out;
+    }
+
+    @Benchmark
+    public Integer[] sortByHaversine() {
+        Integer[] order = IntStream.range(0, candidates).boxed().toArray(Integer[]::new);
+        Arrays.sort(order, Comparator.comparingDouble(
+                (Integer i) -> RouteUtils.calculateDistance(lats[i], lngs[i], TARGET_LAT, TARGET_LNG)));
+        return order;
+    }
+
+    @Benchmark
+    public Integer[] sortByBatchDistance() {
+        GeoDistance.distances(TARGET_LAT, TARGET_LNG, lats, lngs, candidates, out);
+        Integer[] order = IntStream.range(0, candidates).boxed().toArray(Integer[]::new);
+        Arrays.sort(order, Comparator.comparingDouble((Integer i) -> out[i]));
+        return order;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(GeoDistanceBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
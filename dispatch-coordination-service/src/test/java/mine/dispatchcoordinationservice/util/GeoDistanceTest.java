@@ -0,0 +1,97 @@
+package mine.dispatchcoordinationservice.util;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Checks the error bound {@link GeoDistance} documents against the haversine distance, and that the
+ * batch kernel agrees with the pairwise approximation. The build runs this class a second time with
+ * {@code -Dgeo.distance.vectorized=false} to cover the scalar fallback.
+ */
+class GeoDistanceTest {
+
+    @Test
+    void staysWithinTheDocumentedErrorOfHaversine() {
+        Random random = new Random(3);
+        double[] worst = new double[2];
+        for (int i = 0; i < 200_000; i++) {
+            double maxMeters = i % 2 == 0 ? 50_000 : 100_000;
+            double[] from = {(random.nextDouble() * 2 - 1) * 70, (random.nextDouble() * 2 - 1) * 179};
+            double[] to = offset(from, random.nextDouble() * maxMeters, random.nextDouble() * 2 * Math.PI);
+
+            double exact = RouteUtils.calculateDistance(from[0], from[1], to[0], to[1]);
+            if (exact < 1) {
+                continue;
+            }
+            double pairwise = GeoDistance.equirectangular(from[0], from[1], to[0], to[1]);
+            double[] batch = new double[1];
+            GeoDistance.distances(from[0], from[1], new double[]{to[0]}, new double[]{to[1]}, 1, batch);
+            double error = Math.max(Math.abs(pairwise - exact), Math.abs(batch[0] - exact)) / exact;
+            worst[i % 2] = Math.max(worst[i % 2], error);
+        }
+
+        assertTrue(worst[0] < 3e-5, "worst relative error up to 50 km: " + worst[0]);
+        assertTrue(worst[1] < 1e-4, "worst relative error up to 100 km: " + worst[1]);
+    }
+
+    @Test
+    void scoresEveryCandidateLikeTheScalarKernel() {
+        Random random = new Random(4);
+        // Not a multiple of any vector length, so the scalar tail is exercised as well
+        int count = 1_003;
+        double[] lats = new double[count];
+        double[] lngs = new double[count];
+        for (int i = 0; i < count; i++) {
+            lats[i] = 31.63 + (random.nextDouble() - 0.5) * 0.4;
+            lngs[i] = -7.99 + (random.nextDouble() - 0.5) * 0.4;
+        }
+        double[] expected = new double[count];
+        double[] actual = new double[count + 5];
+        GeoDistance.distancesScalar(31.6, -8.0, lats, lngs, 0, count, expected);
+        GeoDistance.distances(31.6, -8.0, lats, lngs, count, actual);
+
+        for (int i = 0; i < count; i++) {
+            assertEquals(expected[i], actual[i], 1e-9 * expected[i]);
+            assertEquals(GeoDistance.equirectangular(31.6, -8.0, lats[i], lngs[i]), actual[i], 1e-6 * actual[i]);
+        }
+        assertEquals(0, actual[count]);
+        assertThrows(IllegalArgumentException.class,
+                () -> GeoDistance.distances(31.6, -8.0, lats, lngs, count + 1, actual));
+    }
+
+    @Test
+    @EnabledIfSystemProperty(named = "geo.distance.vectorized", matches = "false")
+    void usesTheScalarKernelWhenVectorsAreTurnedOff() {
+        assertFalse(GeoDistance.isVectorized());
+
+        Random random = new Random(5);
+        int count = 1_003;
+        double[] lats = new double[count];
+        double[] lngs = new double[count];
+        for (int i = 0; i < count; i++) {
+            lats[i] = 31.63 + (random.nextDouble() - 0.5) * 0.4;
+            lngs[i] = -7.99 + (random.nextDouble() - 0.5) * 0.4;
+        }
+        double[] expected = new double[count];
+        double[] actual = new double[count];
+        GeoDistance.distancesScalar(31.6, -8.0, lats, lngs, 0, count, expected);
+        GeoDistance.distances(31.6, -8.0, lats, lngs, count, actual);
+
+        assertArrayEquals(expected, actual);
+    }
+
+    // The point distanceMeters from origin in direction bearing (radians from north), on a sphere
+    private static double[] offset(double[] origin, double distanceMeters, double bearing) {
+        double angle = distanceMeters / GeoDistance.EARTH_RADIUS_METERS;
+        double lat = Math.toRadians(origin[0]);
+        double lat2 = Math.asin(Math.sin(lat) * Math.cos(angle)
+                + Math.cos(lat) * Math.sin(angle) * Math.cos(bearing));
+        double dLng = Math.atan2(Math.sin(bearing) * Math.sin(angle) * Math.cos(lat),
+                Math.cos(angle) - Math.sin(lat) * Math.sin(lat2));
+        return new double[]{Math.toDegrees(lat2), origin[1] + Math.toDegrees(dLng)};
+    }
+}
@@ -0,0 +1,52 @@
+package mine.dispatchcoordinationservice.util;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Storing a case's route with {@link GeometryCodec} and loading it back as a polyline, for routes
+ * of a few hundred to a few thousand points.
+ * <p>
+ * Not part of the test run; start {@link #main} from the test classpath.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GeometryCodecBenchmark {
+
+    @Param({"200", "1000", "5000"})
+    public int points;
+
+    private String polyline;
+    private byte[] stored;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        polyline = RouteUtils.encodePolyline(GeometryCodecTest.route(points, new Random(points)));
+        stored = GeometryCodec.fromPolyline(polyline);
+    }
+
+    @Benchmark
+    public byte[] store() {
+        return GeometryCodec.fromPolyline(polyline);
+    }
+
+    @Benchmark
+    public String load() {
+        return GeometryCodec.toPolyline(stored);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(GeometryCodecBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
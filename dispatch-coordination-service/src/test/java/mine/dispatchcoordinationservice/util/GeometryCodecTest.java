@@ -0,0 +1,60 @@
+package mine.dispatchcoordinationservice.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Round-trips routes through {@link GeometryCodec} and checks that they take less space than the
+ * encoded polyline. How long storing and loading take is measured by {@link GeometryCodecBenchmark}.
+ */
+class GeometryCodecTest {
+
+    @Test
+    void polylineSurvivesTheRoundTrip() {
+        String polyline = "_p~iF~ps|U_ulLnnqC_mqNvxq`@";
+        byte[] stored = GeometryCodec.fromPolyline(polyline);
+
+        assertEquals(polyline, GeometryCodec.toPolyline(stored));
+        assertEquals(3, GeometryCodec.pointCount(stored));
+    }
+
+    @Test
+    void storesRoutesInLessSpaceThanThePolyline() {
+        for (int points : new int[]{200, 1_000, 5_000}) {
+            String polyline = RouteUtils.encodePolyline(route(points, new Random(points)));
+            byte[] stored = GeometryCodec.fromPolyline(polyline);
+
+            assertEquals(polyline, GeometryCodec.toPolyline(stored), points + " points");
+            assertTrue(stored.length < polyline.length(), points + " points");
+        }
+    }
+
+    @Test
+    void rejectsUnknownVersions() {
+        byte[] stored = GeometryCodec.fromPolyline("_p~iF~ps|U_ulLnnqC_mqNvxq`@");
+        stored[0] = 9;
+
+        assertThrows(IllegalArgumentException.class, () -> GeometryCodec.toPolyline(stored));
+        assertThrows(IllegalArgumentException.class, () -> GeometryCodec.toPolyline(new byte[0]));
+    }
+
+    /**
+     * A road-like random walk around Marrakech, with steps of a few to a few hundred metres.
+     */
+    static List<double[]> route(int points, Random random) {
+        List<double[]> route = new ArrayList<>(points);
+        double lat = 31.63;
+        double lng = -7.99;
+        for (int i = 0; i < points; i++) {
+            route.add(new double[]{lat, lng});
+            lat += random.nextGaussian() * 0.0015;
+            lng += random.nextGaussian() * 0.0015;
+        }
+        return route;
+    }
+}
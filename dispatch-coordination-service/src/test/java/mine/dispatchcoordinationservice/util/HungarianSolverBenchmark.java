@@ -0,0 +1,55 @@
+package mine.dispatchcoordinationservice.util;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Batch assignment of a mass-casualty incident with {@link HungarianSolver}: 500 incidents over
+ * 2,000 units with straight-line ETAs, against one-at-a-time greedy dispatch of the same batch.
+ * <p>
+ * Not part of the test run; start {@link #main} from the test classpath.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HungarianSolverBenchmark {
+
+    @Param({"500"})
+    public int incidents;
+
+    @Param({"2000"})
+    public int units;
+
+    private double[][] eta;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(42);
+        eta = HungarianSolverTest.etaMatrix(HungarianSolverTest.positions(incidents, random),
+                HungarianSolverTest.positions(units, random));
+    }
+
+    @Benchmark
+    public int[] hungarian() {
+        return HungarianSolver.solve(eta);
+    }
+
+    @Benchmark
+    public int[] greedy() {
+        return HungarianSolverTest.greedy(eta);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(HungarianSolverBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,160 @@
+package mine.dispatchcoordinationservice.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Checks {@link HungarianSolver} against brute force on small matrices, and its total ETA against
+ * greedy dispatch on a city-sized batch. The mass-casualty case of 500 incidents over 2,000 units is
+ * timed by {@link HungarianSolverBenchmark}.
+ */
+class HungarianSolverTest {
+
+    private static final double INF = Double.POSITIVE_INFINITY;
+    private static final double SPEED_MPS = 11.1;
+
+    @Test
+    void matchesBruteForceOnSmallMatrices() {
+        Random random = new Random(7);
+        for (int trial = 0; trial < 200; trial++) {
+            int rows = 1 + random.nextInt(5);
+            int columns = 1 + random.nextInt(6);
+            double[][] cost = new double[rows][columns];
+            for (double[] row : cost) {
+                for (int j = 0; j < columns; j++) {
+                    row[j] = random.nextInt(10) == 0 ? INF : random.nextInt(100);
+                }
+            }
+
+            int[] assignment = HungarianSolver.solve(cost);
+
+            assertValid(cost, assignment);
+            double[] best = bruteForce(cost, 0, new boolean[columns]);
+            assertEquals(best[0], assigned(assignment), "assigned rows, trial " + trial);
+            assertEquals(best[1], total(cost, assignment), 1e-9, "total cost, trial " + trial);
+        }
+    }
+
+    @Test
+    void leavesRowsWithoutAllowedColumnUnassigned() {
+        double[][] cost = {
+                {INF, INF},
+                {3, 1},
+                {2, INF},
+        };
+
+        assertArrayEquals(new int[]{-1, 1, 0}, HungarianSolver.solve(cost));
+    }
+
+    @Test
+    void beatsGreedyDispatchOnACityBatch() {
+        int incidents = 60;
+        int units = 240;
+        Random random = new Random(42);
+        double[][] eta = etaMatrix(positions(incidents, random), positions(units, random));
+
+        int[] assignment = HungarianSolver.solve(eta);
+
+        assertValid(eta, assignment);
+        assertEquals(incidents, assigned(assignment));
+        assertTrue(total(eta, assignment) <= total(eta, greedy(eta)) + 1e-6);
+    }
+
+    /**
+     * Straight-line drive time from every incident to every unit.
+     */
+    static double[][] etaMatrix(double[][] incidentPositions, double[][] unitPositions) {
+        double[][] eta = new double[incidentPositions.length][unitPositions.length];
+        for (int i = 0; i < incidentPositions.length; i++) {
+            for (int j = 0; j < unitPositions.length; j++) {
+                eta[i][j] = RouteUtils.calculateDistance(incidentPositions[i][0], incidentPositions[i][1],
+                        unitPositions[j][0], unitPositions[j][1]) / SPEED_MPS;
+            }
+        }
+        return eta;
+    }
+
+    /**
+     * Random positions within about 15 km of central Marrakech.
+     */
+    static double[][] positions(int count, Random random) {
+        double[][] positions = new double[count][];
+        for (int i = 0; i < count; i++) {
+            positions[i] = new double[]{31.63 + (random.nextDouble() - 0.5) * 0.27,
+                    -7.99 + (random.nextDouble() - 0.5) * 0.32};
+        }
+        return positions;
+    }
+
+    /**
+     * One-at-a-time dispatch in arrival order: each incident takes the nearest unit still free.
+     */
+    static int[] greedy(double[][] cost) {
+        int[] assignment = new int[cost.length];
+        boolean[] taken = new boolean[cost[0].length];
+        for (int i = 0; i < cost.length; i++) {
+            int best = -1;
+            for (int j = 0; j < cost[i].length; j++) {
+                if (!taken[j] && (best < 0 || cost[i][j] < cost[i][best])) {
+                    best = j;
+                }
+            }
+            taken[best] = true;
+            assignment[i] = best;
+        }
+        return assignment;
+    }
+
+    /**
+     * The most rows that can be assigned through allowed cells, and the least total cost doing so.
+     */
+    private static double[] bruteForce(double[][] cost, int row, boolean[] taken) {
+        if (row == cost.length) {
+            return new double[]{0, 0};
+        }
+        double[] best = bruteForce(cost, row + 1, taken);
+        for (int j = 0; j < taken.length; j++) {
+            if (!taken[j] && cost[row][j] != INF) {
+                taken[j] = true;
+                double[] rest = bruteForce(cost, row + 1, taken);
+                taken[j] = false;
+                double[] candidate = {rest[0] + 1, rest[1] + cost[row][j]};
+                if (candidate[0] > best[0] || candidate[0] == best[0] && candidate[1] < best[1]) {
+                    best = candidate;
+                }
+            }
+        }
+        return best;
+    }
+
+    private static void assertValid(double[][] cost, int[] assignment) {
+        assertEquals(cost.length, assignment.length);
+        Set<Integer> used = new HashSet<>();
+        for (int i = 0; i < assignment.length; i++) {
+            if (assignment[i] >= 0) {
+                assertTrue(used.add(assignment[i]), "column assigned twice: " + Arrays.toString(assignment));
+                assertNotEquals(INF, cost[i][assignment[i]]);
+            }
+        }
+    }
+
+    private static int assigned(int[] assignment) {
+        return (int) Arrays.stream(assignment).filter(column -> column >= 0).count();
+    }
+
+    static double total(double[][] cost, int[] assignment) {
+        double total = 0;
+        for (int i = 0; i < assignment.length; i++) {
+            if (assignment[i] >= 0) {
+                total += cost[i][assignment[i]];
+            }
+        }
+        return total;
+    }
+}
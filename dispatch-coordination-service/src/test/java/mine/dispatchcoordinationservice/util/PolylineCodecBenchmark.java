@@ -0,0 +1,178 @@
+package mine.dispatchcoordinationservice.util;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput and allocation of {@link PolylineCodec} against the previous list-of-{@code double[]}
+ * implementation ({@link Legacy}) on 5,000-point routes. The GC profiler reports bytes allocated
+ * per operation ({@code gc.alloc.rate.norm}).
+ * <p>
+ * Not part of the test run; start {@link #main} from the test classpath.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PolylineCodecBenchmark {
+
+    @Param({"5000"})
+    public int points;
+
+    private String toPatient;
+    private String toHospital;
+    private List<double[]> route;
+    private int[] coords;
+    private int[] buffer;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(42);
+        List<double[]> first = randomWalk(points, 31.63, -7.99, random);
+        double[] junction = first.get(first.size() - 1);
+        List<double[]> second = randomWalk(points, junction[0], junction[1], random);
+        toPatient = Legacy.encodePolyline(first);
+        toHospital = Legacy.encodePolyline(second);
+        route = first;
+        coords = PolylineCodec.decode(toPatient);
+        buffer = new int[2 * points];
+    }
+
+    @Benchmark
+    public List<double[]> legacyDecode() {
+        return Legacy.decodePolyline(toPatient);
+    }
+
+    @Benchmark
+    public int codecDecodeIntoReusedBuffer() {
+        return PolylineCodec.decode(toPatient, buffer);
+    }
+
+    @Benchmark
+    public String legacyEncode() {
+        return Legacy.encodePolyline(route);
+    }
+
+    @Benchmark
+    public String codecEncode() {
+        return PolylineCodec.encode(coords, points);
+    }
+
+    @Benchmark
+    public String legacyMerge() {
+        return Legacy.mergePolylines(toPatient, toHospital);
+    }
+
+    @Benchmark
+    public String codecMerge() {
+        return PolylineCodec.merge(toPatient, toHospital);
+    }
+
+    /**
+     * A road-like random walk with steps of a few to a few hundred metres.
+     */
+    static List<double[]> randomWalk(int points, double lat, double lng, Random random) {
+        List<double[]> walk = new ArrayList<>(points);
+        for (int i = 0; i < points; i++) {
+            walk.add(new double[]{Math.round(lat * 1e5) / 1e5, Math.round(lng * 1e5) / 1e5});
+            lat += (random.nextDouble() - 0.5) * 0.004;
+            lng += (random.nextDouble() - 0.5) * 0.004;
+        }
+        return walk;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(PolylineCodecBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+
+    /**
+     * The codec {@link RouteUtils} used before {@link PolylineCodec}: one {@code double[]} per point,
+     * and a new {@code StringBuilder} and {@code String} per encoded value.
+     */
+    static final class Legacy {
+
+        private Legacy() {
+        }
+
+        static String mergePolylines(String polylineA, String polylineB) {
+            List<double[]> pointsA = decodePolyline(polylineA);
+            List<double[]> pointsB = decodePolyline(polylineB);
+            if (!pointsA.isEmpty() && !pointsB.isEmpty()) {
+                double[] lastA = pointsA.get(pointsA.size() - 1);
+                double[] firstB = pointsB.get(0);
+                if (Math.abs(lastA[0] - firstB[0]) < 1e-7 && Math.abs(lastA[1] - firstB[1]) < 1e-7) {
+                    pointsB.remove(0);
+                }
+            }
+            List<double[]> merged = new ArrayList<>(pointsA);
+            merged.addAll(pointsB);
+            return encodePolyline(merged);
+        }
+
+        static List<double[]> decodePolyline(String encoded) {
+            List<double[]> poly = new ArrayList<>();
+            int index = 0, len = encoded.length();
+            int lat = 0, lng = 0;
+            while (index < len) {
+                int b, shift = 0, result = 0;
+                do {
+                    b = encoded.charAt(index++) - 63;
+                    result |= (b & 0x1f) << shift;
+                    shift += 5;
+                } while (b >= 0x20);
+                lat += ((result & 1) != 0) ? ~(result >> 1) : (result >> 1);
+                shift = 0;
+                result = 0;
+                do {
+                    b = encoded.charAt(index++) - 63;
+                    result |= (b & 0x1f) << shift;
+                    shift += 5;
+                } while (b >= 0x20);
+                lng += ((result & 1) != 0) ? ~(result >> 1) : (result >> 1);
+                poly.add(new double[]{lat / 1e5, lng / 1e5});
+            }
+            return poly;
+        }
+
+        static String encodePolyline(List<double[]> points) {
+            StringBuilder encoded = new StringBuilder();
+            int prevLat = 0, prevLng = 0;
+            for (double[] p : points) {
+                int lat = (int) Math.round(p[0] * 1e5);
+                int lng = (int) Math.round(p[1] * 1e5);
+                encoded.append(encodeSignedNumber(lat - prevLat));
+                encoded.append(encodeSignedNumber(lng - prevLng));
+                prevLat = lat;
+                prevLng = lng;
+            }
+            return encoded.toString();
+        }
+
+        private static String encodeSignedNumber(int num) {
+            int sgnNum = num << 1;
+            if (num < 0) {
+                sgnNum = ~sgnNum;
+            }
+            StringBuilder sb = new StringBuilder();
+            while (sgnNum >= 0x20) {
+                sb.append((char) ((0x20 | (sgnNum & 0x1f)) + 63));
+                sgnNum >>= 5;
+            }
+            sb.append((char) (sgnNum + 63));
+            return sb.toString();
+        }
+    }
+}
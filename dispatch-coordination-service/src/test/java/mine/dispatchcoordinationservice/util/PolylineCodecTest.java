@@ -0,0 +1,54 @@
+package mine.dispatchcoordinationservice.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Checks {@link PolylineCodec} against the previous list-based implementation it replaces.
+ */
+class PolylineCodecTest {
+
+    @Test
+    void decodesAndEncodesLikeTheListCodec() {
+        Random random = new Random(1);
+        for (int points : new int[]{0, 1, 2, 5_000}) {
+            String polyline = PolylineCodecBenchmark.Legacy.encodePolyline(
+                    PolylineCodecBenchmark.randomWalk(points, 31.63, -7.99, random));
+
+            int[] buffer = new int[2 * points + 8];
+            assertEquals(points, PolylineCodec.pointCount(polyline));
+            assertEquals(points, PolylineCodec.decode(polyline, buffer));
+            assertEquals(polyline, PolylineCodec.encode(buffer, points));
+
+            List<double[]> expected = PolylineCodecBenchmark.Legacy.decodePolyline(polyline);
+            List<double[]> decoded = RouteUtils.decodePolyline(polyline);
+            assertEquals(expected.size(), decoded.size());
+            for (int i = 0; i < expected.size(); i++) {
+                assertArrayEquals(expected.get(i), decoded.get(i));
+            }
+            assertEquals(polyline, RouteUtils.encodePolyline(expected));
+        }
+    }
+
+    @Test
+    void mergesLikeTheListCodec() {
+        Random random = new Random(2);
+        List<double[]> toPatient = PolylineCodecBenchmark.randomWalk(300, 31.63, -7.99, random);
+        double[] patient = toPatient.get(toPatient.size() - 1);
+        String first = PolylineCodecBenchmark.Legacy.encodePolyline(toPatient);
+        String sharedJunction = PolylineCodecBenchmark.Legacy.encodePolyline(
+                PolylineCodecBenchmark.randomWalk(200, patient[0], patient[1], random));
+        String separateStart = PolylineCodecBenchmark.Legacy.encodePolyline(
+                PolylineCodecBenchmark.randomWalk(200, patient[0] + 0.01, patient[1] - 0.02, random));
+
+        for (String second : new String[]{sharedJunction, separateStart, "", "_p~iF~ps|U"}) {
+            assertEquals(PolylineCodecBenchmark.Legacy.mergePolylines(first, second), PolylineCodec.merge(first, second));
+            assertEquals(PolylineCodecBenchmark.Legacy.mergePolylines(second, first), PolylineCodec.merge(second, first));
+        }
+        assertEquals(499, PolylineCodec.pointCount(PolylineCodec.merge(first, sharedJunction)));
+    }
+}
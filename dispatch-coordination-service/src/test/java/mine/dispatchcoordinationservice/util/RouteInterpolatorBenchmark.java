@@ -0,0 +1,52 @@
+package mine.dispatchcoordinationservice.util;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One {@link RouteInterpolator} position lookup by elapsed time, as the simulation engine does for
+ * every running case on every tick, on routes of up to 5,000 points.
+ * <p>
+ * Not part of the test run; start {@link #main} from the test classpath.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RouteInterpolatorBenchmark {
+
+    private static final double DURATION_SECONDS = 600;
+
+    @Param({"50", "5000"})
+    public int points;
+
+    private RouteInterpolator route;
+    private final double[] position = new double[2];
+    private double seconds;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        double[][] walk = RouteInterpolatorTest.randomWalk(points, new Random(5));
+        route = RouteInterpolator.of(walk[0], walk[1]).withDuration(DURATION_SECONDS);
+    }
+
+    @Benchmark
+    public double[] positionAtTime() {
+        // A step that is not a divisor of the duration, so lookups land all along the route
+        seconds = (seconds + 7.3) % DURATION_SECONDS;
+        return route.positionAtTime(seconds, position);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(RouteInterpolatorBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
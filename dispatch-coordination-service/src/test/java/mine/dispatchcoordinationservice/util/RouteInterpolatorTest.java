@@ -0,0 +1,86 @@
+package mine.dispatchcoordinationservice.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Checks distance and time lookups on {@link RouteInterpolator}. The cost of one lookup on a long
+ * route is measured by {@link RouteInterpolatorBenchmark}.
+ */
+class RouteInterpolatorTest {
+
+    // A 100 m segment followed by a 900 m one, due north along a meridian
+    private static final double METERS_PER_DEGREE = RouteUtils.calculateDistance(0, 0, 1, 0);
+    private static final double[] LATITUDES = {31.0, 31.0 + 100 / METERS_PER_DEGREE, 31.0 + 1_000 / METERS_PER_DEGREE};
+    private static final double[] LONGITUDES = {-8.0, -8.0, -8.0};
+
+    @Test
+    void movesByDistanceRatherThanBySegment() {
+        RouteInterpolator route = RouteInterpolator.of(LATITUDES, LONGITUDES);
+        double[] position = new double[2];
+
+        assertEquals(1_000, route.length(), 1e-6);
+        assertEquals(100, route.distanceAt(1), 1e-6);
+        // Halfway along the route is well into the long segment, not at the middle point
+        route.positionAtDistance(500, position);
+        assertEquals(31.0 + 500 / METERS_PER_DEGREE, position[0], 1e-9);
+        assertEquals(-8.0, position[1], 1e-9);
+
+        assertArrayEquals(new double[]{LATITUDES[0], LONGITUDES[0]}, route.positionAtDistance(-5, position));
+        assertArrayEquals(new double[]{LATITUDES[2], LONGITUDES[2]}, route.positionAtDistance(5_000, position));
+    }
+
+    @Test
+    void pacesEachLegByItsDriveTime() {
+        // 60 s for the first 100 m (e.g. leaving the station), 90 s for the remaining 900 m
+        RouteInterpolator route = RouteInterpolator.of(LATITUDES, LONGITUDES)
+                .withLegs(new double[]{100, 1_000}, new double[]{60, 90});
+
+        assertEquals(150, route.duration(), 1e-9);
+        assertEquals(50, route.distanceAtTime(30), 1e-9);
+        assertEquals(100, route.distanceAtTime(60), 1e-9);
+        assertEquals(550, route.distanceAtTime(105), 1e-9);
+        assertEquals(1_000, route.distanceAtTime(500), 1e-9);
+        assertEquals(60, route.timeAtDistance(100), 1e-9);
+        assertEquals(LATITUDES[1], route.positionAtTime(60, new double[2])[0], 1e-9);
+
+        RouteInterpolator even = route.withDuration(200);
+        assertEquals(500, even.distanceAtTime(100), 1e-9);
+        assertEquals(1, even.nearestPoint(LATITUDES[1] + 1e-6, -8.0));
+    }
+
+    @Test
+    void findsEveryPointOfALongRoute() {
+        double[][] walk = randomWalk(5_000, new Random(5));
+        double[] latitudes = walk[0];
+        double[] longitudes = walk[1];
+        RouteInterpolator route = RouteInterpolator.of(latitudes, longitudes).withDuration(600);
+
+        double[] position = new double[2];
+        for (int i = 0; i < latitudes.length; i += 97) {
+            route.positionAtDistance(route.distanceAt(i), position);
+            assertEquals(latitudes[i], position[0], 1e-9);
+            assertEquals(longitudes[i], position[1], 1e-9);
+            assertEquals(route.distanceAt(i), route.distanceAtTime(route.timeAtDistance(route.distanceAt(i))), 1e-6);
+        }
+    }
+
+    /**
+     * {@code [latitudes, longitudes]} of a random walk from central Marrakech with steps of up to
+     * a few hundred metres.
+     */
+    static double[][] randomWalk(int points, Random random) {
+        double[] latitudes = new double[points];
+        double[] longitudes = new double[points];
+        latitudes[0] = 31.63;
+        longitudes[0] = -7.99;
+        for (int i = 1; i < points; i++) {
+            latitudes[i] = latitudes[i - 1] + (random.nextDouble() - 0.5) * 0.004;
+            longitudes[i] = longitudes[i - 1] + (random.nextDouble() - 0.5) * 0.004;
+        }
+        return new double[][]{latitudes, longitudes};
+    }
+}
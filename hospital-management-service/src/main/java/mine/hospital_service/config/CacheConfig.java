@@ -0,0 +1,27 @@
+package mine.hospital_service.config;
+
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.filter.ShallowEtagHeaderFilter;
+
+/**
+ * In-process caching of hospital lookups (simple {@code ConcurrentMap} caches), evicted whenever a
+ * hospital is created, changed or deleted; see {@link mine.hospital_service.service.HospitalService}.
+ * <p>
+ * The cached lookups also answer with an ETag of their body, so a client revalidating an unchanged
+ * list gets an empty 304 back.
+ */
+@Configuration
+@EnableCaching
+public class CacheConfig {
+
+    @Bean
+    public FilterRegistrationBean<ShallowEtagHeaderFilter> hospitalLookupEtagFilter() {
+        FilterRegistrationBean<ShallowEtagHeaderFilter> registration =
+                new FilterRegistrationBean<>(new ShallowEtagHeaderFilter());
+        registration.addUrlPatterns("/hospitals/speciality", "/hospitals/specialities");
+        return registration;
+    }
+}
@@ -80,8 +80,9 @@ public class HospitalController {
         return ResponseEntity.ok(hospitalService.findBySpeciality(speciality));
     }
     @GetMapping(value = "by-hospital/{hospitalId}", produces = "application/json")
-    public List<AmbulanceDTO> getAmbulancesByHospital(@PathVariable Long hospitalId) {
-        return hospitalService.findByAmbulanceIds(hospitalId);
+    public List<AmbulanceDTO> getAmbulancesByHospital(@PathVariable Long hospitalId,
+                                                      @RequestParam(defaultValue = "false") boolean available) {
+        return hospitalService.findByAmbulanceIds(hospitalId, available);
     }
 
     @GetMapping(value = "/specialities", produces = "application/json")
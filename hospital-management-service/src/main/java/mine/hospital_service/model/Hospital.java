@@ -1,12 +1,14 @@
 package mine.hospital_service.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import lombok.Data;
 import java.util.List;
+import java.util.Locale;
 
 @Entity
 @Data
-@Table(name = "hospitals")
+@Table(name = "hospitals", indexes = @Index(name = "idx_hospitals_speciality_key", columnList = "speciality_key"))
 public class Hospital {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -30,6 +32,11 @@ public class Hospital {
     @Column(nullable = false)
     private String speciality;
 
+    // Trimmed, lower-case copy of speciality so lookups can use an index
+    @JsonIgnore
+    @Column(name = "speciality_key", nullable = false)
+    private String specialityKey;
+
     @ElementCollection
     @CollectionTable(name = "hospital_ambulances", joinColumns = @JoinColumn(name = "hospital_id"))
     @Column(name = "ambulance_id")
@@ -98,4 +105,18 @@ public class Hospital {
     public void setSpeciality(String speciality) {
         this.speciality = speciality;
     }
+
+    public String getSpecialityKey() {
+        return specialityKey;
+    }
+
+    @PrePersist
+    @PreUpdate
+    void normalizeSpeciality() {
+        this.specialityKey = specialityKey(speciality);
+    }
+
+    public static String specialityKey(String speciality) {
+        return speciality == null ? null : speciality.trim().toLowerCase(Locale.ROOT);
+    }
 }
@@ -3,6 +3,10 @@ package mine.hospital_service.service;
 import mine.hospital_service.dto.AmbulanceDTO;
 import mine.hospital_service.model.Hospital;
 import mine.hospital_service.repository.HospitalRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.stereotype.Service;
 import org.springframework.web.reactive.function.client.WebClient;
 
@@ -10,9 +14,18 @@ import java.util.List;
 import java.util.Optional;
 import java.util.stream.Collectors;
 
+/**
+ * Hospital lookups by speciality and the list of specialities are cached in process; every write
+ * to a hospital evicts them.
+ */
 @Service
 public class HospitalService {
 
+    private static final Logger log = LoggerFactory.getLogger(HospitalService.class);
+
+    public static final String HOSPITALS_BY_SPECIALITY_CACHE = "hospitalsBySpeciality";
+    public static final String SPECIALITIES_CACHE = "specialities";
+
     private final HospitalRepository hospitalRepository;
     private final WebClient webClient;
 
@@ -30,10 +43,12 @@ public class HospitalService {
         return hospitalRepository.findById(id);
     }
 
+    @CacheEvict(cacheNames = {HOSPITALS_BY_SPECIALITY_CACHE, SPECIALITIES_CACHE}, allEntries = true)
     public Hospital createHospital(Hospital hospital) {
         return hospitalRepository.save(hospital);
     }
 
+    @CacheEvict(cacheNames = {HOSPITALS_BY_SPECIALITY_CACHE, SPECIALITIES_CACHE}, allEntries = true)
     public Optional<Hospital> updateHospital(Long id, Hospital updatedHospital) {
         return hospitalRepository.findById(id)
                 .map(existingHospital -> {
@@ -48,6 +63,7 @@ public class HospitalService {
                 });
     }
 
+    @CacheEvict(cacheNames = {HOSPITALS_BY_SPECIALITY_CACHE, SPECIALITIES_CACHE}, allEntries = true)
     public boolean deleteHospital(Long id) {
         return hospitalRepository.findById(id)
                 .map(hospital -> {
@@ -56,6 +72,8 @@ public class HospitalService {
                 }).orElse(false);
     }
 
+    // Cached hospitals carry their fleets, so fleet changes evict as well
+    @CacheEvict(cacheNames = HOSPITALS_BY_SPECIALITY_CACHE, allEntries = true)
     public Optional<Hospital> addAmbulanceToHospital(Long hospitalId, Integer ambulanceId) {
         return hospitalRepository.findById(hospitalId)
                 .map(hospital -> {
@@ -67,6 +85,7 @@ public class HospitalService {
                 });
     }
 
+    @CacheEvict(cacheNames = HOSPITALS_BY_SPECIALITY_CACHE, allEntries = true)
     public Optional<Hospital> removeAmbulanceFromHospital(Long hospitalId, Integer ambulanceId) {
         return hospitalRepository.findById(hospitalId)
                 .map(hospital -> {
@@ -92,27 +111,51 @@ public class HospitalService {
         }
     }
 
+    @Cacheable(cacheNames = HOSPITALS_BY_SPECIALITY_CACHE, condition = "#speciality != null && !#speciality.isBlank()",
+            key = "T(mine.hospital_service.model.Hospital).specialityKey(#speciality)")
     public List<Hospital> findBySpeciality(String speciality) {
         if (speciality == null || speciality.trim().isEmpty()) {
             throw new IllegalArgumentException("Speciality must not be null or empty.");
         }
-        return hospitalRepository.findBySpecialityCaseInsensitive(speciality.trim());
+        return List.copyOf(hospitalRepository.findBySpecialityKey(Hospital.specialityKey(speciality)));
     }
 
 
-    public List<AmbulanceDTO> findByAmbulanceIds(Long hospitalId) {
+    /**
+     * Fetches a batch of ambulances from ambulance-service in one call instead of one call per ID.
+     */
+    public List<AmbulanceDTO> fetchAmbulancesByIds(List<Integer> ambulanceIds, boolean availableOnly) {
+        if (ambulanceIds == null || ambulanceIds.isEmpty()) {
+            return List.of();
+        }
+        String ids = ambulanceIds.stream()
+                .map(String::valueOf)
+                .collect(Collectors.joining(","));
+        try {
+            List<AmbulanceDTO> ambulances = webClient.get()
+                    .uri(uriBuilder -> uriBuilder.path("/ambulances")
+                            .queryParam("ids", ids)
+                            .queryParam("available", availableOnly)
+                            .build())
+                    .retrieve()
+                    .bodyToFlux(AmbulanceDTO.class)
+                    .collectList()
+                    .block();
+            return ambulances != null ? ambulances : List.of();
+        } catch (Exception e) {
+            log.warn("Error fetching ambulance batch {}", ids, e);
+            return List.of();
+        }
+    }
+
+    public List<AmbulanceDTO> findByAmbulanceIds(Long hospitalId, boolean availableOnly) {
         return hospitalRepository.findById(hospitalId)
-                .map(hospital -> {
-                    return hospital.getAmbulanceIds().stream()
-                            .map(ambulanceId -> fetchAmbulanceDetails(ambulanceId).orElse(null))
-                            .toList();
-                }).orElse(List.of());
+                .map(hospital -> fetchAmbulancesByIds(hospital.getAmbulanceIds(), availableOnly))
+                .orElse(List.of());
     }
 
+    @Cacheable(SPECIALITIES_CACHE)
     public List<String> getAllSpecialities() {
-        return hospitalRepository.findAll().stream()
-                .map(Hospital::getSpeciality)
-                .distinct()
-                .collect(Collectors.toList());
+        return List.copyOf(hospitalRepository.findDistinctSpecialities());
     }
 }
@@ -0,0 +1,103 @@
+package mine.hospital_service.service;
+
+import mine.hospital_service.dto.AmbulanceDTO;
+import mine.hospital_service.model.Hospital;
+import mine.hospital_service.repository.HospitalRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.ExchangeFunction;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.util.UriComponentsBuilder;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Compares the upstream calls of the per-ID ambulance lookup with the batch endpoint for a hospital
+ * with a 50-ambulance fleet.
+ */
+class AmbulanceBatchLookupTest {
+
+    private static final int FLEET_SIZE = 50;
+
+    private final AtomicInteger upstreamCalls = new AtomicInteger();
+    private HospitalService hospitalService;
+    private List<Integer> fleet;
+
+    @BeforeEach
+    void setUp() {
+        fleet = IntStream.rangeClosed(1, FLEET_SIZE).boxed().collect(Collectors.toCollection(ArrayList::new));
+
+        Hospital hospital = new Hospital();
+        hospital.setId(1);
+        hospital.setAmbulanceIds(fleet);
+
+        HospitalRepository hospitalRepository = mock(HospitalRepository.class);
+        when(hospitalRepository.findById(1L)).thenReturn(Optional.of(hospital));
+
+        WebClient.Builder webClientBuilder = WebClient.builder().exchangeFunction(stubbedAmbulanceService());
+        hospitalService = new HospitalService(webClientBuilder, hospitalRepository);
+    }
+
+    @Test
+    void batchLookupReplacesOneCallPerAmbulance() {
+        List<AmbulanceDTO> before = perIdLookup();
+        int beforeCalls = upstreamCalls.getAndSet(0);
+
+        List<AmbulanceDTO> after = hospitalService.findByAmbulanceIds(1L, false);
+
+        assertEquals(FLEET_SIZE, before.size());
+        assertEquals(FLEET_SIZE, after.size());
+        assertEquals(fleet, after.stream().map(AmbulanceDTO::getId).toList());
+        assertEquals(FLEET_SIZE, beforeCalls);
+        assertEquals(1, upstreamCalls.get());
+    }
+
+    /**
+     * The lookup as it was before the batch endpoint existed: one blocking GET per ambulance ID.
+     */
+    private List<AmbulanceDTO> perIdLookup() {
+        return fleet.stream()
+                .map(id -> hospitalService.fetchAmbulanceDetails(id).orElse(null))
+                .toList();
+    }
+
+    private ExchangeFunction stubbedAmbulanceService() {
+        return request -> {
+            upstreamCalls.incrementAndGet();
+            String ids = UriComponentsBuilder.fromUri(request.url()).build().getQueryParams().getFirst("ids");
+            String body;
+            if (ids != null) {
+                body = Arrays.stream(ids.split(","))
+                        .map(AmbulanceBatchLookupTest::ambulanceJson)
+                        .collect(Collectors.joining(",", "[", "]"));
+            } else {
+                String path = request.url().getPath();
+                body = ambulanceJson(path.substring(path.lastIndexOf('/') + 1));
+            }
+            ClientResponse response = ClientResponse.create(HttpStatus.OK)
+                    .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                    .body(body)
+                    .build();
+            return Mono.just(response);
+        };
+    }
+
+    private static String ambulanceJson(String id) {
+        return "{\"id\":" + id + ",\"available\":true,\"latitude\":31.6255,\"longitude\":-7.981,\"driverName\":\"Driver " + id + "\"}";
+    }
+}
@@ -0,0 +1,33 @@
+package mine.routeoptimizationservice.cache;
+
+/**
+ * Rounds coordinates to a fixed number of decimal places so that nearby requests share a cache key.
+ * Four decimals is roughly an 11 m grid.
+ */
+public class CoordinateSnapper {
+
+    private final double scale;
+
+    public CoordinateSnapper(int precision) {
+        if (precision < 0 || precision > 7) {
+            throw new IllegalArgumentException("Precision must be between 0 and 7 decimal places.");
+        }
+        this.scale = Math.pow(10, precision);
+    }
+
+    public double snap(double degrees) {
+        return Math.round(degrees * scale) / scale;
+    }
+
+    /**
+     * Builds a cache key from alternating latitude/longitude values.
+     */
+    public String key(String prefix, double... latLng) {
+        StringBuilder key = new StringBuilder(prefix);
+        for (int i = 0; i < latLng.length; i++) {
+            key.append(i % 2 == 0 ? (i == 0 ? ':' : ';') : ',');
+            key.append(Math.round(latLng[i] * scale));
+        }
+        return key.toString();
+    }
+}
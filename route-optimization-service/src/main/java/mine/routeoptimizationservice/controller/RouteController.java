@@ -1,17 +1,28 @@
 package mine.routeoptimizationservice.controller;
 
+import mine.routeoptimizationservice.cache.RouteCache;
+import mine.routeoptimizationservice.dto.MatrixRequest;
+import mine.routeoptimizationservice.dto.MatrixResponse;
 import mine.routeoptimizationservice.dto.RouteResponse;
+import mine.routeoptimizationservice.dto.Waypoint;
+import mine.routeoptimizationservice.service.MatrixService;
 import mine.routeoptimizationservice.service.RouteService;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.ArrayList;
+import java.util.List;
+
 @RestController
 @RequestMapping("/routes")
 public class RouteController {
 
     private final RouteService routeService;
+    private final MatrixService matrixService;
 
-    public RouteController(RouteService routeService) {
+    public RouteController(RouteService routeService, MatrixService matrixService) {
         this.routeService = routeService;
+        this.matrixService = matrixService;
     }
 
     @GetMapping
@@ -23,4 +34,48 @@ public class RouteController {
     ) {
         return routeService.getOptimizedRoute(originLat, originLng, destLat, destLng);
     }
+
+    /**
+     * One route through ordered waypoints, e.g. {@code ?points=31.62,-7.98;31.63,-7.99;31.64,-7.97},
+     * returned as a single geometry with per-leg distance and duration.
+     */
+    @GetMapping("/waypoints")
+    public ResponseEntity<RouteResponse> getRouteThroughWaypoints(@RequestParam String points) {
+        List<Waypoint> waypoints = new ArrayList<>();
+        try {
+            for (String point : points.split(";")) {
+                String[] latLng = point.split(",");
+                if (latLng.length != 2) {
+                    return ResponseEntity.badRequest().build();
+                }
+                waypoints.add(new Waypoint(Double.parseDouble(latLng[0].trim()), Double.parseDouble(latLng[1].trim())));
+            }
+            return ResponseEntity.ok(routeService.getRoute(waypoints));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    /**
+     * Drive time and distance from every origin to one destination, computed in batched upstream
+     * calls. Used by dispatch to rank candidate ambulances by ETA.
+     */
+    @PostMapping("/matrix")
+    public ResponseEntity<MatrixResponse> getDriveTimes(@RequestBody MatrixRequest request) {
+        try {
+            return ResponseEntity.ok(matrixService.getDriveTimes(request.getOrigins(), request.getDestination()));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    @GetMapping("/matrix/cache/stats")
+    public RouteCache.CacheStats getMatrixCacheStats() {
+        return matrixService.getCacheStats();
+    }
+
+    @GetMapping("/cache/stats")
+    public RouteCache.CacheStats getCacheStats() {
+        return routeService.getCacheStats();
+    }
 }
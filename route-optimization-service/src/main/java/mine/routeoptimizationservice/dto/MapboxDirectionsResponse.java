@@ -20,6 +20,7 @@ public class MapboxDirectionsResponse {
         private String geometry;
         private double distance;
         private double duration;
+        private List<Leg> legs;
 
         public String getGeometry() {
             return geometry;
@@ -44,5 +45,35 @@ public class MapboxDirectionsResponse {
         public void setDuration(double duration) {
             this.duration = duration;
         }
+
+        public List<Leg> getLegs() {
+            return legs;
+        }
+
+        public void setLegs(List<Leg> legs) {
+            this.legs = legs;
+        }
+    }
+
+    @Data
+    public static class Leg {
+        private double distance;
+        private double duration;
+
+        public double getDistance() {
+            return distance;
+        }
+
+        public void setDistance(double distance) {
+            this.distance = distance;
+        }
+
+        public double getDuration() {
+            return duration;
+        }
+
+        public void setDuration(double duration) {
+            this.duration = duration;
+        }
     }
 }
@@ -0,0 +1,36 @@
+package mine.routeoptimizationservice.dto;
+
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class MapboxMatrixResponse {
+    private String code;
+    private List<List<Double>> durations;
+    private List<List<Double>> distances;
+
+    public String getCode() {
+        return code;
+    }
+
+    public void setCode(String code) {
+        this.code = code;
+    }
+
+    public List<List<Double>> getDurations() {
+        return durations;
+    }
+
+    public void setDurations(List<List<Double>> durations) {
+        this.durations = durations;
+    }
+
+    public List<List<Double>> getDistances() {
+        return distances;
+    }
+
+    public void setDistances(List<List<Double>> distances) {
+        this.distances = distances;
+    }
+}
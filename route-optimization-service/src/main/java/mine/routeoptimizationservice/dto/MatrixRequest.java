@@ -0,0 +1,24 @@
+package mine.routeoptimizationservice.dto;
+
+import java.util.List;
+
+public class MatrixRequest {
+    private List<Waypoint> origins;
+    private Waypoint destination;
+
+    public List<Waypoint> getOrigins() {
+        return origins;
+    }
+
+    public void setOrigins(List<Waypoint> origins) {
+        this.origins = origins;
+    }
+
+    public Waypoint getDestination() {
+        return destination;
+    }
+
+    public void setDestination(Waypoint destination) {
+        this.destination = destination;
+    }
+}
@@ -0,0 +1,37 @@
+package mine.routeoptimizationservice.dto;
+
+import java.util.List;
+
+/**
+ * Drive times and distances from each requested origin to the destination, in request order.
+ * An entry is {@code null} when that origin could not be routed.
+ */
+public class MatrixResponse {
+    private List<Double> durations;
+    private List<Double> distances;
+    private String status;
+
+    public List<Double> getDurations() {
+        return durations;
+    }
+
+    public void setDurations(List<Double> durations) {
+        this.durations = durations;
+    }
+
+    public List<Double> getDistances() {
+        return distances;
+    }
+
+    public void setDistances(List<Double> distances) {
+        this.distances = distances;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public void setStatus(String status) {
+        this.status = status;
+    }
+}
@@ -2,12 +2,15 @@ package mine.routeoptimizationservice.dto;
 
 import lombok.Data;
 
+import java.util.List;
+
 @Data
 public class RouteResponse {
     private String geometry;
     private double distance;
     private double duration;
     private String status;
+    private List<RouteLeg> legs;
 
     public String getGeometry() {
         return geometry;
@@ -40,4 +43,12 @@ public class RouteResponse {
     public void setStatus(String status) {
         this.status = status;
     }
+
+    public List<RouteLeg> getLegs() {
+        return legs;
+    }
+
+    public void setLegs(List<RouteLeg> legs) {
+        this.legs = legs;
+    }
 }
@@ -0,0 +1,29 @@
+package mine.routeoptimizationservice.dto;
+
+public class Waypoint {
+    private double latitude;
+    private double longitude;
+
+    public Waypoint() {}
+
+    public Waypoint(double latitude, double longitude) {
+        this.latitude = latitude;
+        this.longitude = longitude;
+    }
+
+    public double getLatitude() {
+        return latitude;
+    }
+
+    public void setLatitude(double latitude) {
+        this.latitude = latitude;
+    }
+
+    public double getLongitude() {
+        return longitude;
+    }
+
+    public void setLongitude(double longitude) {
+        this.longitude = longitude;
+    }
+}
@@ -0,0 +1,184 @@
+package mine.routeoptimizationservice.service;
+
+import mine.routeoptimizationservice.cache.CoordinateSnapper;
+import mine.routeoptimizationservice.cache.RouteCache;
+import mine.routeoptimizationservice.dto.MapboxMatrixResponse;
+import mine.routeoptimizationservice.dto.MatrixResponse;
+import mine.routeoptimizationservice.dto.RouteLeg;
+import mine.routeoptimizationservice.dto.Waypoint;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.stereotype.Service;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Many-origins-to-one-destination drive times, used to rank candidate ambulances by ETA.
+ * <p>
+ * Each origin/destination pair is cached on snapped coordinates; only the misses go upstream,
+ * batched into Mapbox matrix calls. A semaphore caps the number of matrix calls in flight across
+ * all requests so bursts of dispatches stay within the Mapbox quota.
+ */
+@Service
+public class MatrixService {
+
+    private static final Logger log = LoggerFactory.getLogger(MatrixService.class);
+
+    // Mapbox matrix accepts at most 25 coordinates per request; one of them is the destination
+    static final int MAX_ORIGINS_PER_CALL = 24;
+
+    @Value("${mapbox.api-key}")
+    private String mapboxApiKey;
+
+    private final WebClient webClient;
+    private final CoordinateSnapper snapper;
+    private final RouteCache<RouteLeg> etaCache;
+    private final Semaphore upstreamPermits;
+    private final long acquireTimeoutMs;
+    private final int maxOrigins;
+
+    public MatrixService(WebClient.Builder webClientBuilder,
+                         @Value("${route.cache.precision:4}") int cachePrecision,
+                         @Value("${route.cache.max-size:10000}") int cacheMaxSize,
+                         @Value("${route.cache.ttl-ms:600000}") long cacheTtlMs,
+                         @Value("${route.matrix.max-concurrent-calls:4}") int maxConcurrentCalls,
+                         @Value("${route.matrix.acquire-timeout-ms:2000}") long acquireTimeoutMs,
+                         @Value("${route.matrix.max-origins:100}") int maxOrigins) {
+        this.webClient = webClientBuilder.baseUrl("https://api.mapbox.com").build();
+        this.snapper = new CoordinateSnapper(cachePrecision);
+        this.etaCache = new RouteCache<>(cacheMaxSize, cacheTtlMs);
+        this.upstreamPermits = new Semaphore(maxConcurrentCalls, true);
+        this.acquireTimeoutMs = acquireTimeoutMs;
+        this.maxOrigins = maxOrigins;
+    }
+
+    public MatrixResponse getDriveTimes(List<Waypoint> origins, Waypoint destination) {
+        if (origins == null || origins.isEmpty() || origins.size() > maxOrigins || destination == null) {
+            throw new IllegalArgumentException("A matrix request needs a destination and between 1 and "
+                    + maxOrigins + " origins.");
+        }
+        double destLat = snapper.snap(destination.getLatitude());
+        double destLng = snapper.snap(destination.getLongitude());
+
+        RouteLeg[] results = new RouteLeg[origins.size()];
+        String[] keys = new String[origins.size()];
+        List<Integer> missing = new ArrayList<>();
+        for (int i = 0; i < origins.size(); i++) {
+            double originLat = snapper.snap(origins.get(i).getLatitude());
+            double originLng = snapper.snap(origins.get(i).getLongitude());
+            keys[i] = snapper.key("eta", originLat, originLng, destLat, destLng);
+            results[i] = etaCache.getIfPresent(keys[i]);
+            if (results[i] == null) {
+                missing.add(i);
+            }
+        }
+
+        for (int from = 0; from < missing.size(); from += MAX_ORIGINS_PER_CALL) {
+            List<Integer> chunk = missing.subList(from, Math.min(from + MAX_ORIGINS_PER_CALL, missing.size()));
+            RouteLeg[] fetched = fetchChunk(origins, chunk, destLat, destLng);
+            for (int j = 0; j < chunk.size(); j++) {
+                if (fetched[j] != null) {
+                    int index = chunk.get(j);
+                    results[index] = fetched[j];
+                    etaCache.put(keys[index], fetched[j]);
+                }
+            }
+        }
+
+        return toResponse(results);
+    }
+
+    public RouteCache.CacheStats getCacheStats() {
+        return etaCache.stats();
+    }
+
+    private RouteLeg[] fetchChunk(List<Waypoint> origins, List<Integer> chunk, double destLat, double destLng) {
+        RouteLeg[] fetched = new RouteLeg[chunk.size()];
+        try {
+            if (!upstreamPermits.tryAcquire(acquireTimeoutMs, TimeUnit.MILLISECONDS)) {
+                log.warn("Matrix upstream saturated; {} origins left unranked", chunk.size());
+                return fetched;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return fetched;
+        }
+
+        try {
+            StringBuilder coordinates = new StringBuilder();
+            StringBuilder sources = new StringBuilder();
+            for (int j = 0; j < chunk.size(); j++) {
+                Waypoint origin = origins.get(chunk.get(j));
+                coordinates.append(String.format(Locale.ROOT, "%f,%f;",
+                        snapper.snap(origin.getLongitude()), snapper.snap(origin.getLatitude())));
+                sources.append(j > 0 ? ";" : "").append(j);
+            }
+            coordinates.append(String.format(Locale.ROOT, "%f,%f", destLng, destLat));
+
+            String url = String.format(
+                    "/directions-matrix/v1/mapbox/driving/%s?sources=%s&destinations=%d&annotations=duration,distance&access_token=%s",
+                    coordinates, sources, chunk.size(), mapboxApiKey);
+            log.info("Requesting {}-origin matrix from Mapbox", chunk.size());
+
+            MapboxMatrixResponse response = webClient.get()
+                    .uri(url)
+                    .retrieve()
+                    .onStatus(HttpStatusCode::isError,
+                            error -> error.bodyToMono(String.class)
+                                    .flatMap(body -> {
+                                        log.error("Mapbox matrix API error: {}", body);
+                                        return Mono.error(new RuntimeException("Mapbox matrix API error: " + body));
+                                    }))
+                    .bodyToMono(MapboxMatrixResponse.class)
+                    .block();
+
+            if (response == null || !"Ok".equals(response.getCode()) || response.getDurations() == null) {
+                log.error("No durations in Mapbox matrix response");
+                return fetched;
+            }
+            for (int j = 0; j < chunk.size(); j++) {
+                Double duration = cell(response.getDurations(), j);
+                Double distance = cell(response.getDistances(), j);
+                if (duration != null) {
+                    fetched[j] = new RouteLeg(distance == null ? 0 : distance, duration);
+                }
+            }
+        } catch (Exception e) {
+            log.error("Error getting drive-time matrix: {}", e.getMessage(), e);
+        } finally {
+            upstreamPermits.release();
+        }
+        return fetched;
+    }
+
+    private static Double cell(List<List<Double>> rows, int row) {
+        if (rows == null || row >= rows.size() || rows.get(row) == null || rows.get(row).isEmpty()) {
+            return null;
+        }
+        return rows.get(row).get(0);
+    }
+
+    private static MatrixResponse toResponse(RouteLeg[] results) {
+        List<Double> durations = new ArrayList<>(results.length);
+        List<Double> distances = new ArrayList<>(results.length);
+        boolean anyRouted = false;
+        for (RouteLeg result : results) {
+            durations.add(result == null ? null : result.getDuration());
+            distances.add(result == null ? null : result.getDistance());
+            anyRouted |= result != null;
+        }
+        MatrixResponse response = new MatrixResponse();
+        response.setDurations(durations);
+        response.setDistances(distances);
+        response.setStatus(anyRouted ? "SUCCESS" : "FAILURE");
+        return response;
+    }
+}
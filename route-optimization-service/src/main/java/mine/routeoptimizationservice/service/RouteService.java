@@ -1,7 +1,11 @@
 package mine.routeoptimizationservice.service;
 
+import mine.routeoptimizationservice.cache.CoordinateSnapper;
+import mine.routeoptimizationservice.cache.RouteCache;
 import mine.routeoptimizationservice.dto.MapboxDirectionsResponse;
+import mine.routeoptimizationservice.dto.RouteLeg;
 import mine.routeoptimizationservice.dto.RouteResponse;
+import mine.routeoptimizationservice.dto.Waypoint;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
@@ -10,6 +14,9 @@ import org.springframework.stereotype.Service;
 import org.springframework.web.reactive.function.client.WebClient;
 import reactor.core.publisher.Mono;
 
+import java.util.List;
+import java.util.Locale;
+
 @Service
 public class RouteService {
 
@@ -18,15 +25,63 @@ public class RouteService {
     @Value("${mapbox.api-key}")
     private String mapboxApiKey;
 
+    // Mapbox directions accepts at most 25 coordinates per request
+    static final int MAX_WAYPOINTS = 25;
+
     private final WebClient webClient;
+    private final CoordinateSnapper snapper;
+    private final RouteCache<RouteResponse> routeCache;
 
-    public RouteService(WebClient.Builder webClientBuilder) {
+    public RouteService(WebClient.Builder webClientBuilder,
+                        @Value("${route.cache.precision:4}") int cachePrecision,
+                        @Value("${route.cache.max-size:10000}") int cacheMaxSize,
+                        @Value("${route.cache.ttl-ms:600000}") long cacheTtlMs) {
         this.webClient = webClientBuilder.baseUrl("https://api.mapbox.com").build();
+        this.snapper = new CoordinateSnapper(cachePrecision);
+        this.routeCache = new RouteCache<>(cacheMaxSize, cacheTtlMs);
     }
 
+    /**
+     * Returns the driving route between two points. Coordinates are snapped to the configured
+     * precision and successful routes are served from the cache until they expire.
+     */
     public RouteResponse getOptimizedRoute(Double originLat, Double originLng, Double destLat, Double destLng) {
+        return getRoute(List.of(new Waypoint(originLat, originLng), new Waypoint(destLat, destLng)));
+    }
+
+    /**
+     * Returns one route through the ordered waypoints, with distance and duration for each leg,
+     * computed with a single directions call.
+     */
+    public RouteResponse getRoute(List<Waypoint> waypoints) {
+        if (waypoints.size() < 2 || waypoints.size() > MAX_WAYPOINTS) {
+            throw new IllegalArgumentException("A route needs between 2 and " + MAX_WAYPOINTS + " waypoints.");
+        }
+        double[] snapped = new double[waypoints.size() * 2];
+        for (int i = 0; i < waypoints.size(); i++) {
+            snapped[2 * i] = snapper.snap(waypoints.get(i).getLatitude());
+            snapped[2 * i + 1] = snapper.snap(waypoints.get(i).getLongitude());
+        }
+        String key = snapper.key("route", snapped);
+
+        return routeCache.get(key,
+                () -> fetchRoute(snapped),
+                route -> "SUCCESS".equals(route.getStatus()));
+    }
+
+    public RouteCache.CacheStats getCacheStats() {
+        return routeCache.stats();
+    }
+
+    private RouteResponse fetchRoute(double[] latLng) {
         try {
-            String coordinates = String.format("%f,%f;%f,%f", originLng, originLat, destLng, destLat);
+            StringBuilder coordinates = new StringBuilder();
+            for (int i = 0; i < latLng.length; i += 2) {
+                if (i > 0) {
+                    coordinates.append(';');
+                }
+                coordinates.append(String.format(Locale.ROOT, "%f,%f", latLng[i + 1], latLng[i]));
+            }
             String url = String.format(
                     "/directions/v5/mapbox/driving/%s?access_token=%s&overview=full&geometries=polyline",
                     coordinates,
@@ -48,12 +103,13 @@ public class RouteService {
                     .bodyToMono(MapboxDirectionsResponse.class)
                     .block();
 
-            if (response != null && !response.getRoutes().isEmpty()) {
+            if (response != null && response.getRoutes() != null && !response.getRoutes().isEmpty()) {
                 MapboxDirectionsResponse.Route route = response.getRoutes().get(0);
                 RouteResponse routeResponse = new RouteResponse();
                 routeResponse.setGeometry(route.getGeometry());
                 routeResponse.setDistance(route.getDistance());
                 routeResponse.setDuration(route.getDuration());
+                routeResponse.setLegs(toLegs(route));
                 routeResponse.setStatus("SUCCESS");
                 log.info("Successfully retrieved route");
                 return routeResponse;
@@ -70,4 +126,13 @@ public class RouteService {
             return routeResponse;
         }
     }
+
+    private static List<RouteLeg> toLegs(MapboxDirectionsResponse.Route route) {
+        if (route.getLegs() == null || route.getLegs().isEmpty()) {
+            return List.of(new RouteLeg(route.getDistance(), route.getDuration()));
+        }
+        return route.getLegs().stream()
+                .map(leg -> new RouteLeg(leg.getDistance(), leg.getDuration()))
+                .toList();
+    }
 }
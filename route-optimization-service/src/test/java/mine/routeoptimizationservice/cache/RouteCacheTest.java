@@ -0,0 +1,66 @@
+package mine.routeoptimizationservice.cache;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class RouteCacheTest {
+
+    private final AtomicLong now = new AtomicLong();
+    private final AtomicInteger loads = new AtomicInteger();
+
+    @Test
+    void evictsLeastRecentlyUsedEntryWhenFull() {
+        RouteCache<String> cache = new RouteCache<>(2, 60_000, now::get);
+
+        cache.get("a", () -> load("A"), v -> true);
+        cache.get("b", () -> load("B"), v -> true);
+        cache.get("a", () -> load("A"), v -> true); // touch a, b is now eldest
+        cache.get("c", () -> load("C"), v -> true);
+        cache.get("a", () -> load("A"), v -> true);
+
+        RouteCache.CacheStats stats = cache.stats();
+        assertEquals(3, loads.get());
+        assertEquals(2, stats.size());
+        assertEquals(2, stats.hits());
+        assertEquals(3, stats.misses());
+        assertEquals(1, stats.evictions());
+    }
+
+    @Test
+    void expiresEntriesAfterTtl() {
+        RouteCache<String> cache = new RouteCache<>(10, 1_000, now::get);
+
+        cache.get("a", () -> load("A"), v -> true);
+        now.addAndGet(999_000_000L);
+        cache.get("a", () -> load("A"), v -> true);
+        now.addAndGet(2_000_000L);
+        cache.get("a", () -> load("A"), v -> true);
+
+        RouteCache.CacheStats stats = cache.stats();
+        assertEquals(2, loads.get());
+        assertEquals(1, stats.hits());
+        assertEquals(1, stats.evictions());
+    }
+
+    @Test
+    void doesNotStoreRejectedValues() {
+        RouteCache<String> cache = new RouteCache<>(10, 60_000, now::get);
+
+        cache.get("a", () -> load("FAILURE"), v -> !"FAILURE".equals(v));
+        cache.get("a", () -> load("FAILURE"), v -> !"FAILURE".equals(v));
+        assertNull(cache.get("b", () -> null, v -> true));
+
+        assertEquals(2, loads.get());
+        assertEquals(0, cache.stats().size());
+    }
+
+    private String load(String value) {
+        loads.incrementAndGet();
+        return value;
+    }
+}
@@ -0,0 +1,130 @@
+package mine.routeoptimizationservice.controller;
+
+import mine.routeoptimizationservice.dto.RouteLeg;
+import mine.routeoptimizationservice.dto.RouteResponse;
+import mine.routeoptimizationservice.service.MatrixService;
+import mine.routeoptimizationservice.service.RouteService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.ExchangeFunction;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.StringJoiner;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Parses {@code GET /routes/waypoints} against a stub of the Mapbox directions endpoint.
+ */
+class RouteControllerTest {
+
+    private static final String DIRECTIONS_WITH_LEGS_JSON = """
+            {"routes":[{"geometry":"_p~iF~ps|U_ulLnnqC_mqNvxq`@","distance":1200.0,"duration":180.0,
+              "legs":[{"distance":500.0,"duration":75.0},{"distance":700.0,"duration":105.0}]}]}""";
+    private static final String DIRECTIONS_WITHOUT_LEGS_JSON = """
+            {"routes":[{"geometry":"_p~iF~ps|U_ulLnnqC_mqNvxq`@","distance":1200.0,"duration":180.0}]}""";
+
+    private final List<String> upstreamPaths = new CopyOnWriteArrayList<>();
+    private final Locale defaultLocale = Locale.getDefault();
+    private String directionsJson = DIRECTIONS_WITH_LEGS_JSON;
+    private RouteController routeController;
+
+    @BeforeEach
+    void setUp() {
+        WebClient.Builder webClientBuilder = WebClient.builder().exchangeFunction(stubbedDirections());
+        RouteService routeService = new RouteService(webClientBuilder, 4, 100, 60_000);
+        routeController = new RouteController(routeService, mock(MatrixService.class));
+    }
+
+    @AfterEach
+    void tearDown() {
+        Locale.setDefault(defaultLocale);
+    }
+
+    @Test
+    void waypointsAreRoutedInOneCallWithPerLegFigures() {
+        // A decimal comma in the default locale must not leak into the upstream coordinates
+        Locale.setDefault(Locale.GERMANY);
+
+        ResponseEntity<RouteResponse> response = routeController.getRouteThroughWaypoints(
+                "31.62,-7.98; 31.63 , -7.99;31.64,-7.97");
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        RouteResponse route = response.getBody();
+        assertEquals("SUCCESS", route.getStatus());
+        assertEquals(1200.0, route.getDistance());
+        assertEquals(List.of(500.0, 700.0), route.getLegs().stream().map(RouteLeg::getDistance).toList());
+        assertEquals(List.of(75.0, 105.0), route.getLegs().stream().map(RouteLeg::getDuration).toList());
+
+        assertEquals(1, upstreamPaths.size());
+        assertTrue(upstreamPaths.get(0).endsWith("/-7.980000,31.620000;-7.990000,31.630000;-7.970000,31.640000"),
+                upstreamPaths.get(0));
+    }
+
+    @Test
+    void routeWithoutLegsBecomesASingleLeg() {
+        directionsJson = DIRECTIONS_WITHOUT_LEGS_JSON;
+
+        RouteResponse route = routeController.getRouteThroughWaypoints("31.62,-7.98;31.63,-7.99").getBody();
+
+        assertEquals(1, route.getLegs().size());
+        assertEquals(1200.0, route.getLegs().get(0).getDistance());
+        assertEquals(180.0, route.getLegs().get(0).getDuration());
+    }
+
+    @Test
+    void malformedPointsAreRejected() {
+        assertBadRequest("31.62,-7.98;31.63");
+        assertBadRequest("31.62,-7.98;31.63,-7.99,12.0");
+        assertBadRequest("31.62;-7.98");
+        assertBadRequest("");
+        assertBadRequest("31.62,-7.98;;31.63,-7.99");
+        assertEquals(0, upstreamPaths.size());
+    }
+
+    @Test
+    void badNumbersAreRejected() {
+        assertBadRequest("31.62,-7.98;north,-7.99");
+        assertBadRequest("31.62,-7.98;31,63,-7,99");
+        assertBadRequest("31.62,-7.98;31.63,");
+        assertEquals(0, upstreamPaths.size());
+    }
+
+    @Test
+    void tooFewOrTooManyPointsAreRejected() {
+        assertBadRequest("31.62,-7.98");
+        assertBadRequest("31.62,-7.98;");
+
+        StringJoiner points = new StringJoiner(";");
+        for (int i = 0; i < 26; i++) {
+            points.add((31.60 + i * 0.001) + ",-7.98");
+        }
+        assertBadRequest(points.toString());
+        assertEquals(0, upstreamPaths.size());
+    }
+
+    private void assertBadRequest(String points) {
+        assertEquals(HttpStatus.BAD_REQUEST, routeController.getRouteThroughWaypoints(points).getStatusCode(), points);
+    }
+
+    private ExchangeFunction stubbedDirections() {
+        return request -> {
+            upstreamPaths.add(request.url().getPath());
+            return Mono.just(ClientResponse.create(HttpStatus.OK)
+                    .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                    .body(directionsJson)
+                    .build());
+        };
+    }
+}
@@ -0,0 +1,125 @@
+package mine.routeoptimizationservice.service;
+
+import mine.routeoptimizationservice.dto.MatrixResponse;
+import mine.routeoptimizationservice.dto.Waypoint;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.ExchangeFunction;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.util.UriComponentsBuilder;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Exercises batching, caching and the upstream concurrency cap against a stub of the Mapbox
+ * matrix endpoint.
+ */
+class MatrixServiceTest {
+
+    private static final Waypoint DESTINATION = new Waypoint(31.6340, -7.9990);
+
+    private final AtomicInteger upstreamCalls = new AtomicInteger();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger peakInFlight = new AtomicInteger();
+
+    @Test
+    void originsAreBatchedAndCached() {
+        MatrixService matrixService = newService(4, Duration.ofMillis(10));
+        List<Waypoint> origins = origins(30, 0);
+
+        MatrixResponse first = matrixService.getDriveTimes(origins, DESTINATION);
+
+        assertEquals("SUCCESS", first.getStatus());
+        assertEquals(30, first.getDurations().size());
+        assertTrue(first.getDurations().stream().allMatch(duration -> duration != null && duration > 0));
+        // 30 origins need two calls of at most 24 origins each
+        assertEquals(2, upstreamCalls.get());
+
+        MatrixResponse second = matrixService.getDriveTimes(origins, DESTINATION);
+        assertEquals(first.getDurations(), second.getDurations());
+        assertEquals(2, upstreamCalls.get());
+        assertEquals(30, matrixService.getCacheStats().hits());
+    }
+
+    @Test
+    void upstreamConcurrencyIsCapped() throws Exception {
+        MatrixService matrixService = newService(2, Duration.ofMillis(100));
+        int callers = 8;
+        ExecutorService pool = Executors.newFixedThreadPool(callers);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<MatrixResponse>> results = new ArrayList<>();
+        try {
+            for (int i = 0; i < callers; i++) {
+                List<Waypoint> origins = origins(5, i);
+                results.add(pool.submit(() -> {
+                    start.await();
+                    return matrixService.getDriveTimes(origins, DESTINATION);
+                }));
+            }
+            start.countDown();
+            for (Future<MatrixResponse> result : results) {
+                assertEquals("SUCCESS", result.get(10, TimeUnit.SECONDS).getStatus());
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        assertEquals(callers, upstreamCalls.get());
+        assertTrue(peakInFlight.get() <= 2, "peak in-flight upstream calls: " + peakInFlight.get());
+    }
+
+    @Test
+    void rejectsEmptyOrigins() {
+        MatrixService matrixService = newService(4, Duration.ZERO);
+        assertThrows(IllegalArgumentException.class, () -> matrixService.getDriveTimes(List.of(), DESTINATION));
+    }
+
+    private MatrixService newService(int maxConcurrentCalls, Duration latency) {
+        WebClient.Builder webClientBuilder = WebClient.builder().exchangeFunction(stubbedMatrix(latency));
+        return new MatrixService(webClientBuilder, 4, 1000, 60_000, maxConcurrentCalls, 10_000, 100);
+    }
+
+    private static List<Waypoint> origins(int count, int batch) {
+        List<Waypoint> origins = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            origins.add(new Waypoint(31.60 + batch * 0.01 + i * 0.001, -7.95 - i * 0.001));
+        }
+        return origins;
+    }
+
+    private ExchangeFunction stubbedMatrix(Duration latency) {
+        return request -> {
+            upstreamCalls.incrementAndGet();
+            peakInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+
+            String sources = UriComponentsBuilder.fromUri(request.url()).build().getQueryParams().getFirst("sources");
+            int rows = sources.split(";").length;
+            StringBuilder durations = new StringBuilder();
+            StringBuilder distances = new StringBuilder();
+            for (int i = 0; i < rows; i++) {
+                String separator = i > 0 ? "," : "";
+                durations.append(separator).append('[').append(60.0 + i).append(']');
+                distances.append(separator).append('[').append(500.0 + i).append(']');
+            }
+            String body = "{\"code\":\"Ok\",\"durations\":[" + durations + "],\"distances\":[" + distances + "]}";
+
+            ClientResponse response = ClientResponse.create(HttpStatus.OK)
+                    .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                    .body(body)
+                    .build();
+            return Mono.delay(latency)
+                    .thenReturn(response)
+                    .doFinally(signal -> inFlight.decrementAndGet());
+        };
+    }
+}
@@ -0,0 +1,90 @@
+package mine.routeoptimizationservice.service;
+
+import mine.routeoptimizationservice.cache.RouteCache;
+import mine.routeoptimizationservice.dto.RouteResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.ExchangeFunction;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Exercises the route cache against a local stub of the Mapbox directions endpoint.
+ */
+class RouteServiceCacheTest {
+
+    private static final String DIRECTIONS_JSON = """
+            {"routes":[{"geometry":"_p~iF~ps|U_ulLnnqC_mqNvxq`@","distance":1200.0,"duration":180.0}]}""";
+
+    private final AtomicInteger upstreamCalls = new AtomicInteger();
+    private RouteService routeService;
+
+    @BeforeEach
+    void setUp() {
+        WebClient.Builder webClientBuilder = WebClient.builder().exchangeFunction(stubbedDirections(Duration.ofMillis(200)));
+        routeService = new RouteService(webClientBuilder, 4, 100, 60_000);
+    }
+
+    @Test
+    void nearbyCoordinatesShareOneUpstreamCall() {
+        RouteResponse first = routeService.getOptimizedRoute(31.62551, -7.98101, 31.63400, -7.99900);
+        RouteResponse second = routeService.getOptimizedRoute(31.62549, -7.98099, 31.63401, -7.99898);
+
+        assertEquals("SUCCESS", first.getStatus());
+        assertEquals(first.getGeometry(), second.getGeometry());
+        assertEquals(1, upstreamCalls.get());
+
+        RouteCache.CacheStats stats = routeService.getCacheStats();
+        assertEquals(1, stats.hits());
+        assertEquals(1, stats.misses());
+    }
+
+    @Test
+    void concurrentRequestsForTheSameKeyMakeOneUpstreamCall() throws Exception {
+        int callers = 16;
+        ExecutorService pool = Executors.newFixedThreadPool(callers);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<RouteResponse>> results = new ArrayList<>();
+        try {
+            for (int i = 0; i < callers; i++) {
+                results.add(pool.submit(() -> {
+                    start.await();
+                    return routeService.getOptimizedRoute(31.6255, -7.9810, 31.6340, -7.9990);
+                }));
+            }
+            start.countDown();
+            for (Future<RouteResponse> result : results) {
+                assertEquals("SUCCESS", result.get(10, TimeUnit.SECONDS).getStatus());
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        assertEquals(1, upstreamCalls.get());
+        RouteCache.CacheStats stats = routeService.getCacheStats();
+        assertEquals(callers - 1, stats.hits() + stats.coalesced());
+    }
+
+    private ExchangeFunction stubbedDirections(Duration latency) {
+        return request -> {
+            upstreamCalls.incrementAndGet();
+            ClientResponse response = ClientResponse.create(HttpStatus.OK)
+                    .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                    .body(DIRECTIONS_JSON)
+                    .build();
+            return Mono.delay(latency).thenReturn(response);
+        };
+    }
+}